@@ -0,0 +1,195 @@
+package com.dsaplatform.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration properties for running user code in the code editor.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "code-execution")
+public class CodeExecutionProperties {
+
+    /**
+     * Where compiled classes are kept: MEMORY compiles to byte arrays handed to the child JVM on stdin,
+     * DISK writes the source and classes to a temporary directory per run.
+     * Default: MEMORY
+     */
+    private CompileMode compileMode = CompileMode.MEMORY;
+
+    /**
+     * Wall-clock limit for running a program.
+     * Default: 5
+     */
+    private long timeoutSeconds = 5;
+
+    /**
+     * Compiler file managers kept warm for in-memory compilation; about one per concurrent compilation.
+     * Default: 4
+     */
+    private int fileManagerPoolSize = 4;
+
+    /**
+     * Output a streamed run may write before it is stopped.
+     * Default: 65536
+     */
+    private long maxStreamedOutputChars = 65536;
+
+    /**
+     * Extra time a judged test case gets when it runs in a JVM of its own instead of a pooled worker, to
+     * cover JVM startup, in milliseconds.
+     * Default: 1000
+     */
+    private long coldStartAllowanceMillis = 1000;
+
+    /**
+     * Time budget for judging one submission over all its test cases, in seconds. Cases not started by
+     * then are skipped.
+     * Default: 30
+     */
+    private long judgeMaxSeconds = 30;
+
+    /**
+     * Length of each warmup and measurement iteration of a benchmark run, in milliseconds.
+     * Default: 100
+     */
+    private long benchmarkIterationMillis = 100;
+
+    /**
+     * Time budget of a complexity estimate over all input sizes, in seconds.
+     * Default: 20
+     */
+    private long complexityMaxSeconds = 20;
+
+    /**
+     * Whether child JVMs map a class-data-sharing archive, created by a training run on first start
+     * and again whenever the JDK changes.
+     * Default: true
+     */
+    private boolean classDataSharing = true;
+
+    /**
+     * JVM options for every child JVM.
+     * Default: -XX:+UseSerialGC, -XX:-UsePerfData, -Xmx256m
+     */
+    private List<String> jvmOptions = new ArrayList<>(List.of("-XX:+UseSerialGC", "-XX:-UsePerfData", "-Xmx256m"));
+
+    /**
+     * Additional JVM options for JVMs running a single program; not used for pooled workers.
+     * Default: -XX:TieredStopAtLevel=1
+     */
+    private List<String> coldJvmOptions = new ArrayList<>(List.of("-XX:TieredStopAtLevel=1"));
+
+    private Pool pool = new Pool();
+
+    private Cache cache = new Cache();
+
+    private Scheduler scheduler = new Scheduler();
+
+    /**
+     * Pre-started worker JVMs for in-memory runs. A run finding no idle worker starts a JVM of its own.
+     */
+    @Data
+    public static class Pool {
+
+        /**
+         * Whether in-memory runs use pooled workers.
+         * Default: true
+         */
+        private boolean enabled = true;
+
+        /**
+         * Worker JVMs kept running.
+         * Default: 2
+         */
+        private int size = 2;
+
+        /**
+         * Runs after which a worker is replaced by a fresh JVM. Workers are also replaced after any run
+         * that times out, exits the JVM or leaves threads running.
+         * Default: 50
+         */
+        private int maxRunsPerWorker = 50;
+    }
+
+    /**
+     * Cache of compiled submissions for in-memory runs, so resubmitted code skips compilation.
+     */
+    @Data
+    public static class Cache {
+
+        /**
+         * Whether compiled classes are cached.
+         * Default: true
+         */
+        private boolean enabled = true;
+
+        /**
+         * Approximate memory held by cached class files and output; least recently used entries are evicted.
+         * Default: 67108864 (64 MB)
+         */
+        private long maxBytes = 64L * 1024 * 1024;
+
+        /**
+         * Whether the output of programs that cannot observe input, time or randomness is cached as well,
+         * so resubmitting them skips the run.
+         * Default: true
+         */
+        private boolean cacheOutput = true;
+    }
+
+    /**
+     * Limits on concurrent runs. Runs beyond the limit wait in a queue shared fairly between clients;
+     * runs that cannot be queued are refused with 503 and a Retry-After hint.
+     */
+    @Data
+    public static class Scheduler {
+
+        /**
+         * Compilations and runs executing at a time; 0 uses the number of available cores.
+         * Default: 0
+         */
+        private int maxConcurrentRuns = 0;
+
+        /**
+         * Runs waiting for a slot, over all clients.
+         * Default: 50
+         */
+        private int maxQueueSize = 50;
+
+        /**
+         * Runs one user or remote address may have waiting.
+         * Default: 3
+         */
+        private int maxQueuedPerClient = 3;
+
+        /**
+         * How long a run waits for a slot before it is refused.
+         * Default: 10
+         */
+        private long maxWaitSeconds = 10;
+
+        /**
+         * System CPU load (0 to 1) above which new runs are refused while others are executing.
+         * Default: 0.9
+         */
+        private double maxCpuLoad = 0.9;
+
+        /**
+         * How long the slot taken for a streamed run is kept for its stream to be subscribed, in milliseconds;
+         * it is freed if the response never starts, e.g. because the request was aborted.
+         * Default: 30000
+         */
+        private long streamSubscribeTimeoutMillis = 30000;
+    }
+
+    public enum CompileMode {
+        MEMORY,
+        DISK
+    }
+}
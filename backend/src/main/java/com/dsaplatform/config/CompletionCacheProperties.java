@@ -0,0 +1,46 @@
+package com.dsaplatform.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the chat completion cache.
+ * Completions of identical prompts (same model, temperature, token limit and messages)
+ * are reused across services for call sites that opt in.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "openai.completion-cache")
+public class CompletionCacheProperties {
+
+    /**
+     * Whether opted-in completions are cached.
+     * Default: true
+     */
+    private boolean enabled = true;
+
+    /**
+     * How long a cached completion stays valid, in minutes.
+     * Default: 10080 (7 days)
+     */
+    private long ttlMinutes = 10080;
+
+    /**
+     * Maximum completions kept in the database; the oldest are evicted first.
+     * Default: 10000
+     */
+    private int maxEntries = 10000;
+
+    /**
+     * Maximum completions kept in memory in front of the database (LRU).
+     * Default: 500
+     */
+    private int memoryMaxEntries = 500;
+
+    /**
+     * Interval between eviction runs in milliseconds.
+     * Default: 600000 (10 minutes)
+     */
+    private long evictionIntervalMillis = 600000;
+}
@@ -0,0 +1,39 @@
+package com.dsaplatform.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for coalescing concurrent embedding requests
+ * into batched provider calls.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "openai.embedding-batch")
+public class EmbeddingBatchProperties {
+
+    /**
+     * Whether single-text embedding requests are micro-batched.
+     * Default: true
+     */
+    private boolean enabled = true;
+
+    /**
+     * How long the first request of a batch waits for others to join, in milliseconds.
+     * Default: 5
+     */
+    private long windowMillis = 5;
+
+    /**
+     * Number of inputs that triggers an immediate flush.
+     * Default: 64
+     */
+    private int maxBatchSize = 64;
+
+    /**
+     * Maximum number of batches sent to the provider concurrently.
+     * Default: 4
+     */
+    private int maxConcurrentBatches = 4;
+}
@@ -0,0 +1,84 @@
+package com.dsaplatform.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration properties for coordinating on-demand content generation,
+ * so that concurrent requests for the same chapter or lesson trigger a single LLM call.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "content-generation")
+public class GenerationProperties {
+
+    /**
+     * How long a generation lock stays valid without being renewed, in milliseconds. Locks are renewed
+     * while their generation runs, so this only bounds how long a crashed node blocks others.
+     * Default: 120000 (2 minutes)
+     */
+    private long lockTtlMillis = 120000;
+
+    /**
+     * Interval between renewals of the generation locks this node holds, in milliseconds.
+     * Should be well below the lock TTL.
+     * Default: 30000 (30 seconds)
+     */
+    private long lockRenewIntervalMillis = 30000;
+
+    /**
+     * How long a request waits for another node's generation to finish, in milliseconds.
+     * Waiting goes on past this while the other node still renews its lock.
+     * Default: 90000 (90 seconds)
+     */
+    private long waitTimeoutMillis = 90000;
+
+    /**
+     * Interval between checks while another node is generating, in milliseconds.
+     * Default: 500
+     */
+    private long pollIntervalMillis = 500;
+
+    /**
+     * How long generated lesson content is fresh, in hours. Expired content is still served
+     * while it is regenerated in the background.
+     * Default: 720 (30 days)
+     */
+    private long lessonContentTtlHours = 720;
+
+    /**
+     * Delay before retrying a failed background refresh, in minutes. The old content is served meanwhile.
+     * Default: 15
+     */
+    private long refreshRetryMinutes = 15;
+
+    private Pregeneration pregeneration = new Pregeneration();
+
+    /**
+     * Background job that generates missing chapter and lesson content ahead of the first visitor.
+     */
+    @Data
+    public static class Pregeneration {
+        /**
+         * Cron expression for scheduled runs; "-" disables scheduling (admin-triggered runs still work).
+         * Default: -
+         */
+        private String cron = "-";
+
+        /**
+         * Number of chapters/lessons generated in parallel.
+         * Default: 2
+         */
+        private int concurrency = 2;
+
+        /**
+         * Chapter names to generate in addition to the chapters stored in the database.
+         * Default: empty
+         */
+        private List<String> topics = new ArrayList<>();
+    }
+}
@@ -30,6 +30,13 @@ public class OpenAIProperties {
      */
     private String embeddingModel = "openai/text-embedding-3-small";
     
+    /**
+     * Request embeddings as base64-encoded float32 instead of JSON number arrays.
+     * Roughly quarters the response size; automatically disabled if the provider rejects it.
+     * Default: true
+     */
+    private boolean embeddingBase64 = true;
+    
     /**
      * Model to use for chat completions.
      * Default: openai/gpt-3.5-turbo (via OpenRouter)
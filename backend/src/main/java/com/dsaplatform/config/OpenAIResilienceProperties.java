@@ -0,0 +1,199 @@
+package com.dsaplatform.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration properties for resilience around provider calls:
+ * per-operation circuit breakers, bounded retries, hedging, request deadlines and
+ * per-model bulkheads.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "openai.resilience")
+public class OpenAIResilienceProperties {
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private Retry retry = new Retry();
+    private Hedging hedging = new Hedging();
+    private Deadline deadline = new Deadline();
+    private Bulkhead bulkhead = new Bulkhead();
+
+    @Data
+    public static class CircuitBreaker {
+        /**
+         * Failure rate (0.0 - 1.0) over the sliding window that opens the breaker.
+         * Default: 0.5
+         */
+        private double failureRateThreshold = 0.5;
+
+        /**
+         * Number of most recent calls considered for the failure rate.
+         * Default: 20
+         */
+        private int slidingWindowSize = 20;
+
+        /**
+         * Minimum calls in the window before the failure rate is evaluated.
+         * Default: 10
+         */
+        private int minimumCalls = 10;
+
+        /**
+         * How long the breaker stays open before allowing trial calls, in milliseconds.
+         * Default: 30000 (30 seconds)
+         */
+        private long openDurationMillis = 30000;
+
+        /**
+         * Trial calls allowed while half-open.
+         * Default: 2
+         */
+        private int halfOpenPermittedCalls = 2;
+    }
+
+    @Data
+    public static class Retry {
+        /**
+         * Total attempts per call, including the first one.
+         * Default: 3
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * Initial backoff between attempts in milliseconds (doubles per attempt).
+         * Default: 200
+         */
+        private long initialBackoffMillis = 200;
+
+        /**
+         * Upper bound for the backoff in milliseconds.
+         * Default: 2000
+         */
+        private long maxBackoffMillis = 2000;
+
+        /**
+         * Jitter factor (0.0 - 1.0) applied to each backoff.
+         * Default: 0.5
+         */
+        private double jitter = 0.5;
+
+        /**
+         * Retry tokens earned per call; each retry spends one token.
+         * 0.2 means retries may add at most ~20% extra load.
+         * Default: 0.2
+         */
+        private double budgetRatio = 0.2;
+
+        /**
+         * Maximum retry tokens that can be saved up.
+         * Default: 10
+         */
+        private double budgetMaxTokens = 10;
+    }
+
+    @Data
+    public static class Hedging {
+        /**
+         * Whether hedged second requests are sent.
+         * Default: false
+         */
+        private boolean enabled = false;
+
+        /**
+         * Operations eligible for hedging (e.g. "embeddings", "chat").
+         * Default: embeddings
+         */
+        private List<String> operations = new ArrayList<>(List.of("embeddings"));
+
+        /**
+         * Latency percentile after which the hedge is sent.
+         * Default: 0.95
+         */
+        private double percentile = 0.95;
+
+        /**
+         * Minimum latency samples before hedging is considered.
+         * Default: 20
+         */
+        private int minSamples = 20;
+
+        /**
+         * Lower bound for the hedge delay in milliseconds.
+         * Default: 50
+         */
+        private long minDelayMillis = 50;
+    }
+
+    @Data
+    public static class Deadline {
+        /**
+         * Time budget for a request when the client does not send one, in milliseconds.
+         * Default: 30000 (30 seconds)
+         */
+        private long defaultBudgetMillis = 30000;
+
+        /**
+         * Largest budget a client may request, in milliseconds.
+         * Default: 120000 (2 minutes)
+         */
+        private long maxBudgetMillis = 120000;
+
+        /**
+         * Request header carrying the client's budget in milliseconds.
+         * Default: X-Request-Timeout-Ms
+         */
+        private String header = "X-Request-Timeout-Ms";
+    }
+
+    @Data
+    public static class Bulkhead {
+        /**
+         * Whether provider calls are limited per model.
+         * Default: true
+         */
+        private boolean enabled = true;
+
+        /**
+         * Concurrent in-flight calls allowed per model.
+         * Default: 8
+         */
+        private int maxConcurrentCalls = 8;
+
+        /**
+         * Per-model overrides of the concurrency limit, keyed by model name.
+         */
+        private Map<String, Integer> modelLimits = new HashMap<>();
+
+        /**
+         * Calls that may wait for a permit per model; when full, a newcomer displaces
+         * a lower-priority waiter or is rejected.
+         * Default: 100
+         */
+        private int maxQueueSize = 100;
+
+        /**
+         * Longest time an interactive call waits for a permit, in milliseconds.
+         * Default: 5000 (5 seconds)
+         */
+        private long interactiveMaxWaitMillis = 5000;
+
+        /**
+         * Longest time a content generation call waits for a permit, in milliseconds.
+         * Default: 20000 (20 seconds)
+         */
+        private long generationMaxWaitMillis = 20000;
+
+        /**
+         * Longest time a batch call waits for a permit, in milliseconds.
+         * Default: 60000 (1 minute)
+         */
+        private long batchMaxWaitMillis = 60000;
+    }
+}
@@ -0,0 +1,52 @@
+package com.dsaplatform.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the quiz question bank.
+ * Quizzes are sampled from stored questions per (topic, difficulty) pool;
+ * pools are refilled by the LLM in the background.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "quiz.bank")
+public class QuizBankProperties {
+
+    /**
+     * Whether quizzes are served from the bank. When false every quiz is generated live.
+     * Default: true
+     */
+    private boolean enabled = true;
+
+    /**
+     * A refill starts when fewer questions than this remain unseen for the requesting user.
+     * Default: 20
+     */
+    private int lowWaterMark = 20;
+
+    /**
+     * Questions requested from the LLM per refill call.
+     * Default: 10
+     */
+    private int refillBatchSize = 10;
+
+    /**
+     * Pools stop growing at this size; users who have seen most of a full pool get some repeats.
+     * Default: 500
+     */
+    private int maxPoolSize = 500;
+
+    /**
+     * Number of pools refilled in parallel.
+     * Default: 2
+     */
+    private int refillConcurrency = 2;
+
+    /**
+     * Questions served to a user within this many days are avoided when sampling.
+     * Default: 14
+     */
+    private int seenWindowDays = 14;
+}
@@ -1,6 +1,7 @@
 package com.dsaplatform.config;
 
 import com.dsaplatform.interceptor.RateLimitInterceptor;
+import com.dsaplatform.interceptor.RequestDeadlineInterceptor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
@@ -16,11 +17,23 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class WebMvcConfig implements WebMvcConfigurer {
 
     private final RateLimitInterceptor rateLimitInterceptor;
+    private final RequestDeadlineInterceptor requestDeadlineInterceptor;
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         // Apply rate limiting only to chat endpoints
         registry.addInterceptor(rateLimitInterceptor)
                 .addPathPatterns("/api/chat/**");
+        
+        // Start a time budget for every API request so provider calls cannot outlive it.
+        // Lesson and chapter generation is exempt: it legitimately runs for minutes, is shared
+        // between concurrent readers and is bounded by the provider timeouts instead.
+        registry.addInterceptor(requestDeadlineInterceptor)
+                .addPathPatterns("/api/**")
+                .excludePathPatterns(
+                        "/api/lessons/*/content",
+                        "/api/lessons/*/content/stream",
+                        "/api/lessons/*/content/refresh",
+                        "/api/chapters/*/lessons");
     }
 }
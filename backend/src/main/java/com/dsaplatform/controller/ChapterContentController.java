@@ -1,10 +1,11 @@
 package com.dsaplatform.controller;
 
 import com.dsaplatform.dto.response.ApiResponse;
-import com.dsaplatform.dto.response.ChapterContentResponse;
 import com.dsaplatform.service.ContentGenerationService;
+import com.dsaplatform.util.PrecompressedBody;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -25,21 +26,19 @@ public class ChapterContentController {
      * otherwise generates new content using LLM and caches it.
      * 
      * @param chapterName The name of the chapter (e.g., "Stack", "Queue", "Linked List")
-     * @return ChapterContentResponse with lessons
+     * @return ChapterContentResponse with lessons, gzipped if accepted; 304 if If-None-Match matches
      */
     @GetMapping("/{chapterName}/lessons")
-    public ResponseEntity<ApiResponse<ChapterContentResponse>> getChapterLessons(
-            @PathVariable String chapterName) {
+    public ResponseEntity<byte[]> getChapterLessons(
+            @PathVariable String chapterName,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         
         log.info("Received request for chapter lessons: {}", chapterName);
         
-        ChapterContentResponse content = contentGenerationService.getOrGenerateChapterContent(chapterName);
-        
-        String message = content.isCached() 
-                ? "Retrieved cached content for chapter: " + chapterName
-                : "Generated new content for chapter: " + chapterName;
+        PrecompressedBody body = contentGenerationService.getChapterContentBody(chapterName);
         
-        return ResponseEntity.ok(ApiResponse.success(content, message));
+        return body.toResponse(ifNoneMatch, acceptEncoding);
     }
     
     /**
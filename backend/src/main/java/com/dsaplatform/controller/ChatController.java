@@ -4,6 +4,7 @@ import com.dsaplatform.dto.request.ChatRequest;
 import com.dsaplatform.dto.request.EmbedContentRequest;
 import com.dsaplatform.dto.response.ApiResponse;
 import com.dsaplatform.dto.response.ChatResponse;
+import com.dsaplatform.dto.response.ChatStreamEvent;
 import com.dsaplatform.dto.response.EmbedResponse;
 import com.dsaplatform.model.entity.ChatLog;
 import com.dsaplatform.service.ChatService;
@@ -15,9 +16,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.time.LocalDateTime;
 
@@ -60,6 +64,30 @@ public class ChatController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    /**
+     * Process a user question using RAG and stream the answer as Server-Sent Events.
+     * Emits a "meta" event with the chat id, confidence and related chapters, then
+     * one "token" event per generated delta, and finally "done" (or "error").
+     * Closing the connection cancels the upstream completion.
+     * 
+     * @param request The chat request containing the user's question
+     * @param authentication The current user's authentication
+     * @return Stream of chat events
+     */
+    @PostMapping(value = "/ask/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ChatStreamEvent>> askQuestionStream(
+            @Valid @RequestBody ChatRequest request,
+            Authentication authentication) {
+        
+        Long userId = securityUtil.getUserId(authentication);
+        log.info("Streaming answer for user {}", userId);
+        
+        return chatService.streamQuestion(request, userId)
+                .map(event -> ServerSentEvent.builder(event)
+                        .event(event.getType())
+                        .build());
+    }
+
     /**
      * Embed lesson content into the vector database.
      * Chunks the lesson content, generates embeddings via OpenAI,
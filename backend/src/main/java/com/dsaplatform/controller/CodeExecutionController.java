@@ -1,12 +1,29 @@
 package com.dsaplatform.controller;
 
+import com.dsaplatform.dto.request.BenchmarkRequest;
 import com.dsaplatform.dto.request.CodeExecutionRequest;
+import com.dsaplatform.dto.request.ComplexityRequest;
+import com.dsaplatform.dto.request.JudgeRequest;
 import com.dsaplatform.dto.response.ApiResponse;
+import com.dsaplatform.dto.response.BenchmarkResponse;
 import com.dsaplatform.dto.response.CodeExecutionResponse;
+import com.dsaplatform.dto.response.CodeOutputEvent;
+import com.dsaplatform.dto.response.ComplexityResponse;
+import com.dsaplatform.dto.response.JudgeResponse;
+import com.dsaplatform.exception.ExecutionRejectedException;
 import com.dsaplatform.service.CodeExecutionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
 
 @RestController
 @RequestMapping("/api/code")
@@ -17,10 +34,18 @@ public class CodeExecutionController {
     
     @PostMapping("/execute")
     public ResponseEntity<ApiResponse<CodeExecutionResponse>> executeCode(
-            @RequestBody CodeExecutionRequest request) {
+            @RequestBody CodeExecutionRequest request,
+            Authentication authentication,
+            HttpServletRequest httpRequest) {
         try {
-            CodeExecutionResponse response = codeExecutionService.executeJavaCode(request.getCode());
+            String client = clientKey(authentication, httpRequest);
+            CodeExecutionResponse response = request.isCountOperations()
+                    ? codeExecutionService.executeCountingOperations(request.getCode(), client)
+                    : codeExecutionService.executeJavaCode(request.getCode(), client);
             return ResponseEntity.ok(ApiResponse.success(response, "Code executed successfully"));
+        } catch (ExecutionRejectedException e) {
+            // Answered with 503 and Retry-After by the exception handler
+            throw e;
         } catch (Exception e) {
             CodeExecutionResponse errorResponse = CodeExecutionResponse.builder()
                     .output("")
@@ -30,4 +55,82 @@ public class CodeExecutionController {
             return ResponseEntity.ok(ApiResponse.success(errorResponse, "Execution completed with errors"));
         }
     }
+    
+    /**
+     * Run code and stream its output over Server-Sent Events as the program writes it.
+     * Events are named after their type: "output" chunks, then "done" with how the program ended,
+     * or a single "error" if the code did not compile.
+     */
+    @PostMapping(value = "/execute/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<CodeOutputEvent>> streamCode(
+            @RequestBody CodeExecutionRequest request,
+            Authentication authentication,
+            HttpServletRequest httpRequest) {
+        return codeExecutionService.streamJavaCode(request.getCode(), clientKey(authentication, httpRequest))
+                .map(event -> ServerSentEvent.builder(event)
+                        .event(event.getType())
+                        .build());
+    }
+    
+    /**
+     * Judge code against test cases: compiled once, then run with each case's input on stdin.
+     */
+    @PostMapping("/judge")
+    public ResponseEntity<ApiResponse<JudgeResponse>> judgeCode(
+            @Valid @RequestBody JudgeRequest request,
+            Authentication authentication,
+            HttpServletRequest httpRequest) {
+        JudgeResponse response = codeExecutionService.judge(
+                request.getCode(),
+                request.getTestCases(),
+                Duration.ofMillis(request.getTimeLimitMillis()),
+                clientKey(authentication, httpRequest));
+        return ResponseEntity.ok(ApiResponse.success(response, "Code judged successfully"));
+    }
+    
+    /**
+     * Benchmark the code's benchmark(int n) method: warmup, then measured iterations reporting time,
+     * allocation and garbage collections per call.
+     */
+    @PostMapping("/benchmark")
+    public ResponseEntity<ApiResponse<BenchmarkResponse>> benchmarkCode(
+            @Valid @RequestBody BenchmarkRequest request,
+            Authentication authentication,
+            HttpServletRequest httpRequest) {
+        BenchmarkResponse response = codeExecutionService.benchmark(
+                request.getCode(),
+                request.getN(),
+                request.getWarmupIterations(),
+                request.getMeasurementIterations(),
+                clientKey(authentication, httpRequest));
+        return ResponseEntity.ok(ApiResponse.success(response, "Code benchmarked successfully"));
+    }
+    
+    /**
+     * Estimate the time complexity of the code's benchmark method from its running time at growing input sizes.
+     */
+    @PostMapping("/complexity")
+    public ResponseEntity<ApiResponse<ComplexityResponse>> estimateComplexity(
+            @Valid @RequestBody ComplexityRequest request,
+            Authentication authentication,
+            HttpServletRequest httpRequest) {
+        ComplexityResponse response = codeExecutionService.estimateComplexity(
+                request.getCode(),
+                request.getMinN(),
+                request.getMaxN(),
+                request.getGrowthFactor(),
+                clientKey(authentication, httpRequest));
+        return ResponseEntity.ok(ApiResponse.success(response, "Complexity estimated successfully"));
+    }
+    
+    /**
+     * Runs are queued per signed-in user; anonymous runs per remote address.
+     */
+    static String clientKey(Authentication authentication, HttpServletRequest request) {
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
 }
@@ -0,0 +1,44 @@
+package com.dsaplatform.controller;
+
+import com.dsaplatform.dto.response.ApiResponse;
+import com.dsaplatform.dto.response.PregenerationStatusDto;
+import com.dsaplatform.service.ContentPregenerationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Admin endpoints to pre-generate missing chapter and lesson content and follow its progress.
+ */
+@RestController
+@RequestMapping("/api/admin/pregeneration")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class ContentPregenerationController {
+
+    private final ContentPregenerationService pregenerationService;
+
+    /**
+     * Starts a pre-generation run in the background, or reports the one already running.
+     */
+    @PostMapping
+    public ResponseEntity<ApiResponse<PregenerationStatusDto>> start(Authentication authentication) {
+        PregenerationStatusDto status = pregenerationService.start(authentication.getName());
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(status, "Pre-generation started"));
+    }
+
+    /**
+     * Progress of the current or most recent run.
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<PregenerationStatusDto>> getStatus() {
+        return ResponseEntity.ok(ApiResponse.success(pregenerationService.getStatus()));
+    }
+}
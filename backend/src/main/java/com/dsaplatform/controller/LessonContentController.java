@@ -1,12 +1,19 @@
 package com.dsaplatform.controller;
 
 import com.dsaplatform.dto.response.ApiResponse;
-import com.dsaplatform.dto.response.LessonContentResponse;
+import com.dsaplatform.dto.response.LessonStreamEvent;
+import com.dsaplatform.exception.ContentNotFoundException;
 import com.dsaplatform.service.LessonContentService;
+import com.dsaplatform.util.PrecompressedBody;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 /**
  * REST Controller for lesson content generation and retrieval.
@@ -25,24 +32,46 @@ public class LessonContentController {
      * @param lessonId The lesson identifier
      * @param lessonTitle The lesson title (query param)
      * @param topic The topic/subject (query param)
-     * @return LessonContentResponse with markdown content
+     * @return LessonContentResponse with markdown content, gzipped if accepted; 304 if If-None-Match matches
      */
     @GetMapping("/{lessonId}/content")
-    public ResponseEntity<ApiResponse<LessonContentResponse>> getLessonContent(
+    public ResponseEntity<byte[]> getLessonContent(
             @PathVariable String lessonId,
             @RequestParam String lessonTitle,
-            @RequestParam String topic) {
+            @RequestParam String topic,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         
         log.info("📚 Request for lesson content: {} ({})", lessonTitle, lessonId);
         
-        LessonContentResponse response = lessonContentService.getLessonContent(
-                lessonId, lessonTitle, topic);
+        PrecompressedBody body = lessonContentService.getLessonContentBody(lessonId, lessonTitle, topic);
         
-        String message = response.isCached() 
-                ? "Content retrieved from cache" 
-                : "Content generated successfully";
+        return body.toResponse(ifNoneMatch, acceptEncoding);
+    }
+    
+    /**
+     * Stream lesson content as Server-Sent Events while it is generated.
+     * Emits "meta", then "chunk" events with markdown in order, and finally "done" (or "error").
+     * Cached content arrives as a single chunk. Viewers of a lesson that is already being
+     * generated attach to that generation instead of starting another.
+     * 
+     * @param lessonId The lesson identifier
+     * @param lessonTitle The lesson title (query param)
+     * @param topic The topic/subject (query param)
+     * @return Stream of lesson content events
+     */
+    @GetMapping(value = "/{lessonId}/content/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<LessonStreamEvent>> streamLessonContent(
+            @PathVariable String lessonId,
+            @RequestParam String lessonTitle,
+            @RequestParam String topic) {
+        
+        log.info("📡 Request to stream lesson content: {} ({})", lessonTitle, lessonId);
         
-        return ResponseEntity.ok(ApiResponse.success(response, message));
+        return lessonContentService.streamLessonContent(lessonId, lessonTitle, topic)
+                .map(event -> ServerSentEvent.builder(event)
+                        .event(event.getType())
+                        .build());
     }
     
     /**
@@ -60,6 +89,25 @@ public class LessonContentController {
         return ResponseEntity.ok(ApiResponse.success(null, "Cached content deleted successfully"));
     }
     
+    /**
+     * Regenerate cached content in the background (admin operation).
+     * Readers keep getting the current version until the new one replaces it.
+     * 
+     * @param lessonId The lesson identifier
+     * @return 202 if a refresh was scheduled, 404 if nothing is cached
+     */
+    @PostMapping("/{lessonId}/content/refresh")
+    public ResponseEntity<ApiResponse<Void>> refreshCachedContent(@PathVariable String lessonId) {
+        log.info("🔄 Request to refresh cached content for lesson: {}", lessonId);
+        
+        if (!lessonContentService.refreshCachedContent(lessonId)) {
+            throw new ContentNotFoundException("No cached content for lesson: " + lessonId);
+        }
+        
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(null, "Content refresh scheduled"));
+    }
+    
     /**
      * Check if content exists in cache.
      * 
@@ -0,0 +1,39 @@
+package com.dsaplatform.controller;
+
+import com.dsaplatform.dto.response.ApiResponse;
+import com.dsaplatform.dto.response.LlmUsageSummaryDto;
+import com.dsaplatform.service.LlmUsageRecorder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Admin endpoint reporting AI provider usage (tokens, calls, latency) from the hourly rollups.
+ */
+@RestController
+@RequestMapping("/api/admin/llm-usage")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class LlmUsageController {
+
+    private final LlmUsageRecorder usageRecorder;
+
+    /**
+     * Usage over the last hours grouped by endpoint, feature, model or user.
+     *
+     * @param hours number of hourly buckets to include, counting the current one
+     * @param groupBy one of endpoint, feature, model, user
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<LlmUsageSummaryDto>>> getUsage(
+            @RequestParam(defaultValue = "24") int hours,
+            @RequestParam(defaultValue = "feature") String groupBy) {
+        return ResponseEntity.ok(ApiResponse.success(usageRecorder.summarize(hours, groupBy)));
+    }
+}
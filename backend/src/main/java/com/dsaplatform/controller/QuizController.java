@@ -3,18 +3,27 @@ package com.dsaplatform.controller;
 import com.dsaplatform.dto.request.QuizGenerationRequest;
 import com.dsaplatform.dto.response.ApiResponse;
 import com.dsaplatform.dto.response.QuizResponse;
-import com.dsaplatform.service.QuizGenerationService;
+import com.dsaplatform.dto.response.QuizStreamEvent;
+import com.dsaplatform.service.QuizBankService;
 import com.dsaplatform.util.SecurityUtil;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * REST Controller for dynamic quiz generation using LLM.
  * Generates quiz questions based on DSA topics and difficulty levels.
+ * Quizzes are served from the question bank, which is refilled by the LLM in the background.
  */
 @RestController
 @RequestMapping("/api/quiz")
@@ -22,7 +31,7 @@ import org.springframework.web.bind.annotation.*;
 @Slf4j
 public class QuizController {
 
-    private final QuizGenerationService quizGenerationService;
+    private final QuizBankService quizBankService;
     private final SecurityUtil securityUtil;
 
     /**
@@ -41,7 +50,8 @@ public class QuizController {
         log.info("Generating quiz for user {} - Topic: {}, Difficulty: {}, Questions: {}", 
                 userId, request.getTopic(), request.getDifficulty(), request.getQuestionCount());
         
-        QuizResponse response = quizGenerationService.generateQuiz(
+        QuizResponse response = quizBankService.getQuiz(
+                userId,
                 request.getTopic(),
                 request.getDifficulty(),
                 request.getQuestionCount()
@@ -50,4 +60,48 @@ public class QuizController {
         return ResponseEntity.ok(ApiResponse.success(response, 
                 "Successfully generated " + response.getQuestions().size() + " quiz questions"));
     }
+
+    /**
+     * Generate a quiz as a stream of server-sent events, one per question.
+     * Questions from the bank arrive at once; a live generation sends each question
+     * as soon as the LLM has finished writing it.
+     * 
+     * @param request The quiz generation request containing topic, difficulty, and question count
+     * @param authentication The current user's authentication
+     * @return Stream of quiz events
+     */
+    @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<QuizStreamEvent>> generateQuizStream(
+            @Valid @RequestBody QuizGenerationRequest request,
+            Authentication authentication) {
+        
+        Long userId = securityUtil.getUserId(authentication);
+        log.info("Streaming quiz for user {} - Topic: {}, Difficulty: {}, Questions: {}", 
+                userId, request.getTopic(), request.getDifficulty(), request.getQuestionCount());
+        
+        QuizStreamEvent meta = QuizStreamEvent.builder()
+                .type(QuizStreamEvent.TYPE_META)
+                .topic(request.getTopic())
+                .difficulty(request.getDifficulty())
+                .build();
+        AtomicInteger sent = new AtomicInteger();
+        Flux<QuizStreamEvent> questions = quizBankService.streamQuiz(userId, request.getTopic(),
+                        request.getDifficulty(), request.getQuestionCount())
+                .doOnNext(question -> sent.incrementAndGet())
+                .map(QuizStreamEvent::question);
+        Mono<QuizStreamEvent> done = Mono.fromSupplier(() -> QuizStreamEvent.builder()
+                .type(QuizStreamEvent.TYPE_DONE)
+                .questionCount(sent.get())
+                .generatedAt(LocalDateTime.now())
+                .build());
+        
+        return Flux.concat(Flux.just(meta), questions, done)
+                .onErrorResume(e -> {
+                    log.error("Quiz stream failed for topic {} after {} questions", request.getTopic(), sent.get(), e);
+                    return Mono.just(QuizStreamEvent.error("Failed to generate quiz"));
+                })
+                .map(event -> ServerSentEvent.builder(event)
+                        .event(event.getType())
+                        .build());
+    }
 }
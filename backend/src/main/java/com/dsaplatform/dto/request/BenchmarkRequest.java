@@ -0,0 +1,38 @@
+package com.dsaplatform.dto.request;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request DTO for benchmarking the {@code benchmark(int n)} method of a submission.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BenchmarkRequest {
+
+    @NotBlank(message = "Code is required")
+    private String code;
+
+    /** Input size passed to the benchmark method. */
+    @Min(value = 0, message = "Input size must not be negative")
+    @Max(value = 10000000, message = "Input size must be at most 10000000")
+    @Builder.Default
+    private int n = 1000;
+
+    @Min(value = 0, message = "Warmup iterations must not be negative")
+    @Max(value = 10, message = "At most 10 warmup iterations can be run")
+    @Builder.Default
+    private int warmupIterations = 3;
+
+    @Min(value = 1, message = "At least one measurement iteration is required")
+    @Max(value = 20, message = "At most 20 measurement iterations can be run")
+    @Builder.Default
+    private int measurementIterations = 5;
+}
@@ -5,4 +5,6 @@ import lombok.Data;
 @Data
 public class CodeExecutionRequest {
     private String code;
+    /** Count array accesses, comparisons, calls and allocations while the program runs. */
+    private boolean countOperations;
 }
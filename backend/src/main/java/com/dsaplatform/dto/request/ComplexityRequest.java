@@ -0,0 +1,42 @@
+package com.dsaplatform.dto.request;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request DTO for estimating the time complexity of a submission's benchmark method.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComplexityRequest {
+
+    @NotBlank(message = "Code is required")
+    private String code;
+
+    /** First input size measured. */
+    @Min(value = 1, message = "Smallest input size must be at least 1")
+    @Max(value = 1000000, message = "Smallest input size must be at most 1000000")
+    @Builder.Default
+    private int minN = 16;
+
+    /** Measuring stops after this size, or earlier when a size times out or the time budget runs out. */
+    @Min(value = 1, message = "Largest input size must be at least 1")
+    @Max(value = 10000000, message = "Largest input size must be at most 10000000")
+    @Builder.Default
+    private int maxN = 1 << 20;
+
+    /** Each size is this many times the previous one. */
+    @DecimalMin(value = "1.25", message = "Growth factor must be at least 1.25")
+    @DecimalMax(value = "16", message = "Growth factor must be at most 16")
+    @Builder.Default
+    private double growthFactor = 2;
+}
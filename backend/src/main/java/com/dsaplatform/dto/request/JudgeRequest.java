@@ -0,0 +1,50 @@
+package com.dsaplatform.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request DTO for judging a submission against test cases.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JudgeRequest {
+
+    @NotBlank(message = "Code is required")
+    private String code;
+
+    @NotEmpty(message = "At least one test case is required")
+    @Size(max = 100, message = "At most 100 test cases can be judged at once")
+    private List<@Valid @NotNull TestCase> testCases;
+
+    @Min(value = 100, message = "Time limit must be at least 100 ms")
+    @Max(value = 10000, message = "Time limit must be at most 10000 ms")
+    @Builder.Default
+    private int timeLimitMillis = 2000;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TestCase {
+
+        /** Fed to the program on stdin; may be empty. */
+        private String input;
+
+        @NotNull(message = "Expected output is required")
+        private String expectedOutput;
+    }
+}
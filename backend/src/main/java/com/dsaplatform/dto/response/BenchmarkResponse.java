@@ -0,0 +1,49 @@
+package com.dsaplatform.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of benchmarking a submission. Times are nanoseconds per call of the benchmark method; percentiles
+ * are over batches of calls lasting about a millisecond each.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BenchmarkResponse {
+
+    public enum Status {
+        COMPLETED,
+        COMPILATION_ERROR,
+        NO_BENCHMARK_METHOD,
+        RUNTIME_ERROR,
+        TIMED_OUT
+    }
+
+    private Status status;
+    private String compileError;
+    /** Program output explaining a failed run, shortened if long. */
+    private String error;
+    private Integer n;
+    private Long operations;
+    private Double meanNanosPerOp;
+    private Double p50NanosPerOp;
+    private Double p90NanosPerOp;
+    private Double p99NanosPerOp;
+    /** Heap allocated per call; missing if the JVM does not report allocation. */
+    private Double allocatedBytesPerOp;
+    /** Garbage collections during measurement. */
+    private Long gcCount;
+    private Long gcTimeMillis;
+    /**
+     * Whether the run used a pooled worker JVM. Otherwise it ran in a JVM started for it, with the same options
+     * but none of the JDK compiled yet, and results are not directly comparable to pooled runs.
+     */
+    private Boolean warmWorker;
+    private Long executionTime;
+}
@@ -0,0 +1,48 @@
+package com.dsaplatform.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Event emitted on the streaming chat endpoint.
+ * The event type doubles as the SSE event name: "meta" is sent once before any
+ * tokens, followed by "token" events and a final "done" or "error".
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChatStreamEvent {
+
+    public static final String TYPE_META = "meta";
+    public static final String TYPE_TOKEN = "token";
+    public static final String TYPE_DONE = "done";
+    public static final String TYPE_ERROR = "error";
+
+    private String type;
+    private String id;
+    private String content;
+    private Double confidenceScore;
+    private List<ChatResponse.ChapterReference> relatedChapters;
+    private LocalDateTime timestamp;
+
+    public static ChatStreamEvent token(String delta) {
+        return ChatStreamEvent.builder().type(TYPE_TOKEN).content(delta).build();
+    }
+
+    public static ChatStreamEvent error(String id, String message) {
+        return ChatStreamEvent.builder()
+                .type(TYPE_ERROR)
+                .id(id)
+                .content(message)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package com.dsaplatform.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,4 +14,25 @@ public class CodeExecutionResponse {
     private String output;
     private String error;
     private Long executionTime;
+    /** Operations the program performed, for runs with operation counting. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private OperationCounts operations;
+
+    /**
+     * Operations performed by the program's own code; work inside library methods it calls is not counted.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OperationCounts {
+        private long arrayReads;
+        private long arrayWrites;
+        /** Conditional branches, loop conditions included, and calls to compare or compareTo. */
+        private long comparisons;
+        /** Method calls, not counting constructors. */
+        private long calls;
+        /** Objects and arrays created. */
+        private long allocations;
+    }
 }
@@ -0,0 +1,53 @@
+package com.dsaplatform.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Event emitted on the streaming code execution endpoint.
+ * The event type doubles as the SSE event name: "output" events carry stdout and stderr
+ * as the program writes them, followed by a final "done", or "error" if the code did not compile.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CodeOutputEvent {
+
+    public static final String TYPE_OUTPUT = "output";
+    public static final String TYPE_DONE = "done";
+    public static final String TYPE_ERROR = "error";
+
+    public static final String STATUS_COMPLETED = "completed";
+    public static final String STATUS_FAILED = "failed";
+    public static final String STATUS_TIMED_OUT = "timed_out";
+    public static final String STATUS_OUTPUT_LIMIT = "output_limit";
+
+    private String type;
+    private String text;
+    /** How the program ended, on "done": completed, failed, timed_out or output_limit. */
+    private String status;
+    private Integer exitCode;
+    private Long executionTime;
+
+    public static CodeOutputEvent output(String text) {
+        return CodeOutputEvent.builder().type(TYPE_OUTPUT).text(text).build();
+    }
+
+    public static CodeOutputEvent done(String status, Integer exitCode, long executionTime) {
+        return CodeOutputEvent.builder()
+                .type(TYPE_DONE)
+                .status(status)
+                .exitCode(exitCode)
+                .executionTime(executionTime)
+                .build();
+    }
+
+    public static CodeOutputEvent error(String message) {
+        return CodeOutputEvent.builder().type(TYPE_ERROR).text(message).build();
+    }
+}
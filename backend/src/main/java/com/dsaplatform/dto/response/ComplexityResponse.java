@@ -0,0 +1,83 @@
+package com.dsaplatform.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Estimated time complexity of a submission, from its mean time per call at growing input sizes.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ComplexityResponse {
+
+    public enum Status {
+        COMPLETED,
+        COMPILATION_ERROR,
+        NO_BENCHMARK_METHOD,
+        RUNTIME_ERROR,
+        /** Too few sizes could be measured before stopping. */
+        INSUFFICIENT_DATA
+    }
+
+    public enum StopReason {
+        /** The largest requested size was measured. */
+        MAX_SIZE,
+        /** A size took longer than the time limit of a single run. */
+        TIMED_OUT,
+        /** The time budget of the whole estimate ran out. */
+        TIME_BUDGET,
+        /**
+         * No pooled worker freed up in time for the next size. Earlier sizes ran on workers, and a size measured
+         * in a JVM of its own would not be comparable to them.
+         */
+        WORKER_UNAVAILABLE
+    }
+
+    private Status status;
+    private String compileError;
+    /** Program output explaining a failed run, shortened if long. */
+    private String error;
+    /** Best fitting class, such as "O(n log n)". */
+    private String complexity;
+    /** Share of the likelihood of all classes held by the best fit, from 0 to 1. */
+    private Double confidence;
+    private StopReason stopReason;
+    /** Measured sizes, smallest first. */
+    private List<Measurement> measurements;
+    /** Every class considered, best first. */
+    private List<Fit> fits;
+    /**
+     * Whether the sizes were measured on pooled worker JVMs, otherwise each in a JVM started for it. All sizes
+     * of one estimate are measured the same way.
+     */
+    private Boolean warmWorker;
+    private Long executionTime;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Measurement {
+        private int n;
+        private double meanNanosPerOp;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Fit {
+        private String complexity;
+        private double confidence;
+        /** Fitted c in time = c * f(n), in nanoseconds. */
+        private double coefficientNanos;
+    }
+}
@@ -0,0 +1,71 @@
+package com.dsaplatform.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result of judging a submission: an overall verdict and one result per test case, in request order.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JudgeResponse {
+
+    public enum Verdict {
+        ACCEPTED,
+        WRONG_ANSWER,
+        RUNTIME_ERROR,
+        TIME_LIMIT_EXCEEDED,
+        COMPILATION_ERROR,
+        /** The case was not run because the time budget for judging the submission ran out. */
+        SKIPPED
+    }
+
+    /** ACCEPTED if every case passed, otherwise the verdict of the first case that did not. */
+    private Verdict verdict;
+    private Integer passed;
+    private Integer total;
+    private String compileError;
+    private Long executionTime;
+    private List<CaseResult> cases;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class CaseResult {
+        private int index;
+        private Verdict verdict;
+        /**
+         * Wall time of the run, not counting any wait for a worker. For a case run in a JVM of its own it
+         * includes JVM startup.
+         */
+        private long timeMillis;
+        /** Program output, shortened if long. */
+        private String output;
+        /** First differing line, for wrong answers. */
+        private Diff diff;
+    }
+
+    /**
+     * First line where the output differs from the expected output, ignoring trailing whitespace.
+     * A null side means that output ended before this line.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Diff {
+        private int line;
+        private String expected;
+        private String actual;
+    }
+}
@@ -22,4 +22,6 @@ public class LessonContentResponse {
     private String content;  // Markdown content
     private LocalDateTime generatedAt;
     private boolean cached;  // true if from cache, false if freshly generated
+    private boolean stale;  // true if expired content is served while a refresh runs
+    private long version;
 }
@@ -0,0 +1,43 @@
+package com.dsaplatform.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Event emitted on the streaming lesson content endpoint.
+ * The event type doubles as the SSE event name: "meta" is sent first, followed by
+ * "chunk" events carrying markdown in order, and a final "done" or "error".
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LessonStreamEvent {
+
+    public static final String TYPE_META = "meta";
+    public static final String TYPE_CHUNK = "chunk";
+    public static final String TYPE_DONE = "done";
+    public static final String TYPE_ERROR = "error";
+
+    private String type;
+    private String lessonId;
+    private String content;
+    private Boolean cached;
+    private Boolean stale;
+    private Long version;
+    private LocalDateTime generatedAt;
+
+    public static LessonStreamEvent chunk(String markdown) {
+        return LessonStreamEvent.builder().type(TYPE_CHUNK).content(markdown).build();
+    }
+
+    public static LessonStreamEvent error(String lessonId, String message) {
+        return LessonStreamEvent.builder().type(TYPE_ERROR).lessonId(lessonId).content(message).build();
+    }
+}
@@ -0,0 +1,24 @@
+package com.dsaplatform.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Aggregated provider usage for one group (endpoint, feature, model or user).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LlmUsageSummaryDto {
+    private String group;
+    private long calls;
+    private long failures;
+    private long promptTokens;
+    private long completionTokens;
+    private long totalTokens;
+    private double avgTokensPerCall;
+    private double avgLatencyMillis;
+}
@@ -0,0 +1,27 @@
+package com.dsaplatform.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the latest content pre-generation run.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PregenerationStatusDto {
+    private boolean running;
+    private String trigger;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private int totalItems;
+    private int generated;
+    private int skipped;
+    private int failed;
+    private String lastError;
+}
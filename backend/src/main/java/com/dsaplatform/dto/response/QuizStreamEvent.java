@@ -0,0 +1,43 @@
+package com.dsaplatform.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Event emitted on the streaming quiz endpoint.
+ * The event type doubles as the SSE event name: "meta" is sent first, followed by one
+ * "question" event per question as soon as it is complete, and a final "done" or "error".
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class QuizStreamEvent {
+
+    public static final String TYPE_META = "meta";
+    public static final String TYPE_QUESTION = "question";
+    public static final String TYPE_DONE = "done";
+    public static final String TYPE_ERROR = "error";
+
+    private String type;
+    private String topic;
+    private String difficulty;
+    private QuizResponse.QuizQuestionDto question;
+    private Integer questionCount;
+    private String message;
+    private LocalDateTime generatedAt;
+
+    public static QuizStreamEvent question(QuizResponse.QuizQuestionDto question) {
+        return QuizStreamEvent.builder().type(TYPE_QUESTION).question(question).build();
+    }
+
+    public static QuizStreamEvent error(String message) {
+        return QuizStreamEvent.builder().type(TYPE_ERROR).message(message).build();
+    }
+}
@@ -0,0 +1,18 @@
+package com.dsaplatform.exception;
+
+import lombok.Getter;
+
+/**
+ * Exception thrown when a provider call is refused because the model's
+ * concurrency limit is reached and the call could not be queued in time.
+ */
+@Getter
+public class BulkheadFullException extends OpenAIException {
+
+    private final long retryAfterSeconds;
+
+    public BulkheadFullException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,21 @@
+package com.dsaplatform.exception;
+
+import com.dsaplatform.resilience.ExecutionScheduler;
+import lombok.Getter;
+
+/**
+ * Exception thrown when submitted code is not run because the execution
+ * scheduler is saturated or the machine is overloaded.
+ */
+@Getter
+public class ExecutionRejectedException extends RuntimeException {
+
+    private final ExecutionScheduler.Rejection reason;
+    private final long retryAfterSeconds;
+
+    public ExecutionRejectedException(ExecutionScheduler.Rejection reason, long retryAfterSeconds) {
+        super("Code execution rejected: " + reason);
+        this.reason = reason;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,18 @@
+package com.dsaplatform.exception;
+
+import lombok.Getter;
+
+/**
+ * Exception thrown when content is still being generated by another request
+ * and did not become available within the wait timeout.
+ */
+@Getter
+public class GenerationInProgressException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public GenerationInProgressException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -6,6 +6,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.validation.FieldError;
@@ -53,6 +54,71 @@ public class GlobalExceptionHandler {
                 .body(errorResponse);
     }
     
+    /**
+     * Handles provider calls refused by the per-model bulkhead.
+     * Returns HTTP 503 with Retry-After header.
+     */
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<ErrorResponse> handleBulkheadFullException(
+            BulkheadFullException e, HttpServletRequest request) {
+        log.warn("AI provider capacity exhausted: {}", e.getMessage());
+
+        ErrorResponse errorResponse = ErrorResponse.of(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                "AI service is busy. Please try again shortly.",
+                request.getRequestURI()
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
+                .body(errorResponse);
+    }
+
+    /**
+     * Handles requests that timed out waiting for another request's content generation.
+     * Returns HTTP 503 with Retry-After header.
+     */
+    @ExceptionHandler(GenerationInProgressException.class)
+    public ResponseEntity<ErrorResponse> handleGenerationInProgressException(
+            GenerationInProgressException e, HttpServletRequest request) {
+        log.warn("Content generation still in progress: {}", e.getMessage());
+
+        ErrorResponse errorResponse = ErrorResponse.of(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                "Content is being generated. Please try again shortly.",
+                request.getRequestURI()
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
+                .body(errorResponse);
+    }
+
+    /**
+     * Handles code runs refused by the execution scheduler.
+     * Returns HTTP 503 with Retry-After header.
+     */
+    @ExceptionHandler(ExecutionRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleExecutionRejectedException(
+            ExecutionRejectedException e, HttpServletRequest request) {
+        log.warn("Code execution rejected: {}", e.getReason());
+
+        ErrorResponse errorResponse = ErrorResponse.of(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                "Code runner is busy. Please try again shortly.",
+                request.getRequestURI()
+        );
+
+        // JSON even for clients of the streaming endpoint, which only accept text/event-stream
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(errorResponse);
+    }
+
     /**
      * Handles OpenAI API errors.
      * Returns HTTP 503 Service Unavailable.
@@ -7,11 +7,35 @@ package com.dsaplatform.exception;
  */
 public class OpenAIException extends ChatException {
     
+    private final int statusCode;
+    
     public OpenAIException(String message) {
         super(message);
+        this.statusCode = 0;
     }
     
     public OpenAIException(String message, Throwable cause) {
         super(message, cause);
+        this.statusCode = 0;
+    }
+    
+    public OpenAIException(String message, int statusCode) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+    
+    /**
+     * HTTP status returned by the provider, or 0 if the failure had no response.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+    
+    /**
+     * Whether the provider rejected the call because of load or a server-side fault,
+     * i.e. the same request may succeed if retried.
+     */
+    public boolean isTransient() {
+        return statusCode == 429 || statusCode >= 500;
     }
 }
@@ -0,0 +1,72 @@
+package com.dsaplatform.interceptor;
+
+import com.dsaplatform.config.OpenAIResilienceProperties;
+import com.dsaplatform.resilience.RequestDeadline;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Interceptor that starts a deadline for each API request before the controller runs.
+ *
+ * Clients may shorten (or, up to the configured maximum, extend) the budget with the
+ * deadline header; provider calls made while handling the request are capped by the
+ * remaining budget.
+ *
+ * The deadline lives in a thread local of the request thread, so it is cleared when the
+ * request completes and also when an async (SSE) handler hands the response off: the
+ * request thread goes back to the pool while the stream is still running. Streams capture
+ * the remaining budget when they are assembled.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RequestDeadlineInterceptor implements AsyncHandlerInterceptor {
+
+    private final OpenAIResilienceProperties resilienceProperties;
+
+    @Override
+    public boolean preHandle(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull Object handler) {
+
+        OpenAIResilienceProperties.Deadline config = resilienceProperties.getDeadline();
+        long budgetMillis = config.getDefaultBudgetMillis();
+
+        String requested = request.getHeader(config.getHeader());
+        if (requested != null) {
+            try {
+                budgetMillis = Math.max(1, Math.min(Long.parseLong(requested.trim()), config.getMaxBudgetMillis()));
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring malformed {} header: {}", config.getHeader(), requested);
+            }
+        }
+
+        RequestDeadline.start(Duration.ofMillis(budgetMillis));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull Object handler,
+            Exception ex) {
+        RequestDeadline.clear();
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull Object handler) {
+        RequestDeadline.clear();
+    }
+}
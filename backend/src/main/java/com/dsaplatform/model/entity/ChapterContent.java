@@ -47,6 +47,13 @@ public class ChapterContent {
     @Column(name = "generated_at", nullable = false)
     private LocalDateTime generatedAt;
     
+    @Column(name = "etag", length = 40)
+    private String etag;  // strong ETag of the cached API response
+    
+    @Lob
+    @Column(name = "compressed_body")
+    private byte[] compressedBody;  // gzipped API response as served from cache
+    
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
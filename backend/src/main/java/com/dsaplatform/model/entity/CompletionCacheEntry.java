@@ -0,0 +1,44 @@
+package com.dsaplatform.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity for caching chat completions by prompt.
+ * The cache key is a SHA-256 of model, sampling parameters and messages.
+ */
+@Entity
+@Table(name = "completion_cache", indexes = {
+        @Index(name = "idx_completion_cache_expires_at", columnList = "expiresAt"),
+        @Index(name = "idx_completion_cache_created_at", columnList = "createdAt")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompletionCacheEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String cacheKey;
+
+    @Column(nullable = false)
+    private String model;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String content;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,39 @@
+package com.dsaplatform.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marker row for content generation in progress.
+ * The unique key guarantees a single generator per piece of content across nodes;
+ * the expiry lets another node take over if the owner dies mid-generation.
+ */
+@Entity
+@Table(name = "generation_locks")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GenerationLock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String lockKey;
+
+    @Column(nullable = false)
+    private String owner;
+
+    @Column(nullable = false)
+    private LocalDateTime acquiredAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,31 @@
+package com.dsaplatform.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Maps a frontend lesson id to the content key of the lesson content it is served.
+ * Lesson ids with the same normalized title and topic map to the same key and share one cached entry.
+ */
+@Entity
+@Table(name = "lesson_content_aliases", indexes = @Index(columnList = "contentKey"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LessonContentAlias {
+
+    @Id
+    private String lessonId;
+
+    @Column(nullable = false, length = 64)
+    private String contentKey;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
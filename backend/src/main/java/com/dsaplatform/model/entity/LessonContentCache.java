@@ -11,6 +11,10 @@ import java.time.LocalDateTime;
 /**
  * Entity for caching AI-generated lesson content.
  * Stores markdown content for lessons to avoid regenerating.
+ * Expired content is still served while a background refresh replaces it;
+ * the version is bumped on every replacement so concurrent refreshes cannot overwrite each other.
+ * Entries are keyed by a hash of the normalized title, topic and prompt version, so lesson ids
+ * asking for the same lesson share one entry (see {@link LessonContentAlias}).
  */
 @Entity
 @Table(name = "lesson_content_cache")
@@ -25,7 +29,10 @@ public class LessonContentCache {
     private Long id;
     
     @Column(nullable = false, unique = true)
-    private String lessonId;
+    private String lessonId;  // lesson the content was generated for
+    
+    @Column(length = 64, unique = true)
+    private String contentKey;  // null for rows cached before content keys; assigned on first read
     
     @Column(nullable = false)
     private String lessonTitle;
@@ -41,4 +48,17 @@ public class LessonContentCache {
     
     @Column
     private Integer contentLength;
+    
+    @Column
+    private LocalDateTime expiresAt;  // null for rows cached before expiry was tracked
+    
+    @Column
+    private Long version;  // null is treated as 0
+    
+    @Column(length = 40)
+    private String etag;  // strong ETag of the cached API response
+    
+    @Lob
+    @Column
+    private byte[] compressedBody;  // gzipped API response as served from cache
 }
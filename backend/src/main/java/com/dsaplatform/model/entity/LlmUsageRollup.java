@@ -0,0 +1,61 @@
+package com.dsaplatform.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Hourly rollup of provider usage.
+ * One row per hour, endpoint, feature, model and principal with call counts,
+ * token totals and summed wall-clock latency.
+ */
+@Entity
+@Table(name = "llm_usage_rollups",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_llm_usage_rollup",
+                columnNames = {"hourStart", "endpoint", "feature", "model", "principal"}),
+        indexes = @Index(name = "idx_llm_usage_hour_start", columnList = "hourStart"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LlmUsageRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDateTime hourStart;
+
+    @Column(nullable = false, length = 32)
+    private String endpoint;
+
+    @Column(nullable = false, length = 64)
+    private String feature;
+
+    @Column(nullable = false)
+    private String model;
+
+    @Column(nullable = false)
+    private String principal;
+
+    @Column(nullable = false)
+    private long calls;
+
+    @Column(nullable = false)
+    private long failures;
+
+    @Column(nullable = false)
+    private long promptTokens;
+
+    @Column(nullable = false)
+    private long completionTokens;
+
+    @Column(nullable = false)
+    private long latencyMillisTotal;
+}
@@ -0,0 +1,52 @@
+package com.dsaplatform.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A generated quiz question stored in the question bank of its (topic, difficulty) pool.
+ * Options are stored as a JSON array; the question hash keeps duplicate questions out of a pool.
+ */
+@Entity
+@Table(name = "quiz_bank_questions", indexes = {
+        @Index(name = "idx_quiz_bank_pool", columnList = "topicKey, difficulty")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuizBankQuestion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String topicKey;
+
+    @Column(nullable = false, length = 20)
+    private String difficulty;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String question;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String optionsJson;
+
+    @Column(nullable = false)
+    private Integer correctAnswer;
+
+    @Column(columnDefinition = "TEXT")
+    private String explanation;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String questionHash;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,37 @@
+package com.dsaplatform.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records that a user was served a question from the quiz bank, so recent questions are not repeated.
+ */
+@Entity
+@Table(name = "quiz_question_views", indexes = {
+        @Index(name = "idx_quiz_question_views_user_seen", columnList = "userId, seenAt"),
+        @Index(name = "idx_quiz_question_views_seen", columnList = "seenAt")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuizQuestionView {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long questionId;
+
+    @Column(nullable = false)
+    private LocalDateTime seenAt;
+}
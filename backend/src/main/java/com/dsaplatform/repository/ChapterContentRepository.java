@@ -1,10 +1,13 @@
 package com.dsaplatform.repository;
 
 import com.dsaplatform.model.entity.ChapterContent;
+import com.dsaplatform.util.PrecompressedBody;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -24,6 +27,26 @@ public interface ChapterContentRepository extends JpaRepository<ChapterContent,
     @Query("SELECT cc FROM ChapterContent cc LEFT JOIN FETCH cc.lessons WHERE LOWER(cc.chapterName) = LOWER(:chapterName)")
     Optional<ChapterContent> findByChapterNameIgnoreCase(@Param("chapterName") String chapterName);
     
+    /**
+     * Find the stored API response for a chapter without loading its lessons.
+     * 
+     * @param chapterName The name of the chapter
+     * @return Optional containing the response if one has been stored
+     */
+    @Query("SELECT new com.dsaplatform.util.PrecompressedBody(cc.etag, cc.compressedBody) FROM ChapterContent cc " +
+            "WHERE LOWER(cc.chapterName) = LOWER(:chapterName) AND cc.etag IS NOT NULL")
+    Optional<PrecompressedBody> findBodyByChapterNameIgnoreCase(@Param("chapterName") String chapterName);
+    
+    /**
+     * Store the API response for a chapter.
+     * 
+     * @param id The chapter content id
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ChapterContent cc SET cc.etag = :etag, cc.compressedBody = :body WHERE cc.id = :id")
+    int storeBody(@Param("id") Long id, @Param("etag") String etag, @Param("body") byte[] body);
+    
     /**
      * Check if content exists for a given chapter name.
      * 
@@ -0,0 +1,36 @@
+package com.dsaplatform.repository;
+
+import com.dsaplatform.model.entity.CompletionCacheEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CompletionCacheRepository extends JpaRepository<CompletionCacheEntry, Long> {
+
+    Optional<CompletionCacheEntry> findByCacheKey(String cacheKey);
+
+    /**
+     * Delete all entries that expired before the given time.
+     */
+    @Modifying
+    @Query("DELETE FROM CompletionCacheEntry c WHERE c.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM CompletionCacheEntry c WHERE c.cacheKey = :cacheKey")
+    int deleteByCacheKey(@Param("cacheKey") String cacheKey);
+
+    /**
+     * Ids of the oldest entries, used to trim the cache to its size limit.
+     */
+    @Query("SELECT c.id FROM CompletionCacheEntry c ORDER BY c.createdAt ASC")
+    List<Long> findOldestIds(Pageable pageable);
+}
@@ -0,0 +1,49 @@
+package com.dsaplatform.repository;
+
+import com.dsaplatform.model.entity.GenerationLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface GenerationLockRepository extends JpaRepository<GenerationLock, Long> {
+
+    boolean existsByLockKey(String lockKey);
+
+    /**
+     * Whether the lock is held and was last renewed recently enough not to have expired.
+     */
+    boolean existsByLockKeyAndExpiresAtAfter(String lockKey, LocalDateTime now);
+
+    /**
+     * Takes over a lock whose owner let it expire.
+     *
+     * @return 1 if the lock was taken over, 0 if it is absent or still valid
+     */
+    @Modifying
+    @Query("UPDATE GenerationLock l SET l.owner = :owner, l.acquiredAt = :now, l.expiresAt = :expiresAt " +
+           "WHERE l.lockKey = :lockKey AND l.expiresAt < :now")
+    int takeOverExpired(@Param("lockKey") String lockKey, @Param("owner") String owner,
+                        @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Extends a lock held by the given owner while its generation is still running.
+     *
+     * @return 1 if the lock was extended, 0 if the owner no longer holds it
+     */
+    @Modifying
+    @Query("UPDATE GenerationLock l SET l.expiresAt = :expiresAt WHERE l.lockKey = :lockKey AND l.owner = :owner")
+    int renew(@Param("lockKey") String lockKey, @Param("owner") String owner,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Releases a lock held by the given owner.
+     */
+    @Modifying
+    @Query("DELETE FROM GenerationLock l WHERE l.lockKey = :lockKey AND l.owner = :owner")
+    int release(@Param("lockKey") String lockKey, @Param("owner") String owner);
+}
@@ -0,0 +1,23 @@
+package com.dsaplatform.repository;
+
+import com.dsaplatform.model.entity.LessonContentAlias;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface LessonContentAliasRepository extends JpaRepository<LessonContentAlias, String> {
+
+    @Query("SELECT a.contentKey FROM LessonContentAlias a WHERE a.lessonId = :lessonId")
+    Optional<String> findContentKey(@Param("lessonId") String lessonId);
+
+    /**
+     * Lesson ids other than the given one that are served the content key.
+     */
+    @Query("SELECT a.lessonId FROM LessonContentAlias a WHERE a.contentKey = :contentKey AND a.lessonId <> :lessonId")
+    List<String> findOtherLessonIds(@Param("contentKey") String contentKey, @Param("lessonId") String lessonId);
+}
@@ -1,17 +1,102 @@
 package com.dsaplatform.repository;
 
 import com.dsaplatform.model.entity.LessonContentCache;
+import com.dsaplatform.util.PrecompressedBody;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
 public interface LessonContentCacheRepository extends JpaRepository<LessonContentCache, Long> {
     
+    Optional<LessonContentCache> findByContentKey(String contentKey);
+    
+    boolean existsByContentKey(String contentKey);
+    
+    /**
+     * Row cached for a lesson id, including rows cached before content keys.
+     */
     Optional<LessonContentCache> findByLessonId(String lessonId);
     
     boolean existsByLessonId(String lessonId);
     
+    /**
+     * Give a row cached before content keys its key.
+     * 
+     * @return 1 if assigned, 0 if the row already has a key
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE LessonContentCache c SET c.contentKey = :contentKey WHERE c.id = :id AND c.contentKey IS NULL")
+    int assignContentKey(@Param("id") Long id, @Param("contentKey") String contentKey);
+    
+    /**
+     * Stored response of fresh content, without loading the content itself. The response names the lesson
+     * owning the entry, so it is only found for that lesson.
+     */
+    @Query("SELECT new com.dsaplatform.util.PrecompressedBody(c.etag, c.compressedBody) FROM LessonContentCache c " +
+            "WHERE c.contentKey = :contentKey AND c.lessonId = :lessonId AND c.etag IS NOT NULL AND c.expiresAt > :now")
+    Optional<PrecompressedBody> findFreshBody(@Param("contentKey") String contentKey, @Param("lessonId") String lessonId,
+                                              @Param("now") LocalDateTime now);
+    
+    /**
+     * Store the response of a row cached before responses were stored. Rows cached before expiry
+     * times were stored also get one, so {@link #findFreshBody} finds them from now on.
+     * Only the lesson owning the row stores it, since the response carries its lesson id.
+     *
+     * @param expiresAt expiry for a row without one, i.e. its generation time plus the TTL
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE LessonContentCache c SET c.etag = :etag, c.compressedBody = :body, " +
+            "c.expiresAt = COALESCE(c.expiresAt, :expiresAt) " +
+            "WHERE c.contentKey = :contentKey AND c.lessonId = :lessonId AND COALESCE(c.version, 0) = :version")
+    int storeBody(@Param("contentKey") String contentKey, @Param("lessonId") String lessonId,
+                  @Param("version") long version,
+                  @Param("etag") String etag, @Param("body") byte[] body,
+                  @Param("expiresAt") LocalDateTime expiresAt);
+    
+    /**
+     * Hand a row over to another lesson id that is served its content.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE LessonContentCache c SET c.lessonId = :lessonId WHERE c.id = :id")
+    int transferOwnership(@Param("id") Long id, @Param("lessonId") String lessonId);
+    
+    void deleteByContentKey(String contentKey);
+    
     void deleteByLessonId(String lessonId);
+    
+    /**
+     * Replace the content if the row is still at the expected version.
+     * 
+     * @return 1 if replaced, 0 if the row changed or was deleted in the meantime
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE LessonContentCache c SET c.content = :content, c.contentLength = :contentLength, " +
+            "c.generatedAt = :generatedAt, c.expiresAt = :expiresAt, c.version = COALESCE(c.version, 0) + 1, " +
+            "c.etag = :etag, c.compressedBody = :body " +
+            "WHERE c.contentKey = :contentKey AND COALESCE(c.version, 0) = :version")
+    int replaceContent(@Param("contentKey") String contentKey, @Param("version") long version,
+                       @Param("content") String content, @Param("contentLength") int contentLength,
+                       @Param("generatedAt") LocalDateTime generatedAt, @Param("expiresAt") LocalDateTime expiresAt,
+                       @Param("etag") String etag, @Param("body") byte[] body);
+    
+    /**
+     * Push back the expiry of a version whose refresh failed, so it is retried later rather than on every read.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE LessonContentCache c SET c.expiresAt = :expiresAt " +
+            "WHERE c.contentKey = :contentKey AND COALESCE(c.version, 0) = :version")
+    int postponeExpiry(@Param("contentKey") String contentKey, @Param("version") long version,
+                       @Param("expiresAt") LocalDateTime expiresAt);
 }
@@ -15,6 +15,9 @@ public interface LessonRepository extends JpaRepository<Lesson, Long> {
     
     @Query("SELECT l FROM Lesson l JOIN FETCH l.chapter c JOIN FETCH c.course WHERE l.id = :id")
     Optional<Lesson> findByIdWithChapterAndCourse(@Param("id") Long id);
+    
+    @Query("SELECT l FROM Lesson l JOIN FETCH l.chapter ORDER BY l.chapter.id, l.order")
+    List<Lesson> findAllWithChapter();
 }
 
 
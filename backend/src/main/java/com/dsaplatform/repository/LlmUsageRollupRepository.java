@@ -0,0 +1,36 @@
+package com.dsaplatform.repository;
+
+import com.dsaplatform.model.entity.LlmUsageRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface LlmUsageRollupRepository extends JpaRepository<LlmUsageRollup, Long> {
+
+    /**
+     * Adds usage to an existing rollup in a single statement, so concurrent flushes cannot
+     * overwrite each other's counts.
+     *
+     * @return 1 if the rollup was updated, 0 if it does not exist yet
+     */
+    @Modifying
+    @Query("UPDATE LlmUsageRollup r SET r.calls = r.calls + :calls, r.failures = r.failures + :failures, " +
+           "r.promptTokens = r.promptTokens + :promptTokens, " +
+           "r.completionTokens = r.completionTokens + :completionTokens, " +
+           "r.latencyMillisTotal = r.latencyMillisTotal + :latencyMillis " +
+           "WHERE r.hourStart = :hourStart AND r.endpoint = :endpoint AND r.feature = :feature " +
+           "AND r.model = :model AND r.principal = :principal")
+    int addUsage(@Param("hourStart") LocalDateTime hourStart, @Param("endpoint") String endpoint,
+                 @Param("feature") String feature, @Param("model") String model,
+                 @Param("principal") String principal, @Param("calls") long calls,
+                 @Param("failures") long failures, @Param("promptTokens") long promptTokens,
+                 @Param("completionTokens") long completionTokens, @Param("latencyMillis") long latencyMillis);
+
+    List<LlmUsageRollup> findByHourStartGreaterThanEqual(LocalDateTime from);
+}
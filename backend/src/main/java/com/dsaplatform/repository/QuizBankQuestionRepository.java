@@ -0,0 +1,32 @@
+package com.dsaplatform.repository;
+
+import com.dsaplatform.model.entity.QuizBankQuestion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface QuizBankQuestionRepository extends JpaRepository<QuizBankQuestion, Long> {
+
+    long countByTopicKeyAndDifficulty(String topicKey, String difficulty);
+
+    boolean existsByQuestionHash(String questionHash);
+
+    /**
+     * Ids of all questions in a pool, used for sampling without loading the questions.
+     */
+    @Query("SELECT q.id FROM QuizBankQuestion q WHERE q.topicKey = :topicKey AND q.difficulty = :difficulty")
+    List<Long> findIdsByPool(@Param("topicKey") String topicKey, @Param("difficulty") String difficulty);
+
+    /**
+     * Most recent question texts of a pool, passed to the LLM so a refill does not repeat them.
+     */
+    @Query("SELECT q.question FROM QuizBankQuestion q WHERE q.topicKey = :topicKey AND q.difficulty = :difficulty " +
+            "ORDER BY q.createdAt DESC")
+    List<String> findRecentQuestions(@Param("topicKey") String topicKey, @Param("difficulty") String difficulty,
+                                     Pageable pageable);
+}
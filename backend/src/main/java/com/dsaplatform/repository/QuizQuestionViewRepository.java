@@ -0,0 +1,28 @@
+package com.dsaplatform.repository;
+
+import com.dsaplatform.model.entity.QuizQuestionView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface QuizQuestionViewRepository extends JpaRepository<QuizQuestionView, Long> {
+
+    /**
+     * Ids of the given questions that the user was served since the given time.
+     */
+    @Query("SELECT DISTINCT v.questionId FROM QuizQuestionView v " +
+            "WHERE v.userId = :userId AND v.seenAt >= :since AND v.questionId IN :questionIds")
+    List<Long> findSeenQuestionIds(@Param("userId") Long userId, @Param("since") LocalDateTime since,
+                                   @Param("questionIds") Collection<Long> questionIds);
+
+    @Modifying
+    @Query("DELETE FROM QuizQuestionView v WHERE v.seenAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
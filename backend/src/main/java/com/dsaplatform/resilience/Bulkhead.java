@@ -0,0 +1,165 @@
+package com.dsaplatform.resilience;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limiter with a priority queue.
+ * At most N calls hold a permit at a time; further callers wait in priority order
+ * (FIFO within a priority). A waiter gives up once its maximum wait has passed, and
+ * when the queue is full a newcomer displaces the newest waiter of a lower priority.
+ */
+public class Bulkhead {
+
+    public enum Admission {
+        GRANTED, QUEUE_FULL, TIMED_OUT, SHED
+    }
+
+    private static final Comparator<Waiter> QUEUE_ORDER = Comparator
+            .comparing((Waiter waiter) -> waiter.priority)
+            .thenComparingLong(waiter -> waiter.sequence);
+
+    private final String name;
+    private final int maxConcurrentCalls;
+    private final int maxQueueSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Waiter> queue = new PriorityQueue<>(QUEUE_ORDER);
+    private final int[] queuedByPriority = new int[LlmPriority.values().length];
+    private int inFlight;
+    private long sequence;
+
+    public Bulkhead(String name, int maxConcurrentCalls, int maxQueueSize) {
+        this.name = name;
+        this.maxConcurrentCalls = Math.max(1, maxConcurrentCalls);
+        this.maxQueueSize = Math.max(0, maxQueueSize);
+    }
+
+    /**
+     * Waits for a permit.
+     *
+     * @return {@link Admission#GRANTED} if the call may proceed, in which case the caller
+     *         must {@link #release()} the permit afterwards; otherwise the reason it was refused
+     */
+    public Admission acquire(LlmPriority priority, Duration maxWait) {
+        lock.lock();
+        try {
+            if (inFlight < maxConcurrentCalls && queue.isEmpty()) {
+                inFlight++;
+                return Admission.GRANTED;
+            }
+            if (queue.size() >= maxQueueSize && !shedLowerThan(priority)) {
+                return Admission.QUEUE_FULL;
+            }
+
+            Waiter waiter = new Waiter(priority, sequence++, lock.newCondition());
+            enqueue(waiter);
+            long remainingNanos = maxWait.toNanos();
+            try {
+                while (waiter.admission == null) {
+                    if (remainingNanos <= 0) {
+                        dequeue(waiter);
+                        return Admission.TIMED_OUT;
+                    }
+                    remainingNanos = waiter.signal.awaitNanos(remainingNanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (waiter.admission == null) {
+                    dequeue(waiter);
+                    return Admission.TIMED_OUT;
+                }
+            }
+            return waiter.admission;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a permit, handing it straight to the highest-priority waiter if there is one.
+     */
+    public void release() {
+        lock.lock();
+        try {
+            Waiter next = queue.poll();
+            if (next == null) {
+                inFlight--;
+                return;
+            }
+            queuedByPriority[next.priority.ordinal()]--;
+            next.admission = Admission.GRANTED;
+            next.signal.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueDepth(LlmPriority priority) {
+        lock.lock();
+        try {
+            return queuedByPriority[priority.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Evicts the newest waiter with a lower priority than the given one, if any.
+     */
+    private boolean shedLowerThan(LlmPriority priority) {
+        Waiter victim = null;
+        for (Waiter waiter : queue) {
+            if (victim == null || QUEUE_ORDER.compare(waiter, victim) > 0) {
+                victim = waiter;
+            }
+        }
+        if (victim == null || victim.priority.compareTo(priority) <= 0) {
+            return false;
+        }
+        dequeue(victim);
+        victim.admission = Admission.SHED;
+        victim.signal.signal();
+        return true;
+    }
+
+    private void enqueue(Waiter waiter) {
+        queue.add(waiter);
+        queuedByPriority[waiter.priority.ordinal()]++;
+    }
+
+    private void dequeue(Waiter waiter) {
+        if (queue.remove(waiter)) {
+            queuedByPriority[waiter.priority.ordinal()]--;
+        }
+    }
+
+    private static final class Waiter {
+        private final LlmPriority priority;
+        private final long sequence;
+        private final Condition signal;
+        private Admission admission;
+
+        private Waiter(LlmPriority priority, long sequence, Condition signal) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.signal = signal;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.dsaplatform.resilience;
+
+import com.dsaplatform.exception.ExecutionRejectedException;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Concurrency limiter for running submitted code, fair between clients.
+ *
+ * At most N runs execute at a time. Further runs wait in one queue per client, and a freed slot goes to the
+ * clients in turn, so a client submitting in a loop delays its own runs rather than everyone else's.
+ * A run is refused straight away when the queue, or the client's share of it, is full, or when system CPU load
+ * is above the limit while other runs are executing; a refusal carries a retry hint based on recent run times.
+ */
+public class ExecutionScheduler {
+
+    public enum Rejection {
+        QUEUE_FULL, CLIENT_QUEUE_FULL, OVERLOADED, TIMED_OUT
+    }
+
+    private static final Duration LOAD_SAMPLE_INTERVAL = Duration.ofSeconds(1);
+
+    private final int maxConcurrentRuns;
+    private final int maxQueueSize;
+    private final int maxQueuedPerClient;
+    private final Duration maxWait;
+    private final double maxCpuLoad;
+    private final DoubleSupplier cpuLoad;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    /** Waiting runs by client, in the order clients get their next turn. */
+    private final LinkedHashMap<String, ArrayDeque<Waiter>> queues = new LinkedHashMap<>();
+    private int queued;
+    private int running;
+    /** Moving average of run durations, for retry hints. */
+    private double averageRunMillis = 1000;
+
+    /**
+     * @param maxConcurrentRuns runs executing at a time
+     * @param maxQueueSize runs waiting at a time, over all clients
+     * @param maxQueuedPerClient runs one client may have waiting
+     * @param maxWait how long a run waits for a slot before it is refused
+     * @param maxCpuLoad system CPU load (0 to 1) above which runs are refused while others execute
+     * @param cpuLoad current system CPU load, negative if unknown
+     */
+    public ExecutionScheduler(int maxConcurrentRuns, int maxQueueSize, int maxQueuedPerClient, Duration maxWait,
+                              double maxCpuLoad, DoubleSupplier cpuLoad) {
+        this.maxConcurrentRuns = Math.max(1, maxConcurrentRuns);
+        this.maxQueueSize = Math.max(0, maxQueueSize);
+        this.maxQueuedPerClient = Math.max(1, maxQueuedPerClient);
+        this.maxWait = maxWait;
+        this.maxCpuLoad = maxCpuLoad;
+        this.cpuLoad = cpuLoad;
+    }
+
+    /**
+     * Runs the task once a slot is free.
+     *
+     * @param client key the run is queued under, such as the user or the remote address
+     * @throws ExecutionRejectedException if the run was refused or waited too long
+     */
+    public <T> T run(String client, Supplier<T> task) {
+        try (Slot slot = acquire(client)) {
+            return task.get();
+        }
+    }
+
+    /**
+     * Waits for a slot, for runs that outlive the calling thread such as streamed ones.
+     *
+     * @return the slot, which must be closed when the run ends
+     * @throws ExecutionRejectedException if the run was refused or waited too long
+     */
+    public Slot acquire(String client) {
+        admit(client);
+        return new Slot();
+    }
+
+    private void admit(String client) {
+        lock.lock();
+        try {
+            if (running > 0 && overloaded()) {
+                throw rejected(Rejection.OVERLOADED);
+            }
+            if (running < maxConcurrentRuns && queued == 0) {
+                running++;
+                return;
+            }
+            ArrayDeque<Waiter> clientQueue = queues.get(client);
+            if (queued >= maxQueueSize) {
+                throw rejected(Rejection.QUEUE_FULL);
+            }
+            if (clientQueue != null && clientQueue.size() >= maxQueuedPerClient) {
+                throw rejected(Rejection.CLIENT_QUEUE_FULL);
+            }
+
+            Waiter waiter = new Waiter(lock.newCondition());
+            queues.computeIfAbsent(client, key -> new ArrayDeque<>()).add(waiter);
+            queued++;
+            long remainingNanos = maxWait.toNanos();
+            try {
+                while (!waiter.granted) {
+                    if (remainingNanos <= 0) {
+                        dequeue(client, waiter);
+                        throw rejected(Rejection.TIMED_OUT);
+                    }
+                    remainingNanos = waiter.signal.awaitNanos(remainingNanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (!waiter.granted) {
+                    dequeue(client, waiter);
+                    throw rejected(Rejection.TIMED_OUT);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees a slot, handing it to the first run of the client whose turn is next.
+     */
+    private void release(Duration runTime) {
+        lock.lock();
+        try {
+            averageRunMillis = 0.8 * averageRunMillis + 0.2 * runTime.toMillis();
+            Iterator<Map.Entry<String, ArrayDeque<Waiter>>> turns = queues.entrySet().iterator();
+            if (!turns.hasNext()) {
+                running--;
+                return;
+            }
+            Map.Entry<String, ArrayDeque<Waiter>> turn = turns.next();
+            turns.remove();
+            Waiter next = turn.getValue().poll();
+            if (!turn.getValue().isEmpty()) {
+                // Back of the line for the client's next run
+                queues.put(turn.getKey(), turn.getValue());
+            }
+            queued--;
+            next.granted = true;
+            next.signal.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getRunning() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxConcurrentRuns() {
+        return maxConcurrentRuns;
+    }
+
+    /**
+     * System CPU load as reported by the JVM, sampled at most once a second; negative if unavailable.
+     */
+    public static DoubleSupplier systemCpuLoad() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (!(os instanceof com.sun.management.OperatingSystemMXBean bean)) {
+            return () -> -1;
+        }
+        return new DoubleSupplier() {
+            private long sampledAt = System.nanoTime() - LOAD_SAMPLE_INTERVAL.toNanos();
+            private double load = -1;
+
+            @Override
+            public synchronized double getAsDouble() {
+                long now = System.nanoTime();
+                if (now - sampledAt >= LOAD_SAMPLE_INTERVAL.toNanos()) {
+                    load = bean.getCpuLoad();
+                    sampledAt = now;
+                }
+                return load;
+            }
+        };
+    }
+
+    private boolean overloaded() {
+        double load = cpuLoad.getAsDouble();
+        return load >= 0 && load > maxCpuLoad;
+    }
+
+    private void dequeue(String client, Waiter waiter) {
+        ArrayDeque<Waiter> clientQueue = queues.get(client);
+        if (clientQueue != null && clientQueue.remove(waiter)) {
+            queued--;
+            if (clientQueue.isEmpty()) {
+                queues.remove(client);
+            }
+        }
+    }
+
+    private ExecutionRejectedException rejected(Rejection reason) {
+        // Time for the runs ahead to drain through the slots
+        double waitMillis = averageRunMillis * (queued + 1) / maxConcurrentRuns;
+        long retryAfterSeconds = Math.max(1, (long) Math.ceil(waitMillis / 1000));
+        return new ExecutionRejectedException(reason, retryAfterSeconds);
+    }
+
+    /**
+     * An execution slot held by a run; closing it more than once has no effect.
+     */
+    public final class Slot implements AutoCloseable {
+
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Slot() {
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(Duration.ofNanos(System.nanoTime() - startNanos));
+            }
+        }
+    }
+
+    private static final class Waiter {
+        private final Condition signal;
+        private boolean granted;
+
+        private Waiter(Condition signal) {
+            this.signal = signal;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.dsaplatform.resilience;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent successful call latencies and answers percentile queries.
+ * The sorted snapshot is rebuilt lazily every few samples to keep lookups cheap.
+ */
+public class LatencyTracker {
+
+    private static final int REFRESH_EVERY = 16;
+
+    private final long[] samples;
+    private int count;
+    private int index;
+    private int sinceRefresh;
+    private long[] sorted = new long[0];
+
+    public LatencyTracker(int capacity) {
+        this.samples = new long[Math.max(1, capacity)];
+    }
+
+    public synchronized void record(long millis) {
+        samples[index] = millis;
+        index = (index + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+        sinceRefresh++;
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the given percentile (0.0 - 1.0) of recorded latencies, or -1 if empty.
+     */
+    public synchronized long percentile(double percentile) {
+        if (count == 0) {
+            return -1;
+        }
+        if (sinceRefresh >= REFRESH_EVERY || sorted.length != count) {
+            sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            sinceRefresh = 0;
+        }
+        int rank = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(rank, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,98 @@
+package com.dsaplatform.resilience;
+
+import java.util.function.Supplier;
+
+/**
+ * Thread-bound attributes of the provider calls made by the current unit of work.
+ * Call sites wrap their client calls instead of passing extra arguments, so the
+ * client API stays the same for every caller:
+ *
+ * <pre>
+ * LlmCallContext.withPriority(LlmPriority.GENERATION).feature("quiz").cacheable()
+ *         .call(() -&gt; openAIClient.createChatCompletion(systemPrompt, userPrompt));
+ * </pre>
+ */
+public final class LlmCallContext {
+
+    /** Feature name used for calls made outside any context. */
+    public static final String UNATTRIBUTED = "other";
+
+    private static final LlmCallContext DEFAULT = new LlmCallContext(LlmPriority.INTERACTIVE, UNATTRIBUTED, false);
+
+    private static final ThreadLocal<LlmCallContext> CURRENT = new ThreadLocal<>();
+
+    private final LlmPriority priority;
+    private final String feature;
+    private final boolean cacheable;
+
+    private LlmCallContext(LlmPriority priority, String feature, boolean cacheable) {
+        this.priority = priority;
+        this.feature = feature;
+        this.cacheable = cacheable;
+    }
+
+    /**
+     * Context of calls made on this thread; interactive and uncached unless a caller said otherwise.
+     */
+    public static LlmCallContext current() {
+        LlmCallContext context = CURRENT.get();
+        return context != null ? context : DEFAULT;
+    }
+
+    public static LlmCallContext withPriority(LlmPriority priority) {
+        return new LlmCallContext(priority, UNATTRIBUTED, false);
+    }
+
+    /**
+     * Like {@link #withPriority}, but keeps the enclosing context's priority when that is lower,
+     * so shared code paths invoked from background jobs do not jump ahead of interactive work.
+     */
+    public static LlmCallContext withPriorityAtMost(LlmPriority priority) {
+        LlmPriority enclosing = current().priority;
+        return withPriority(enclosing.compareTo(priority) > 0 ? enclosing : priority);
+    }
+
+    /**
+     * Names the product feature the calls are made for, used to attribute token usage.
+     */
+    public LlmCallContext feature(String feature) {
+        return new LlmCallContext(priority, feature, cacheable);
+    }
+
+    /**
+     * Allows completions to be served from, and stored in, the completion cache.
+     * Only for prompts whose answer may be reused for anyone sending the same prompt.
+     */
+    public LlmCallContext cacheable() {
+        return new LlmCallContext(priority, feature, true);
+    }
+
+    public LlmPriority getPriority() {
+        return priority;
+    }
+
+    public String getFeature() {
+        return feature;
+    }
+
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    /**
+     * Runs the call with this context, restoring the previous one afterwards.
+     */
+    public <T> T call(Supplier<T> call) {
+        LlmCallContext previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
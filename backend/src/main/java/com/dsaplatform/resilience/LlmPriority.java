@@ -0,0 +1,17 @@
+package com.dsaplatform.resilience;
+
+/**
+ * Scheduling priority of a provider call. Declaration order is queue order:
+ * interactive work is always admitted before generation, generation before batch.
+ */
+public enum LlmPriority {
+
+    /** A user is waiting on the answer (chat, chatbot, query embeddings). */
+    INTERACTIVE,
+
+    /** Content generated on demand and cached afterwards (quizzes, lessons, chapters). */
+    GENERATION,
+
+    /** Background bulk work such as re-embedding all lessons. */
+    BATCH
+}
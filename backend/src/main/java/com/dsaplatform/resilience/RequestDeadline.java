@@ -0,0 +1,50 @@
+package com.dsaplatform.resilience;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Thread-bound deadline for the current request.
+ * Set when a request enters a controller and read by outbound clients so that each
+ * provider call only gets the time budget the request has left.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<Long> DEADLINE_NANOS = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    public static void start(Duration budget) {
+        DEADLINE_NANOS.set(System.nanoTime() + budget.toNanos());
+    }
+
+    public static void clear() {
+        DEADLINE_NANOS.remove();
+    }
+
+    /**
+     * Remaining budget of the current request, if a deadline is set. May be zero or negative
+     * when the deadline has already passed.
+     */
+    public static Optional<Duration> remaining() {
+        Long deadline = DEADLINE_NANOS.get();
+        if (deadline == null) {
+            return Optional.empty();
+        }
+        return Optional.of(Duration.ofNanos(deadline - System.nanoTime()));
+    }
+
+    /**
+     * Caps a timeout by the remaining request budget.
+     */
+    public static Duration cap(Duration timeout) {
+        return remaining()
+                .map(left -> left.compareTo(timeout) < 0 ? left : timeout)
+                .orElse(timeout);
+    }
+
+    public static boolean isExpired() {
+        return remaining().map(left -> left.isNegative() || left.isZero()).orElse(false);
+    }
+}
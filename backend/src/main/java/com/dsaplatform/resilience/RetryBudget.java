@@ -0,0 +1,31 @@
+package com.dsaplatform.resilience;
+
+/**
+ * Token bucket limiting retries to a fraction of regular traffic.
+ * Every call deposits {@code ratio} tokens and every retry withdraws one, so during
+ * an outage retries cannot multiply the load on an already struggling provider.
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final double maxTokens;
+    private double tokens;
+
+    public RetryBudget(double ratio, double maxTokens) {
+        this.ratio = ratio;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    public synchronized void recordCall() {
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    public synchronized boolean tryWithdraw() {
+        if (tokens >= 1.0) {
+            tokens -= 1.0;
+            return true;
+        }
+        return false;
+    }
+}
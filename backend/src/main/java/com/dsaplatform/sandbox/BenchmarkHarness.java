@@ -0,0 +1,270 @@
+package com.dsaplatform.sandbox;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Microbenchmark driver, sent along with a program and run in the sandbox JVM in place of its main method.
+ *
+ * The benchmarked method takes the input size and is called in batches sized to last about a millisecond, so the
+ * timer's own cost and resolution do not show in the result. Warmup iterations let the JIT compile the method;
+ * measurement iterations then record the time per call of every batch, the bytes the thread allocated and the
+ * collections that ran. Anything the program prints is discarded. The result is a single line on stdout
+ * starting with {@link #RESULT_PREFIX}, followed by key=value pairs.
+ *
+ * With an input generator the benchmarked method takes the generator's result instead of the input size.
+ * Each batch gets fresh inputs, generated before the batch is timed and not counted in time or allocation;
+ * a batch holds at most as many inputs as fit in 64 MB.
+ *
+ * Like {@link SandboxLauncher} this class must only depend on the JDK and compile to a single class file.
+ */
+public final class BenchmarkHarness {
+
+    static final String RESULT_PREFIX = "#benchmark ";
+
+    private static final long BATCH_NANOS = 1_000_000;
+    private static final int MAX_SAMPLES = 100_000;
+    private static final long MAX_GENERATED_BYTES = 64L * 1024 * 1024;
+    private static final int MAX_GENERATED_BATCH = 65_536;
+    private static final int PRIME_BATCH = 1000;
+    private static final int PRIME_BATCHES = 20;
+
+    /** Receives every result so the JIT cannot remove calls whose result is unused. */
+    private static volatile Object sink;
+
+    private static final double[] samples = new double[MAX_SAMPLES];
+    private static int sampleCount;
+    private static long measuredOperations;
+    private static long measuredNanos;
+    private static long measuredAllocated;
+
+    private static MethodHandle generator;
+    private static Object[] inputs = new Object[0];
+    private static long maxBatch = Long.MAX_VALUE;
+    private static ThreadMXBean threads;
+
+    private BenchmarkHarness() {
+    }
+
+    /**
+     * Reads its settings from the first line of stdin, separated by spaces: class name, method name, input size,
+     * warmup iterations, measurement iterations, iteration length in nanoseconds and, optionally, the name of
+     * the input generator.
+     */
+    public static void main(String[] args) throws Throwable {
+        String[] settings = new BufferedReader(new InputStreamReader(System.in)).readLine().trim().split(" ");
+        String className = settings[0];
+        String methodName = settings[1];
+        int n = Integer.parseInt(settings[2]);
+        int warmupIterations = Integer.parseInt(settings[3]);
+        int measurementIterations = Integer.parseInt(settings[4]);
+        long iterationNanos = Long.parseLong(settings[5]);
+        String generatorName = settings.length > 6 ? settings[6] : null;
+
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        System.setOut(discard);
+        System.setErr(discard);
+        try {
+            Class<?> target = Class.forName(className, true, BenchmarkHarness.class.getClassLoader());
+            threads = ManagementFactory.getThreadMXBean();
+            Class<?> parameter = int.class;
+            if (generatorName != null) {
+                Method generate = target.getDeclaredMethod(generatorName, int.class);
+                generate.setAccessible(true);
+                generator = MethodHandles.lookup().unreflect(generate)
+                        .asType(MethodType.methodType(Object.class, int.class));
+                parameter = generate.getReturnType();
+                long before = allocatedBytes();
+                sink = (Object) generator.invokeExact(n);
+                long inputBytes = allocatedBytes() - before;
+                maxBatch = before >= 0 && inputBytes > 0
+                        ? Math.max(1, Math.min(MAX_GENERATED_BATCH, MAX_GENERATED_BYTES / inputBytes))
+                        : MAX_GENERATED_BATCH;
+            }
+            Method method = target.getDeclaredMethod(methodName, parameter);
+            method.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflect(method)
+                    .asType(MethodType.methodType(Object.class, generator != null ? Object.class : int.class));
+
+            if (generator != null) {
+                prime(handle, n, iterationNanos);
+            }
+            long batch = batchSize(1, warmup(handle, n, 1, 0));
+            for (int i = 0; i < warmupIterations; i++) {
+                batch = batchSize(batch, warmup(handle, n, batch, iterationNanos));
+            }
+
+            System.gc();
+            long collectionsBefore = collections();
+            long collectionMillisBefore = collectionMillis();
+            for (int i = 0; i < measurementIterations; i++) {
+                iterate(handle, n, batch, iterationNanos, true);
+            }
+            long collections = collections() - collectionsBefore;
+            long collectionMillis = collectionMillis() - collectionMillisBefore;
+
+            double[] sorted = Arrays.copyOf(samples, sampleCount);
+            Arrays.sort(sorted);
+            double allocatedPerOperation = allocatedBytes() < 0 ? -1 : (double) measuredAllocated / measuredOperations;
+            out.println(RESULT_PREFIX
+                    + "operations=" + measuredOperations
+                    + " batch=" + batch
+                    + " mean=" + (double) measuredNanos / measuredOperations
+                    + " p50=" + percentile(sorted, 50)
+                    + " p90=" + percentile(sorted, 90)
+                    + " p99=" + percentile(sorted, 99)
+                    + " allocated=" + allocatedPerOperation
+                    + " gcCount=" + collections
+                    + " gcMillis=" + collectionMillis);
+        } finally {
+            System.setOut(out);
+            System.setErr(err);
+        }
+    }
+
+    /**
+     * Calls the method in batches until the iteration time is up, and at least once.
+     */
+    private static void iterate(MethodHandle handle, int n, long batch, long iterationNanos, boolean measure)
+            throws Throwable {
+        long start = System.nanoTime();
+        do {
+            if (generator != null) {
+                generate(n, (int) batch);
+            }
+            long allocatedBefore = measure ? allocatedBytes() : 0;
+            long batchNanos = timeBatch(handle, n, batch);
+            if (measure) {
+                measuredAllocated += allocatedBytes() - allocatedBefore;
+                measuredOperations += batch;
+                measuredNanos += batchNanos;
+                if (sampleCount < MAX_SAMPLES) {
+                    samples[sampleCount++] = (double) batchNanos / batch;
+                }
+            }
+        } while (System.nanoTime() - start < iterationNanos);
+    }
+
+    /**
+     * Runs an unmeasured iteration, and at least one batch.
+     *
+     * @return mean time of a batch, not counting input generation
+     */
+    private static long warmup(MethodHandle handle, int n, long batch, long iterationNanos) throws Throwable {
+        long start = System.nanoTime();
+        long nanos = 0;
+        long batches = 0;
+        do {
+            if (generator != null) {
+                generate(n, (int) batch);
+            }
+            nanos += timeBatch(handle, n, batch);
+            batches++;
+        } while (System.nanoTime() - start < iterationNanos);
+        return nanos / batches;
+    }
+
+    private static long timeBatch(MethodHandle handle, int n, long batch) throws Throwable {
+        long start = System.nanoTime();
+        if (generator != null) {
+            for (int i = 0; i < batch; i++) {
+                sink = (Object) handle.invokeExact(inputs[i]);
+            }
+        } else {
+            for (long i = 0; i < batch; i++) {
+                sink = (Object) handle.invokeExact(n);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Gets the call path compiled by calling the method repeatedly on one input. With large inputs only a few
+     * calls fit in an iteration, and interpreted method handle adapters would add microseconds to each.
+     */
+    private static void prime(MethodHandle handle, int n, long iterationNanos) throws Throwable {
+        Object input = (Object) generator.invokeExact(n);
+        inputs = new Object[PRIME_BATCH];
+        Arrays.fill(inputs, input);
+        long start = System.nanoTime();
+        for (int i = 0; i < PRIME_BATCHES && System.nanoTime() - start < iterationNanos; i++) {
+            timeBatch(handle, n, PRIME_BATCH);
+        }
+        inputs = new Object[0];
+    }
+
+    private static void generate(int n, int batch) throws Throwable {
+        if (inputs.length < batch) {
+            inputs = new Object[batch];
+        }
+        for (int i = 0; i < batch; i++) {
+            inputs[i] = (Object) generator.invokeExact(n);
+        }
+    }
+
+    /**
+     * @param nanos time of a batch of the given number of calls
+     */
+    private static long batchSize(long operations, long nanos) {
+        return Math.min(maxBatch, Math.max(1, BATCH_NANOS * operations / Math.max(1, nanos)));
+    }
+
+    private static double percentile(double[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+
+    private static long allocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean bean && bean.isThreadAllocatedMemorySupported()) {
+            return bean.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    private static long collections() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long collectionMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    /**
+     * This class's class file, to be added to a program's payload.
+     */
+    static byte[] classFile() {
+        try (InputStream in = BenchmarkHarness.class.getResourceAsStream("BenchmarkHarness.class")) {
+            if (in == null) {
+                throw new IllegalStateException("Benchmark harness class not found");
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read benchmark harness", e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.dsaplatform.sandbox;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Picks the growth class that best explains how a method's running time changes with the input size.
+ *
+ * Each class f is fitted as t(n) = c * f(n) in log space, where the only free parameter is log c, so the fit
+ * weighs a 2x error at small n the same as at large n. Classes are compared by their residuals: with
+ * normally distributed log errors and one parameter each, the likelihood of a class is proportional to
+ * RSS^(-m/2) for m sizes, and the confidence reported for a class is its share of the total likelihood.
+ */
+public final class ComplexityEstimator {
+
+    /** Sizes needed for a meaningful comparison. */
+    public static final int MIN_SAMPLES = 3;
+
+    /** Keeps perfect fits finite. */
+    private static final double MIN_RSS = 1e-9;
+
+    public enum Complexity {
+        CONSTANT("O(1)", n -> 0),
+        LOGARITHMIC("O(log n)", n -> Math.log(log2(n))),
+        LINEAR("O(n)", Math::log),
+        LINEARITHMIC("O(n log n)", n -> Math.log(n) + Math.log(log2(n))),
+        QUADRATIC("O(n^2)", n -> 2 * Math.log(n)),
+        EXPONENTIAL("O(2^n)", n -> n * Math.log(2));
+
+        private final String label;
+        private final DoubleUnaryOperator logGrowth;
+
+        Complexity(String label, DoubleUnaryOperator logGrowth) {
+            this.label = label;
+            this.logGrowth = logGrowth;
+        }
+
+        public String label() {
+            return label;
+        }
+
+        private static double log2(double n) {
+            // Sizes below 2 would make log n zero or negative
+            return Math.log(Math.max(2, n)) / Math.log(2);
+        }
+    }
+
+    private ComplexityEstimator() {
+    }
+
+    /**
+     * @param samples mean time per call at each input size, for at least {@link #MIN_SAMPLES} distinct sizes
+     * @return one fit per class, best first
+     */
+    public static List<Fit> fit(List<Sample> samples) {
+        if (samples.stream().map(Sample::n).distinct().count() < MIN_SAMPLES) {
+            throw new IllegalArgumentException("At least " + MIN_SAMPLES + " input sizes are needed");
+        }
+        int m = samples.size();
+        List<Fit> fits = new ArrayList<>();
+        double[] logLikelihoods = new double[Complexity.values().length];
+        for (Complexity complexity : Complexity.values()) {
+            double[] residuals = new double[m];
+            double logCoefficient = 0;
+            for (int i = 0; i < m; i++) {
+                Sample sample = samples.get(i);
+                residuals[i] = Math.log(Math.max(sample.nanos(), 1e-3)) - complexity.logGrowth.applyAsDouble(sample.n());
+                logCoefficient += residuals[i] / m;
+            }
+            double rss = 0;
+            for (double residual : residuals) {
+                rss += (residual - logCoefficient) * (residual - logCoefficient);
+            }
+            logLikelihoods[complexity.ordinal()] = -m / 2.0 * Math.log(Math.max(rss / m, MIN_RSS));
+            fits.add(new Fit(complexity, Math.exp(logCoefficient), rss, 0));
+        }
+
+        // Normalize in log space; likelihoods of poor fits underflow otherwise
+        double max = Double.NEGATIVE_INFINITY;
+        for (double logLikelihood : logLikelihoods) {
+            max = Math.max(max, logLikelihood);
+        }
+        double total = 0;
+        for (double logLikelihood : logLikelihoods) {
+            total += Math.exp(logLikelihood - max);
+        }
+        List<Fit> ranked = new ArrayList<>();
+        for (Fit fit : fits) {
+            double confidence = Math.exp(logLikelihoods[fit.complexity().ordinal()] - max) / total;
+            ranked.add(new Fit(fit.complexity(), fit.coefficient(), fit.rss(), confidence));
+        }
+        ranked.sort(Comparator.comparingDouble(Fit::confidence).reversed());
+        return ranked;
+    }
+
+    /**
+     * Mean time per call at one input size.
+     */
+    public record Sample(int n, double nanos) {
+    }
+
+    /**
+     * @param coefficient fitted c in t(n) = c * f(n), in nanoseconds
+     * @param rss sum of squared residuals of log time
+     * @param confidence share of the likelihood of all classes, from 0 to 1
+     */
+    public record Fit(Complexity complexity, double coefficient, double rss, double confidence) {
+    }
+}
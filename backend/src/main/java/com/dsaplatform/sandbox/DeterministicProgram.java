@@ -0,0 +1,150 @@
+package com.dsaplatform.sandbox;
+
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.Handle;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Conservative check that a compiled program always prints the same output.
+ *
+ * Every method and field the program references outside its own classes must be on an allow-list of
+ * pure library code: strings, boxed numbers, math, collections, streams and printing to System.out/err.
+ * Anything that can observe the outside world fails the check, including stdin, the clock, random numbers,
+ * threads, reflection, files and the environment. A program failing the check may still be deterministic;
+ * a program passing it is treated as such.
+ */
+public final class DeterministicProgram {
+
+    private static final Set<String> ALLOWED_PACKAGES = Set.of(
+            "java/lang/", "java/util/", "java/util/function/", "java/util/stream/", "java/math/", "java/text/");
+
+    /** Classes allowed outside the allowed packages. */
+    private static final Set<String> ALLOWED_CLASSES = Set.of(
+            "java/io/PrintStream", "java/io/Serializable", "java/io/UncheckedIOException");
+
+    private static final Set<String> DENIED_CLASSES = Set.of(
+            "java/lang/Runtime", "java/lang/Thread", "java/lang/ThreadLocal", "java/lang/InheritableThreadLocal",
+            "java/lang/Process", "java/lang/ProcessBuilder", "java/lang/ProcessHandle", "java/lang/ClassLoader",
+            "java/lang/Class", "java/lang/Module", "java/lang/StackWalker", "java/lang/SecurityManager",
+            "java/util/Random", "java/util/SplittableRandom", "java/util/Scanner", "java/util/UUID",
+            "java/util/Date", "java/util/Calendar", "java/util/GregorianCalendar", "java/util/TimeZone",
+            "java/util/Timer", "java/util/TimerTask", "java/util/Properties", "java/util/ServiceLoader",
+            "java/util/WeakHashMap", "java/util/IdentityHashMap", "java/text/SimpleDateFormat",
+            "java/text/DateFormat");
+
+    /** The only members of java.lang.System a program may use. */
+    private static final Set<String> ALLOWED_SYSTEM_MEMBERS = Set.of("out", "err", "arraycopy", "lineSeparator");
+
+    private static final Set<String> DENIED_METHODS = Set.of(
+            "random", "shuffle", "identityHashCode", "parallel", "parallelStream", "parallelSort",
+            "parallelSetAll", "parallelPrefix", "wait", "notify", "notifyAll");
+
+    private static final Set<String> BOOTSTRAP_OWNERS = Set.of(
+            "java/lang/invoke/LambdaMetafactory", "java/lang/invoke/StringConcatFactory",
+            "java/lang/runtime/ObjectMethods", "java/lang/runtime/SwitchBootstraps");
+
+    private DeterministicProgram() {
+    }
+
+    /**
+     * @param classes class files by binary name, as produced by {@link InMemoryJavaCompiler}
+     */
+    public static boolean check(Map<String, byte[]> classes) {
+        Set<String> own = classes.keySet().stream()
+                .map(name -> name.replace('.', '/'))
+                .collect(Collectors.toSet());
+        Checker checker = new Checker(own);
+        for (byte[] bytes : classes.values()) {
+            new ClassReader(bytes).accept(checker, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            if (!checker.deterministic) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean allowed(Set<String> own, String owner, String member) {
+        if (own.contains(owner)) {
+            return true;
+        }
+        if (owner.startsWith("[")) {
+            // Methods on arrays, such as clone
+            return true;
+        }
+        if (DENIED_METHODS.contains(member) || DENIED_CLASSES.contains(owner)) {
+            return false;
+        }
+        if (owner.equals("java/lang/System")) {
+            return ALLOWED_SYSTEM_MEMBERS.contains(member);
+        }
+        if (ALLOWED_CLASSES.contains(owner)) {
+            return true;
+        }
+        int slash = owner.lastIndexOf('/');
+        return slash >= 0 && ALLOWED_PACKAGES.contains(owner.substring(0, slash + 1));
+    }
+
+    private static final class Checker extends ClassVisitor {
+
+        private final Set<String> own;
+        private boolean deterministic = true;
+
+        private final MethodVisitor methodChecker = new MethodVisitor(Opcodes.ASM9) {
+
+            @Override
+            public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+                check(owner, name);
+            }
+
+            @Override
+            public void visitMethodInsn(int opcode, String owner, String name, String descriptor,
+                                        boolean isInterface) {
+                check(owner, name);
+            }
+
+            @Override
+            public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrap,
+                                               Object... arguments) {
+                if (!BOOTSTRAP_OWNERS.contains(bootstrap.getOwner())) {
+                    deterministic = false;
+                }
+                for (Object argument : arguments) {
+                    // Method references and lambda bodies
+                    if (argument instanceof Handle handle) {
+                        check(handle.getOwner(), handle.getName());
+                    }
+                }
+            }
+
+            @Override
+            public void visitLdcInsn(Object value) {
+                if (value instanceof Handle handle) {
+                    check(handle.getOwner(), handle.getName());
+                }
+            }
+        };
+
+        Checker(Set<String> own) {
+            super(Opcodes.ASM9);
+            this.own = own;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                                         String[] exceptions) {
+            return methodChecker;
+        }
+
+        private void check(String owner, String member) {
+            if (!allowed(own, owner, member)) {
+                deterministic = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.dsaplatform.sandbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory cache of compiled submissions, bounded by bytes with least-recently-used eviction.
+ *
+ * Entries are keyed by a hash of the source and the JDK version, and hold the class files, so an unchanged
+ * submission skips compilation. For programs that pass {@link DeterministicProgram} the output is cached too,
+ * once two runs have printed the same thing, and later submissions skip running as well.
+ *
+ * Lookups are counted as "code.execution.cache.lookup" by result: output (nothing to do), classes (run only)
+ * or miss.
+ */
+public class ExecutionCache {
+
+    /** Rough per-entry bookkeeping: key, map node and entry objects. */
+    private static final int ENTRY_OVERHEAD = 256;
+    private static final int CLASS_OVERHEAD = 64;
+
+    private final long maxBytes;
+    private final boolean cacheOutput;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final Counter outputHits;
+    private final Counter classHits;
+    private final Counter misses;
+
+    /**
+     * @param maxBytes approximate memory held by cached class files and output
+     * @param cacheOutput whether output of deterministic programs is cached
+     */
+    public ExecutionCache(long maxBytes, boolean cacheOutput, MeterRegistry meterRegistry) {
+        this.maxBytes = maxBytes;
+        this.cacheOutput = cacheOutput;
+        this.outputHits = lookupCounter(meterRegistry, "output");
+        this.classHits = lookupCounter(meterRegistry, "classes");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        Gauge.builder("code.execution.cache.bytes", this, ExecutionCache::sizeBytes)
+                .description("Approximate bytes held by the compiled code cache")
+                .register(meterRegistry);
+        Gauge.builder("code.execution.cache.entries", this, ExecutionCache::size)
+                .description("Submissions held by the compiled code cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cache key of a submission; class files depend on the compiler, so the JDK version is part of it.
+     */
+    public static String key(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((Runtime.version() + "\u0000").getBytes(StandardCharsets.UTF_8));
+            digest.update(source.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public synchronized Optional<Hit> get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        (entry.output != null ? outputHits : classHits).increment();
+        return Optional.of(new Hit(entry.classes, entry.output));
+    }
+
+    /**
+     * Caches the class files of a successful compilation.
+     */
+    public synchronized void putClasses(String key, Map<String, byte[]> classes) {
+        if (entries.containsKey(key)) {
+            return;
+        }
+        Entry entry = new Entry(Map.copyOf(classes), cacheOutput && DeterministicProgram.check(classes));
+        entry.weight = ENTRY_OVERHEAD + classes.entrySet().stream()
+                .mapToLong(e -> CLASS_OVERHEAD + 2L * e.getKey().length() + e.getValue().length)
+                .sum();
+        if (entry.weight > maxBytes) {
+            return;
+        }
+        entries.put(key, entry);
+        bytes += entry.weight;
+        evict();
+    }
+
+    /**
+     * Records the output of a completed run. The output is served from the cache once a second run of a
+     * deterministic program has printed exactly the same; a different output disables output caching for it.
+     */
+    public synchronized void recordOutput(String key, String output) {
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.deterministic || entry.output != null) {
+            return;
+        }
+        if (entry.candidate == null) {
+            entry.candidate = output;
+            resize(entry, 2L * output.length());
+        } else if (entry.candidate.equals(output)) {
+            entry.output = entry.candidate;
+            entry.candidate = null;
+        } else {
+            entry.deterministic = false;
+            long candidateBytes = 2L * entry.candidate.length();
+            entry.candidate = null;
+            resize(entry, -candidateBytes);
+        }
+    }
+
+    public synchronized long sizeBytes() {
+        return bytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void resize(Entry entry, long delta) {
+        entry.weight += delta;
+        bytes += delta;
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().weight;
+            eldest.remove();
+        }
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("code.execution.cache.lookup")
+                .description("Compiled code cache lookups by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * A cached submission.
+     *
+     * @param classes class files by binary name
+     * @param output output of the program if it can be served without running it, otherwise null
+     */
+    public record Hit(Map<String, byte[]> classes, String output) {
+    }
+
+    private static final class Entry {
+
+        private final Map<String, byte[]> classes;
+        private boolean deterministic;
+        private String candidate;
+        private String output;
+        private long weight;
+
+        Entry(Map<String, byte[]> classes, boolean deterministic) {
+            this.classes = classes;
+            this.deterministic = deterministic;
+        }
+    }
+}
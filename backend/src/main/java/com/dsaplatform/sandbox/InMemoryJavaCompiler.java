@@ -0,0 +1,154 @@
+package com.dsaplatform.sandbox;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Compiles Java source held in a String to class files held in memory.
+ *
+ * The system compiler is looked up once, and standard file managers are pooled: a warm file manager
+ * keeps its index of the platform classes, which is most of the cost of a cold compilation.
+ * Annotation processing is disabled, so the compiler does not scan the classpath for processors.
+ */
+public class InMemoryJavaCompiler {
+
+    private static final List<String> OPTIONS = List.of("-proc:none", "-g:source,lines", "-Xlint:none");
+
+    private final JavaCompiler compiler;
+    private final BlockingQueue<StandardJavaFileManager> fileManagers;
+
+    /**
+     * @param poolSize file managers kept for reuse; compilations beyond this create a temporary one
+     */
+    public InMemoryJavaCompiler(int poolSize) {
+        this.compiler = ToolProvider.getSystemJavaCompiler();
+        this.fileManagers = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+    }
+
+    /**
+     * Whether a compiler is available; false when running on a JRE.
+     */
+    public boolean isAvailable() {
+        return compiler != null;
+    }
+
+    /**
+     * Compile a single source file.
+     *
+     * @param className name of the public top-level class, which determines the source file name
+     * @param source the source code
+     * @return the class files by binary name, or the compiler's error output
+     */
+    public Result compile(String className, String source) {
+        if (compiler == null) {
+            throw new IllegalStateException("Java compiler not available. Make sure you're running with JDK, not JRE.");
+        }
+        StandardJavaFileManager standard = fileManagers.poll();
+        if (standard == null) {
+            standard = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+        }
+        try {
+            MemoryFileManager fileManager = new MemoryFileManager(standard);
+            StringWriter errors = new StringWriter();
+            boolean success = compiler.getTask(errors, fileManager, null, OPTIONS, null,
+                    List.of(new SourceFile(className, source))).call();
+            return success
+                    ? new Result(fileManager.classes(), null)
+                    : new Result(Map.of(), errors.toString());
+        } finally {
+            release(standard);
+        }
+    }
+
+    private void release(StandardJavaFileManager standard) {
+        if (!fileManagers.offer(standard)) {
+            try {
+                standard.close();
+            } catch (IOException ignored) {
+                // Nothing was opened for output; the file manager only held read caches
+            }
+        }
+    }
+
+    /**
+     * Outcome of a compilation: class files on success, otherwise the compiler's error output.
+     */
+    public record Result(Map<String, byte[]> classes, String errors) {
+
+        public boolean isSuccess() {
+            return errors == null;
+        }
+    }
+
+    private static final class SourceFile extends SimpleJavaFileObject {
+
+        private final String source;
+
+        SourceFile(String className, String source) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+
+    private static final class ClassFile extends SimpleJavaFileObject {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        ClassFile(String className) {
+            super(URI.create("bytes:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return bytes;
+        }
+    }
+
+    /**
+     * Reads platform classes through the pooled file manager and captures output in memory.
+     * Not closed after use, since closing would close the pooled file manager too.
+     */
+    private static final class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+        private final Map<String, ClassFile> outputs = new LinkedHashMap<>();
+
+        MemoryFileManager(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                   FileObject sibling) {
+            ClassFile file = new ClassFile(className);
+            outputs.put(className, file);
+            return file;
+        }
+
+        Map<String, byte[]> classes() {
+            Map<String, byte[]> classes = new LinkedHashMap<>();
+            outputs.forEach((name, file) -> classes.put(name, file.bytes.toByteArray()));
+            return classes;
+        }
+    }
+}
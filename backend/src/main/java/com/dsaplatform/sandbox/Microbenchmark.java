@@ -0,0 +1,179 @@
+package com.dsaplatform.sandbox;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Benchmark mode for submitted programs, run by {@link BenchmarkHarness} in a sandbox JVM.
+ *
+ * The benchmarked method is a static method of the main class taking the input size as its only (int)
+ * parameter: the one annotated with an annotation named Benchmark, which the program declares itself,
+ * or else one named {@code benchmark}. If the main class also has a static {@code generate(int n)} method,
+ * the benchmarked method may instead take that method's result, so building the input is not timed.
+ */
+public final class Microbenchmark {
+
+    public static final String METHOD_NAME = "benchmark";
+    public static final String GENERATOR_NAME = "generate";
+    private static final String ANNOTATION_NAME = "Benchmark";
+
+    private Microbenchmark() {
+    }
+
+    /**
+     * @param classes class files by binary name, as produced by {@link InMemoryJavaCompiler}
+     * @return the method to benchmark, if the main class has one
+     */
+    public static Optional<Target> findTarget(Map<String, byte[]> classes, String mainClass) {
+        byte[] bytes = classes.get(mainClass);
+        if (bytes == null) {
+            return Optional.empty();
+        }
+        Finder finder = new Finder();
+        new ClassReader(bytes).accept(finder, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+
+        String generator = null;
+        String generatedType = null;
+        for (StaticMethod method : finder.methods) {
+            if (method.name().equals(GENERATOR_NAME) && method.descriptor().startsWith("(I)")
+                    && !method.descriptor().endsWith(")V")) {
+                generator = method.name();
+                generatedType = method.descriptor().substring(method.descriptor().indexOf(')') + 1);
+            }
+        }
+        Target named = null;
+        for (StaticMethod method : finder.methods) {
+            if (!method.annotated() && !method.name().equals(METHOD_NAME)) {
+                continue;
+            }
+            Target target = null;
+            if (generatedType != null && method.descriptor().startsWith("(" + generatedType + ")")) {
+                target = new Target(method.name(), generator);
+            } else if (method.descriptor().startsWith("(I)")) {
+                target = new Target(method.name(), null);
+            }
+            if (target != null && method.annotated()) {
+                return Optional.of(target);
+            }
+            if (named == null) {
+                named = target;
+            }
+        }
+        return Optional.ofNullable(named);
+    }
+
+    /**
+     * Payload running the harness instead of the program's main method.
+     */
+    public static byte[] payload(Map<String, byte[]> classes) {
+        Map<String, byte[]> withHarness = new HashMap<>(classes);
+        withHarness.put(BenchmarkHarness.class.getName(), BenchmarkHarness.classFile());
+        return SandboxRuntime.payload(withHarness, BenchmarkHarness.class.getName());
+    }
+
+    /**
+     * Stdin telling the harness what to run.
+     */
+    public static byte[] input(String mainClass, Target target, int n, int warmupIterations,
+                               int measurementIterations, Duration iteration) {
+        String settings = String.join(" ", mainClass, target.method(), Integer.toString(n),
+                Integer.toString(warmupIterations), Integer.toString(measurementIterations),
+                Long.toString(iteration.toNanos()));
+        if (target.generator() != null) {
+            settings += " " + target.generator();
+        }
+        return (settings + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the harness's result line from the output of a completed run.
+     */
+    public static Optional<Result> parse(String output) {
+        return output.lines()
+                .filter(line -> line.startsWith(BenchmarkHarness.RESULT_PREFIX))
+                .findFirst()
+                .map(line -> {
+                    Map<String, String> values = new HashMap<>();
+                    for (String pair : line.substring(BenchmarkHarness.RESULT_PREFIX.length()).split(" ")) {
+                        int equals = pair.indexOf('=');
+                        values.put(pair.substring(0, equals), pair.substring(equals + 1));
+                    }
+                    double allocated = Double.parseDouble(values.get("allocated"));
+                    return new Result(
+                            Long.parseLong(values.get("operations")),
+                            Double.parseDouble(values.get("mean")),
+                            Double.parseDouble(values.get("p50")),
+                            Double.parseDouble(values.get("p90")),
+                            Double.parseDouble(values.get("p99")),
+                            allocated < 0 ? null : allocated,
+                            Long.parseLong(values.get("gcCount")),
+                            Long.parseLong(values.get("gcMillis")));
+                });
+    }
+
+    /**
+     * Method to benchmark.
+     *
+     * @param generator method building its input from the input size, or null if it takes the size itself
+     */
+    public record Target(String method, String generator) {
+    }
+
+    /**
+     * Measurement of a benchmark run. Times are nanoseconds per call; percentiles are over batches of calls.
+     *
+     * @param allocatedBytesPerOperation heap allocated per call, or null if the JVM cannot tell
+     */
+    public record Result(long operations, double meanNanos, double p50Nanos, double p90Nanos, double p99Nanos,
+                         Double allocatedBytesPerOperation, long gcCount, long gcMillis) {
+    }
+
+    private record StaticMethod(String name, String descriptor, boolean annotated) {
+    }
+
+    private static final class Finder extends ClassVisitor {
+
+        private final List<StaticMethod> methods = new ArrayList<>();
+
+        Finder() {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                                         String[] exceptions) {
+            if ((access & Opcodes.ACC_STATIC) == 0 || Type.getArgumentTypes(descriptor).length != 1) {
+                return null;
+            }
+            int index = methods.size();
+            methods.add(new StaticMethod(name, descriptor, false));
+            return new MethodVisitor(Opcodes.ASM9) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String annotation, boolean visible) {
+                    if (simpleName(annotation).equals(ANNOTATION_NAME)) {
+                        methods.set(index, new StaticMethod(name, descriptor, true));
+                    }
+                    return null;
+                }
+            };
+        }
+
+        /** Simple name of a type descriptor such as LMain$Benchmark; */
+        private static String simpleName(String descriptor) {
+            String type = descriptor.substring(1, descriptor.length() - 1);
+            return type.substring(Math.max(type.lastIndexOf('/'), type.lastIndexOf('$')) + 1);
+        }
+    }
+}
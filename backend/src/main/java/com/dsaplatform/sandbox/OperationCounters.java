@@ -0,0 +1,77 @@
+package com.dsaplatform.sandbox;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Counters incremented by code instrumented by {@link OperationCounting}, sent along with the program and run in
+ * the sandbox JVM in place of its main method.
+ *
+ * The first line of stdin names the class whose main method is run; the rest is the program's input. Once main
+ * returns or throws, the counts are printed as a single line starting with {@link #RESULT_PREFIX}, followed by
+ * key=value pairs. A program that exits the JVM reports no counts.
+ *
+ * Like {@link SandboxLauncher} this class must only depend on the JDK and compile to a single class file.
+ * The counters are plain fields: cheap to increment, and exact for single-threaded programs.
+ */
+public final class OperationCounters {
+
+    static final String RESULT_PREFIX = "#operations ";
+
+    public static long arrayReads;
+    public static long arrayWrites;
+    public static long comparisons;
+    public static long calls;
+    public static long allocations;
+
+    private OperationCounters() {
+    }
+
+    public static void main(String[] args) throws Throwable {
+        String mainClass = readLine(System.in);
+        try {
+            Class.forName(mainClass, true, OperationCounters.class.getClassLoader())
+                    .getMethod("main", String[].class)
+                    .invoke(null, (Object) args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        } finally {
+            System.out.flush();
+            System.out.println(RESULT_PREFIX
+                    + "arrayReads=" + arrayReads
+                    + " arrayWrites=" + arrayWrites
+                    + " comparisons=" + comparisons
+                    + " calls=" + calls
+                    + " allocations=" + allocations);
+        }
+    }
+
+    /**
+     * Reads one line a byte at a time, leaving everything after it for the program.
+     */
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        for (int b = in.read(); b != -1 && b != '\n'; b = in.read()) {
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8).trim();
+    }
+
+    /**
+     * This class's class file, to be added to a program's payload.
+     */
+    static byte[] classFile() {
+        try (InputStream in = OperationCounters.class.getResourceAsStream("OperationCounters.class")) {
+            if (in == null) {
+                throw new IllegalStateException("Operation counters class not found");
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read operation counters", e);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.dsaplatform.sandbox;
+
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Operation counting mode: rewrites a program's class files so that it counts what it does, giving cost numbers
+ * that do not depend on the load of the machine.
+ *
+ * Before each counted instruction the rewritten code increments a field of {@link OperationCounters}:
+ * <ul>
+ *   <li>array reads and writes: every array element load and store</li>
+ *   <li>comparisons: every conditional branch, loop conditions included, and calls to compare or compareTo</li>
+ *   <li>calls: every method call except constructors</li>
+ *   <li>allocations: every object and array created with new</li>
+ * </ul>
+ * Only the program's own code is counted; work done inside library methods it calls is not.
+ */
+public final class OperationCounting {
+
+    private static final String COUNTERS = OperationCounters.class.getName().replace('.', '/');
+
+    private static final Set<String> COMPARE_METHODS = Set.of("compare", "compareTo");
+
+    private OperationCounting() {
+    }
+
+    /**
+     * @param classes class files by binary name, as produced by {@link InMemoryJavaCompiler}
+     * @return the rewritten class files
+     */
+    public static Map<String, byte[]> instrument(Map<String, byte[]> classes) {
+        return classes.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, entry -> {
+            ClassReader reader = new ClassReader(entry.getValue());
+            // Inserted code neither branches nor changes the stack at branch targets, so frames stay valid
+            ClassWriter writer = new ClassWriter(reader, ClassWriter.COMPUTE_MAXS);
+            reader.accept(new Instrumenter(writer), 0);
+            return writer.toByteArray();
+        }));
+    }
+
+    /**
+     * Payload running the program through {@link OperationCounters}; its stdin must start with {@link #input}.
+     */
+    public static byte[] payload(Map<String, byte[]> instrumented) {
+        Map<String, byte[]> withCounters = new HashMap<>(instrumented);
+        withCounters.put(OperationCounters.class.getName(), OperationCounters.classFile());
+        return SandboxRuntime.payload(withCounters, OperationCounters.class.getName());
+    }
+
+    /**
+     * Stdin naming the program's main class, followed by the program's own input.
+     */
+    public static byte[] input(String mainClass, byte[] programInput) {
+        byte[] header = (mainClass + "\n").getBytes(StandardCharsets.UTF_8);
+        byte[] input = new byte[header.length + programInput.length];
+        System.arraycopy(header, 0, input, 0, header.length);
+        System.arraycopy(programInput, 0, input, header.length, programInput.length);
+        return input;
+    }
+
+    /**
+     * Reads the counts from the output of a run.
+     */
+    public static Optional<Counts> parse(String output) {
+        return output.lines()
+                .filter(line -> line.startsWith(OperationCounters.RESULT_PREFIX))
+                .reduce((first, second) -> second)
+                .map(line -> {
+                    Map<String, Long> values = new HashMap<>();
+                    for (String pair : line.substring(OperationCounters.RESULT_PREFIX.length()).split(" ")) {
+                        int equals = pair.indexOf('=');
+                        values.put(pair.substring(0, equals), Long.parseLong(pair.substring(equals + 1)));
+                    }
+                    return new Counts(values.get("arrayReads"), values.get("arrayWrites"), values.get("comparisons"),
+                            values.get("calls"), values.get("allocations"));
+                });
+    }
+
+    /**
+     * The output of a run without the line reporting the counts.
+     */
+    public static String strip(String output) {
+        return output.lines()
+                .filter(line -> !line.startsWith(OperationCounters.RESULT_PREFIX))
+                .map(line -> line + "\n")
+                .collect(Collectors.joining());
+    }
+
+    public record Counts(long arrayReads, long arrayWrites, long comparisons, long calls, long allocations) {
+    }
+
+    private static final class Instrumenter extends ClassVisitor {
+
+        Instrumenter(ClassVisitor next) {
+            super(Opcodes.ASM9, next);
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                                         String[] exceptions) {
+            MethodVisitor next = super.visitMethod(access, name, descriptor, signature, exceptions);
+            return new MethodVisitor(Opcodes.ASM9, next) {
+
+                @Override
+                public void visitInsn(int opcode) {
+                    if (opcode >= Opcodes.IALOAD && opcode <= Opcodes.SALOAD) {
+                        count("arrayReads");
+                    } else if (opcode >= Opcodes.IASTORE && opcode <= Opcodes.SASTORE) {
+                        count("arrayWrites");
+                    }
+                    super.visitInsn(opcode);
+                }
+
+                @Override
+                public void visitJumpInsn(int opcode, Label label) {
+                    if (opcode != Opcodes.GOTO && opcode != Opcodes.JSR) {
+                        count("comparisons");
+                    }
+                    super.visitJumpInsn(opcode, label);
+                }
+
+                @Override
+                public void visitMethodInsn(int opcode, String owner, String method, String methodDescriptor,
+                                            boolean isInterface) {
+                    if (!method.equals("<init>")) {
+                        count("calls");
+                        if (COMPARE_METHODS.contains(method) && methodDescriptor.endsWith(")I")) {
+                            count("comparisons");
+                        }
+                    }
+                    super.visitMethodInsn(opcode, owner, method, methodDescriptor, isInterface);
+                }
+
+                @Override
+                public void visitTypeInsn(int opcode, String type) {
+                    if (opcode == Opcodes.NEW || opcode == Opcodes.ANEWARRAY) {
+                        count("allocations");
+                    }
+                    super.visitTypeInsn(opcode, type);
+                }
+
+                @Override
+                public void visitIntInsn(int opcode, int operand) {
+                    if (opcode == Opcodes.NEWARRAY) {
+                        count("allocations");
+                    }
+                    super.visitIntInsn(opcode, operand);
+                }
+
+                @Override
+                public void visitMultiANewArrayInsn(String arrayDescriptor, int dimensions) {
+                    count("allocations");
+                    super.visitMultiANewArrayInsn(arrayDescriptor, dimensions);
+                }
+
+                private void count(String counter) {
+                    super.visitFieldInsn(Opcodes.GETSTATIC, COUNTERS, counter, "J");
+                    super.visitInsn(Opcodes.LCONST_1);
+                    super.visitInsn(Opcodes.LADD);
+                    super.visitFieldInsn(Opcodes.PUTSTATIC, COUNTERS, counter, "J");
+                }
+            };
+        }
+    }
+}
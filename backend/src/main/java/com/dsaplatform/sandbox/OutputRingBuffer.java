@@ -0,0 +1,133 @@
+package com.dsaplatform.sandbox;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed-size ring buffer carrying program output from the thread reading the process to the one
+ * streaming it to the client.
+ *
+ * The writer blocks while the buffer is full, so a slow client slows the program down (through the
+ * pipe filling up) instead of growing memory. Total output is capped: once more than the limit has
+ * been written the buffer stops accepting output and reports the overflow, so the caller can kill
+ * the program. One writer and one reader.
+ */
+public class OutputRingBuffer {
+
+    private final char[] buffer;
+    private final long maxTotalChars;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private int head;
+    private int size;
+    private long written;
+    private boolean closed;
+    private boolean overflowed;
+
+    /**
+     * @param capacity chars held at a time
+     * @param maxTotalChars chars accepted over the whole run
+     */
+    public OutputRingBuffer(int capacity, long maxTotalChars) {
+        this.buffer = new char[Math.max(1, capacity)];
+        this.maxTotalChars = maxTotalChars;
+    }
+
+    /**
+     * Appends output, waiting for room as needed.
+     *
+     * @return false if the output cap was reached; only the part up to the cap was kept
+     */
+    public boolean write(char[] chars, int offset, int length) throws InterruptedException {
+        lock.lock();
+        try {
+            if (closed) {
+                return !overflowed;
+            }
+            int accepted = (int) Math.min(length, maxTotalChars - written);
+            int end = offset + accepted;
+            while (offset < end) {
+                while (size == buffer.length && !closed) {
+                    notFull.await();
+                }
+                if (closed) {
+                    return !overflowed;
+                }
+                int tail = (head + size) % buffer.length;
+                int count = Math.min(end - offset, Math.min(buffer.length - size, buffer.length - tail));
+                System.arraycopy(chars, offset, buffer, tail, count);
+                offset += count;
+                size += count;
+                written += count;
+                notEmpty.signal();
+            }
+            if (accepted < length) {
+                overflowed = true;
+                closed = true;
+                notEmpty.signal();
+                return false;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes up to {@code maxChars} of buffered output, waiting up to the timeout for some to arrive.
+     *
+     * @return the output, empty if none arrived in time, or null once the buffer is closed and drained
+     */
+    public String read(int maxChars, long timeout, TimeUnit unit) throws InterruptedException {
+        lock.lock();
+        try {
+            long remainingNanos = unit.toNanos(timeout);
+            while (size == 0) {
+                if (closed) {
+                    return null;
+                }
+                if (remainingNanos <= 0) {
+                    return "";
+                }
+                remainingNanos = notEmpty.awaitNanos(remainingNanos);
+            }
+            int count = Math.min(maxChars, size);
+            StringBuilder chunk = new StringBuilder(count);
+            int first = Math.min(count, buffer.length - head);
+            chunk.append(buffer, head, first);
+            chunk.append(buffer, 0, count - first);
+            head = (head + count) % buffer.length;
+            size -= count;
+            notFull.signal();
+            return chunk.toString();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks the end of output; buffered output can still be read.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isOverflowed() {
+        lock.lock();
+        try {
+            return overflowed;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.dsaplatform.sandbox;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Entry point of the child JVM that runs compiled user code.
+ *
+ * The class files arrive on stdin instead of a classpath directory, so nothing is written to disk per run.
+ * Payload format: class count (int), then per class its binary name (UTF) and bytes (int length + data),
+ * then the name of the class whose main method is run (UTF).
+ *
+ * Without arguments one program is run and its output goes straight to stdout; whatever follows the payload
+ * on stdin is the program's input, as if the program had been started directly.
+ *
+ * With {@code --worker} the JVM stays up and runs one program per request: a ready byte is written first,
+ * then each request is a nonce (long), a payload and the program's input, each prefixed with its length (int),
+ * and each response is the request's nonce, a status byte, a byte telling whether the JVM is still clean and
+ * the captured output prefixed with its length. Every program gets a new class loader, its own stdin and
+ * stdout/stderr captured together. The JVM is no longer clean once a program leaves threads behind (daemon or
+ * not), replaces System.out or System.err, or changes the system properties, default locale or time zone.
+ * A program calling System.exit still gets its response, written from a shutdown hook.
+ *
+ * User code can still reach the real stdout through {@link FileDescriptor#out}. The nonce only lives in locals
+ * of the serving loop and of the run's shutdown hook, so a program writing there cannot forge a response the
+ * parent would accept; the parent retires the worker instead.
+ *
+ * This class must only depend on the JDK: it is extracted on its own and is the child JVM's whole classpath.
+ * It is its own class loader for the same reason, since a nested class would be a second class file.
+ */
+public final class SandboxLauncher extends ClassLoader {
+
+    static final String WORKER_FLAG = "--worker";
+
+    static final byte READY = 'R';
+    static final byte COMPLETED = 0;
+    static final byte FAILED = 1;
+    static final byte EXITED = 2;
+
+    private static final AtomicBoolean RUNNING = new AtomicBoolean();
+    private static final ByteArrayOutputStream CAPTURED = new ByteArrayOutputStream();
+
+    private final Map<String, byte[]> classes;
+
+    private SandboxLauncher(Map<String, byte[]> classes) {
+        super(SandboxLauncher.class.getClassLoader());
+        this.classes = classes;
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        byte[] bytes = classes.remove(name);
+        if (bytes == null) {
+            throw new ClassNotFoundException(name);
+        }
+        return defineClass(name, bytes, 0, bytes.length);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && WORKER_FLAG.equals(args[0])) {
+            serve();
+            return;
+        }
+        DataInputStream in = new DataInputStream(System.in);
+        if (run(in) != COMPLETED) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads one payload and runs its main method, reporting failures on System.err like the java launcher.
+     */
+    private static byte run(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        Map<String, byte[]> classes = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            classes.put(name, bytes);
+        }
+        String mainClass = in.readUTF();
+
+        Method main;
+        try {
+            main = new SandboxLauncher(classes).loadClass(mainClass).getMethod("main", String[].class);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            System.err.println("Error: Main method not found in class " + mainClass
+                    + ", please define the main method as:\n   public static void main(String[] args)");
+            return FAILED;
+        }
+        if (!Modifier.isStatic(main.getModifiers())) {
+            System.err.println("Error: Main method is not static in class " + mainClass);
+            return FAILED;
+        }
+
+        try {
+            main.invoke(null, (Object) new String[0]);
+            return COMPLETED;
+        } catch (InvocationTargetException e) {
+            // Report like the java launcher does for an uncaught exception in main
+            System.err.print("Exception in thread \"main\" ");
+            e.getCause().printStackTrace();
+            return FAILED;
+        } catch (IllegalAccessException e) {
+            System.err.println("Error: Main method in class " + mainClass + " is not accessible");
+            return FAILED;
+        }
+    }
+
+    private static void serve() throws IOException {
+        DataInputStream requests = new DataInputStream(new BufferedInputStream(System.in));
+        DataOutputStream responses = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        Set<Thread> baselineThreads = liveThreads();
+        Locale baselineLocale = Locale.getDefault();
+        Locale baselineDisplayLocale = Locale.getDefault(Locale.Category.DISPLAY);
+        Locale baselineFormatLocale = Locale.getDefault(Locale.Category.FORMAT);
+        TimeZone baselineTimeZone = TimeZone.getDefault();
+        // After the time zone: looking it up for the first time sets user.timezone
+        Properties baselineProperties = (Properties) System.getProperties().clone();
+
+        responses.writeByte(READY);
+        responses.flush();
+        while (true) {
+            long nonce;
+            byte[] request;
+            byte[] input;
+            try {
+                nonce = requests.readLong();
+                request = new byte[requests.readInt()];
+                requests.readFully(request);
+                input = new byte[requests.readInt()];
+                requests.readFully(input);
+            } catch (EOFException e) {
+                return;
+            }
+            // A new stream per run: the previous program may have closed or kept its own
+            PrintStream capture = new PrintStream(CAPTURED, true, StandardCharsets.UTF_8);
+            System.setOut(capture);
+            System.setErr(capture);
+            System.setIn(new ByteArrayInputStream(input));
+            // One hook per run, so the nonce is never stored where the program could look it up
+            Thread exitHook = new Thread(() -> respond(responses, nonce, EXITED, false));
+            Runtime.getRuntime().addShutdownHook(exitHook);
+            RUNNING.set(true);
+            byte status = run(new DataInputStream(new ByteArrayInputStream(request)));
+            capture.flush();
+            // Anything the program changed for the whole JVM would carry over into the next program's run
+            boolean clean = baselineThreads.containsAll(liveThreads())
+                    && System.out == capture
+                    && System.err == capture
+                    && baselineProperties.equals(System.getProperties())
+                    && baselineLocale.equals(Locale.getDefault())
+                    && baselineDisplayLocale.equals(Locale.getDefault(Locale.Category.DISPLAY))
+                    && baselineFormatLocale.equals(Locale.getDefault(Locale.Category.FORMAT))
+                    && baselineTimeZone.equals(TimeZone.getDefault());
+            respond(responses, nonce, status, clean);
+            try {
+                Runtime.getRuntime().removeShutdownHook(exitHook);
+            } catch (IllegalStateException e) {
+                // A thread of the program is exiting the JVM; the response has been sent already
+            }
+        }
+    }
+
+    /**
+     * Sends the response of the current run, once: either when main returns or when the program exits the JVM.
+     */
+    private static void respond(DataOutputStream responses, long nonce, byte status, boolean clean) {
+        if (!RUNNING.compareAndSet(true, false)) {
+            return;
+        }
+        synchronized (CAPTURED) {
+            try {
+                responses.writeLong(nonce);
+                responses.writeByte(status);
+                responses.writeBoolean(clean);
+                responses.writeInt(CAPTURED.size());
+                CAPTURED.writeTo(responses);
+                responses.flush();
+            } catch (IOException e) {
+                // The parent is gone; nothing left to report to
+            }
+            CAPTURED.reset();
+        }
+    }
+
+    /**
+     * Threads alive right now, daemon threads included: a daemon thread left behind would otherwise see the
+     * next program's stdin and write into its output.
+     */
+    private static Set<Thread> liveThreads() {
+        Set<Thread> live = new HashSet<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive()) {
+                live.add(thread);
+            }
+        }
+        return live;
+    }
+}
@@ -0,0 +1,303 @@
+package com.dsaplatform.sandbox;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Starts child JVMs running {@link SandboxLauncher}, either for a single program or as pooled workers.
+ *
+ * The application may run from a Spring Boot jar, whose nested classes a plain {@code java -cp} cannot load,
+ * so the launcher's class file is copied once into a jar, in a directory named after its hash, used as the classpath.
+ *
+ * Startup of a child JVM is most of the run time of a short program. Children can be started with tuned JVM
+ * options and can map a class-data-sharing archive of the classes a typical program loads; the archive is made
+ * by a training run the first time a JDK is used, so it is regenerated whenever the JDK changes.
+ */
+@Slf4j
+public final class SandboxRuntime {
+
+    private static final String LAUNCHER_RESOURCE = "SandboxLauncher.class";
+    private static final String LAUNCHER_JAR = "sandbox-launcher.jar";
+    private static final String ARCHIVE_PREFIX = "sandbox-";
+    private static final String ARCHIVE_SUFFIX = ".jsa";
+    private static final Duration TRAINING_TIMEOUT = Duration.ofSeconds(60);
+
+    /** Uses the classes beginners' programs typically use: input parsing, collections, streams, formatting. */
+    private static final String TRAINING_SOURCE = """
+            import java.util.*;
+            import java.util.stream.*;
+            import java.io.*;
+            public class Main {
+                record Pair(int key, String value) {}
+                public static void main(String[] args) throws IOException {
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+                    int n = Integer.parseInt(reader.readLine().trim());
+                    Scanner scanner = new Scanner(reader.readLine());
+                    List<Integer> values = new ArrayList<>();
+                    for (int i = 0; i < n; i++) values.add(scanner.nextInt());
+                    Map<Integer, List<Pair>> groups = new HashMap<>();
+                    Deque<Integer> stack = new ArrayDeque<>(values);
+                    PriorityQueue<Integer> heap = new PriorityQueue<>(Comparator.reverseOrder());
+                    heap.addAll(new TreeSet<>(new LinkedList<>(values)));
+                    for (int value : values) groups.computeIfAbsent(value % 2, k -> new ArrayList<>()).add(new Pair(value, "v" + value));
+                    int[] sorted = values.stream().mapToInt(Integer::intValue).sorted().toArray();
+                    StringBuilder out = new StringBuilder();
+                    out.append(Arrays.toString(sorted)).append(' ').append(String.format("%.2f%n", values.stream().mapToInt(i -> i).average().orElse(0)));
+                    System.out.print(out);
+                    System.out.println(groups + " " + stack.peek() + " " + heap.poll() + " " + Math.max(1, Math.abs(-2)));
+                    System.out.println(Collectors.joining(",").getClass().getSimpleName().length() + String.join("-", List.of("a", "b")));
+                    try {
+                        Object[] empty = new Object[0];
+                        System.out.println(empty[1]);
+                    } catch (ArrayIndexOutOfBoundsException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+            """;
+    private static final String TRAINING_INPUT = "5\n3 1 4 1 5\n";
+
+    private final Path classpath;
+    private final List<String> jvmOptions;
+    private final List<String> coldJvmOptions;
+    private final Path sharedArchive;
+
+    private SandboxRuntime(Path classpath, List<String> jvmOptions, List<String> coldJvmOptions, Path sharedArchive) {
+        this.classpath = classpath;
+        this.jvmOptions = jvmOptions;
+        this.coldJvmOptions = coldJvmOptions;
+        this.sharedArchive = sharedArchive;
+    }
+
+    /**
+     * Extracts the launcher under the given directory, unless an identical copy is already there.
+     */
+    public static SandboxRuntime extract(Path baseDir) {
+        try (InputStream in = SandboxLauncher.class.getResourceAsStream(LAUNCHER_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Sandbox launcher class not found");
+            }
+            byte[] bytes = in.readAllBytes();
+            String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes), 0, 8);
+            // A jar rather than a class directory: class-data-sharing only accepts jars on the classpath
+            Path classpath = baseDir.resolve(hash).resolve(LAUNCHER_JAR);
+            if (!Files.exists(classpath)) {
+                Files.createDirectories(classpath.getParent());
+                Path temp = Files.createTempFile(classpath.getParent(), "launcher", ".tmp");
+                try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(temp))) {
+                    jar.putNextEntry(new JarEntry(SandboxLauncher.class.getName().replace('.', '/') + ".class"));
+                    jar.write(bytes);
+                    jar.closeEntry();
+                }
+                Files.move(temp, classpath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return new SandboxRuntime(classpath, List.of(), List.of(), null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to extract sandbox launcher", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Runtime whose children start with the given JVM options.
+     *
+     * @param jvmOptions options for every child JVM
+     * @param coldJvmOptions additional options for single-program JVMs only, such as ones trading peak
+     *                       performance for startup time, which would slow down long-lived workers
+     */
+    public SandboxRuntime withJvmOptions(List<String> jvmOptions, List<String> coldJvmOptions) {
+        return new SandboxRuntime(classpath, List.copyOf(jvmOptions), List.copyOf(coldJvmOptions), sharedArchive);
+    }
+
+    /**
+     * Runtime whose children map a class-data-sharing archive, created by a training run unless this JDK
+     * already has one. Archives of other JDKs are removed. If the archive cannot be created, children start
+     * without one.
+     */
+    public SandboxRuntime withSharedArchive() {
+        Path archive = classpath.resolveSibling(ARCHIVE_PREFIX + jdkKey() + ARCHIVE_SUFFIX);
+        if (!Files.exists(archive)) {
+            long start = System.nanoTime();
+            if (!createArchive(archive)) {
+                return this;
+            }
+            log.info("Created class-data-sharing archive for sandbox JVMs in {} ms",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            removeStaleArchives(archive);
+        }
+        return new SandboxRuntime(classpath, jvmOptions, coldJvmOptions, archive);
+    }
+
+    public boolean hasSharedArchive() {
+        return sharedArchive != null;
+    }
+
+    /**
+     * Command starting a child JVM that reads its program from stdin.
+     */
+    public List<String> command() {
+        List<String> command = javaCommand(sharedArchive, jvmOptions);
+        command.addAll(coldJvmOptions);
+        command.addAll(List.of("-cp", classpath.toString(), SandboxLauncher.class.getName()));
+        return command;
+    }
+
+    /**
+     * Command starting a child JVM that reads its program from stdin, with the workers' JVM options only.
+     * For programs that are measured: without the cold options they are compiled as on a worker, so a
+     * measurement does not depend on whether a worker was free.
+     */
+    public List<String> benchmarkCommand() {
+        List<String> command = javaCommand(sharedArchive, jvmOptions);
+        command.addAll(List.of("-cp", classpath.toString(), SandboxLauncher.class.getName()));
+        return command;
+    }
+
+    /**
+     * Command starting a long-lived worker JVM that runs one program per request.
+     */
+    public List<String> workerCommand() {
+        List<String> command = javaCommand(sharedArchive, jvmOptions);
+        command.addAll(List.of("-cp", classpath.toString(), SandboxLauncher.class.getName(),
+                SandboxLauncher.WORKER_FLAG));
+        return command;
+    }
+
+    private static List<String> javaCommand(Path archive, List<String> jvmOptions) {
+        List<String> command = new ArrayList<>();
+        command.add(javaExecutable());
+        if (archive != null) {
+            command.add("-XX:SharedArchiveFile=" + archive);
+        }
+        command.addAll(jvmOptions);
+        return command;
+    }
+
+    /**
+     * Runs the training program with a dynamic archive dumped at exit, then moves the archive into place.
+     */
+    private boolean createArchive(Path archive) {
+        InMemoryJavaCompiler compiler = new InMemoryJavaCompiler(1);
+        if (!compiler.isAvailable()) {
+            return false;
+        }
+        InMemoryJavaCompiler.Result training = compiler.compile("Main", TRAINING_SOURCE);
+        if (!training.isSuccess()) {
+            log.warn("Sandbox training program does not compile: {}", training.errors());
+            return false;
+        }
+        Path temp = archive.resolveSibling(archive.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        List<String> command = javaCommand(null, jvmOptions);
+        command.add(1, "-XX:ArchiveClassesAtExit=" + temp);
+        command.addAll(List.of("-cp", classpath.toString(), SandboxLauncher.class.getName()));
+        try {
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            try (OutputStream in = process.getOutputStream()) {
+                in.write(payload(training.classes(), "Main"));
+                in.write(TRAINING_INPUT.getBytes(StandardCharsets.UTF_8));
+            }
+            if (!process.waitFor(TRAINING_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+                log.warn("Sandbox training run timed out; child JVMs start without a shared archive");
+                return false;
+            }
+            if (process.exitValue() != 0 || !Files.exists(temp)) {
+                log.warn("Sandbox training run failed with exit code {}; child JVMs start without a shared archive",
+                        process.exitValue());
+                return false;
+            }
+            Files.move(temp, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            log.warn("Failed to create sandbox shared archive: {}", e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                log.debug("Failed to delete {}: {}", temp, e.getMessage());
+            }
+        }
+    }
+
+    private void removeStaleArchives(Path current) {
+        try (DirectoryStream<Path> archives = Files.newDirectoryStream(classpath.getParent(), ARCHIVE_PREFIX + "*" + ARCHIVE_SUFFIX)) {
+            for (Path archive : archives) {
+                if (!archive.equals(current)) {
+                    Files.deleteIfExists(archive);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Failed to remove old sandbox archives: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Identifies the JDK an archive belongs to; an archive only works with the exact JVM that created it.
+     */
+    private static String jdkKey() {
+        String jdk = System.getProperty("java.home") + '\u0000' + Runtime.version() + '\u0000'
+                + System.getProperty("java.vm.version");
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(jdk.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * The stdin payload {@link SandboxLauncher} expects.
+     */
+    public static byte[] payload(Map<String, byte[]> classes, String mainClass) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(classes.size());
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                out.write(entry.getValue());
+            }
+            out.writeUTF(mainClass);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * The java binary of the running JDK, so child programs run on the same version they were compiled for.
+     */
+    public static String javaExecutable() {
+        return Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    }
+}
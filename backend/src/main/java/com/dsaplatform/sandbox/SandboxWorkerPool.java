@@ -0,0 +1,317 @@
+package com.dsaplatform.sandbox;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of pre-started worker JVMs running {@link SandboxLauncher} in worker mode.
+ *
+ * A run borrows an idle worker, which has already paid JVM startup, sends it the class files and waits for
+ * the captured output. Workers are replaced after a fixed number of runs and whenever a run misbehaves:
+ * it timed out, exited the JVM, left threads running or broke the protocol. Replacements start in the
+ * background, so the pool is warm again by the time the next program is submitted.
+ *
+ * Every request carries a random nonce that the response has to echo. A response with another nonce, or
+ * one announcing more output than {@link #MAX_RESPONSE_BYTES}, was written by the program itself rather than
+ * by the launcher: the worker is retired and the run is reported as if no worker had been idle, so the caller
+ * runs the program in a JVM of its own.
+ */
+@Slf4j
+public class SandboxWorkerPool implements AutoCloseable {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration FIRST_RETRY_DELAY = Duration.ofMillis(500);
+    private static final Duration MAX_RETRY_DELAY = Duration.ofSeconds(30);
+    static final int MAX_RESPONSE_BYTES = 16 * 1024 * 1024;
+    private static final SecureRandom NONCES = new SecureRandom();
+
+    private final SandboxRuntime runtime;
+    private final int size;
+    private final int maxRunsPerWorker;
+    private final BlockingQueue<Worker> idle = new LinkedBlockingQueue<>();
+    private final Set<Worker> workers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService io = Executors.newCachedThreadPool(namedThreads("sandbox-worker-io"));
+    private volatile boolean closed;
+
+    /**
+     * Starts the workers in the background.
+     *
+     * @param size number of worker JVMs kept running
+     * @param maxRunsPerWorker runs after which a worker is replaced by a fresh JVM
+     */
+    public SandboxWorkerPool(SandboxRuntime runtime, int size, int maxRunsPerWorker) {
+        this.runtime = runtime;
+        this.size = size;
+        this.maxRunsPerWorker = Math.max(1, maxRunsPerWorker);
+        for (int i = 0; i < size; i++) {
+            startWorker();
+        }
+    }
+
+    /**
+     * Runs the payload on an idle worker, with empty stdin.
+     *
+     * @param payload class files and main class, as built by {@link SandboxRuntime#payload}
+     * @return empty if no worker is idle or the worker broke the protocol, so the caller can start a JVM
+     *         of its own
+     */
+    public Optional<RunResult> tryRun(byte[] payload, Duration timeout) {
+        Worker worker = idle.poll();
+        return worker != null ? run(worker, payload, new byte[0], timeout) : Optional.empty();
+    }
+
+    /**
+     * Runs the payload with the given stdin, waiting for a worker to become idle if none is.
+     *
+     * @return empty if no worker became idle within {@code maxWait} or the worker broke the protocol
+     */
+    public Optional<RunResult> run(byte[] payload, byte[] input, Duration timeout, Duration maxWait)
+            throws InterruptedException {
+        Worker worker = idle.poll(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        return worker != null ? run(worker, payload, input, timeout) : Optional.empty();
+    }
+
+    private Optional<RunResult> run(Worker worker, byte[] payload, byte[] input, Duration timeout) {
+        long start = System.nanoTime();
+        RunResult result;
+        try {
+            result = worker.run(payload, input, timeout);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ProtocolViolation violation) {
+                log.warn("Retiring sandbox worker: {}", violation.getMessage());
+                retire(worker);
+                startWorker();
+                return Optional.empty();
+            }
+            log.warn("Sandbox worker failed: {}", e.getMessage());
+            result = new RunResult(RunResult.Status.FAILED, "", false);
+        } catch (IOException e) {
+            log.warn("Sandbox worker failed: {}", e.getMessage());
+            result = new RunResult(RunResult.Status.FAILED, "", false);
+        } catch (TimeoutException e) {
+            result = new RunResult(RunResult.Status.TIMED_OUT, "", false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = new RunResult(RunResult.Status.FAILED, "", false);
+        }
+
+        if (result.reusable() && worker.runs < maxRunsPerWorker && !closed) {
+            idle.offer(worker);
+        } else {
+            retire(worker);
+            startWorker();
+        }
+        return Optional.of(result.withRunNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Workers ready to take a run right now.
+     */
+    public int idleWorkers() {
+        return idle.size();
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Starts one worker in the background, retrying with exponential backoff until it is up or the pool is
+     * closed, so a failed start (JVM error, handshake timeout) does not leave the pool a worker short.
+     */
+    private void startWorker() {
+        if (closed) {
+            return;
+        }
+        io.execute(() -> {
+            long delay = FIRST_RETRY_DELAY.toMillis();
+            while (!closed && !spawnWorker()) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                delay = Math.min(delay * 2, MAX_RETRY_DELAY.toMillis());
+            }
+        });
+    }
+
+    /**
+     * @return false if the worker did not come up and another attempt is needed
+     */
+    private boolean spawnWorker() {
+        Worker worker = null;
+        try {
+            worker = new Worker(new ProcessBuilder(runtime.workerCommand()).start());
+            workers.add(worker);
+            Worker starting = worker;
+            io.submit(starting::awaitReady).get(STARTUP_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            if (closed) {
+                retire(worker);
+            } else {
+                idle.offer(worker);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (worker != null) {
+                retire(worker);
+            }
+            return true;
+        } catch (Exception e) {
+            if (!closed) {
+                log.error("Failed to start sandbox worker, retrying", e);
+            }
+            if (worker != null) {
+                retire(worker);
+            }
+            return false;
+        }
+    }
+
+    private void retire(Worker worker) {
+        workers.remove(worker);
+        worker.process.destroyForcibly();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        workers.forEach(worker -> worker.process.destroyForcibly());
+        workers.clear();
+        idle.clear();
+        io.shutdownNow();
+    }
+
+    /**
+     * Outcome of one run on a worker.
+     *
+     * @param output stdout and stderr of the program, interleaved as written
+     * @param reusable whether the worker can take another run
+     * @param runNanos time from handing the program to its JVM until the result came back, not counting any
+     *                 wait for a worker
+     */
+    public record RunResult(Status status, String output, boolean reusable, long runNanos) {
+
+        public RunResult(Status status, String output, boolean reusable) {
+            this(status, output, reusable, 0);
+        }
+
+        public RunResult withRunNanos(long runNanos) {
+            return new RunResult(status, output, reusable, runNanos);
+        }
+
+        public enum Status {
+            /** main returned, or the program exited with status 0 */
+            COMPLETED,
+            /** uncaught exception, missing main method, non-zero exit or a crashed worker */
+            FAILED,
+            TIMED_OUT
+        }
+    }
+
+    private final class Worker {
+
+        private final Process process;
+        private final DataOutputStream requests;
+        private final DataInputStream responses;
+        private int runs;
+
+        Worker(Process process) {
+            this.process = process;
+            this.requests = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            this.responses = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        }
+
+        Void awaitReady() throws IOException {
+            if (responses.readByte() != SandboxLauncher.READY) {
+                throw new IOException("Unexpected handshake from sandbox worker");
+            }
+            return null;
+        }
+
+        RunResult run(byte[] payload, byte[] input, Duration timeout)
+                throws IOException, ExecutionException, TimeoutException, InterruptedException {
+            runs++;
+            long nonce = NONCES.nextLong();
+            requests.writeLong(nonce);
+            requests.writeInt(payload.length);
+            requests.write(payload);
+            requests.writeInt(input.length);
+            requests.write(input);
+            requests.flush();
+
+            Future<RunResult> response = io.submit(() -> readResponse(nonce));
+            try {
+                return response.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                response.cancel(true);
+                throw e;
+            }
+        }
+
+        private RunResult readResponse(long nonce) throws IOException, InterruptedException {
+            if (responses.readLong() != nonce) {
+                throw new ProtocolViolation("response does not carry the request's nonce");
+            }
+            byte status = responses.readByte();
+            boolean clean = responses.readBoolean();
+            int length = responses.readInt();
+            if (length < 0 || length > MAX_RESPONSE_BYTES) {
+                throw new ProtocolViolation("response announces " + length + " bytes of output");
+            }
+            byte[] output = new byte[length];
+            responses.readFully(output);
+            String text = new String(output, StandardCharsets.UTF_8);
+
+            if (status == SandboxLauncher.EXITED) {
+                // The program called System.exit; its status decides success and the worker is gone
+                boolean exited = process.waitFor(1, TimeUnit.SECONDS);
+                boolean success = exited && process.exitValue() == 0;
+                return new RunResult(success ? RunResult.Status.COMPLETED : RunResult.Status.FAILED, text, false);
+            }
+            return new RunResult(status == SandboxLauncher.COMPLETED ? RunResult.Status.COMPLETED
+                    : RunResult.Status.FAILED, text, clean);
+        }
+    }
+
+    /**
+     * Response that cannot have come from the launcher.
+     */
+    private static final class ProtocolViolation extends IOException {
+
+        ProtocolViolation(String message) {
+            super(message);
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
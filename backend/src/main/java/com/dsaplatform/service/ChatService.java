@@ -3,12 +3,15 @@ package com.dsaplatform.service;
 import com.dsaplatform.dto.request.ChatRequest;
 import com.dsaplatform.dto.response.ChatResponse;
 import com.dsaplatform.dto.response.ChatResponse.ChapterReference;
+import com.dsaplatform.dto.response.ChatStreamEvent;
 import com.dsaplatform.exception.OpenAIException;
 import com.dsaplatform.model.entity.ChatLog;
 import com.dsaplatform.model.entity.Chapter;
 import com.dsaplatform.model.entity.LessonEmbedding;
 import com.dsaplatform.repository.ChatLogRepository;
 import com.dsaplatform.repository.LessonEmbeddingRepository;
+import com.dsaplatform.resilience.LlmCallContext;
+import com.dsaplatform.resilience.LlmPriority;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
@@ -18,11 +21,16 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 /**
@@ -37,10 +45,12 @@ import java.util.stream.Collectors;
 public class ChatService {
 
     private final EmbeddingService embeddingService;
+    private final EmbeddingBatcher embeddingBatcher;
     private final OpenAIClient openAIClient;
     private final LessonEmbeddingRepository lessonEmbeddingRepository;
     private final ChatLogRepository chatLogRepository;
     private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${rag.top-k-results:5}")
     private int topKResults;
@@ -48,6 +58,9 @@ public class ChatService {
     @Value("${rag.similarity-threshold:0.7}")
     private double similarityThreshold;
 
+    private static final LlmCallContext CHAT_CONTEXT =
+            LlmCallContext.withPriority(LlmPriority.INTERACTIVE).feature("chat");
+
     private static final String SYSTEM_PROMPT = """
         You are a helpful assistant for a DSA (Data Structures and Algorithms) learning platform.
         Answer the user's question based on the provided context from course materials.
@@ -69,49 +82,22 @@ public class ChatService {
         ChatLog chatLog = createInitialChatLog(userId, request.getMessage(), questionTimestamp);
         
         try {
-            // Step 1: Generate embedding for user question
-            List<double[]> queryEmbeddings = openAIClient.createEmbeddings(List.of(request.getMessage()));
-            
-            if (queryEmbeddings.isEmpty()) {
-                throw new OpenAIException("Failed to generate embedding for question");
-            }
-            
-            double[] queryVector = queryEmbeddings.get(0);
-            
-            // Step 2: Retrieve similar chunks using in-memory cosine similarity
-            List<LessonEmbedding> allEmbeddings = lessonEmbeddingRepository.findAllWithEmbeddings();
-            List<ScoredEmbedding> similarChunks = findSimilarEmbeddings(queryVector, allEmbeddings, topKResults, similarityThreshold);
-            
-            log.debug("Retrieved {} similar chunks for question", similarChunks.size());
-            
-            // Step 3: Calculate confidence score
-            double confidenceScore = calculateConfidenceScore(similarChunks);
-            
-            // Step 4: Build context from retrieved chunks
-            List<LessonEmbedding> chunks = similarChunks.stream()
-                    .map(ScoredEmbedding::getEmbedding)
-                    .collect(Collectors.toList());
-            String context = buildContext(chunks);
-            
-            // Step 5: Build conversation history for context
-            List<OpenAIClient.ChatMessage> conversationHistory = buildConversationHistory(request);
+            // Steps 1-5: Embed the question, retrieve context and build the prompt
+            RagContext rag = retrieveContext(request);
             
             // Step 6: Call chat completion with history
-            String userPrompt = buildUserPrompt(request.getMessage(), context);
-            String aiResponse = openAIClient.createChatCompletionWithHistory(SYSTEM_PROMPT, userPrompt, conversationHistory);
-            
-            // Step 7: Extract related chapter references
-            List<ChapterReference> chapterReferences = extractChapterReferences(chunks);
+            String aiResponse = CHAT_CONTEXT.call(() -> openAIClient.createChatCompletionWithHistory(
+                    SYSTEM_PROMPT, rag.userPrompt, rag.conversationHistory));
             
             // Update ChatLog with response
-            updateChatLogWithResponse(chatLog, aiResponse, confidenceScore, 
-                    chunks.size(), chapterReferences);
+            updateChatLogWithResponse(chatLog, aiResponse, rag.confidenceScore, 
+                    rag.chunkCount, rag.chapterReferences);
             
             return ChatResponse.builder()
                     .id("chat_" + chatLog.getId())
                     .content(aiResponse)
-                    .confidenceScore(confidenceScore)
-                    .relatedChapters(chapterReferences)
+                    .confidenceScore(rag.confidenceScore)
+                    .relatedChapters(rag.chapterReferences)
                     .timestamp(LocalDateTime.now())
                     .build();
                     
@@ -126,6 +112,133 @@ public class ChatService {
         }
     }
 
+    /**
+     * Processes a user question using RAG and streams the answer as it is generated.
+     * Retrieval runs synchronously so that provider failures surface as regular
+     * HTTP errors; only the completion itself is streamed. The ChatLog is completed
+     * when the stream finishes, and a cancelled stream (client disconnect) stores
+     * the partial answer so the log never stays open.
+     * The stream outlives this method, so the ChatLog is created and completed in
+     * transactions of their own rather than one spanning the method.
+     */
+    public Flux<ChatStreamEvent> streamQuestion(ChatRequest request, Long userId) {
+        log.info("Streaming answer for user {}: {}", userId, 
+                truncateForLog(request.getMessage()));
+        
+        ChatLog chatLog = transactionTemplate.execute(status ->
+                createInitialChatLog(userId, request.getMessage(), LocalDateTime.now()));
+        String chatId = "chat_" + chatLog.getId();
+        
+        RagContext rag;
+        try {
+            rag = retrieveContext(request);
+        } catch (OpenAIException e) {
+            log.error("API error while retrieving context for streamed question", e);
+            completeChatLogWithError(chatLog, "API error: " + e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            log.error("Unexpected error retrieving context for streamed question", e);
+            completeChatLogWithError(chatLog, "Error: " + e.getMessage());
+            throw new RuntimeException("Failed to process question", e);
+        }
+        
+        ChatStreamEvent meta = ChatStreamEvent.builder()
+                .type(ChatStreamEvent.TYPE_META)
+                .id(chatId)
+                .confidenceScore(rag.confidenceScore)
+                .relatedChapters(rag.chapterReferences)
+                .timestamp(LocalDateTime.now())
+                .build();
+        
+        StringBuilder answer = new StringBuilder();
+        AtomicBoolean finished = new AtomicBoolean(false);
+        
+        Flux<ChatStreamEvent> tokens = CHAT_CONTEXT.call(() -> openAIClient
+                .streamChatCompletionWithHistory(SYSTEM_PROMPT, rag.userPrompt, rag.conversationHistory))
+                .doOnNext(answer::append)
+                .map(ChatStreamEvent::token);
+        
+        // Persisting blocks on JPA, so keep it off the HTTP client's event loop
+        Mono<ChatStreamEvent> done = Mono.fromCallable(() -> {
+                    finished.set(true);
+                    transactionTemplate.executeWithoutResult(status -> updateChatLogWithResponse(chatLog,
+                            answer.toString(), rag.confidenceScore, rag.chunkCount, rag.chapterReferences));
+                    return ChatStreamEvent.builder()
+                            .type(ChatStreamEvent.TYPE_DONE)
+                            .id(chatId)
+                            .timestamp(LocalDateTime.now())
+                            .build();
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+        
+        return Flux.concat(Flux.just(meta), tokens, done)
+                .onErrorResume(e -> Mono.fromCallable(() -> {
+                            log.error("Chat stream failed for {}", chatId, e);
+                            finished.set(true);
+                            completeChatLogWithError(chatLog, "API error: " + e.getMessage());
+                            return ChatStreamEvent.error(chatId, "AI service temporarily unavailable");
+                        })
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .doOnCancel(() -> {
+                    if (finished.compareAndSet(false, true)) {
+                        log.info("Client disconnected from {}, cancelled after {} chars", 
+                                chatId, answer.length());
+                        completeChatLogWithError(chatLog, "Cancelled by client after partial answer: " + answer);
+                    }
+                });
+    }
+
+    /**
+     * Runs the retrieval half of the RAG pipeline: embeds the question, finds similar
+     * chunks, scores confidence and builds the final user prompt.
+     */
+    private RagContext retrieveContext(ChatRequest request) {
+        // Step 1: Generate embedding for user question (coalesced with concurrent questions)
+        double[] queryVector = embeddingBatcher.embed(request.getMessage());
+        
+        // Step 2: Retrieve similar chunks using in-memory cosine similarity
+        List<LessonEmbedding> allEmbeddings = lessonEmbeddingRepository.findAllWithEmbeddings();
+        List<ScoredEmbedding> similarChunks = findSimilarEmbeddings(queryVector, allEmbeddings, topKResults, similarityThreshold);
+        
+        log.debug("Retrieved {} similar chunks for question", similarChunks.size());
+        
+        // Step 3: Calculate confidence score
+        double confidenceScore = calculateConfidenceScore(similarChunks);
+        
+        // Step 4: Build context from retrieved chunks
+        List<LessonEmbedding> chunks = similarChunks.stream()
+                .map(ScoredEmbedding::getEmbedding)
+                .collect(Collectors.toList());
+        String context = buildContext(chunks);
+        
+        // Step 5: Build conversation history and extract related chapter references
+        List<OpenAIClient.ChatMessage> conversationHistory = buildConversationHistory(request);
+        List<ChapterReference> chapterReferences = extractChapterReferences(chunks);
+        
+        return new RagContext(buildUserPrompt(request.getMessage(), context), conversationHistory,
+                confidenceScore, chunks.size(), chapterReferences);
+    }
+
+    /**
+     * Helper class holding everything retrieved for a question before completion.
+     */
+    private static class RagContext {
+        final String userPrompt;
+        final List<OpenAIClient.ChatMessage> conversationHistory;
+        final double confidenceScore;
+        final int chunkCount;
+        final List<ChapterReference> chapterReferences;
+        
+        RagContext(String userPrompt, List<OpenAIClient.ChatMessage> conversationHistory,
+                   double confidenceScore, int chunkCount, List<ChapterReference> chapterReferences) {
+            this.userPrompt = userPrompt;
+            this.conversationHistory = conversationHistory;
+            this.confidenceScore = confidenceScore;
+            this.chunkCount = chunkCount;
+            this.chapterReferences = chapterReferences;
+        }
+    }
+
     /**
      * Build conversation history from request for context.
      */
@@ -242,6 +355,10 @@ public class ChatService {
         log.debug("Updated chat log {} with error state", chatLog.getId());
     }
 
+    private void completeChatLogWithError(ChatLog chatLog, String errorMessage) {
+        transactionTemplate.executeWithoutResult(status -> updateChatLogWithError(chatLog, errorMessage));
+    }
+
     private double calculateConfidenceScore(List<ScoredEmbedding> scoredChunks) {
         if (scoredChunks == null || scoredChunks.isEmpty()) {
             return 0.0;
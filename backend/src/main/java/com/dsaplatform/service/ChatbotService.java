@@ -4,6 +4,8 @@ import com.dsaplatform.dto.request.ChatMessageRequest;
 import com.dsaplatform.dto.response.ChatMessageResponse;
 import com.dsaplatform.model.entity.LessonEmbedding;
 import com.dsaplatform.repository.LessonEmbeddingRepository;
+import com.dsaplatform.resilience.LlmCallContext;
+import com.dsaplatform.resilience.LlmPriority;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -29,6 +31,9 @@ public class ChatbotService {
     @Value("${rag.similarity-threshold:0.7}")
     private double similarityThreshold;
     
+    private static final LlmCallContext CHATBOT_CONTEXT =
+            LlmCallContext.withPriority(LlmPriority.INTERACTIVE).feature("chatbot");
+    
     private static final String POLITE_DECLINE_MESSAGE = 
         "I'm your DSA learning assistant! I can only help with Data Structures and Algorithms topics. " +
         "Try asking me about arrays, linked lists, trees, graphs, sorting, searching, dynamic programming, or other DSA concepts!";
@@ -68,7 +73,8 @@ public class ChatbotService {
     public ChatMessageResponse processMessage(ChatMessageRequest request) {
         try {
             // Generate embedding for user query
-            List<double[]> queryEmbeddings = openAIClient.createEmbeddings(List.of(request.getMessage()));
+            List<double[]> queryEmbeddings = CHATBOT_CONTEXT.call(
+                    () -> openAIClient.createEmbeddings(List.of(request.getMessage())));
             
             if (queryEmbeddings.isEmpty()) {
                 return createErrorResponse("Failed to process your question.");
@@ -91,7 +97,7 @@ public class ChatbotService {
             );
             
             // Call LLM with context
-            String response = openAIClient.createChatCompletion(SYSTEM_PROMPT, userPrompt);
+            String response = CHATBOT_CONTEXT.call(() -> openAIClient.createChatCompletion(SYSTEM_PROMPT, userPrompt));
             
             return ChatMessageResponse.builder()
                     .id("msg_" + System.currentTimeMillis())
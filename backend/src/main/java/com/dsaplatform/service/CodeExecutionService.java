@@ -1,26 +1,814 @@
 package com.dsaplatform.service;
 
+import com.dsaplatform.config.CodeExecutionProperties;
+import com.dsaplatform.config.CodeExecutionProperties.CompileMode;
+import com.dsaplatform.dto.request.JudgeRequest;
+import com.dsaplatform.dto.response.BenchmarkResponse;
 import com.dsaplatform.dto.response.CodeExecutionResponse;
+import com.dsaplatform.dto.response.CodeOutputEvent;
+import com.dsaplatform.dto.response.ComplexityResponse;
+import com.dsaplatform.dto.response.JudgeResponse;
+import com.dsaplatform.exception.ExecutionRejectedException;
+import com.dsaplatform.resilience.ExecutionScheduler;
+import com.dsaplatform.sandbox.ComplexityEstimator;
+import com.dsaplatform.sandbox.ExecutionCache;
+import com.dsaplatform.sandbox.InMemoryJavaCompiler;
+import com.dsaplatform.sandbox.Microbenchmark;
+import com.dsaplatform.sandbox.OperationCounting;
+import com.dsaplatform.sandbox.OutputRingBuffer;
+import com.dsaplatform.sandbox.SandboxRuntime;
+import com.dsaplatform.sandbox.SandboxWorkerPool;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Schedulers;
 
 import javax.tools.*;
 import java.io.*;
-import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
+/**
+ * Compiles and runs user code in a child JVM.
+ * By default source is compiled in memory and the class files are handed to the child on stdin,
+ * so a run touches no files; the disk mode writes a temporary directory per run instead.
+ * In-memory compilations are cached by source, and so is the output of programs that are known to be deterministic.
+ * In-memory runs go to a pool of pre-started worker JVMs when one is idle, and otherwise start a JVM of their own.
+ * Judging compiles a submission once and runs it against every test case, spread over the pooled workers.
+ * Compilation and runs go through a scheduler that caps concurrency and queues runs fairly per client.
+ * Compile latency is recorded per mode as "code.execution.compile", run latency per start as "code.execution.run".
+ */
 @Service
 @Slf4j
 public class CodeExecutionService {
     
-    private static final long TIMEOUT_SECONDS = 5;
     private static final String TEMP_DIR = System.getProperty("java.io.tmpdir") + "/dsa-code-execution/";
+    private static final String TIMED_OUT = "Execution timed out";
+    private static final int CASES_PER_WORKER = 8;
+    private static final int MAX_CASE_OUTPUT_CHARS = 4096;
+    private static final Duration WORKER_WAIT = Duration.ofSeconds(5);
+    private static final int COMPLEXITY_WARMUP_ITERATIONS = 1;
+    private static final int COMPLEXITY_MEASUREMENT_ITERATIONS = 2;
+    private static final String RUNTIME_DIR = System.getProperty("java.io.tmpdir") + "/dsa-sandbox-runtime/";
     
-    public CodeExecutionResponse executeJavaCode(String code) {
+    private final CodeExecutionProperties properties;
+    private final InMemoryJavaCompiler inMemoryCompiler;
+    private final Timer memoryCompileTimer;
+    private final Timer diskCompileTimer;
+    private final Timer warmRunTimer;
+    private final Timer coldRunTimer;
+    private volatile SandboxRuntime runtime;
+    private final SandboxWorkerPool workerPool;
+    private final ExecutionCache cache;
+    private final ExecutionScheduler scheduler;
+    private final ExecutorService outputReaders = Executors.newCachedThreadPool(namedThreads("code-output"));
+    private final ExecutorService caseRunners = Executors.newCachedThreadPool(namedThreads("code-judge"));
+    
+    public CodeExecutionService(CodeExecutionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.inMemoryCompiler = new InMemoryJavaCompiler(properties.getFileManagerPoolSize());
+        this.memoryCompileTimer = compileTimer(meterRegistry, CompileMode.MEMORY);
+        this.diskCompileTimer = compileTimer(meterRegistry, CompileMode.DISK);
+        this.warmRunTimer = runTimer(meterRegistry, "warm");
+        this.coldRunTimer = runTimer(meterRegistry, "cold");
+        
+        CodeExecutionProperties.Pool pool = properties.getPool();
+        this.workerPool = properties.getCompileMode() == CompileMode.MEMORY && pool.isEnabled() && pool.getSize() > 0
+                ? new SandboxWorkerPool(runtime(), pool.getSize(), pool.getMaxRunsPerWorker())
+                : null;
+        
+        CodeExecutionProperties.Cache cacheProperties = properties.getCache();
+        this.cache = cacheProperties.isEnabled()
+                ? new ExecutionCache(cacheProperties.getMaxBytes(), cacheProperties.isCacheOutput(), meterRegistry)
+                : null;
+        
+        CodeExecutionProperties.Scheduler schedulerProperties = properties.getScheduler();
+        int maxConcurrentRuns = schedulerProperties.getMaxConcurrentRuns() > 0
+                ? schedulerProperties.getMaxConcurrentRuns()
+                : Runtime.getRuntime().availableProcessors();
+        this.scheduler = new ExecutionScheduler(
+                maxConcurrentRuns,
+                schedulerProperties.getMaxQueueSize(),
+                schedulerProperties.getMaxQueuedPerClient(),
+                Duration.ofSeconds(schedulerProperties.getMaxWaitSeconds()),
+                schedulerProperties.getMaxCpuLoad(),
+                ExecutionScheduler.systemCpuLoad());
+        Gauge.builder("code.execution.running", scheduler, ExecutionScheduler::getRunning)
+                .description("Compilations and runs executing")
+                .register(meterRegistry);
+        Gauge.builder("code.execution.queued", scheduler, ExecutionScheduler::getQueued)
+                .description("Runs waiting for an execution slot")
+                .register(meterRegistry);
+    }
+    
+    private static Timer runTimer(MeterRegistry meterRegistry, String start) {
+        return Timer.builder("code.execution.run")
+                .description("Time to run compiled code, on a pooled worker (warm) or a new JVM (cold)")
+                .tag("start", start)
+                .register(meterRegistry);
+    }
+    
+    private static Timer compileTimer(MeterRegistry meterRegistry, CompileMode mode) {
+        return Timer.builder("code.execution.compile")
+                .description("Time to compile submitted code")
+                .tag("mode", mode.name().toLowerCase())
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Compiles and runs the code, waiting for an execution slot if needed.
+     *
+     * @param client key the run is queued under, so one client cannot crowd out the others
+     * @throws ExecutionRejectedException if the scheduler is saturated
+     */
+    public CodeExecutionResponse executeJavaCode(String code, String client) {
+        if (properties.getCompileMode() == CompileMode.DISK) {
+            return scheduler.run(client, () -> executeFromDisk(code));
+        }
+        
+        // Reuse the classes, or even the output, of an identical earlier submission
+        String cacheKey = ExecutionCache.key(code);
+        Optional<ExecutionCache.Hit> cached = cache != null ? cache.get(cacheKey) : Optional.empty();
+        if (cached.isPresent() && cached.get().output() != null) {
+            return CodeExecutionResponse.builder()
+                    .output(cached.get().output())
+                    .error(null)
+                    .executionTime(0L)
+                    .build();
+        }
+        Map<String, byte[]> cachedClasses = cached.map(ExecutionCache.Hit::classes).orElse(null);
+        return scheduler.run(client, () -> executeInMemory(code, cacheKey, cachedClasses));
+    }
+    
+    /**
+     * Compiles the code, instruments it to count its operations (see {@link OperationCounting}) and runs it.
+     * Counting always compiles in memory and is never answered from cached output.
+     *
+     * @throws ExecutionRejectedException if the scheduler is saturated
+     */
+    public CodeExecutionResponse executeCountingOperations(String code, String client) {
+        return scheduler.run(client, () -> executeCounting(code));
+    }
+    
+    private CodeExecutionResponse executeCounting(String code) {
+        long startTime = System.currentTimeMillis();
+        String className = extractClassName(code);
+        if (className == null) {
+            return CodeExecutionResponse.builder()
+                    .output("")
+                    .error("Execution Error: Could not find public class in code")
+                    .executionTime(0L)
+                    .build();
+        }
+        if (!inMemoryCompiler.isAvailable()) {
+            return compileError("Java compiler not available. Make sure you're running with JDK, not JRE.", startTime);
+        }
+        InMemoryJavaCompiler.Result compiled = compileCached(className, code);
+        if (!compiled.isSuccess()) {
+            return compileError(compiled.errors(), startTime);
+        }
+        
+        byte[] payload = OperationCounting.payload(OperationCounting.instrument(compiled.classes()));
+        byte[] input = OperationCounting.input(className, new byte[0]);
+        Duration timeout = Duration.ofSeconds(properties.getTimeoutSeconds());
+        SandboxWorkerPool.RunResult result;
+        try {
+            result = workerPool != null ? workerPool.run(payload, input, timeout, WORKER_WAIT).orElse(null) : null;
+            if (result == null) {
+                result = runCold(payload, input, timeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CodeExecutionResponse.builder()
+                    .output("")
+                    .error("Execution Error: interrupted")
+                    .executionTime(System.currentTimeMillis() - startTime)
+                    .build();
+        } catch (Exception e) {
+            log.error("Error executing code", e);
+            return CodeExecutionResponse.builder()
+                    .output("")
+                    .error("Execution Error: " + e.getMessage())
+                    .executionTime(System.currentTimeMillis() - startTime)
+                    .build();
+        }
+        
+        CodeExecutionResponse.OperationCounts operations = OperationCounting.parse(result.output())
+                .map(counts -> CodeExecutionResponse.OperationCounts.builder()
+                        .arrayReads(counts.arrayReads())
+                        .arrayWrites(counts.arrayWrites())
+                        .comparisons(counts.comparisons())
+                        .calls(counts.calls())
+                        .allocations(counts.allocations())
+                        .build())
+                .orElse(null);
+        SandboxWorkerPool.RunResult program = new SandboxWorkerPool.RunResult(
+                result.status(), OperationCounting.strip(result.output()), result.reusable());
+        return CodeExecutionResponse.builder()
+                .output(formatOutput(program))
+                .error(null)
+                .executionTime(System.currentTimeMillis() - startTime)
+                .operations(operations)
+                .build();
+    }
+    
+    /**
+     * Compiles the code and streams its output as the program writes it, ending with a "done" event.
+     * Streamed runs always start a JVM of their own, since pooled workers return output only when the program ends,
+     * and are not answered from cached output.
+     *
+     * @param client key the run is queued under, so one client cannot crowd out the others
+     * @throws ExecutionRejectedException if the scheduler is saturated; thrown before anything is streamed
+     */
+    public Flux<CodeOutputEvent> streamJavaCode(String code, String client) {
+        String cacheKey = ExecutionCache.key(code);
+        Map<String, byte[]> cachedClasses = cache != null
+                ? cache.get(cacheKey).map(ExecutionCache.Hit::classes).orElse(null)
+                : null;
+        ExecutionScheduler.Slot slot = scheduler.acquire(client);
+        // The slot is taken before anything subscribes; free it if nothing ever does
+        AtomicBoolean unclaimed = new AtomicBoolean(true);
+        Disposable expiry = Schedulers.parallel().schedule(() -> {
+            if (unclaimed.compareAndSet(true, false)) {
+                log.warn("Streamed run for {} was never subscribed; freeing its slot", client);
+                slot.close();
+            }
+        }, properties.getScheduler().getStreamSubscribeTimeoutMillis(), TimeUnit.MILLISECONDS);
+        Mono<ExecutionScheduler.Slot> claim = Mono.fromCallable(() -> {
+            if (unclaimed.compareAndSet(true, false)) {
+                expiry.dispose();
+                return slot;
+            }
+            // Subscribed again or too late: the first slot is gone, so this run waits for one of its own
+            return scheduler.acquire(client);
+        });
+        return Flux.usingWhen(
+                claim,
+                claimed -> Flux.defer(() -> streamInMemory(code, cacheKey, cachedClasses))
+                        .subscribeOn(Schedulers.boundedElastic()),
+                claimed -> Mono.fromRunnable(claimed::close),
+                (claimed, error) -> Mono.fromRunnable(claimed::close),
+                claimed -> Mono.fromRunnable(claimed::close));
+    }
+    
+    private Flux<CodeOutputEvent> streamInMemory(String code, String cacheKey, Map<String, byte[]> cachedClasses) {
+        String className = extractClassName(code);
+        if (className == null) {
+            return Flux.just(CodeOutputEvent.error("Could not find public class in code"));
+        }
+        if (!inMemoryCompiler.isAvailable()) {
+            return Flux.just(CodeOutputEvent.error("Java compiler not available. Make sure you're running with JDK, not JRE."));
+        }
+        
+        Map<String, byte[]> classes = cachedClasses;
+        if (classes == null) {
+            InMemoryJavaCompiler.Result compiled = memoryCompileTimer.record(() -> inMemoryCompiler.compile(className, code));
+            if (!compiled.isSuccess()) {
+                return Flux.just(CodeOutputEvent.error("Compilation Error:\n" + compiled.errors()));
+            }
+            classes = compiled.classes();
+            if (cache != null) {
+                cache.putClasses(cacheKey, classes);
+            }
+        }
+        
+        byte[] payload = SandboxRuntime.payload(classes, className);
+        return Flux.using(
+                () -> new StreamedRun(payload),
+                run -> Flux.<CodeOutputEvent>generate(run::next),
+                StreamedRun::close);
+    }
+    
+    /**
+     * Compiles the code once and runs it against each test case, feeding the input on stdin and comparing
+     * the output with the expected output. Large batches are spread over the pooled workers.
+     * A case's time starts once a worker has taken it; a case run in a JVM of its own gets extra time for
+     * JVM startup. Cases not started within the judging time budget are skipped.
+     *
+     * @param client key the run is queued under, so one client cannot crowd out the others
+     * @throws ExecutionRejectedException if the scheduler is saturated
+     */
+    public JudgeResponse judge(String code, List<JudgeRequest.TestCase> testCases, Duration timeLimit, String client) {
+        return scheduler.run(client, () -> judgeInMemory(code, testCases, timeLimit));
+    }
+    
+    private JudgeResponse judgeInMemory(String code, List<JudgeRequest.TestCase> testCases, Duration timeLimit) {
+        long startTime = System.currentTimeMillis();
+        String className = extractClassName(code);
+        if (className == null) {
+            return judgeCompileError("Could not find public class in code", testCases.size());
+        }
+        if (!inMemoryCompiler.isAvailable()) {
+            return judgeCompileError("Java compiler not available. Make sure you're running with JDK, not JRE.", testCases.size());
+        }
+        
+        InMemoryJavaCompiler.Result compiled = compileCached(className, code);
+        if (!compiled.isSuccess()) {
+            return judgeCompileError(compiled.errors(), testCases.size());
+        }
+        byte[] payload = SandboxRuntime.payload(compiled.classes(), className);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(properties.getJudgeMaxSeconds());
+        
+        // Each partition runs its cases one after another, on one worker at a time
+        int cases = testCases.size();
+        int partitions = workerPool == null ? 1
+                : Math.max(1, Math.min(workerPool.getSize(), (cases + CASES_PER_WORKER - 1) / CASES_PER_WORKER));
+        JudgeResponse.CaseResult[] results = new JudgeResponse.CaseResult[cases];
+        List<Future<?>> running = new ArrayList<>();
+        for (int partition = 0; partition < partitions; partition++) {
+            int first = partition;
+            running.add(caseRunners.submit(() -> {
+                for (int i = first; i < cases; i += partitions) {
+                    results[i] = System.nanoTime() - deadline < 0
+                            ? judgeCase(i, payload, testCases.get(i), timeLimit)
+                            : JudgeResponse.CaseResult.builder().index(i).verdict(JudgeResponse.Verdict.SKIPPED).build();
+                }
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> partition : running) {
+                partition.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running.forEach(partition -> partition.cancel(true));
+            throw new IllegalStateException("Judging interrupted", e);
+        } catch (ExecutionException e) {
+            running.forEach(partition -> partition.cancel(true));
+            throw new IllegalStateException("Judging failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        
+        List<JudgeResponse.CaseResult> caseResults = Arrays.asList(results);
+        List<JudgeResponse.Verdict> failures = caseResults.stream()
+                .map(JudgeResponse.CaseResult::getVerdict)
+                .filter(caseVerdict -> caseVerdict != JudgeResponse.Verdict.ACCEPTED)
+                .toList();
+        return JudgeResponse.builder()
+                .verdict(failures.isEmpty() ? JudgeResponse.Verdict.ACCEPTED : failures.get(0))
+                .passed(cases - failures.size())
+                .total(cases)
+                .executionTime(System.currentTimeMillis() - startTime)
+                .cases(caseResults)
+                .build();
+    }
+    
+    private JudgeResponse.CaseResult judgeCase(int index, byte[] payload, JudgeRequest.TestCase testCase,
+                                               Duration timeLimit) throws Exception {
+        byte[] input = testCase.getInput() == null ? new byte[0] : testCase.getInput().getBytes(StandardCharsets.UTF_8);
+        SandboxWorkerPool.RunResult result = workerPool != null
+                ? workerPool.run(payload, input, timeLimit, WORKER_WAIT).orElse(null)
+                : null;
+        if (result == null) {
+            result = runCold(payload, input, timeLimit.plusMillis(properties.getColdStartAllowanceMillis()));
+        }
+        long timeMillis = TimeUnit.NANOSECONDS.toMillis(result.runNanos());
+        
+        JudgeResponse.Diff diff = null;
+        JudgeResponse.Verdict verdict = switch (result.status()) {
+            case TIMED_OUT -> JudgeResponse.Verdict.TIME_LIMIT_EXCEEDED;
+            case FAILED -> JudgeResponse.Verdict.RUNTIME_ERROR;
+            case COMPLETED -> {
+                diff = diff(testCase.getExpectedOutput(), result.output());
+                yield diff == null ? JudgeResponse.Verdict.ACCEPTED : JudgeResponse.Verdict.WRONG_ANSWER;
+            }
+        };
+        return JudgeResponse.CaseResult.builder()
+                .index(index)
+                .verdict(verdict)
+                .timeMillis(timeMillis)
+                .output(shorten(result.output()))
+                .diff(diff)
+                .build();
+    }
+    
+    /**
+     * First differing line, ignoring trailing whitespace on each line and trailing blank lines; null if none.
+     */
+    static JudgeResponse.Diff diff(String expected, String actual) {
+        List<String> expectedLines = normalizedLines(expected);
+        List<String> actualLines = normalizedLines(actual);
+        int lines = Math.max(expectedLines.size(), actualLines.size());
+        for (int i = 0; i < lines; i++) {
+            String expectedLine = i < expectedLines.size() ? expectedLines.get(i) : null;
+            String actualLine = i < actualLines.size() ? actualLines.get(i) : null;
+            if (!Objects.equals(expectedLine, actualLine)) {
+                return JudgeResponse.Diff.builder()
+                        .line(i + 1)
+                        .expected(expectedLine)
+                        .actual(actualLine)
+                        .build();
+            }
+        }
+        return null;
+    }
+    
+    private static List<String> normalizedLines(String text) {
+        List<String> lines = new ArrayList<>(text.lines().map(String::stripTrailing).toList());
+        while (!lines.isEmpty() && lines.get(lines.size() - 1).isEmpty()) {
+            lines.remove(lines.size() - 1);
+        }
+        return lines;
+    }
+    
+    private static JudgeResponse judgeCompileError(String errors, int cases) {
+        return JudgeResponse.builder()
+                .verdict(JudgeResponse.Verdict.COMPILATION_ERROR)
+                .passed(0)
+                .total(cases)
+                .compileError(errors)
+                .executionTime(0L)
+                .build();
+    }
+    
+    /**
+     * Benchmark the program's benchmark method (see {@link Microbenchmark}) with input size n, on a pooled
+     * worker JVM when one frees up in time. The run holds one execution slot throughout.
+     */
+    public BenchmarkResponse benchmark(String code, int n, int warmupIterations, int measurementIterations,
+                                       String client) {
+        return scheduler.run(client, () -> benchmarkInMemory(code, n, warmupIterations, measurementIterations));
+    }
+    
+    private BenchmarkResponse benchmarkInMemory(String code, int n, int warmupIterations, int measurementIterations) {
+        long startTime = System.currentTimeMillis();
+        String className = extractClassName(code);
+        if (className == null) {
+            return benchmarkCompileError("Could not find public class in code");
+        }
+        if (!inMemoryCompiler.isAvailable()) {
+            return benchmarkCompileError("Java compiler not available. Make sure you're running with JDK, not JRE.");
+        }
+        InMemoryJavaCompiler.Result compiled = compileCached(className, code);
+        if (!compiled.isSuccess()) {
+            return benchmarkCompileError(compiled.errors());
+        }
+        Microbenchmark.Target target = Microbenchmark.findTarget(compiled.classes(), className).orElse(null);
+        if (target == null) {
+            return BenchmarkResponse.builder()
+                    .status(BenchmarkResponse.Status.NO_BENCHMARK_METHOD)
+                    .error("Declare a method 'static ... " + Microbenchmark.METHOD_NAME + "(int n)' in class "
+                            + className + ", or annotate one taking an int with @Benchmark")
+                    .executionTime(0L)
+                    .build();
+        }
+        
+        Duration iteration = Duration.ofMillis(properties.getBenchmarkIterationMillis());
+        Duration timeout = iteration.multipliedBy(warmupIterations + measurementIterations)
+                .plusSeconds(properties.getTimeoutSeconds());
+        byte[] payload = Microbenchmark.payload(compiled.classes());
+        byte[] input = Microbenchmark.input(className, target, n, warmupIterations, measurementIterations, iteration);
+        BenchmarkRun run = runBenchmark(payload, input, timeout);
+        Microbenchmark.Result measured = run.measured();
+        if (measured == null) {
+            boolean timedOut = run.result().status() == SandboxWorkerPool.RunResult.Status.TIMED_OUT;
+            return BenchmarkResponse.builder()
+                    .status(timedOut ? BenchmarkResponse.Status.TIMED_OUT : BenchmarkResponse.Status.RUNTIME_ERROR)
+                    .error(timedOut ? TIMED_OUT : shorten(run.result().output()))
+                    .warmWorker(run.warm())
+                    .executionTime(System.currentTimeMillis() - startTime)
+                    .build();
+        }
+        return BenchmarkResponse.builder()
+                .status(BenchmarkResponse.Status.COMPLETED)
+                .n(n)
+                .operations(measured.operations())
+                .meanNanosPerOp(measured.meanNanos())
+                .p50NanosPerOp(measured.p50Nanos())
+                .p90NanosPerOp(measured.p90Nanos())
+                .p99NanosPerOp(measured.p99Nanos())
+                .allocatedBytesPerOp(measured.allocatedBytesPerOperation())
+                .gcCount(measured.gcCount())
+                .gcTimeMillis(measured.gcMillis())
+                .warmWorker(run.warm())
+                .executionTime(System.currentTimeMillis() - startTime)
+                .build();
+    }
+    
+    /**
+     * Estimate the time complexity of the program's benchmark method: measure it at input sizes growing
+     * geometrically from minN, then fit the times against common growth classes (see {@link ComplexityEstimator}).
+     * Measuring stops after maxN, at the first size that times out, or when the time budget runs out.
+     * All sizes run on the same kind of JVM as the first, so JIT and startup differences do not end up in the
+     * fit: after a warm first size, measuring stops if no worker frees up in time for a later one.
+     * The estimate holds one execution slot throughout.
+     */
+    public ComplexityResponse estimateComplexity(String code, int minN, int maxN, double growthFactor, String client) {
+        return scheduler.run(client, () -> estimateInMemory(code, minN, maxN, growthFactor));
+    }
+    
+    private ComplexityResponse estimateInMemory(String code, int minN, int maxN, double growthFactor) {
+        long startTime = System.currentTimeMillis();
+        String className = extractClassName(code);
+        if (className == null) {
+            return complexityCompileError("Could not find public class in code");
+        }
+        if (!inMemoryCompiler.isAvailable()) {
+            return complexityCompileError("Java compiler not available. Make sure you're running with JDK, not JRE.");
+        }
+        InMemoryJavaCompiler.Result compiled = compileCached(className, code);
+        if (!compiled.isSuccess()) {
+            return complexityCompileError(compiled.errors());
+        }
+        Microbenchmark.Target target = Microbenchmark.findTarget(compiled.classes(), className).orElse(null);
+        if (target == null) {
+            return ComplexityResponse.builder()
+                    .status(ComplexityResponse.Status.NO_BENCHMARK_METHOD)
+                    .error("Declare a method 'static ... " + Microbenchmark.METHOD_NAME + "(int n)' in class "
+                            + className + ", or one taking the result of 'static ... "
+                            + Microbenchmark.GENERATOR_NAME + "(int n)'")
+                    .executionTime(0L)
+                    .build();
+        }
+        
+        Duration iteration = Duration.ofMillis(properties.getBenchmarkIterationMillis());
+        Duration sizeTimeout = iteration.multipliedBy(COMPLEXITY_WARMUP_ITERATIONS + COMPLEXITY_MEASUREMENT_ITERATIONS)
+                .plusSeconds(properties.getTimeoutSeconds());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(properties.getComplexityMaxSeconds());
+        byte[] payload = Microbenchmark.payload(compiled.classes());
+        List<ComplexityEstimator.Sample> samples = new ArrayList<>();
+        ComplexityResponse.StopReason stopReason = ComplexityResponse.StopReason.MAX_SIZE;
+        Boolean warm = null;
+        for (long n = minN; n <= maxN; n = Math.max(n + 1, (long) Math.ceil(n * growthFactor))) {
+            Duration remaining = Duration.ofNanos(deadline - System.nanoTime());
+            if (remaining.isNegative() || remaining.isZero()) {
+                stopReason = ComplexityResponse.StopReason.TIME_BUDGET;
+                break;
+            }
+            boolean budgetLimited = remaining.compareTo(sizeTimeout) < 0;
+            byte[] input = Microbenchmark.input(className, target, (int) n,
+                    COMPLEXITY_WARMUP_ITERATIONS, COMPLEXITY_MEASUREMENT_ITERATIONS, iteration);
+            BenchmarkRun run = runBenchmark(payload, input, budgetLimited ? remaining : sizeTimeout, warm);
+            if (run == null) {
+                stopReason = ComplexityResponse.StopReason.WORKER_UNAVAILABLE;
+                break;
+            }
+            warm = run.warm();
+            if (run.result().status() == SandboxWorkerPool.RunResult.Status.TIMED_OUT) {
+                stopReason = budgetLimited
+                        ? ComplexityResponse.StopReason.TIME_BUDGET
+                        : ComplexityResponse.StopReason.TIMED_OUT;
+                break;
+            }
+            Microbenchmark.Result measured = run.measured();
+            if (measured == null) {
+                return ComplexityResponse.builder()
+                        .status(ComplexityResponse.Status.RUNTIME_ERROR)
+                        .error("n = " + n + ":\n" + shorten(run.result().output()))
+                        .measurements(measurements(samples))
+                        .warmWorker(warm)
+                        .executionTime(System.currentTimeMillis() - startTime)
+                        .build();
+            }
+            samples.add(new ComplexityEstimator.Sample((int) n, measured.meanNanos()));
+        }
+        
+        if (samples.size() < ComplexityEstimator.MIN_SAMPLES) {
+            return ComplexityResponse.builder()
+                    .status(ComplexityResponse.Status.INSUFFICIENT_DATA)
+                    .error("Measured " + samples.size() + " input sizes before stopping; at least "
+                            + ComplexityEstimator.MIN_SAMPLES + " are needed")
+                    .stopReason(stopReason)
+                    .measurements(measurements(samples))
+                    .warmWorker(warm)
+                    .executionTime(System.currentTimeMillis() - startTime)
+                    .build();
+        }
+        List<ComplexityEstimator.Fit> fits = ComplexityEstimator.fit(samples);
+        return ComplexityResponse.builder()
+                .status(ComplexityResponse.Status.COMPLETED)
+                .complexity(fits.get(0).complexity().label())
+                .confidence(fits.get(0).confidence())
+                .stopReason(stopReason)
+                .measurements(measurements(samples))
+                .fits(fits.stream()
+                        .map(fit -> ComplexityResponse.Fit.builder()
+                                .complexity(fit.complexity().label())
+                                .confidence(fit.confidence())
+                                .coefficientNanos(fit.coefficient())
+                                .build())
+                        .toList())
+                .warmWorker(warm)
+                .executionTime(System.currentTimeMillis() - startTime)
+                .build();
+    }
+    
+    private static List<ComplexityResponse.Measurement> measurements(List<ComplexityEstimator.Sample> samples) {
+        return samples.stream()
+                .map(sample -> ComplexityResponse.Measurement.builder()
+                        .n(sample.n())
+                        .meanNanosPerOp(sample.nanos())
+                        .build())
+                .toList();
+    }
+    
+    private static ComplexityResponse complexityCompileError(String errors) {
+        return ComplexityResponse.builder()
+                .status(ComplexityResponse.Status.COMPILATION_ERROR)
+                .compileError(errors)
+                .executionTime(0L)
+                .build();
+    }
+    
+    /**
+     * Runs the benchmark harness on a pooled worker, or in a JVM of its own if none frees up in time. That JVM
+     * starts with the workers' options, not the cold ones, so the code is compiled the same way either way.
+     */
+    private BenchmarkRun runBenchmark(byte[] payload, byte[] input, Duration timeout) {
+        return runBenchmark(payload, input, timeout, null);
+    }
+    
+    /**
+     * @param warm true to only run on a pooled worker, false to only run in a JVM of its own, null for either
+     * @return null if a worker was required and none freed up in time
+     */
+    private BenchmarkRun runBenchmark(byte[] payload, byte[] input, Duration timeout, Boolean warm) {
+        try {
+            SandboxWorkerPool.RunResult result = workerPool != null && !Boolean.FALSE.equals(warm)
+                    ? workerPool.run(payload, input, timeout, WORKER_WAIT).orElse(null)
+                    : null;
+            if (result != null) {
+                return new BenchmarkRun(result, true);
+            }
+            if (Boolean.TRUE.equals(warm)) {
+                return null;
+            }
+            return new BenchmarkRun(runCold(runtime().benchmarkCommand(), payload, input, timeout), false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Benchmark interrupted", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Benchmark failed: " + e.getMessage(), e);
+        }
+    }
+    
+    private record BenchmarkRun(SandboxWorkerPool.RunResult result, boolean warm) {
+        
+        /** The harness's measurement, or null if the run did not complete. */
+        Microbenchmark.Result measured() {
+            return result.status() == SandboxWorkerPool.RunResult.Status.COMPLETED
+                    ? Microbenchmark.parse(result.output()).orElse(null)
+                    : null;
+        }
+    }
+    
+    private static String shorten(String output) {
+        if (output.length() > MAX_CASE_OUTPUT_CHARS) {
+            return output.substring(0, MAX_CASE_OUTPUT_CHARS) + "\n... (output truncated)";
+        }
+        return output;
+    }
+    
+    private static BenchmarkResponse benchmarkCompileError(String errors) {
+        return BenchmarkResponse.builder()
+                .status(BenchmarkResponse.Status.COMPILATION_ERROR)
+                .compileError(errors)
+                .executionTime(0L)
+                .build();
+    }
+    
+    /**
+     * Compiles a submission, or takes its class files from the cache.
+     */
+    private InMemoryJavaCompiler.Result compileCached(String className, String code) {
+        String cacheKey = ExecutionCache.key(code);
+        Map<String, byte[]> classes = cache != null
+                ? cache.get(cacheKey).map(ExecutionCache.Hit::classes).orElse(null)
+                : null;
+        if (classes != null) {
+            return new InMemoryJavaCompiler.Result(classes, null);
+        }
+        InMemoryJavaCompiler.Result compiled = memoryCompileTimer.record(() -> inMemoryCompiler.compile(className, code));
+        if (compiled.isSuccess() && cache != null) {
+            cache.putClasses(cacheKey, compiled.classes());
+        }
+        return compiled;
+    }
+    
+    /**
+     * Runs a program with the given stdin in a JVM of its own, for when no pooled worker is available.
+     */
+    private SandboxWorkerPool.RunResult runCold(byte[] payload, byte[] input, Duration timeout) throws Exception {
+        return runCold(runtime().command(), payload, input, timeout);
+    }
+    
+    private SandboxWorkerPool.RunResult runCold(List<String> command, byte[] payload, byte[] input, Duration timeout)
+            throws Exception {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        outputReaders.execute(() -> {
+            try (OutputStream in = process.getOutputStream()) {
+                in.write(payload);
+                in.write(input);
+            } catch (IOException e) {
+                // The program exited without reading all of its input
+                log.debug("Child process closed stdin early: {}", e.getMessage());
+            }
+        });
+        Future<String> output = outputReaders.submit(
+                () -> new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        try {
+            if (!process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                return new SandboxWorkerPool.RunResult(SandboxWorkerPool.RunResult.Status.TIMED_OUT, "", false,
+                        System.nanoTime() - start);
+            }
+            long runNanos = System.nanoTime() - start;
+            SandboxWorkerPool.RunResult.Status status = process.exitValue() == 0
+                    ? SandboxWorkerPool.RunResult.Status.COMPLETED
+                    : SandboxWorkerPool.RunResult.Status.FAILED;
+            return new SandboxWorkerPool.RunResult(status, output.get(1, TimeUnit.SECONDS), false, runNanos);
+        } finally {
+            process.destroyForcibly();
+            output.cancel(true);
+        }
+    }
+    
+    /**
+     * @param cachedClasses class files of an identical earlier submission, or null to compile
+     */
+    private CodeExecutionResponse executeInMemory(String code, String cacheKey, Map<String, byte[]> cachedClasses) {
+        long startTime = System.currentTimeMillis();
+        
+        try {
+            // Extract class name from code
+            String className = extractClassName(code);
+            if (className == null) {
+                throw new RuntimeException("Could not find public class in code");
+            }
+            if (!inMemoryCompiler.isAvailable()) {
+                return compileError("Java compiler not available. Make sure you're running with JDK, not JRE.", startTime);
+            }
+            
+            Map<String, byte[]> classes;
+            if (cachedClasses != null) {
+                classes = cachedClasses;
+            } else {
+                // Compile the code
+                InMemoryJavaCompiler.Result compiled = memoryCompileTimer.record(() -> inMemoryCompiler.compile(className, code));
+                if (!compiled.isSuccess()) {
+                    return compileError(compiled.errors(), startTime);
+                }
+                classes = compiled.classes();
+                if (cache != null) {
+                    cache.putClasses(cacheKey, classes);
+                }
+            }
+            
+            // Execute the code; the worker or new JVM reads the classes from stdin
+            byte[] payload = SandboxRuntime.payload(classes, className);
+            long runStart = System.nanoTime();
+            Optional<SandboxWorkerPool.RunResult> warm = workerPool != null
+                    ? workerPool.tryRun(payload, Duration.ofSeconds(properties.getTimeoutSeconds()))
+                    : Optional.empty();
+            String output;
+            if (warm.isPresent()) {
+                output = formatOutput(warm.get());
+                warmRunTimer.record(System.nanoTime() - runStart, TimeUnit.NANOSECONDS);
+            } else {
+                output = executeCode(new ProcessBuilder(runtime().command()), payload);
+                coldRunTimer.record(System.nanoTime() - runStart, TimeUnit.NANOSECONDS);
+            }
+            if (cache != null && !output.startsWith(TIMED_OUT)) {
+                cache.recordOutput(cacheKey, output);
+            }
+            
+            return CodeExecutionResponse.builder()
+                    .output(output)
+                    .error(null)
+                    .executionTime(System.currentTimeMillis() - startTime)
+                    .build();
+        
+        } catch (Exception e) {
+            log.error("Error executing code", e);
+            return CodeExecutionResponse.builder()
+                    .output("")
+                    .error("Execution Error: " + e.getMessage())
+                    .executionTime(System.currentTimeMillis() - startTime)
+                    .build();
+        }
+    }
+    
+    private CodeExecutionResponse executeFromDisk(String code) {
         long startTime = System.currentTimeMillis();
         
         try {
@@ -37,27 +825,28 @@ public class CodeExecutionService {
             }
             
             // Create unique directory for this execution
-            String executionId = String.valueOf(System.currentTimeMillis());
-            Path executionDir = tempDir.resolve(executionId);
-            Files.createDirectories(executionDir);
+            Path executionDir = Files.createTempDirectory(tempDir, "run");
             
             // Write code to file
             Path sourceFile = executionDir.resolve(className + ".java");
             Files.writeString(sourceFile, code);
             
             // Compile the code
-            String compileError = compileCode(sourceFile);
+            String compileError = diskCompileTimer.record(() -> compileCode(sourceFile));
             if (compileError != null) {
                 cleanup(executionDir);
-                return CodeExecutionResponse.builder()
-                        .output("")
-                        .error("Compilation Error:\n" + compileError)
-                        .executionTime(System.currentTimeMillis() - startTime)
-                        .build();
+                return compileError(compileError, startTime);
             }
             
             // Execute the code
-            String output = executeCode(executionDir, className);
+            ProcessBuilder processBuilder = new ProcessBuilder(
+                    SandboxRuntime.javaExecutable(),
+                    "-cp",
+                    executionDir.toString(),
+                    className
+            );
+            processBuilder.directory(executionDir.toFile());
+            String output = executeCode(processBuilder, null);
             
             // Cleanup
             cleanup(executionDir);
@@ -67,7 +856,7 @@ public class CodeExecutionService {
                     .error(null)
                     .executionTime(System.currentTimeMillis() - startTime)
                     .build();
-                    
+        
         } catch (Exception e) {
             log.error("Error executing code", e);
             return CodeExecutionResponse.builder()
@@ -78,6 +867,44 @@ public class CodeExecutionService {
         }
     }
     
+    private static CodeExecutionResponse compileError(String errors, long startTime) {
+        return CodeExecutionResponse.builder()
+                .output("")
+                .error("Compilation Error:\n" + errors)
+                .executionTime(System.currentTimeMillis() - startTime)
+                .build();
+    }
+    
+    /**
+     * Same output as a program run in its own JVM.
+     */
+    private String formatOutput(SandboxWorkerPool.RunResult result) {
+        String output = result.output().lines().map(line -> line + "\n").collect(Collectors.joining());
+        return switch (result.status()) {
+            case TIMED_OUT -> TIMED_OUT + " after " + properties.getTimeoutSeconds() + " seconds";
+            case FAILED -> "Runtime Error:\n" + output;
+            case COMPLETED -> output.isEmpty() ? "Program executed successfully with no output" : output;
+        };
+    }
+    
+    private SandboxRuntime runtime() {
+        SandboxRuntime current = runtime;
+        if (current == null) {
+            synchronized (this) {
+                current = runtime;
+                if (current == null) {
+                    current = SandboxRuntime.extract(Paths.get(RUNTIME_DIR))
+                            .withJvmOptions(properties.getJvmOptions(), properties.getColdJvmOptions());
+                    if (properties.isClassDataSharing()) {
+                        current = current.withSharedArchive();
+                    }
+                    runtime = current;
+                }
+            }
+        }
+        return current;
+    }
+    
     private String extractClassName(String code) {
         // Look for public class declaration
         String[] lines = code.split("\n");
@@ -103,14 +930,14 @@ public class CodeExecutionService {
             StringWriter errorWriter = new StringWriter();
             StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
             
-            Iterable<? extends JavaFileObject> compilationUnits = 
+            Iterable<? extends JavaFileObject> compilationUnits =
                     fileManager.getJavaFileObjectsFromFiles(Arrays.asList(sourceFile.toFile()));
             
             JavaCompiler.CompilationTask task = compiler.getTask(
                     errorWriter,
                     fileManager,
                     null,
-                    null,
+                    List.of("-proc:none"),
                     null,
                     compilationUnits
             );
@@ -128,22 +955,25 @@ public class CodeExecutionService {
         }
     }
     
-    private String executeCode(Path executionDir, String className) throws Exception {
-        ProcessBuilder processBuilder = new ProcessBuilder(
-                "java",
-                "-cp",
-                executionDir.toString(),
-                className
-        );
-        
-        processBuilder.directory(executionDir.toFile());
+    /**
+     * Run the process, feeding it the given stdin payload, if any, and collecting its output.
+     */
+    private String executeCode(ProcessBuilder processBuilder, byte[] stdin) throws Exception {
         processBuilder.redirectErrorStream(true);
+        long timeoutSeconds = properties.getTimeoutSeconds();
         
         Process process = processBuilder.start();
+        try (OutputStream in = process.getOutputStream()) {
+            if (stdin != null) {
+                in.write(stdin);
+            }
+        } catch (IOException e) {
+            // The child exited before reading its input; its output explains why
+            log.debug("Child process closed stdin early: {}", e.getMessage());
+        }
         
         // Read output with timeout
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        Future<String> outputFuture = executor.submit(() -> {
+        Future<String> outputFuture = outputReaders.submit(() -> {
             StringBuilder output = new StringBuilder();
             try (BufferedReader reader = new BufferedReader(
                     new InputStreamReader(process.getInputStream()))) {
@@ -157,33 +987,142 @@ public class CodeExecutionService {
         
         try {
             // Wait for process with timeout
-            boolean finished = process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            boolean finished = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
             
             if (!finished) {
                 process.destroyForcibly();
-                executor.shutdownNow();
-                return "Execution timed out after " + TIMEOUT_SECONDS + " seconds";
+                outputFuture.cancel(true);
+                return TIMED_OUT + " after " + timeoutSeconds + " seconds";
             }
             
             String output = outputFuture.get(1, TimeUnit.SECONDS);
-            executor.shutdown();
             
             if (process.exitValue() != 0) {
                 return "Runtime Error:\n" + output;
             }
             
             return output.isEmpty() ? "Program executed successfully with no output" : output;
-            
+        
         } catch (TimeoutException e) {
             process.destroyForcibly();
-            executor.shutdownNow();
-            return "Execution timed out";
+            outputFuture.cancel(true);
+            return TIMED_OUT;
         } catch (Exception e) {
-            executor.shutdownNow();
+            outputFuture.cancel(true);
             throw e;
         }
     }
     
+    /**
+     * A program running in its own JVM whose output is relayed through a bounded ring buffer.
+     */
+    private final class StreamedRun {
+        
+        private static final int CHUNK_CHARS = 8192;
+        
+        private final long startTime = System.currentTimeMillis();
+        private final long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(properties.getTimeoutSeconds());
+        private final OutputRingBuffer output = new OutputRingBuffer(CHUNK_CHARS * 2, properties.getMaxStreamedOutputChars());
+        private final Process process;
+        private boolean finished;
+        
+        StreamedRun(byte[] payload) throws IOException {
+            process = new ProcessBuilder(runtime().command()).redirectErrorStream(true).start();
+            try (OutputStream in = process.getOutputStream()) {
+                in.write(payload);
+            } catch (IOException e) {
+                // The child exited before reading its input; its output explains why
+                log.debug("Child process closed stdin early: {}", e.getMessage());
+            }
+            outputReaders.execute(this::relayOutput);
+        }
+        
+        private void relayOutput() {
+            try (Reader reader = new InputStreamReader(process.getInputStream())) {
+                char[] chars = new char[CHUNK_CHARS];
+                int read;
+                while ((read = reader.read(chars)) >= 0) {
+                    if (!output.write(chars, 0, read)) {
+                        // Output limit reached
+                        process.destroyForcibly();
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                log.debug("Output of streamed run ended: {}", e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                output.close();
+            }
+        }
+        
+        /**
+         * Emits the next piece of output, or the final event once the program has ended.
+         */
+        void next(SynchronousSink<CodeOutputEvent> sink) {
+            if (finished) {
+                sink.complete();
+                return;
+            }
+            try {
+                String chunk;
+                do {
+                    long remainingNanos = deadlineNanos - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        process.destroyForcibly();
+                        finish(sink, CodeOutputEvent.STATUS_TIMED_OUT, null);
+                        return;
+                    }
+                    chunk = output.read(CHUNK_CHARS, remainingNanos, TimeUnit.NANOSECONDS);
+                } while (chunk != null && chunk.isEmpty());
+                
+                if (chunk != null) {
+                    sink.next(CodeOutputEvent.output(chunk));
+                } else if (output.isOverflowed()) {
+                    finish(sink, CodeOutputEvent.STATUS_OUTPUT_LIMIT, null);
+                } else if (!process.waitFor(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    process.destroyForcibly();
+                    finish(sink, CodeOutputEvent.STATUS_TIMED_OUT, null);
+                } else {
+                    int exitCode = process.exitValue();
+                    finish(sink, exitCode == 0 ? CodeOutputEvent.STATUS_COMPLETED : CodeOutputEvent.STATUS_FAILED, exitCode);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                sink.error(e);
+            }
+        }
+        
+        private void finish(SynchronousSink<CodeOutputEvent> sink, String status, Integer exitCode) {
+            finished = true;
+            sink.next(CodeOutputEvent.done(status, exitCode, System.currentTimeMillis() - startTime));
+        }
+        
+        void close() {
+            process.destroyForcibly();
+            output.close();
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (workerPool != null) {
+            workerPool.close();
+        }
+        outputReaders.shutdownNow();
+        caseRunners.shutdownNow();
+    }
+    
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
     private void cleanup(Path directory) {
         try {
             if (Files.exists(directory)) {
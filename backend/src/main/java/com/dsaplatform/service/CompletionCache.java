@@ -0,0 +1,213 @@
+package com.dsaplatform.service;
+
+import com.dsaplatform.config.CompletionCacheProperties;
+import com.dsaplatform.model.entity.CompletionCacheEntry;
+import com.dsaplatform.repository.CompletionCacheRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Content-addressed cache of chat completions.
+ * A small LRU map in memory answers repeated prompts without touching the database;
+ * the database table keeps completions across restarts and between instances.
+ * Entries expire after the configured TTL, and the table is trimmed to its size limit.
+ */
+@Service
+@Slf4j
+public class CompletionCache {
+
+    private final CompletionCacheRepository repository;
+    private final CompletionCacheProperties properties;
+    private final TransactionTemplate storeTransaction;
+
+    private final Map<String, MemoryEntry> memory;
+    private final Timer memoryHits;
+    private final Timer storeHits;
+    private final Timer misses;
+
+    public CompletionCache(CompletionCacheRepository repository, CompletionCacheProperties properties,
+                           PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.properties = properties;
+        // Writes run in their own transaction so a duplicate key never affects the caller's
+        this.storeTransaction = new TransactionTemplate(transactionManager);
+        this.storeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        int memoryMaxEntries = Math.max(1, properties.getMemoryMaxEntries());
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MemoryEntry> eldest) {
+                return size() > memoryMaxEntries;
+            }
+        };
+        this.memoryHits = lookupTimer(meterRegistry, "memory_hit");
+        this.storeHits = lookupTimer(meterRegistry, "store_hit");
+        this.misses = lookupTimer(meterRegistry, "miss");
+        Gauge.builder("openai.completion.cache.memory.size", this, CompletionCache::memorySize)
+                .description("Completions held in the in-memory cache")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Computes the cache key for a completion request.
+     *
+     * @param messagesJson the request messages, serialized in order
+     */
+    public static String key(String model, double temperature, int maxTokens, String messagesJson) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((model + '\u0000' + temperature + '\u0000' + maxTokens + '\u0000')
+                    .getBytes(StandardCharsets.UTF_8));
+            digest.update(messagesJson.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Looks up a cached completion, checking memory first and then the database.
+     */
+    public Optional<String> get(String key) {
+        long startNanos = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+
+        MemoryEntry cached;
+        synchronized (memory) {
+            cached = memory.get(key);
+            if (cached != null && !cached.expiresAt().isAfter(now)) {
+                memory.remove(key);
+                cached = null;
+            }
+        }
+        if (cached != null) {
+            memoryHits.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            return Optional.of(cached.content());
+        }
+
+        try {
+            Optional<CompletionCacheEntry> stored = repository.findByCacheKey(key)
+                    .filter(entry -> entry.getExpiresAt().isAfter(now));
+            if (stored.isPresent()) {
+                remember(key, stored.get().getContent(), stored.get().getExpiresAt());
+                storeHits.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                return Optional.of(stored.get().getContent());
+            }
+        } catch (DataAccessException e) {
+            log.warn("Completion cache lookup failed, calling provider: {}", e.getMessage());
+        }
+        misses.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        return Optional.empty();
+    }
+
+    /**
+     * Stores a completion. Failures are logged and otherwise ignored.
+     */
+    public void put(String key, String model, String content) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusMinutes(properties.getTtlMinutes());
+        remember(key, content, expiresAt);
+
+        CompletionCacheEntry entry = CompletionCacheEntry.builder()
+                .cacheKey(key)
+                .model(model)
+                .content(content)
+                .createdAt(now)
+                .expiresAt(expiresAt)
+                .build();
+        try {
+            storeTransaction.executeWithoutResult(status -> repository.save(entry));
+        } catch (DataIntegrityViolationException e) {
+            // Another request cached the same prompt first
+            log.debug("Completion for key {} already cached", key);
+        } catch (DataAccessException e) {
+            log.warn("Failed to store completion in cache: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Removes a completion, so the next call with the same prompt reaches the provider.
+     * Failures are logged and otherwise ignored.
+     */
+    public void remove(String key) {
+        synchronized (memory) {
+            memory.remove(key);
+        }
+        try {
+            storeTransaction.executeWithoutResult(status -> repository.deleteByCacheKey(key));
+        } catch (DataAccessException e) {
+            log.warn("Failed to remove completion from cache: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Removes expired completions and trims the table to its size limit.
+     */
+    @Scheduled(fixedDelayString = "${openai.completion-cache.eviction-interval-millis:600000}")
+    public void evict() {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (memory) {
+            memory.values().removeIf(entry -> !entry.expiresAt().isAfter(now));
+        }
+        storeTransaction.executeWithoutResult(status -> {
+            int expired = repository.deleteExpired(now);
+            long overflow = repository.count() - properties.getMaxEntries();
+            int trimmed = 0;
+            if (overflow > 0) {
+                List<Long> oldest = repository.findOldestIds(PageRequest.of(0, (int) Math.min(overflow, Integer.MAX_VALUE)));
+                repository.deleteAllByIdInBatch(oldest);
+                trimmed = oldest.size();
+            }
+            if (expired > 0 || trimmed > 0) {
+                log.info("Evicted {} expired and {} surplus cached completions", expired, trimmed);
+            }
+        });
+    }
+
+    private void remember(String key, String content, LocalDateTime expiresAt) {
+        synchronized (memory) {
+            memory.put(key, new MemoryEntry(content, expiresAt));
+        }
+    }
+
+    private int memorySize() {
+        synchronized (memory) {
+            return memory.size();
+        }
+    }
+
+    private static Timer lookupTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("openai.completion.cache.lookup")
+                .description("Completion cache lookups by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record MemoryEntry(String content, LocalDateTime expiresAt) {
+    }
+}
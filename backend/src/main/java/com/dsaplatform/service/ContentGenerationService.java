@@ -1,27 +1,36 @@
 package com.dsaplatform.service;
 
+import com.dsaplatform.dto.response.ApiResponse;
 import com.dsaplatform.dto.response.ChapterContentResponse;
 import com.dsaplatform.exception.ContentNotFoundException;
 import com.dsaplatform.exception.OpenAIException;
 import com.dsaplatform.model.entity.ChapterContent;
 import com.dsaplatform.model.entity.LessonContent;
 import com.dsaplatform.repository.ChapterContentRepository;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.dsaplatform.resilience.LlmCallContext;
+import com.dsaplatform.resilience.LlmPriority;
+import com.dsaplatform.util.JsonArrayStreamParser;
+import com.dsaplatform.util.PrecompressedBody;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
  * Service for generating and managing dynamic chapter content using LLM.
  * Implements caching strategy: generate once, store in DB, retrieve on subsequent requests.
+ * Concurrent requests for the same chapter share a single generation (see {@link GenerationCoordinator}).
+ * The API response for stored content is kept gzipped with its ETag, so repeated reads skip serialization.
  */
 @Service
 @RequiredArgsConstructor
@@ -31,6 +40,7 @@ public class ContentGenerationService {
     private final ChapterContentRepository chapterContentRepository;
     private final OpenAIClient openAIClient;
     private final ObjectMapper objectMapper;
+    private final GenerationCoordinator generationCoordinator;
     
     private static final String SYSTEM_PROMPT = """
         You are an expert DSA (Data Structures and Algorithms) educator creating beginner-friendly 
@@ -43,11 +53,11 @@ public class ContentGenerationService {
     
     /**
      * Get chapter content with lessons. If not cached, generate using LLM and store.
+     * Not transactional: no database connection is held while the LLM call runs.
      * 
      * @param chapterName The name of the chapter (e.g., "Stack", "Queue", "Linked List")
      * @return ChapterContentResponse with lessons
      */
-    @Transactional
     public ChapterContentResponse getOrGenerateChapterContent(String chapterName) {
         log.info("Fetching content for chapter: {}", chapterName);
         
@@ -56,20 +66,65 @@ public class ContentGenerationService {
             throw new IllegalArgumentException("Chapter name cannot be empty");
         }
         
-        String normalizedChapterName = chapterName.trim();
+        String normalizedChapterName = normalizeChapterName(chapterName);
         
-        // Check if content already exists in database
-        return chapterContentRepository.findByChapterNameIgnoreCase(normalizedChapterName)
-                .map(content -> {
-                    log.info("Found cached content for chapter: {}", normalizedChapterName);
-                    return mapToResponse(content, true);
-                })
-                .orElseGet(() -> {
+        // Check if content already exists in database; otherwise generate it once for all concurrent callers
+        return generationCoordinator.getOrGenerate(
+                "chapter:" + normalizedChapterName.toLowerCase(Locale.ROOT),
+                () -> findStoredContent(normalizedChapterName),
+                () -> {
                     log.info("No cached content found. Generating new content for chapter: {}", normalizedChapterName);
                     return generateAndStoreContent(normalizedChapterName);
                 });
     }
     
+    /**
+     * Get chapter content as a stored, compressed API response.
+     * Stored content is served from the stored bytes without loading its lessons;
+     * newly generated content is serialized on the fly.
+     * 
+     * @param chapterName The name of the chapter
+     */
+    public PrecompressedBody getChapterContentBody(String chapterName) {
+        if (chapterName != null && !chapterName.isBlank()) {
+            Optional<PrecompressedBody> stored =
+                    chapterContentRepository.findBodyByChapterNameIgnoreCase(normalizeChapterName(chapterName));
+            if (stored.isPresent()) {
+                return stored.get();
+            }
+        }
+        
+        ChapterContentResponse content = getOrGenerateChapterContent(chapterName);
+        PrecompressedBody body = toBody(content);
+        if (content.isCached()) {
+            // Stored before responses were stored; store it now
+            chapterContentRepository.storeBody(content.getId(), body.getEtag(), body.getGzipped());
+        }
+        return body;
+    }
+    
+    /**
+     * Chapter names differing only in case or whitespace name the same chapter; case is ignored by the queries.
+     */
+    static String normalizeChapterName(String chapterName) {
+        return chapterName.trim().replaceAll("\\s+", " ");
+    }
+    
+    private PrecompressedBody toBody(ChapterContentResponse content) {
+        String message = content.isCached()
+                ? "Retrieved cached content for chapter: " + content.getChapterName()
+                : "Generated new content for chapter: " + content.getChapterName();
+        return PrecompressedBody.of(objectMapper, ApiResponse.success(content, message));
+    }
+    
+    private Optional<ChapterContentResponse> findStoredContent(String chapterName) {
+        return chapterContentRepository.findByChapterNameIgnoreCase(chapterName)
+                .map(content -> {
+                    log.info("Found cached content for chapter: {}", chapterName);
+                    return mapToResponse(content, true);
+                });
+    }
+    
     /**
      * Generate new content using LLM and store in database.
      */
@@ -86,8 +141,16 @@ public class ContentGenerationService {
             log.info("Successfully generated and stored content for chapter: {} with {} lessons", 
                     chapterName, savedContent.getLessons().size());
             
+            // Store the response later readers get; it needs the ids assigned on save
+            PrecompressedBody body = toBody(mapToResponse(savedContent, true));
+            chapterContentRepository.storeBody(savedContent.getId(), body.getEtag(), body.getGzipped());
+            
             return mapToResponse(savedContent, false);
             
+        } catch (DataIntegrityViolationException e) {
+            // A node that took over an expired generation lock stored it first; use that copy
+            log.warn("Content for chapter {} was stored concurrently; returning stored copy", chapterName);
+            return findStoredContent(chapterName).orElseThrow(() -> e);
         } catch (OpenAIException e) {
             log.error("Failed to generate content using LLM for chapter: {}", chapterName, e);
             throw new OpenAIException("Failed to generate chapter content: " + e.getMessage(), e);
@@ -104,7 +167,8 @@ public class ContentGenerationService {
         String userPrompt = buildContentGenerationPrompt(chapterName);
         
         log.debug("Sending content generation request to LLM for chapter: {}", chapterName);
-        String response = openAIClient.createChatCompletion(SYSTEM_PROMPT, userPrompt);
+        String response = LlmCallContext.withPriorityAtMost(LlmPriority.GENERATION).feature("chapter-content").cacheable()
+                .call(() -> openAIClient.createChatCompletion(SYSTEM_PROMPT, userPrompt));
         log.debug("Received LLM response for chapter: {}", chapterName);
         
         return response;
@@ -156,68 +220,54 @@ public class ContentGenerationService {
     
     /**
      * Parse LLM JSON response into ChapterContent entity.
+     * Lessons are taken as the parser completes them; a lesson without a title or explanation is dropped.
      */
     private ChapterContent parseLLMResponse(String chapterName, String llmResponse) {
-        try {
-            // Clean response - remove markdown code blocks if present
-            String cleanedResponse = llmResponse.trim();
-            if (cleanedResponse.startsWith("```json")) {
-                cleanedResponse = cleanedResponse.substring(7);
-            }
-            if (cleanedResponse.startsWith("```")) {
-                cleanedResponse = cleanedResponse.substring(3);
-            }
-            if (cleanedResponse.endsWith("```")) {
-                cleanedResponse = cleanedResponse.substring(0, cleanedResponse.length() - 3);
-            }
-            cleanedResponse = cleanedResponse.trim();
-            
-            // Parse JSON
-            JsonNode rootNode = objectMapper.readTree(cleanedResponse);
-            
-            // Extract chapter info
-            String chapterTitle = rootNode.path("chapterTitle").asText();
-            String chapterDescription = rootNode.path("chapterDescription").asText();
-            
-            // Create ChapterContent entity
-            ChapterContent chapterContent = ChapterContent.builder()
-                    .chapterName(chapterName)
-                    .chapterTitle(chapterTitle)
-                    .chapterDescription(chapterDescription)
-                    .generatedAt(LocalDateTime.now())
-                    .lessons(new ArrayList<>())
-                    .build();
-            
-            // Parse lessons
-            JsonNode lessonsNode = rootNode.path("lessons");
-            if (!lessonsNode.isArray()) {
-                throw new IllegalArgumentException("Lessons must be an array");
+        List<LessonContent> lessons = new ArrayList<>();
+        JsonArrayStreamParser parser = new JsonArrayStreamParser(objectMapper, "lessons", lessonNode -> {
+            String title = lessonNode.path("lessonTitle").asText();
+            String explanation = lessonNode.path("lessonExplanation").asText();
+            if (title.isBlank() || explanation.isBlank()) {
+                log.warn("Skipping lesson without title or explanation for chapter: {}", chapterName);
+                return;
             }
-            
-            for (JsonNode lessonNode : lessonsNode) {
-                LessonContent lesson = LessonContent.builder()
-                        .lessonTitle(lessonNode.path("lessonTitle").asText())
-                        .lessonExplanation(lessonNode.path("lessonExplanation").asText())
-                        .lessonOrder(lessonNode.path("lessonOrder").asInt())
-                        .estimatedDuration(lessonNode.path("estimatedDuration").asInt(15))
-                        .chapterContent(chapterContent)
-                        .build();
-                
-                chapterContent.getLessons().add(lesson);
-            }
-            
-            // Validate we have lessons
-            if (chapterContent.getLessons().isEmpty()) {
-                throw new IllegalArgumentException("No lessons found in LLM response");
+            lessons.add(LessonContent.builder()
+                    .lessonTitle(title)
+                    .lessonExplanation(explanation)
+                    .lessonOrder(lessonNode.path("lessonOrder").asInt(lessons.size() + 1))
+                    .estimatedDuration(lessonNode.path("estimatedDuration").asInt(15))
+                    .build());
+        });
+        try {
+            parser.feed(llmResponse);
+            if (!parser.finish()) {
+                log.warn("LLM response for chapter {} was truncated after {} lessons", chapterName, lessons.size());
             }
-            
-            log.info("Successfully parsed {} lessons from LLM response", chapterContent.getLessons().size());
-            return chapterContent;
-            
-        } catch (JsonProcessingException e) {
+        } catch (IllegalArgumentException e) {
             log.error("Failed to parse LLM response as JSON: {}", llmResponse, e);
-            throw new IllegalArgumentException("Invalid JSON response from LLM: " + e.getMessage(), e);
+            if (lessons.isEmpty()) {
+                throw e;
+            }
+        }
+        
+        // Validate we have lessons
+        if (lessons.isEmpty()) {
+            throw new IllegalArgumentException("No lessons found in LLM response");
         }
+        
+        // Extract chapter info
+        JsonNode envelope = parser.getEnvelope();
+        ChapterContent chapterContent = ChapterContent.builder()
+                .chapterName(chapterName)
+                .chapterTitle(envelope.path("chapterTitle").asText())
+                .chapterDescription(envelope.path("chapterDescription").asText())
+                .generatedAt(LocalDateTime.now())
+                .lessons(lessons)
+                .build();
+        lessons.forEach(lesson -> lesson.setChapterContent(chapterContent));
+        
+        log.info("Successfully parsed {} lessons from LLM response", lessons.size());
+        return chapterContent;
     }
     
     /**
@@ -247,19 +297,26 @@ public class ContentGenerationService {
     
     /**
      * Delete cached content for a chapter (admin operation).
+     * The completion it was generated from is dropped too, or regenerating would return the same content.
      * 
      * @param chapterName The name of the chapter to reset
      */
     @Transactional
     public void deleteChapterContent(String chapterName) {
         log.info("Deleting cached content for chapter: {}", chapterName);
+        String normalizedChapterName = normalizeChapterName(chapterName);
         
-        if (!chapterContentRepository.existsByChapterNameIgnoreCase(chapterName)) {
-            throw new ContentNotFoundException("No content found for chapter: " + chapterName);
-        }
+        String storedName = chapterContentRepository.findByChapterNameIgnoreCase(normalizedChapterName)
+                .map(ChapterContent::getChapterName)
+                .orElseThrow(() -> new ContentNotFoundException("No content found for chapter: " + normalizedChapterName));
         
-        chapterContentRepository.deleteByChapterNameIgnoreCase(chapterName);
-        log.info("Successfully deleted content for chapter: {}", chapterName);
+        // Prompts keep the case the chapter was requested with, which may differ from the stored name
+        openAIClient.evictCachedCompletion(SYSTEM_PROMPT, buildContentGenerationPrompt(storedName));
+        if (!storedName.equals(normalizedChapterName)) {
+            openAIClient.evictCachedCompletion(SYSTEM_PROMPT, buildContentGenerationPrompt(normalizedChapterName));
+        }
+        chapterContentRepository.deleteByChapterNameIgnoreCase(normalizedChapterName);
+        log.info("Successfully deleted content for chapter: {}", normalizedChapterName);
     }
     
     /**
@@ -269,6 +326,6 @@ public class ContentGenerationService {
      * @return true if content exists, false otherwise
      */
     public boolean hasContent(String chapterName) {
-        return chapterContentRepository.existsByChapterNameIgnoreCase(chapterName);
+        return chapterContentRepository.existsByChapterNameIgnoreCase(normalizeChapterName(chapterName));
     }
 }
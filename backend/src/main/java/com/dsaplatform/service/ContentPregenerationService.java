@@ -0,0 +1,228 @@
+package com.dsaplatform.service;
+
+import com.dsaplatform.config.GenerationProperties;
+import com.dsaplatform.dto.response.PregenerationStatusDto;
+import com.dsaplatform.model.entity.Chapter;
+import com.dsaplatform.model.entity.Lesson;
+import com.dsaplatform.repository.ChapterRepository;
+import com.dsaplatform.repository.LessonRepository;
+import com.dsaplatform.resilience.LlmCallContext;
+import com.dsaplatform.resilience.LlmPriority;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Generates missing chapter and lesson content in the background, so the first visitor
+ * does not wait for the LLM. Runs are triggered by an admin or by the configured cron,
+ * one at a time, with bounded concurrency and at batch priority.
+ */
+@Service
+@Slf4j
+public class ContentPregenerationService {
+
+    private static final LlmCallContext BATCH_CONTEXT =
+            LlmCallContext.withPriority(LlmPriority.BATCH).feature("pregeneration");
+
+    private final ChapterRepository chapterRepository;
+    private final LessonRepository lessonRepository;
+    private final ContentGenerationService contentGenerationService;
+    private final LessonContentService lessonContentService;
+    private final GenerationProperties properties;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(namedThreads("content-pregeneration"));
+    private final Object lock = new Object();
+    private Run current;
+
+    public ContentPregenerationService(ChapterRepository chapterRepository, LessonRepository lessonRepository,
+                                       ContentGenerationService contentGenerationService,
+                                       LessonContentService lessonContentService,
+                                       GenerationProperties properties) {
+        this.chapterRepository = chapterRepository;
+        this.lessonRepository = lessonRepository;
+        this.contentGenerationService = contentGenerationService;
+        this.lessonContentService = lessonContentService;
+        this.properties = properties;
+    }
+
+    /**
+     * Starts a run unless one is already in progress.
+     *
+     * @param trigger who started the run, reported in the status
+     * @return status of the started run, or of the run already in progress
+     */
+    public PregenerationStatusDto start(String trigger) {
+        synchronized (lock) {
+            if (current != null && current.finishedAt == null) {
+                log.info("Pre-generation already running (started by {})", current.trigger);
+                return current.toStatus();
+            }
+            Run run = new Run(trigger);
+            current = run;
+            runner.execute(() -> execute(run));
+            return run.toStatus();
+        }
+    }
+
+    @Scheduled(cron = "${content-generation.pregeneration.cron:-}")
+    public void scheduledRun() {
+        start("schedule");
+    }
+
+    /**
+     * Status of the current or most recent run; idle with zero counts if none has run yet.
+     */
+    public PregenerationStatusDto getStatus() {
+        synchronized (lock) {
+            return current != null ? current.toStatus() : PregenerationStatusDto.builder().build();
+        }
+    }
+
+    private void execute(Run run) {
+        log.info("Starting content pre-generation (trigger: {})", run.trigger);
+        ExecutorService workers = null;
+        try {
+            List<WorkItem> items = collectItems();
+            run.totalItems = items.size();
+
+            workers = Executors.newFixedThreadPool(Math.max(1, properties.getPregeneration().getConcurrency()),
+                    namedThreads("content-pregeneration-worker"));
+            List<Future<?>> futures = new ArrayList<>();
+            for (WorkItem item : items) {
+                futures.add(workers.submit(() -> process(run, item)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.lastError = "Interrupted";
+        } catch (ExecutionException | RuntimeException e) {
+            log.error("Content pre-generation aborted", e);
+            run.lastError = e.getMessage();
+        } finally {
+            if (workers != null) {
+                workers.shutdownNow();
+            }
+            synchronized (lock) {
+                run.finishedAt = LocalDateTime.now();
+            }
+            log.info("Finished content pre-generation: {} generated, {} already present, {} failed of {}",
+                    run.generated.get(), run.skipped.get(), run.failed.get(), run.totalItems);
+        }
+    }
+
+    /**
+     * Chapters first, since a chapter page is usually visited before its lessons.
+     */
+    private List<WorkItem> collectItems() {
+        Map<String, String> chapterNames = new LinkedHashMap<>();
+        for (Chapter chapter : chapterRepository.findAll()) {
+            chapterNames.putIfAbsent(chapter.getTitle().trim().toLowerCase(Locale.ROOT), chapter.getTitle().trim());
+        }
+        for (String topic : properties.getPregeneration().getTopics()) {
+            if (topic != null && !topic.isBlank()) {
+                chapterNames.putIfAbsent(topic.trim().toLowerCase(Locale.ROOT), topic.trim());
+            }
+        }
+
+        List<WorkItem> items = new ArrayList<>();
+        for (String chapterName : chapterNames.values()) {
+            items.add(new WorkItem("chapter " + chapterName,
+                    () -> contentGenerationService.hasContent(chapterName),
+                    () -> !contentGenerationService.getOrGenerateChapterContent(chapterName).isCached()));
+        }
+        for (Lesson lesson : lessonRepository.findAllWithChapter()) {
+            String lessonId = String.valueOf(lesson.getId());
+            String title = lesson.getTitle();
+            String topic = lesson.getChapter().getTitle();
+            items.add(new WorkItem("lesson " + lessonId,
+                    () -> lessonContentService.hasContent(title, topic),
+                    () -> !lessonContentService.getLessonContent(lessonId, title, topic).isCached()));
+        }
+        return items;
+    }
+
+    private void process(Run run, WorkItem item) {
+        try {
+            if (item.exists().getAsBoolean()) {
+                run.skipped.incrementAndGet();
+                return;
+            }
+            boolean generated = BATCH_CONTEXT.call(() -> item.generate().getAsBoolean());
+            // A visitor may have triggered the same generation meanwhile
+            (generated ? run.generated : run.skipped).incrementAndGet();
+        } catch (RuntimeException e) {
+            log.warn("Pre-generation failed for {}: {}", item.description(), e.getMessage());
+            run.failed.incrementAndGet();
+            run.lastError = item.description() + ": " + e.getMessage();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * One chapter or lesson to generate; {@code generate} returns false if it turned out to be stored already.
+     */
+    private record WorkItem(String description, BooleanSupplier exists, BooleanSupplier generate) {
+    }
+
+    /**
+     * Progress of one run, updated by the worker threads.
+     */
+    private static class Run {
+        private final String trigger;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile LocalDateTime finishedAt;
+        private volatile int totalItems;
+        private final AtomicInteger generated = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private volatile String lastError;
+
+        private Run(String trigger) {
+            this.trigger = trigger;
+        }
+
+        private PregenerationStatusDto toStatus() {
+            return PregenerationStatusDto.builder()
+                    .running(finishedAt == null)
+                    .trigger(trigger)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .totalItems(totalItems)
+                    .generated(generated.get())
+                    .skipped(skipped.get())
+                    .failed(failed.get())
+                    .lastError(lastError)
+                    .build();
+        }
+    }
+}
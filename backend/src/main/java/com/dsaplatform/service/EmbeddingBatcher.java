@@ -0,0 +1,240 @@
+package com.dsaplatform.service;
+
+import com.dsaplatform.config.EmbeddingBatchProperties;
+import com.dsaplatform.exception.OpenAIException;
+import com.dsaplatform.resilience.LlmCallContext;
+import com.dsaplatform.resilience.LlmPriority;
+import com.dsaplatform.resilience.RequestDeadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces concurrent single-text embedding requests into batched provider calls.
+ * The first request of a batch starts a short window; the batch is flushed when the
+ * window expires or when it reaches the configured size. Identical inputs within a
+ * batch are sent once and the result is fanned out to every waiting caller.
+ */
+@Service
+@Slf4j
+public class EmbeddingBatcher {
+
+    // Batches mix callers, so their usage is attributed to the batcher as a whole
+    private static final LlmCallContext BATCH_CONTEXT =
+            LlmCallContext.withPriority(LlmPriority.INTERACTIVE).feature("query-embedding");
+
+    private final OpenAIClient openAIClient;
+    private final EmbeddingBatchProperties properties;
+
+    private final ScheduledExecutorService timer;
+    private final ExecutorService flushExecutor;
+
+    private final Object lock = new Object();
+    private List<PendingEmbedding> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    private final Counter batchCounter;
+    private final Counter inputCounter;
+    private final Counter dedupedCounter;
+    private final DistributionSummary batchFill;
+
+    public EmbeddingBatcher(OpenAIClient openAIClient, EmbeddingBatchProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.openAIClient = openAIClient;
+        this.properties = properties;
+        this.timer = Executors.newSingleThreadScheduledExecutor(namedThreads("embedding-batch-timer"));
+        this.flushExecutor = Executors.newFixedThreadPool(
+                Math.max(1, properties.getMaxConcurrentBatches()), namedThreads("embedding-batch-flush"));
+
+        this.batchCounter = Counter.builder("openai.embedding.batch.count")
+                .description("Batched embedding requests sent to the provider")
+                .register(meterRegistry);
+        this.inputCounter = Counter.builder("openai.embedding.batch.inputs")
+                .description("Embedding inputs submitted to the batcher")
+                .register(meterRegistry);
+        this.dedupedCounter = Counter.builder("openai.embedding.batch.deduplicated")
+                .description("Embedding inputs served by an identical input in the same batch")
+                .register(meterRegistry);
+        this.batchFill = DistributionSummary.builder("openai.embedding.batch.fill")
+                .description("Batch fill rate (inputs per batch / max batch size)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Embeds a single text, blocking until its batch completes.
+     *
+     * @param text Text to embed
+     * @return The embedding vector
+     * @throws OpenAIException if the batched API call fails
+     */
+    public double[] embed(String text) {
+        if (!properties.isEnabled()) {
+            return embedDirectly(text);
+        }
+        CompletableFuture<double[]> future = submit(text);
+        Optional<Duration> budget = RequestDeadline.remaining();
+        try {
+            if (budget.isEmpty()) {
+                return future.join();
+            }
+            // The batch runs on another thread, so honour the caller's deadline while waiting
+            return future.get(Math.max(0, budget.get().toMillis()), TimeUnit.MILLISECONDS);
+        } catch (CompletionException | ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new OpenAIException("Failed to create embedding: " + e.getMessage(), e);
+        } catch (TimeoutException e) {
+            throw new OpenAIException("Request deadline exceeded while waiting for embedding", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OpenAIException("Interrupted while waiting for embedding", e);
+        }
+    }
+
+    /**
+     * Queues a text for the next batch.
+     *
+     * @param text Text to embed
+     * @return Future completed with the embedding vector once the batch returns
+     */
+    public CompletableFuture<double[]> submit(String text) {
+        PendingEmbedding request = new PendingEmbedding(text, new CompletableFuture<>());
+        List<PendingEmbedding> fullBatch = null;
+
+        synchronized (lock) {
+            pending.add(request);
+            if (pending.size() >= properties.getMaxBatchSize()) {
+                fullBatch = drainLocked();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = timer.schedule(this::flushPending,
+                        properties.getWindowMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        inputCounter.increment();
+        if (fullBatch != null) {
+            dispatch(fullBatch);
+        }
+        return request.future;
+    }
+
+    private void flushPending() {
+        List<PendingEmbedding> batch;
+        synchronized (lock) {
+            batch = drainLocked();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    private List<PendingEmbedding> drainLocked() {
+        List<PendingEmbedding> batch = pending;
+        pending = new ArrayList<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(List<PendingEmbedding> batch) {
+        flushExecutor.execute(() -> sendBatch(batch));
+    }
+
+    /**
+     * Sends one provider request for the distinct texts in the batch and
+     * completes every caller's future with its vector.
+     */
+    private void sendBatch(List<PendingEmbedding> batch) {
+        Map<String, List<CompletableFuture<double[]>>> waitersByText = new LinkedHashMap<>();
+        for (PendingEmbedding request : batch) {
+            waitersByText.computeIfAbsent(request.text, t -> new ArrayList<>()).add(request.future);
+        }
+
+        List<String> distinctTexts = new ArrayList<>(waitersByText.keySet());
+        batchCounter.increment();
+        dedupedCounter.increment(batch.size() - distinctTexts.size());
+        batchFill.record((double) batch.size() / Math.max(1, properties.getMaxBatchSize()));
+        log.debug("Flushing embedding batch: {} inputs, {} distinct", batch.size(), distinctTexts.size());
+
+        try {
+            List<double[]> vectors = BATCH_CONTEXT.call(() -> openAIClient.createEmbeddings(distinctTexts));
+            if (vectors.size() != distinctTexts.size()) {
+                throw new OpenAIException("Embedding count mismatch: expected "
+                        + distinctTexts.size() + ", got " + vectors.size());
+            }
+            for (int i = 0; i < distinctTexts.size(); i++) {
+                List<CompletableFuture<double[]>> waiters = waitersByText.get(distinctTexts.get(i));
+                double[] vector = vectors.get(i);
+                waiters.get(0).complete(vector);
+                // Duplicate callers get their own copy so no caller can mutate another's vector
+                for (int w = 1; w < waiters.size(); w++) {
+                    waiters.get(w).complete(vector.clone());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Embedding batch of {} inputs failed: {}", batch.size(), e.getMessage());
+            batch.forEach(request -> request.future.completeExceptionally(e));
+        }
+    }
+
+    private double[] embedDirectly(String text) {
+        List<double[]> vectors = BATCH_CONTEXT.call(() -> openAIClient.createEmbeddings(List.of(text)));
+        if (vectors.isEmpty()) {
+            throw new OpenAIException("Failed to generate embedding");
+        }
+        return vectors.get(0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushPending();
+        timer.shutdownNow();
+        flushExecutor.shutdown();
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Helper class pairing a submitted text with its caller's future.
+     */
+    private static class PendingEmbedding {
+        private final String text;
+        private final CompletableFuture<double[]> future;
+
+        PendingEmbedding(String text, CompletableFuture<double[]> future) {
+            this.text = text;
+            this.future = future;
+        }
+    }
+}
@@ -5,6 +5,8 @@ import com.dsaplatform.model.entity.Lesson;
 import com.dsaplatform.model.entity.LessonEmbedding;
 import com.dsaplatform.repository.LessonEmbeddingRepository;
 import com.dsaplatform.repository.LessonRepository;
+import com.dsaplatform.resilience.LlmCallContext;
+import com.dsaplatform.resilience.LlmPriority;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -139,7 +141,9 @@ public class EmbeddingService {
                 .map(TextChunk::getText)
                 .collect(Collectors.toList());
         
-        List<double[]> embeddings = openAIClient.createEmbeddings(chunkTexts);
+        // Re-embedding is background work and must not starve live chat
+        List<double[]> embeddings = LlmCallContext.withPriority(LlmPriority.BATCH).feature("lesson-embedding")
+                .call(() -> openAIClient.createEmbeddings(chunkTexts));
         
         if (embeddings.size() != chunks.size()) {
             log.error("Embedding count mismatch: expected {}, got {}", chunks.size(), embeddings.size());
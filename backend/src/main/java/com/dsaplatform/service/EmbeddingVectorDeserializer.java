@@ -0,0 +1,65 @@
+package com.dsaplatform.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Deserializes an embedding vector straight into a {@code float[]}.
+ * Accepts both wire formats returned by the embeddings API:
+ * a base64 string of little-endian float32 values ({@code encoding_format: "base64"}),
+ * or a JSON array of numbers, which is read token by token without boxing.
+ */
+public class EmbeddingVectorDeserializer extends StdDeserializer<float[]> {
+
+    private static final int INITIAL_CAPACITY = 1536;
+
+    public EmbeddingVectorDeserializer() {
+        super(float[].class);
+    }
+
+    @Override
+    public float[] deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_STRING) {
+            return decodeBase64(parser, context);
+        }
+        if (token == JsonToken.START_ARRAY) {
+            return readNumericArray(parser, context);
+        }
+        return (float[]) context.handleUnexpectedToken(float[].class, parser);
+    }
+
+    private float[] decodeBase64(JsonParser parser, DeserializationContext context) throws IOException {
+        byte[] bytes = parser.getBinaryValue();
+        if (bytes.length % Float.BYTES != 0) {
+            return (float[]) context.handleWeirdStringValue(float[].class, parser.getText(),
+                    "base64 embedding length %d is not a multiple of 4 bytes", bytes.length);
+        }
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    private float[] readNumericArray(JsonParser parser, DeserializationContext context) throws IOException {
+        float[] vector = new float[INITIAL_CAPACITY];
+        int size = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_NUMBER_INT) {
+                return (float[]) context.handleUnexpectedToken(float[].class, parser);
+            }
+            if (size == vector.length) {
+                vector = Arrays.copyOf(vector, vector.length * 2);
+            }
+            vector[size++] = parser.getFloatValue();
+        }
+        return size == vector.length ? vector : Arrays.copyOf(vector, size);
+    }
+}
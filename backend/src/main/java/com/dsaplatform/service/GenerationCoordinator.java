@@ -0,0 +1,261 @@
+package com.dsaplatform.service;
+
+import com.dsaplatform.config.GenerationProperties;
+import com.dsaplatform.exception.GenerationInProgressException;
+import com.dsaplatform.model.entity.GenerationLock;
+import com.dsaplatform.repository.GenerationLockRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Ensures that content for a given key is generated only once at a time.
+ *
+ * Within a node, concurrent callers for the same key share one in-flight generation.
+ * Across nodes, the generating node holds a row in {@code generation_locks}; other nodes
+ * poll for the stored result instead of calling the LLM themselves. The row is renewed while
+ * the generation runs, however long the LLM takes, so it only expires when its node is gone.
+ */
+@Service
+@Slf4j
+public class GenerationCoordinator {
+
+    private final GenerationLockRepository lockRepository;
+    private final GenerationProperties properties;
+    private final TransactionTemplate lockTransaction;
+    private final String owner;
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Set<String> held = ConcurrentHashMap.newKeySet();
+    private final Counter generatedCounter;
+    private final Counter coalescedCounter;
+    private final Counter remoteWaitCounter;
+
+    public GenerationCoordinator(GenerationLockRepository lockRepository, GenerationProperties properties,
+                                 PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.lockRepository = lockRepository;
+        this.properties = properties;
+        this.lockTransaction = new TransactionTemplate(transactionManager);
+        this.lockTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.owner = hostName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+        this.generatedCounter = meterRegistry.counter("content.generation.requests", "outcome", "generated");
+        this.coalescedCounter = meterRegistry.counter("content.generation.requests", "outcome", "coalesced");
+        this.remoteWaitCounter = meterRegistry.counter("content.generation.requests", "outcome", "remote_wait");
+    }
+
+    /**
+     * Returns stored content, or generates it if no other caller is already doing so.
+     *
+     * @param key identifies the content, e.g. "chapter:stack"
+     * @param lookup reads already stored content
+     * @param generate generates and stores the content
+     * @throws GenerationInProgressException if another node's generation did not finish within the wait
+     *         timeout and stopped renewing its lock
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getOrGenerate(String key, Supplier<Optional<T>> lookup, Supplier<T> generate) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalescedCounter.increment();
+            log.debug("Joining in-flight generation for {}", key);
+            return (T) await(existing, key);
+        }
+
+        try {
+            T result = generateAcrossNodes(key, lookup, generate);
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Runs the task unless another caller, on any node, holds the lock for the key. Does not wait.
+     *
+     * @return false if the lock was held elsewhere and the task did not run
+     */
+    public boolean runExclusive(String key, Runnable task) {
+        if (!tryLock(key)) {
+            return false;
+        }
+        try {
+            task.run();
+            return true;
+        } finally {
+            unlock(key);
+        }
+    }
+
+    /**
+     * Takes the lock for a generation that outlives the calling thread, such as a streamed one.
+     * Callers that get the lock must {@link #release} it when the generation ends.
+     *
+     * @return false if a generation for the key is running elsewhere
+     */
+    public boolean tryAcquire(String key) {
+        return tryLock(key);
+    }
+
+    /**
+     * Releases a lock taken with {@link #tryAcquire}.
+     */
+    public void release(String key) {
+        unlock(key);
+    }
+
+    /**
+     * Extends the locks of the generations running on this node, so slow ones are not taken over.
+     */
+    @Scheduled(fixedDelayString = "${content-generation.lock-renew-interval-millis:30000}")
+    public void renewLocks() {
+        LocalDateTime expiresAt = LocalDateTime.now()
+                .plusNanos(TimeUnit.MILLISECONDS.toNanos(properties.getLockTtlMillis()));
+        for (String key : held) {
+            try {
+                Integer renewed = lockTransaction.execute(status -> lockRepository.renew(key, owner, expiresAt));
+                if (renewed != null && renewed == 0 && held.contains(key)) {
+                    log.warn("Lost generation lock for {}; another node may generate it too", key);
+                }
+            } catch (DataAccessException e) {
+                log.warn("Failed to renew generation lock for {}: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    private <T> T generateAcrossNodes(String key, Supplier<Optional<T>> lookup, Supplier<T> generate) {
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getWaitTimeoutMillis());
+        boolean waited = false;
+        while (true) {
+            Optional<T> stored = lookup.get();
+            if (stored.isPresent()) {
+                return stored.get();
+            }
+            if (tryLock(key)) {
+                try {
+                    // Another node may have stored it between our lookup and taking the lock
+                    stored = lookup.get();
+                    if (stored.isPresent()) {
+                        return stored.get();
+                    }
+                    generatedCounter.increment();
+                    return generate.get();
+                } finally {
+                    unlock(key);
+                }
+            }
+            if (!waited) {
+                waited = true;
+                remoteWaitCounter.increment();
+                log.debug("Generation for {} is running on another node; waiting", key);
+            }
+            if (System.nanoTime() > deadlineNanos) {
+                if (!lockRepository.existsByLockKeyAndExpiresAtAfter(key, LocalDateTime.now())) {
+                    throw inProgress(key);
+                }
+                // Still renewed, so the generation is alive, just slow
+                deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getWaitTimeoutMillis());
+            }
+            try {
+                Thread.sleep(properties.getPollIntervalMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw inProgress(key);
+            }
+        }
+    }
+
+    /**
+     * Waits for the caller generating on this node, which gives up on its own if the generation stalls.
+     */
+    private Object await(CompletableFuture<Object> future, String key) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Content generation failed for " + key, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgress(key);
+        }
+    }
+
+    private boolean tryLock(String key) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusNanos(TimeUnit.MILLISECONDS.toNanos(properties.getLockTtlMillis()));
+        try {
+            Boolean acquired = lockTransaction.execute(status -> {
+                if (lockRepository.takeOverExpired(key, owner, now, expiresAt) > 0) {
+                    log.warn("Took over expired generation lock for {}", key);
+                    return true;
+                }
+                if (lockRepository.existsByLockKey(key)) {
+                    return false;
+                }
+                lockRepository.saveAndFlush(GenerationLock.builder()
+                        .lockKey(key)
+                        .owner(owner)
+                        .acquiredAt(now)
+                        .expiresAt(expiresAt)
+                        .build());
+                return true;
+            });
+            if (Boolean.TRUE.equals(acquired)) {
+                held.add(key);
+                return true;
+            }
+            return false;
+        } catch (DataIntegrityViolationException e) {
+            // Another node inserted the lock first
+            return false;
+        }
+    }
+
+    private void unlock(String key) {
+        held.remove(key);
+        try {
+            lockTransaction.executeWithoutResult(status -> lockRepository.release(key, owner));
+        } catch (DataAccessException e) {
+            log.warn("Failed to release generation lock for {}; it will expire: {}", key, e.getMessage());
+        }
+    }
+
+    private GenerationInProgressException inProgress(String key) {
+        long retryAfterSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(properties.getPollIntervalMillis() * 4));
+        return new GenerationInProgressException("Content for " + key + " is still being generated", retryAfterSeconds);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown-host";
+        }
+    }
+}
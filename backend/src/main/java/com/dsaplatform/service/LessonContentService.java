@@ -1,18 +1,56 @@
 package com.dsaplatform.service;
 
+import com.dsaplatform.config.GenerationProperties;
+import com.dsaplatform.dto.response.ApiResponse;
 import com.dsaplatform.dto.response.LessonContentResponse;
+import com.dsaplatform.dto.response.LessonStreamEvent;
 import com.dsaplatform.exception.OpenAIException;
+import com.dsaplatform.model.entity.LessonContentAlias;
 import com.dsaplatform.model.entity.LessonContentCache;
+import com.dsaplatform.repository.LessonContentAliasRepository;
 import com.dsaplatform.repository.LessonContentCacheRepository;
+import com.dsaplatform.resilience.LlmCallContext;
+import com.dsaplatform.resilience.LlmPriority;
+import com.dsaplatform.util.PrecompressedBody;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Service for generating and caching lesson content using LLM.
+ * Concurrent requests for the same lesson share a single generation (see {@link GenerationCoordinator}).
+ * Expired content is served immediately while a background refresh regenerates it (stale-while-revalidate);
+ * the new version replaces the old one only if generation succeeds.
+ * The API response for cached content is stored gzipped with its ETag, so repeated reads skip serialization.
+ * Content can also be streamed while it is generated; concurrent viewers share one streamed generation.
+ * Content is cached under a key derived from the normalized title, topic and prompt version, so lesson ids
+ * asking for the same lesson share one generation and one stored entry.
  */
 @Service
 @RequiredArgsConstructor
@@ -20,7 +58,34 @@ import java.time.LocalDateTime;
 public class LessonContentService {
     
     private final LessonContentCacheRepository contentRepository;
+    private final LessonContentAliasRepository aliasRepository;
     private final OpenAIClient openAIClient;
+    private final GenerationCoordinator generationCoordinator;
+    private final GenerationProperties generationProperties;
+    private final ObjectMapper objectMapper;
+    
+    private final ExecutorService refreshExecutor = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "lesson-content-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final Map<String, Sinks.Many<LessonStreamEvent>> liveGenerations = new ConcurrentHashMap<>();
+    /** Aliases written by this instance, so reads do not rewrite them; bounded since lesson ids come from requests. */
+    private final Map<String, String> recordedAliases = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > MAX_RECORDED_ALIASES;
+                }
+            });
+    
+    /**
+     * Part of the content key; bump when the prompts change so new requests get content from the new prompts.
+     */
+    static final int PROMPT_VERSION = 1;
+    
+    private static final int MAX_RECORDED_ALIASES = 10_000;
     
     private static final String SYSTEM_PROMPT = """
         You are an expert DSA (Data Structures and Algorithms) educator creating lesson content 
@@ -45,46 +110,333 @@ public class LessonContentService {
      * @param topic The topic/subject of the lesson
      * @return LessonContentResponse with content
      */
-    @Transactional
     public LessonContentResponse getLessonContent(String lessonId, String lessonTitle, String topic) {
         log.info("📚 Fetching content for lesson: {} ({})", lessonTitle, lessonId);
         
-        // Check cache first
-        return contentRepository.findByLessonId(lessonId)
+        String contentKey = resolveContentKey(lessonId, lessonTitle, topic);
+        // Check cache first; on a miss only one caller generates, the rest wait for its result
+        return generationCoordinator.getOrGenerate(
+                generationKey(contentKey),
+                () -> findCachedContent(lessonId, contentKey),
+                () -> {
+                    log.info("🚀 No cache found. Generating new content for: {}", lessonTitle);
+                    return generateAndCacheContent(lessonId, contentKey, lessonTitle, topic);
+                });
+    }
+    
+    /**
+     * Content key for the lesson, recording which key the lesson id is served from.
+     */
+    private String resolveContentKey(String lessonId, String lessonTitle, String topic) {
+        String contentKey = contentKey(lessonTitle, topic);
+        if (!contentKey.equals(recordedAliases.get(lessonId))) {
+            try {
+                aliasRepository.save(LessonContentAlias.builder()
+                        .lessonId(lessonId)
+                        .contentKey(contentKey)
+                        .createdAt(LocalDateTime.now())
+                        .build());
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Alias for lesson {} was recorded concurrently", lessonId);
+            }
+            recordedAliases.put(lessonId, contentKey);
+        }
+        return contentKey;
+    }
+    
+    /**
+     * Get lesson content as a stored, compressed API response.
+     * The stored bytes carry the id of the lesson owning the entry, so only that lesson is served them while
+     * the content is fresh; anything else goes through {@link #getLessonContent} and is serialized on the fly.
+     */
+    public PrecompressedBody getLessonContentBody(String lessonId, String lessonTitle, String topic) {
+        Optional<PrecompressedBody> stored = contentRepository.findFreshBody(
+                resolveContentKey(lessonId, lessonTitle, topic), lessonId, LocalDateTime.now());
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+        
+        LessonContentResponse response = getLessonContent(lessonId, lessonTitle, topic);
+        PrecompressedBody body = toBody(response);
+        if (response.isCached() && !response.isStale()) {
+            // Row cached before responses were stored; store it now if this lesson owns it
+            contentRepository.storeBody(contentKey(lessonTitle, topic), lessonId, response.getVersion(),
+                    body.getEtag(), body.getGzipped(),
+                    response.getGeneratedAt().plusHours(generationProperties.getLessonContentTtlHours()));
+        }
+        return body;
+    }
+    
+    private PrecompressedBody toBody(LessonContentResponse response) {
+        String message = response.isCached()
+                ? "Content retrieved from cache"
+                : "Content generated successfully";
+        return PrecompressedBody.of(objectMapper, ApiResponse.success(response, message));
+    }
+    
+    /**
+     * Stream lesson content. Cached content is sent as a single chunk; otherwise the markdown is
+     * relayed as the LLM generates it and cached once complete.
+     * 
+     * Viewers arriving while the lesson is being streamed attach to the same generation and first
+     * receive the markdown generated so far. Disconnecting does not stop the generation, so the
+     * content is still cached for the next reader.
+     */
+    public Flux<LessonStreamEvent> streamLessonContent(String lessonId, String lessonTitle, String topic) {
+        log.info("📡 Streaming content for lesson: {} ({})", lessonTitle, lessonId);
+        
+        // Lookups block on JPA, so keep them off the HTTP client's event loop
+        return Mono.fromCallable(() -> {
+                    String contentKey = resolveContentKey(lessonId, lessonTitle, topic);
+                    return findCachedContent(lessonId, contentKey)
+                            .map(this::asEvents)
+                            .orElseGet(() -> attachToGeneration(lessonId, contentKey, lessonTitle, topic));
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(events -> events);
+    }
+    
+    private Flux<LessonStreamEvent> attachToGeneration(String lessonId, String contentKey,
+                                                       String lessonTitle, String topic) {
+        // Only viewers of the same lesson wait for each other while the generation lock is taken
+        AtomicBoolean started = new AtomicBoolean();
+        Sinks.Many<LessonStreamEvent> hub = liveGenerations.computeIfAbsent(contentKey, key -> {
+            if (!generationCoordinator.tryAcquire(generationKey(key))) {
+                return null;
+            }
+            started.set(true);
+            return Sinks.many().replay().all();
+        });
+        if (hub == null) {
+            // Generated by a blocking request or on another node; wait for the cached result
+            log.info("⏳ Lesson {} is being generated elsewhere; waiting for it", lessonId);
+            return Mono.fromCallable(() -> getLessonContent(lessonId, lessonTitle, topic))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMapMany(this::asEvents);
+        }
+        if (started.get()) {
+            // Outside computeIfAbsent: the generation removes the hub from the map when it ends
+            startStreamedGeneration(lessonId, contentKey, lessonTitle, topic, hub);
+        }
+        LessonStreamEvent meta = LessonStreamEvent.builder()
+                .type(LessonStreamEvent.TYPE_META)
+                .lessonId(lessonId)
+                .cached(false)
+                .stale(false)
+                .build();
+        return Flux.concat(Flux.just(meta), hub.asFlux());
+    }
+    
+    /**
+     * Runs the generation independently of any viewer, publishing chunks to the hub and caching the result.
+     */
+    private void startStreamedGeneration(String lessonId, String contentKey, String lessonTitle, String topic,
+                                         Sinks.Many<LessonStreamEvent> hub) {
+        log.info("🤖 Streaming LLM generation for: {}", lessonTitle);
+        StringBuilder markdown = new StringBuilder();
+        LlmCallContext.withPriorityAtMost(LlmPriority.GENERATION).feature("lesson-content")
+                .call(() -> openAIClient.streamChatCompletionWithHistory(
+                        SYSTEM_PROMPT, buildLessonPrompt(lessonTitle, topic), List.of()))
+                .doOnNext(delta -> {
+                    markdown.append(delta);
+                    hub.tryEmitNext(LessonStreamEvent.chunk(delta));
+                })
+                .then(Mono.fromCallable(() -> {
+                            if (markdown.isEmpty()) {
+                                throw new OpenAIException("LLM returned no lesson content");
+                            }
+                            return storeStreamed(lessonId, contentKey, lessonTitle, topic, markdown.toString());
+                        })
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .doFinally(signal -> {
+                    liveGenerations.remove(contentKey, hub);
+                    Schedulers.boundedElastic().schedule(() -> generationCoordinator.release(generationKey(contentKey)));
+                })
+                .subscribe(
+                        cached -> {
+                            hub.tryEmitNext(doneEvent(lessonId, cached));
+                            hub.tryEmitComplete();
+                        },
+                        error -> {
+                            log.error("❌ Streamed generation failed for: {}", lessonTitle, error);
+                            hub.tryEmitNext(LessonStreamEvent.error(lessonId, "AI service temporarily unavailable"));
+                            hub.tryEmitComplete();
+                        });
+    }
+    
+    private LessonContentCache storeStreamed(String lessonId, String contentKey, String lessonTitle, String topic,
+                                             String content) {
+        try {
+            return storeGenerated(lessonId, contentKey, lessonTitle, topic, content);
+        } catch (DataIntegrityViolationException e) {
+            // A node that took over an expired lock cached it first; viewers already have our text
+            log.warn("⚠️ Content for lesson {} was cached concurrently; keeping cached copy", lessonId);
+            return contentRepository.findByContentKey(contentKey).orElseThrow(() -> e);
+        }
+    }
+    
+    private Flux<LessonStreamEvent> asEvents(LessonContentResponse response) {
+        return Flux.just(
+                LessonStreamEvent.builder()
+                        .type(LessonStreamEvent.TYPE_META)
+                        .lessonId(response.getLessonId())
+                        .cached(response.isCached())
+                        .stale(response.isStale())
+                        .build(),
+                LessonStreamEvent.chunk(response.getContent()),
+                LessonStreamEvent.builder()
+                        .type(LessonStreamEvent.TYPE_DONE)
+                        .lessonId(response.getLessonId())
+                        .version(response.getVersion())
+                        .generatedAt(response.getGeneratedAt())
+                        .build());
+    }
+    
+    private static LessonStreamEvent doneEvent(String lessonId, LessonContentCache cached) {
+        return LessonStreamEvent.builder()
+                .type(LessonStreamEvent.TYPE_DONE)
+                .lessonId(lessonId)
+                .version(versionOf(cached))
+                .generatedAt(cached.getGeneratedAt())
+                .build();
+    }
+    
+    private static String generationKey(String contentKey) {
+        return "lesson:" + contentKey;
+    }
+    
+    /**
+     * Hash of the normalized title, topic and prompt version; equal for requests that would get the same lesson.
+     */
+    static String contentKey(String lessonTitle, String topic) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String normalized = normalize(lessonTitle) + '\u0000' + normalize(topic) + '\u0000' + PROMPT_VERSION;
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+    
+    private Optional<LessonContentResponse> findCachedContent(String lessonId, String contentKey) {
+        return contentRepository.findByContentKey(contentKey)
+                .or(() -> adoptLegacyRow(lessonId, contentKey))
                 .map(cached -> {
-                    log.info("✅ Found cached content for lesson: {}", lessonId);
-                    return mapToResponse(cached, true);
+                    boolean stale = isExpired(cached);
+                    if (stale) {
+                        log.info("⏳ Serving expired content for lesson {} while it is refreshed", lessonId);
+                        scheduleRefresh(cached);
+                    } else {
+                        log.info("✅ Found cached content for lesson: {}", lessonId);
+                    }
+                    return mapToResponse(lessonId, cached, true, stale);
+                });
+    }
+    
+    /**
+     * Key a row cached for this lesson id before content keys existed, so it is found by key from now on.
+     */
+    private Optional<LessonContentCache> adoptLegacyRow(String lessonId, String contentKey) {
+        return contentRepository.findByLessonId(lessonId)
+                .filter(legacy -> legacy.getContentKey() == null)
+                .filter(legacy -> {
+                    try {
+                        return contentRepository.assignContentKey(legacy.getId(), contentKey) == 1;
+                    } catch (DataIntegrityViolationException e) {
+                        // Another legacy row already holds the key; that one is found by key instead
+                        return false;
+                    }
                 })
-                .orElseGet(() -> {
-                    log.info("🚀 No cache found. Generating new content for: {}", lessonTitle);
-                    return generateAndCacheContent(lessonId, lessonTitle, topic);
+                .map(legacy -> {
+                    legacy.setContentKey(contentKey);
+                    return legacy;
                 });
     }
     
+    private boolean isExpired(LessonContentCache cached) {
+        LocalDateTime expiresAt = cached.getExpiresAt() != null
+                ? cached.getExpiresAt()
+                : cached.getGeneratedAt().plusHours(generationProperties.getLessonContentTtlHours());
+        return expiresAt.isBefore(LocalDateTime.now());
+    }
+    
     /**
-     * Generate new content using LLM and cache it.
+     * Regenerate the content in the background unless a refresh is already running, here or on another node.
      */
-    private LessonContentResponse generateAndCacheContent(String lessonId, String lessonTitle, String topic) {
+    private void scheduleRefresh(LessonContentCache cached) {
+        String contentKey = cached.getContentKey();
+        if (!refreshing.add(contentKey)) {
+            return;
+        }
+        long version = versionOf(cached);
         try {
-            // Generate content using LLM
-            log.info("🤖 Calling LLM to generate content for: {}", lessonTitle);
-            String content = generateContentWithLLM(lessonTitle, topic);
-            
-            // Cache the content
-            LessonContentCache cached = LessonContentCache.builder()
+            refreshExecutor.execute(() -> {
+                try {
+                    generationCoordinator.runExclusive("lesson-refresh:" + contentKey,
+                            () -> refresh(cached.getLessonId(), contentKey, cached.getLessonTitle(), cached.getTopic(),
+                                    version));
+                } finally {
+                    refreshing.remove(contentKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(contentKey);
+        }
+    }
+    
+    private void refresh(String lessonId, String contentKey, String lessonTitle, String topic, long version) {
+        try {
+            log.info("🔄 Refreshing content for lesson: {} (version {})", lessonTitle, version);
+            String content = LlmCallContext.withPriority(LlmPriority.BATCH).feature("lesson-content")
+                    .call(() -> openAIClient.createChatCompletion(SYSTEM_PROMPT, buildLessonPrompt(lessonTitle, topic)));
+            LocalDateTime now = LocalDateTime.now();
+            LessonContentCache refreshed = LessonContentCache.builder()
                     .lessonId(lessonId)
                     .lessonTitle(lessonTitle)
                     .topic(topic)
                     .content(content)
-                    .generatedAt(LocalDateTime.now())
-                    .contentLength(content.length())
+                    .generatedAt(now)
+                    .expiresAt(now.plusHours(generationProperties.getLessonContentTtlHours()))
+                    .version(version + 1)
                     .build();
+            PrecompressedBody body = toBody(mapToResponse(lessonId, refreshed, true, false));
+            int replaced = contentRepository.replaceContent(contentKey, version, content, content.length(),
+                    now, refreshed.getExpiresAt(), body.getEtag(), body.getGzipped());
+            if (replaced == 0) {
+                log.info("Lesson {} changed during refresh; discarding refreshed content", lessonId);
+            } else {
+                log.info("✅ Refreshed content for lesson: {} (version {})", lessonTitle, version + 1);
+            }
+        } catch (RuntimeException e) {
+            // Keep serving the current version; retry after a delay instead of on every read
+            log.warn("⚠️ Refresh failed for lesson {}; keeping version {}: {}", lessonId, version, e.getMessage());
+            contentRepository.postponeExpiry(contentKey, version,
+                    LocalDateTime.now().plusMinutes(generationProperties.getRefreshRetryMinutes()));
+        }
+    }
+    
+    /**
+     * Generate new content using LLM and cache it.
+     */
+    private LessonContentResponse generateAndCacheContent(String lessonId, String contentKey,
+                                                          String lessonTitle, String topic) {
+        try {
+            // Generate content using LLM
+            log.info("🤖 Calling LLM to generate content for: {}", lessonTitle);
+            String content = generateContentWithLLM(lessonTitle, topic);
             
-            contentRepository.save(cached);
-            log.info("✅ Generated and cached content for: {} ({} chars)", lessonTitle, content.length());
+            // Cache the content
+            LessonContentCache cached = storeGenerated(lessonId, contentKey, lessonTitle, topic, content);
             
-            return mapToResponse(cached, false);
+            return mapToResponse(lessonId, cached, false, false);
             
+        } catch (DataIntegrityViolationException e) {
+            log.warn("⚠️ Content for lesson {} was cached concurrently; returning cached copy", lessonId);
+            return findCachedContent(lessonId, contentKey).orElseThrow(() -> e);
         } catch (OpenAIException e) {
             log.error("❌ Failed to generate content using LLM for: {}", lessonTitle, e);
             throw new OpenAIException("Failed to generate lesson content: " + e.getMessage(), e);
@@ -94,6 +446,55 @@ public class LessonContentService {
         }
     }
     
+    /**
+     * Save newly generated content as version 1, together with the response later readers get.
+     */
+    private LessonContentCache storeGenerated(String lessonId, String contentKey, String lessonTitle, String topic,
+                                              String content) {
+        contentRepository.findByLessonId(lessonId)
+                .filter(previous -> !contentKey.equals(previous.getContentKey()))
+                .ifPresent(previous -> releaseOwnedEntry(lessonId, previous));
+        
+        LocalDateTime now = LocalDateTime.now();
+        LessonContentCache cached = LessonContentCache.builder()
+                .lessonId(lessonId)
+                .contentKey(contentKey)
+                .lessonTitle(lessonTitle)
+                .topic(topic)
+                .content(content)
+                .generatedAt(now)
+                .contentLength(content.length())
+                .expiresAt(now.plusHours(generationProperties.getLessonContentTtlHours()))
+                .version(1L)
+                .build();
+        PrecompressedBody body = toBody(mapToResponse(lessonId, cached, true, false));
+        cached.setEtag(body.getEtag());
+        cached.setCompressedBody(body.getGzipped());
+        
+        contentRepository.save(cached);
+        log.info("✅ Generated and cached content for: {} ({} chars)", lessonTitle, content.length());
+        return cached;
+    }
+    
+    /**
+     * A lesson whose title or topic changed still owns its old entry, which now holds other content.
+     * If other lesson ids are still served that entry, one of them takes it over; otherwise it is dropped.
+     */
+    private void releaseOwnedEntry(String lessonId, LessonContentCache previous) {
+        Optional<String> heir = previous.getContentKey() == null
+                ? Optional.empty()
+                : aliasRepository.findOtherLessonIds(previous.getContentKey(), lessonId).stream()
+                        .filter(other -> !contentRepository.existsByLessonId(other))
+                        .findFirst();
+        if (heir.isPresent()) {
+            log.info("🔁 Lesson {} changed; its previous content now belongs to lesson {}", lessonId, heir.get());
+            contentRepository.transferOwnership(previous.getId(), heir.get());
+        } else {
+            log.info("🗑️ Lesson {} changed; dropping its previous cached content", lessonId);
+            contentRepository.delete(previous);
+        }
+    }
+    
     /**
      * Generate content using OpenRouter LLM.
      */
@@ -101,7 +502,8 @@ public class LessonContentService {
         String userPrompt = buildLessonPrompt(lessonTitle, topic);
         
         log.debug("📤 Sending request to LLM for lesson: {}", lessonTitle);
-        String response = openAIClient.createChatCompletion(SYSTEM_PROMPT, userPrompt);
+        String response = LlmCallContext.withPriorityAtMost(LlmPriority.GENERATION).feature("lesson-content").cacheable()
+                .call(() -> openAIClient.createChatCompletion(SYSTEM_PROMPT, userPrompt));
         log.debug("📥 Received LLM response ({} chars)", response.length());
         
         return response;
@@ -133,32 +535,77 @@ public class LessonContentService {
     }
     
     /**
-     * Map entity to response DTO.
+     * Map entity to response DTO for the requested lesson, which may share the entry with the lesson owning it.
      */
-    private LessonContentResponse mapToResponse(LessonContentCache cached, boolean fromCache) {
+    private LessonContentResponse mapToResponse(String lessonId, LessonContentCache cached, boolean fromCache,
+                                                boolean stale) {
         return LessonContentResponse.builder()
-                .lessonId(cached.getLessonId())
+                .lessonId(lessonId)
                 .lessonTitle(cached.getLessonTitle())
                 .topic(cached.getTopic())
                 .content(cached.getContent())
                 .generatedAt(cached.getGeneratedAt())
                 .cached(fromCache)
+                .stale(stale)
+                .version(versionOf(cached))
                 .build();
     }
     
+    private static long versionOf(LessonContentCache cached) {
+        return cached.getVersion() != null ? cached.getVersion() : 0L;
+    }
+    
     /**
      * Delete cached content for a lesson (admin operation).
+     * The content is shared, so every lesson id served the same content gets it regenerated.
+     * The completion it was generated from is dropped too, or regenerating would return the same text.
      */
     @Transactional
     public void deleteCachedContent(String lessonId) {
         log.info("🗑️ Deleting cached content for lesson: {}", lessonId);
-        contentRepository.deleteByLessonId(lessonId);
+        Optional<String> contentKey = aliasRepository.findContentKey(lessonId);
+        contentKey.flatMap(contentRepository::findByContentKey)
+                .or(() -> contentRepository.findByLessonId(lessonId))
+                .ifPresent(cached -> openAIClient.evictCachedCompletion(SYSTEM_PROMPT,
+                        buildLessonPrompt(cached.getLessonTitle(), cached.getTopic())));
+        if (contentKey.isPresent()) {
+            contentRepository.deleteByContentKey(contentKey.get());
+        } else {
+            contentRepository.deleteByLessonId(lessonId);
+        }
     }
     
     /**
-     * Check if content exists in cache.
+     * Regenerate cached content in the background, serving the current version until the new one is ready
+     * (admin operation).
+     * 
+     * @return false if no content is cached for the lesson
+     */
+    public boolean refreshCachedContent(String lessonId) {
+        Optional<LessonContentCache> cached = aliasRepository.findContentKey(lessonId)
+                .flatMap(contentRepository::findByContentKey);
+        cached.ifPresent(this::scheduleRefresh);
+        return cached.isPresent();
+    }
+    
+    /**
+     * Check if content exists in cache for the content the lesson id was last served.
      */
     public boolean hasContent(String lessonId) {
-        return contentRepository.existsByLessonId(lessonId);
+        return aliasRepository.findContentKey(lessonId)
+                .map(contentRepository::existsByContentKey)
+                .orElseGet(() -> contentRepository.existsByLessonId(lessonId));
+    }
+    
+    /**
+     * Check if content exists in cache for a lesson with this title and topic.
+     */
+    public boolean hasContent(String lessonTitle, String topic) {
+        return contentRepository.existsByContentKey(contentKey(lessonTitle, topic));
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
     }
 }
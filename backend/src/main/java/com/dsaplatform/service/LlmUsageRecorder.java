@@ -0,0 +1,230 @@
+package com.dsaplatform.service;
+
+import com.dsaplatform.dto.response.LlmUsageSummaryDto;
+import com.dsaplatform.model.entity.LlmUsageRollup;
+import com.dsaplatform.repository.LlmUsageRollupRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Accounts provider usage (tokens, latency, failures) per endpoint, feature, model and user.
+ * Calls only touch lock-free counters; a scheduled flush adds the accumulated deltas to
+ * hourly rollup rows, which back the admin usage report.
+ */
+@Service
+@Slf4j
+public class LlmUsageRecorder {
+
+    /** Principal recorded for calls made outside an authenticated request. */
+    public static final String SYSTEM_PRINCIPAL = "system";
+
+    private final LlmUsageRollupRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<UsageKey, UsageCounters> pending = new ConcurrentHashMap<>();
+
+    public LlmUsageRecorder(LlmUsageRollupRepository repository, PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Records one provider call.
+     *
+     * @param endpoint provider operation (embeddings, chat, chat-stream)
+     * @param feature product feature the call was made for
+     * @param principal user the call was made for, or {@link #SYSTEM_PRINCIPAL}
+     */
+    public void record(String endpoint, String feature, String model, String principal,
+                       long promptTokens, long completionTokens, long latencyMillis, boolean success) {
+        UsageKey key = new UsageKey(LocalDateTime.now().truncatedTo(ChronoUnit.HOURS),
+                endpoint, feature, model, principal);
+        UsageCounters counters = pending.computeIfAbsent(key, k -> new UsageCounters());
+        counters.calls.increment();
+        if (!success) {
+            counters.failures.increment();
+        }
+        counters.promptTokens.add(promptTokens);
+        counters.completionTokens.add(completionTokens);
+        counters.latencyMillis.add(latencyMillis);
+
+        meterRegistry.counter("openai.tokens", "endpoint", endpoint, "feature", feature,
+                "model", model, "type", "prompt").increment(promptTokens);
+        meterRegistry.counter("openai.tokens", "endpoint", endpoint, "feature", feature,
+                "model", model, "type", "completion").increment(completionTokens);
+        Timer.builder("openai.call.latency")
+                .description("Wall-clock latency of provider calls including retries")
+                .tags("endpoint", endpoint, "feature", feature, "model", model,
+                        "outcome", success ? "success" : "failure")
+                .register(meterRegistry)
+                .record(latencyMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds the usage accumulated since the last flush to the hourly rollups.
+     * Deltas that fail to persist are put back and retried on the next flush.
+     */
+    @Scheduled(fixedDelayString = "${openai.usage.flush-interval-millis:60000}")
+    @PreDestroy
+    public synchronized void flush() {
+        LocalDateTime currentHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        int flushed = 0;
+        for (Map.Entry<UsageKey, UsageCounters> entry : pending.entrySet()) {
+            UsageKey key = entry.getKey();
+            UsageCounters counters = entry.getValue();
+            long[] delta = counters.drain();
+            if (delta[0] == 0) {
+                if (key.hourStart().isBefore(currentHour)) {
+                    pending.remove(key, counters);
+                }
+                continue;
+            }
+            try {
+                addToRollup(key, delta);
+                flushed++;
+            } catch (DataAccessException e) {
+                counters.restore(delta);
+                log.warn("Failed to persist LLM usage for {}; will retry: {}", key, e.getMessage());
+            }
+        }
+        if (flushed > 0) {
+            log.debug("Flushed {} LLM usage rollups", flushed);
+        }
+    }
+
+    /**
+     * Summarizes usage over the last hours, grouped by endpoint, feature, model or user.
+     * Sorted by total tokens, highest first.
+     */
+    public List<LlmUsageSummaryDto> summarize(int hours, String groupBy) {
+        Function<LlmUsageRollup, String> grouping = switch (groupBy) {
+            case "endpoint" -> LlmUsageRollup::getEndpoint;
+            case "feature" -> LlmUsageRollup::getFeature;
+            case "model" -> LlmUsageRollup::getModel;
+            case "user" -> LlmUsageRollup::getPrincipal;
+            default -> throw new IllegalArgumentException(
+                    "Unknown groupBy '" + groupBy + "'; use endpoint, feature, model or user");
+        };
+        flush();
+
+        LocalDateTime from = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(Math.max(1, hours) - 1L);
+        Map<String, long[]> totals = new LinkedHashMap<>();
+        for (LlmUsageRollup rollup : repository.findByHourStartGreaterThanEqual(from)) {
+            long[] sum = totals.computeIfAbsent(grouping.apply(rollup), g -> new long[5]);
+            sum[0] += rollup.getCalls();
+            sum[1] += rollup.getFailures();
+            sum[2] += rollup.getPromptTokens();
+            sum[3] += rollup.getCompletionTokens();
+            sum[4] += rollup.getLatencyMillisTotal();
+        }
+
+        return totals.entrySet().stream()
+                .map(entry -> {
+                    long[] sum = entry.getValue();
+                    long totalTokens = sum[2] + sum[3];
+                    return LlmUsageSummaryDto.builder()
+                            .group(entry.getKey())
+                            .calls(sum[0])
+                            .failures(sum[1])
+                            .promptTokens(sum[2])
+                            .completionTokens(sum[3])
+                            .totalTokens(totalTokens)
+                            .avgTokensPerCall(sum[0] > 0 ? (double) totalTokens / sum[0] : 0)
+                            .avgLatencyMillis(sum[0] > 0 ? (double) sum[4] / sum[0] : 0)
+                            .build();
+                })
+                .sorted(Comparator.comparingLong(LlmUsageSummaryDto::getTotalTokens).reversed())
+                .toList();
+    }
+
+    /**
+     * Adds the delta with an atomic update, inserting the rollup if it does not exist yet.
+     * If another flush inserts it first, the unique constraint rejects the insert and the
+     * delta is added to that row instead.
+     */
+    private void addToRollup(UsageKey key, long[] delta) {
+        if (addToExisting(key, delta)) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> repository.saveAndFlush(LlmUsageRollup.builder()
+                    .hourStart(key.hourStart())
+                    .endpoint(key.endpoint())
+                    .feature(key.feature())
+                    .model(key.model())
+                    .principal(key.principal())
+                    .calls(delta[0])
+                    .failures(delta[1])
+                    .promptTokens(delta[2])
+                    .completionTokens(delta[3])
+                    .latencyMillisTotal(delta[4])
+                    .build()));
+        } catch (DataIntegrityViolationException e) {
+            if (!addToExisting(key, delta)) {
+                throw e;
+            }
+        }
+    }
+
+    private boolean addToExisting(UsageKey key, long[] delta) {
+        Integer updated = transactionTemplate.execute(status -> repository.addUsage(
+                key.hourStart(), key.endpoint(), key.feature(), key.model(), key.principal(),
+                delta[0], delta[1], delta[2], delta[3], delta[4]));
+        return updated != null && updated > 0;
+    }
+
+    private record UsageKey(LocalDateTime hourStart, String endpoint, String feature, String model,
+                            String principal) {
+    }
+
+    private static final class UsageCounters {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder promptTokens = new LongAdder();
+        private final LongAdder completionTokens = new LongAdder();
+        private final LongAdder latencyMillis = new LongAdder();
+
+        /**
+         * Takes the counts accumulated so far; concurrent increments land in the next drain.
+         */
+        private long[] drain() {
+            return new long[]{
+                    calls.sumThenReset(),
+                    failures.sumThenReset(),
+                    promptTokens.sumThenReset(),
+                    completionTokens.sumThenReset(),
+                    latencyMillis.sumThenReset()
+            };
+        }
+
+        private void restore(long[] delta) {
+            calls.add(delta[0]);
+            failures.add(delta[1]);
+            promptTokens.add(delta[2]);
+            completionTokens.add(delta[3]);
+            latencyMillis.add(delta[4]);
+        }
+    }
+}
@@ -1,35 +1,117 @@
 package com.dsaplatform.service;
 
 import com.dsaplatform.config.OpenAIProperties;
+import com.dsaplatform.config.OpenAIResilienceProperties;
+import com.dsaplatform.exception.BulkheadFullException;
 import com.dsaplatform.exception.OpenAIException;
+import com.dsaplatform.resilience.Bulkhead;
+import com.dsaplatform.resilience.CircuitBreaker;
+import com.dsaplatform.resilience.LatencyTracker;
+import com.dsaplatform.resilience.LlmCallContext;
+import com.dsaplatform.resilience.LlmPriority;
+import com.dsaplatform.resilience.RequestDeadline;
+import com.dsaplatform.resilience.RetryBudget;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Client service for interacting with OpenRouter API (OpenAI-compatible).
  * Handles embeddings generation and chat completions.
  * 
+ * Every call first waits for a permit from its model's bulkhead (in priority order,
+ * see {@link LlmCallContext}), then goes through a per-operation circuit breaker,
+ * bounded retries with jittered backoff and a shared retry budget, optional hedging
+ * after the observed p95 latency, and a timeout capped by the current request's deadline.
+ * Chat completions for call sites marked cacheable are served from the {@link CompletionCache}
+ * when an identical prompt was answered before. Token usage and latency of every provider
+ * call are reported to the {@link LlmUsageRecorder}.
+ * 
  * Requirements: 4.1, 4.2, 8.2
  */
 @Service
 @Slf4j
 public class OpenAIClient {
     
+    private static final String STREAM_DONE_MARKER = "[DONE]";
+    
+    static final String OP_EMBEDDINGS = "embeddings";
+    static final String OP_CHAT = "chat";
+    static final String OP_CHAT_STREAM = "chat-stream";
+    
+    private static final int LATENCY_SAMPLES = 200;
+    
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE =
+            new ParameterizedTypeReference<>() {};
+    
+    private final ObjectMapper chunkMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    
     private final WebClient webClient;
     private final OpenAIProperties properties;
+    private final OpenAIResilienceProperties resilienceProperties;
+    private final MeterRegistry meterRegistry;
+    private final CompletionCache completionCache;
+    private final LlmUsageRecorder usageRecorder;
+    
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final Map<String, LatencyTracker> latencyTrackers = new ConcurrentHashMap<>();
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    private final RetryBudget retryBudget;
+    private final AtomicBoolean base64Embeddings;
     
-    public OpenAIClient(WebClient.Builder webClientBuilder, OpenAIProperties properties) {
+    public OpenAIClient(WebClient.Builder webClientBuilder, OpenAIProperties properties,
+                        OpenAIResilienceProperties resilienceProperties, MeterRegistry meterRegistry,
+                        CompletionCache completionCache, LlmUsageRecorder usageRecorder) {
         this.properties = properties;
+        this.resilienceProperties = resilienceProperties;
+        this.meterRegistry = meterRegistry;
+        this.completionCache = completionCache;
+        this.usageRecorder = usageRecorder;
+        this.retryBudget = new RetryBudget(
+                resilienceProperties.getRetry().getBudgetRatio(),
+                resilienceProperties.getRetry().getBudgetMaxTokens());
+        this.base64Embeddings = new AtomicBoolean(properties.isEmbeddingBase64());
         this.webClient = webClientBuilder
                 .baseUrl(properties.getBaseUrl())
                 .defaultHeader("Authorization", "Bearer " + properties.getApiKey())
@@ -72,25 +154,20 @@ public class OpenAIClient {
         log.debug("Creating embeddings for {} texts using model: {}", 
                 texts.size(), properties.getEmbeddingModel());
         
-        EmbeddingRequest request = new EmbeddingRequest();
-        request.setModel(properties.getEmbeddingModel());
-        request.setInput(texts);
-        
         try {
-            EmbeddingResponse response = webClient.post()
-                    .uri("/embeddings")
-                    .bodyValue(request)
-                    .retrieve()
-                    .onStatus(HttpStatusCode::isError, clientResponse -> 
-                        clientResponse.bodyToMono(String.class)
-                            .flatMap(errorBody -> {
-                                log.error("Embedding API error: {}", errorBody);
-                                return Mono.error(new OpenAIException(
-                                    "Failed to create embeddings: " + errorBody));
-                            }))
-                    .bodyToMono(EmbeddingResponse.class)
-                    .timeout(Duration.ofMillis(properties.getReadTimeout()))
-                    .block();
+            EmbeddingResponse response;
+            boolean base64 = base64Embeddings.get();
+            try {
+                response = requestEmbeddings(texts, base64);
+            } catch (OpenAIException e) {
+                if (!base64 || e.getStatusCode() != 400) {
+                    throw e;
+                }
+                // Some routed models reject encoding_format; fall back to JSON arrays from now on
+                log.warn("Provider rejected base64 embeddings, falling back to float arrays: {}", e.getMessage());
+                base64Embeddings.set(false);
+                response = requestEmbeddings(texts, false);
+            }
             
             if (response == null || response.getData() == null) {
                 throw new OpenAIException("Empty response from embedding API");
@@ -98,9 +175,7 @@ public class OpenAIClient {
             
             List<double[]> embeddings = response.getData().stream()
                     .sorted((a, b) -> Integer.compare(a.getIndex(), b.getIndex()))
-                    .map(data -> data.getEmbedding().stream()
-                            .mapToDouble(Double::doubleValue)
-                            .toArray())
+                    .map(data -> toDoubleArray(data.getEmbedding()))
                     .collect(Collectors.toList());
             
             log.debug("Successfully created {} embeddings", embeddings.size());
@@ -118,6 +193,44 @@ public class OpenAIClient {
         }
     }
 
+    private EmbeddingResponse requestEmbeddings(List<String> texts, boolean base64) {
+        EmbeddingRequest request = new EmbeddingRequest();
+        request.setModel(properties.getEmbeddingModel());
+        request.setInput(texts);
+        if (base64) {
+            request.setEncodingFormat("base64");
+        }
+        
+        return execute(OP_EMBEDDINGS, () -> webClient.post()
+                .uri("/embeddings")
+                .bodyValue(request)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, clientResponse -> 
+                    clientResponse.bodyToMono(String.class)
+                        .flatMap(errorBody -> {
+                            log.error("Embedding API error: {}", errorBody);
+                            return Mono.error(new OpenAIException(
+                                "Failed to create embeddings: " + errorBody,
+                                clientResponse.statusCode().value()));
+                        }))
+                .bodyToMono(EmbeddingResponse.class),
+                EmbeddingResponse::getUsage);
+    }
+
+    /**
+     * Widens a decoded float32 vector to the double[] used by callers.
+     */
+    private static double[] toDoubleArray(float[] vector) {
+        if (vector == null) {
+            throw new OpenAIException("Embedding missing from API response");
+        }
+        double[] widened = new double[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            widened[i] = vector[i];
+        }
+        return widened;
+    }
+
     /**
      * Creates a chat completion using the configured model.
      * 
@@ -146,29 +259,19 @@ public class OpenAIClient {
         
         log.debug("Creating chat completion using model: {}", properties.getChatModel());
         
-        ChatCompletionRequest request = new ChatCompletionRequest();
-        request.setModel(properties.getChatModel());
-        request.setMaxTokens(properties.getMaxTokens());
-        request.setTemperature(properties.getTemperature());
-        
-        // Build messages list with history
-        List<ChatMessage> messages = new java.util.ArrayList<>();
-        messages.add(new ChatMessage("system", systemPrompt != null ? systemPrompt : "You are a helpful assistant."));
+        ChatCompletionRequest request = buildChatRequest(systemPrompt, userMessage, conversationHistory);
         
-        // Add conversation history (limit to last 10 messages to avoid token limits)
-        if (conversationHistory != null && !conversationHistory.isEmpty()) {
-            int startIdx = Math.max(0, conversationHistory.size() - 10);
-            for (int i = startIdx; i < conversationHistory.size(); i++) {
-                messages.add(conversationHistory.get(i));
+        String cacheKey = cacheKey(request);
+        if (cacheKey != null) {
+            Optional<String> cached = completionCache.get(cacheKey);
+            if (cached.isPresent()) {
+                log.debug("Serving chat completion from cache");
+                return cached.get();
             }
         }
         
-        // Add current user message
-        messages.add(new ChatMessage("user", userMessage));
-        request.setMessages(messages);
-        
         try {
-            ChatCompletionResponse response = webClient.post()
+            ChatCompletionResponse response = execute(OP_CHAT, () -> webClient.post()
                     .uri("/chat/completions")
                     .bodyValue(request)
                     .retrieve()
@@ -177,11 +280,11 @@ public class OpenAIClient {
                             .flatMap(errorBody -> {
                                 log.error("Chat API error: {}", errorBody);
                                 return Mono.error(new OpenAIException(
-                                    "Failed to create chat completion: " + errorBody));
+                                    "Failed to create chat completion: " + errorBody,
+                                    clientResponse.statusCode().value()));
                             }))
-                    .bodyToMono(ChatCompletionResponse.class)
-                    .timeout(Duration.ofMillis(properties.getReadTimeout()))
-                    .block();
+                    .bodyToMono(ChatCompletionResponse.class),
+                    ChatCompletionResponse::getUsage);
             
             if (response == null || response.getChoices() == null || response.getChoices().isEmpty()) {
                 throw new OpenAIException("Empty response from chat API");
@@ -189,6 +292,9 @@ public class OpenAIClient {
             
             String content = response.getChoices().get(0).getMessage().getContent();
             log.debug("Successfully received chat completion response");
+            if (cacheKey != null && content != null && !content.isBlank()) {
+                completionCache.put(cacheKey, request.getModel(), content);
+            }
             return content;
             
         } catch (WebClientResponseException e) {
@@ -203,12 +309,461 @@ public class OpenAIClient {
         }
     }
 
+    /**
+     * Streams a chat completion with conversation history.
+     * The provider is called with {@code stream: true} and each content delta is
+     * emitted as soon as it arrives. Cancelling the subscription closes the
+     * underlying HTTP connection, which stops token generation upstream.
+     * 
+     * @param systemPrompt The system prompt to set context
+     * @param userMessage The user's current message/question
+     * @param conversationHistory Previous messages in the conversation
+     * @return Flux of content deltas in generation order
+     */
+    public Flux<String> streamChatCompletionWithHistory(String systemPrompt, String userMessage, List<ChatMessage> conversationHistory) {
+        if (userMessage == null || userMessage.isBlank()) {
+            return Flux.error(new OpenAIException("User message cannot be empty"));
+        }
+        
+        log.debug("Streaming chat completion using model: {}", properties.getChatModel());
+        
+        ChatCompletionRequest request = buildChatRequest(systemPrompt, userMessage, conversationHistory);
+        request.setStream(Boolean.TRUE);
+        // Ask for a final chunk carrying the token usage of the whole stream
+        request.setStreamOptions(new ChatCompletionRequest.StreamOptions(true));
+        
+        String feature = LlmCallContext.current().getFeature();
+        String principal = currentPrincipal();
+        AtomicReference<Usage> usage = new AtomicReference<>();
+        
+        Flux<String> stream = webClient.post()
+                .uri("/chat/completions")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(request)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, clientResponse -> 
+                    clientResponse.bodyToMono(String.class)
+                        .flatMap(errorBody -> {
+                            log.error("Chat stream API error: {}", errorBody);
+                            return Mono.error(new OpenAIException(
+                                "Failed to stream chat completion: " + errorBody,
+                                clientResponse.statusCode().value()));
+                        }))
+                .bodyToFlux(SSE_TYPE)
+                .map(event -> event.data() != null ? event.data().trim() : "")
+                .filter(data -> !data.isEmpty())
+                .takeWhile(data -> !STREAM_DONE_MARKER.equals(data))
+                .map(this::parseChunk)
+                .doOnNext(chunk -> {
+                    if (chunk.getUsage() != null) {
+                        usage.set(chunk.getUsage());
+                    }
+                })
+                .map(OpenAIClient::deltaOf)
+                .filter(delta -> !delta.isEmpty())
+                // Idle timeout: fail if the provider stops sending chunks
+                .timeout(Duration.ofMillis(properties.getReadTimeout()))
+                .onErrorMap(e -> !(e instanceof OpenAIException), e -> {
+                    log.error("Chat stream failed", e);
+                    return new OpenAIException("Failed to stream chat completion: " + e.getMessage(), e);
+                });
+        
+        // Tokens cannot be replayed once sent, so streams get the breaker but no retries or hedging
+        Flux<String> guarded = Flux.defer(() -> {
+            CircuitBreaker breaker = circuitBreaker(OP_CHAT_STREAM);
+            if (!breaker.tryAcquire()) {
+                rejectedCounter(OP_CHAT_STREAM).increment();
+                return Flux.error(circuitOpen(OP_CHAT_STREAM));
+            }
+            long startNanos = System.nanoTime();
+            return stream
+                    .doFinally(signal -> recordUsage(OP_CHAT_STREAM, feature, principal, usage.get(),
+                            (System.nanoTime() - startNanos) / 1_000_000, signal != SignalType.ON_ERROR))
+                    .doOnComplete(breaker::onSuccess)
+                    .doOnError(e -> {
+                        if (isTransient(e)) {
+                            breaker.onFailure();
+                        } else {
+                            breaker.onIgnored();
+                        }
+                    })
+                    .doOnCancel(breaker::onIgnored);
+        });
+        
+        if (!resilienceProperties.getBulkhead().isEnabled()) {
+            return guarded;
+        }
+        LlmPriority priority = LlmCallContext.current().getPriority();
+        Optional<Duration> budget = RequestDeadline.remaining();
+        return withPermit(() -> acquirePermit(OP_CHAT_STREAM, priority, budget), guarded);
+    }
+
+    /**
+     * Holds a bulkhead permit for as long as the stream runs. Waiting for the permit blocks, so it is acquired
+     * off the subscriber's thread; it is released however the stream ends, including a cancel that arrives
+     * while the permit is still being acquired.
+     */
+    static <T> Flux<T> withPermit(Callable<Bulkhead> acquire, Flux<T> stream) {
+        Mono<Bulkhead> permit = Mono.fromCallable(acquire)
+                // Not fused into subscribeOn, whose fused form drops a value arriving after cancel undiscarded
+                .hide()
+                .subscribeOn(Schedulers.boundedElastic())
+                // Granted after the subscriber cancelled, so no stream will release it
+                .doOnDiscard(Bulkhead.class, Bulkhead::release);
+        return Flux.usingWhen(permit,
+                bulkhead -> stream,
+                OpenAIClient::release,
+                (bulkhead, error) -> release(bulkhead),
+                OpenAIClient::release);
+    }
+
+    private static Mono<Void> release(Bulkhead bulkhead) {
+        return Mono.fromRunnable(bulkhead::release);
+    }
+
+    // ==================== Resilience ====================
+
+    /**
+     * Runs a provider call through the circuit breaker, retry and hedging policies,
+     * bounded by the current request's deadline.
+     */
+    private <T> T execute(String operation, Supplier<Mono<T>> call, Function<T, Usage> usageOf) {
+        Optional<Duration> budget = RequestDeadline.remaining();
+        if (budget.isPresent() && (budget.get().isNegative() || budget.get().isZero())) {
+            throw new OpenAIException("Request deadline exceeded before calling the AI provider");
+        }
+        
+        Bulkhead bulkhead = resilienceProperties.getBulkhead().isEnabled()
+                ? acquirePermit(operation, LlmCallContext.current().getPriority(), budget)
+                : null;
+        try {
+            // Queueing may have used up part of the budget
+            budget = RequestDeadline.remaining();
+            CircuitBreaker breaker = circuitBreaker(operation);
+            if (!breaker.tryAcquire()) {
+                rejectedCounter(operation).increment();
+                throw circuitOpen(operation);
+            }
+            retryBudget.recordCall();
+            
+            String feature = LlmCallContext.current().getFeature();
+            String principal = currentPrincipal();
+            long deadlineNanos = budget.map(left -> System.nanoTime() + left.toNanos()).orElse(Long.MAX_VALUE);
+            long startNanos = System.nanoTime();
+            try {
+                Mono<T> resilient = withRetries(operation, withHedging(operation, attempt(call, deadlineNanos)));
+                if (budget.isPresent()) {
+                    resilient = resilient.timeout(budget.get().isNegative() ? Duration.ZERO : budget.get());
+                }
+                T result = resilient.block();
+                breaker.onSuccess();
+                long latencyMillis = (System.nanoTime() - startNanos) / 1_000_000;
+                latencyTracker(operation).record(latencyMillis);
+                recordUsage(operation, feature, principal, result != null ? usageOf.apply(result) : null,
+                        latencyMillis, true);
+                return result;
+            } catch (RuntimeException e) {
+                recordUsage(operation, feature, principal, null, (System.nanoTime() - startNanos) / 1_000_000, false);
+                if (isTransient(Exceptions.unwrap(e))) {
+                    breaker.onFailure();
+                } else {
+                    breaker.onIgnored();
+                }
+                throw e;
+            }
+        } finally {
+            if (bulkhead != null) {
+                bulkhead.release();
+            }
+        }
+    }
+
+    /**
+     * Waits for a permit from the model's bulkhead, no longer than the priority's
+     * maximum wait or the remaining request budget.
+     *
+     * @return the bulkhead holding the permit, to be released after the call
+     * @throws BulkheadFullException if the call was rejected or shed
+     */
+    private Bulkhead acquirePermit(String operation, LlmPriority priority, Optional<Duration> budget) {
+        OpenAIResilienceProperties.Bulkhead config = resilienceProperties.getBulkhead();
+        String model = modelFor(operation);
+        Bulkhead bulkhead = bulkhead(model);
+        
+        Duration maxWait = Duration.ofMillis(switch (priority) {
+            case INTERACTIVE -> config.getInteractiveMaxWaitMillis();
+            case GENERATION -> config.getGenerationMaxWaitMillis();
+            case BATCH -> config.getBatchMaxWaitMillis();
+        });
+        if (budget.isPresent() && budget.get().compareTo(maxWait) < 0) {
+            maxWait = budget.get();
+        }
+        
+        String priorityTag = priority.name().toLowerCase();
+        long startNanos = System.nanoTime();
+        Bulkhead.Admission admission = bulkhead.acquire(priority, maxWait);
+        Timer.builder("openai.bulkhead.wait")
+                .description("Time spent waiting for a provider call permit")
+                .tags("model", model, "priority", priorityTag)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        
+        if (admission == Bulkhead.Admission.GRANTED) {
+            return bulkhead;
+        }
+        String reason = admission.name().toLowerCase();
+        meterRegistry.counter("openai.bulkhead.rejected",
+                "model", model, "priority", priorityTag, "reason", reason).increment();
+        log.warn("Rejected {} {} call for model {}: {}", priorityTag, operation, model, reason);
+        throw new BulkheadFullException("AI provider is at capacity for " + model + " (" + reason + ")", 1);
+    }
+
+    private void recordUsage(String operation, String feature, String principal, Usage usage,
+                             long latencyMillis, boolean success) {
+        try {
+            usageRecorder.record(operation, feature, modelFor(operation), principal,
+                    usage != null ? usage.getPromptTokens() : 0,
+                    usage != null ? usage.getCompletionTokens() : 0,
+                    latencyMillis, success);
+        } catch (RuntimeException e) {
+            log.warn("Failed to record provider usage: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * The authenticated user the current call is made for, or the system principal.
+     */
+    private static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return LlmUsageRecorder.SYSTEM_PRINCIPAL;
+        }
+        return authentication.getName();
+    }
+
+    private String modelFor(String operation) {
+        return OP_EMBEDDINGS.equals(operation) ? properties.getEmbeddingModel() : properties.getChatModel();
+    }
+
+    private Bulkhead bulkhead(String model) {
+        return bulkheads.computeIfAbsent(model, key -> {
+            OpenAIResilienceProperties.Bulkhead config = resilienceProperties.getBulkhead();
+            Bulkhead bulkhead = new Bulkhead(key,
+                    config.getModelLimits().getOrDefault(key, config.getMaxConcurrentCalls()),
+                    config.getMaxQueueSize());
+            Gauge.builder("openai.bulkhead.in_flight", bulkhead, Bulkhead::getInFlight)
+                    .description("Provider calls currently holding a permit")
+                    .tag("model", key)
+                    .register(meterRegistry);
+            for (LlmPriority priority : LlmPriority.values()) {
+                Gauge.builder("openai.bulkhead.queue.depth", bulkhead, b -> b.getQueueDepth(priority))
+                        .description("Provider calls waiting for a permit")
+                        .tags("model", key, "priority", priority.name().toLowerCase())
+                        .register(meterRegistry);
+            }
+            return bulkhead;
+        });
+    }
+
+    /**
+     * A single attempt, timed out by the read timeout or whatever is left of the deadline.
+     */
+    private <T> Mono<T> attempt(Supplier<Mono<T>> call, long deadlineNanos) {
+        return Mono.defer(() -> {
+            Duration timeout = Duration.ofMillis(properties.getReadTimeout());
+            if (deadlineNanos != Long.MAX_VALUE) {
+                Duration left = Duration.ofNanos(deadlineNanos - System.nanoTime());
+                if (left.compareTo(timeout) < 0) {
+                    timeout = left.isNegative() ? Duration.ZERO : left;
+                }
+            }
+            return call.get().timeout(timeout);
+        });
+    }
+
+    /**
+     * Sends a second, identical request if the first one is slower than the
+     * configured latency percentile; whichever answers first wins.
+     */
+    private <T> Mono<T> withHedging(String operation, Mono<T> attempt) {
+        OpenAIResilienceProperties.Hedging hedging = resilienceProperties.getHedging();
+        if (!hedging.isEnabled() || !hedging.getOperations().contains(operation)) {
+            return attempt;
+        }
+        LatencyTracker tracker = latencyTracker(operation);
+        if (tracker.getCount() < hedging.getMinSamples()) {
+            return attempt;
+        }
+        long delayMillis = Math.max(hedging.getMinDelayMillis(), tracker.percentile(hedging.getPercentile()));
+        Mono<T> hedge = Mono.delay(Duration.ofMillis(delayMillis))
+                .doOnNext(tick -> meterRegistry.counter("openai.calls.hedged", "operation", operation).increment())
+                .then(attempt);
+        return Mono.firstWithValue(attempt, hedge)
+                .onErrorMap(e -> e.getSuppressed().length > 0, e -> e.getSuppressed()[0]);
+    }
+
+    private <T> Mono<T> withRetries(String operation, Mono<T> attempt) {
+        OpenAIResilienceProperties.Retry retry = resilienceProperties.getRetry();
+        if (retry.getMaxAttempts() <= 1) {
+            return attempt;
+        }
+        return attempt.retryWhen(Retry.backoff(retry.getMaxAttempts() - 1, Duration.ofMillis(retry.getInitialBackoffMillis()))
+                .maxBackoff(Duration.ofMillis(retry.getMaxBackoffMillis()))
+                .jitter(retry.getJitter())
+                .filter(e -> isTransient(e) && retryBudget.tryWithdraw())
+                .doBeforeRetry(signal -> {
+                    meterRegistry.counter("openai.calls.retried", "operation", operation).increment();
+                    log.warn("Retrying {} call (attempt {}): {}", operation,
+                            signal.totalRetries() + 2, signal.failure().getMessage());
+                })
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    /**
+     * Whether a failure reflects provider health (overload, outage, slowness)
+     * rather than a problem with the request itself.
+     */
+    private boolean isTransient(Throwable e) {
+        if (e instanceof OpenAIException openAIException) {
+            return openAIException.isTransient()
+                    || (openAIException.getCause() != null && isTransient(openAIException.getCause()));
+        }
+        if (e instanceof WebClientResponseException responseException) {
+            int status = responseException.getStatusCode().value();
+            return status == 429 || status >= 500;
+        }
+        return e instanceof TimeoutException || e instanceof WebClientRequestException;
+    }
+
+    private CircuitBreaker circuitBreaker(String operation) {
+        return circuitBreakers.computeIfAbsent(operation, op -> {
+            OpenAIResilienceProperties.CircuitBreaker config = resilienceProperties.getCircuitBreaker();
+            CircuitBreaker breaker = new CircuitBreaker(op, config.getFailureRateThreshold(),
+                    config.getSlidingWindowSize(), config.getMinimumCalls(),
+                    config.getOpenDurationMillis(), config.getHalfOpenPermittedCalls());
+            Gauge.builder("openai.circuit.state", breaker, b -> b.getState().ordinal())
+                    .description("Circuit breaker state (0 closed, 1 open, 2 half-open)")
+                    .tag("operation", op)
+                    .register(meterRegistry);
+            return breaker;
+        });
+    }
+
+    private LatencyTracker latencyTracker(String operation) {
+        return latencyTrackers.computeIfAbsent(operation, op -> new LatencyTracker(LATENCY_SAMPLES));
+    }
+
+    private Counter rejectedCounter(String operation) {
+        return meterRegistry.counter("openai.calls.rejected", "operation", operation);
+    }
+
+    private OpenAIException circuitOpen(String operation) {
+        return new OpenAIException("AI provider circuit is open for " + operation + "; failing fast");
+    }
+
+    private ChatCompletionChunk parseChunk(String chunkJson) {
+        try {
+            return chunkMapper.readValue(chunkJson, ChatCompletionChunk.class);
+        } catch (JsonProcessingException e) {
+            throw new OpenAIException("Malformed chunk in chat stream: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    /**
+     * Extracts the content delta from a single streamed completion chunk.
+     */
+    private static String deltaOf(ChatCompletionChunk chunk) {
+        if (chunk.getChoices() == null || chunk.getChoices().isEmpty()) {
+            return "";
+        }
+        ChatCompletionChunk.Delta delta = chunk.getChoices().get(0).getDelta();
+        return delta != null && delta.getContent() != null ? delta.getContent() : "";
+    }
+
+    /**
+     * Drops the cached completion of a prompt, so the next cacheable call with it reaches the provider.
+     * Used when content generated from the prompt is deleted to have it generated anew.
+     */
+    public void evictCachedCompletion(String systemPrompt, String userMessage) {
+        if (!completionCache.isEnabled()) {
+            return;
+        }
+        String key = completionKey(buildChatRequest(systemPrompt, userMessage, null));
+        if (key != null) {
+            completionCache.remove(key);
+        }
+    }
+
+    /**
+     * Cache key for the request if the current call site opted into caching, otherwise null.
+     */
+    private String cacheKey(ChatCompletionRequest request) {
+        if (!completionCache.isEnabled() || !LlmCallContext.current().isCacheable()) {
+            return null;
+        }
+        return completionKey(request);
+    }
+
+    private String completionKey(ChatCompletionRequest request) {
+        try {
+            return CompletionCache.key(request.getModel(), request.getTemperature(), request.getMaxTokens(),
+                    chunkMapper.writeValueAsString(request.getMessages()));
+        } catch (JsonProcessingException e) {
+            log.warn("Could not compute completion cache key: {}", e.getOriginalMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Builds a chat completion request with system prompt, trimmed history and user message.
+     */
+    private ChatCompletionRequest buildChatRequest(String systemPrompt, String userMessage, List<ChatMessage> conversationHistory) {
+        ChatCompletionRequest request = new ChatCompletionRequest();
+        request.setModel(properties.getChatModel());
+        request.setMaxTokens(properties.getMaxTokens());
+        request.setTemperature(properties.getTemperature());
+        
+        // Build messages list with history
+        List<ChatMessage> messages = new java.util.ArrayList<>();
+        messages.add(new ChatMessage("system", systemPrompt != null ? systemPrompt : "You are a helpful assistant."));
+        
+        // Add conversation history (limit to last 10 messages to avoid token limits)
+        if (conversationHistory != null && !conversationHistory.isEmpty()) {
+            int startIdx = Math.max(0, conversationHistory.size() - 10);
+            for (int i = startIdx; i < conversationHistory.size(); i++) {
+                messages.add(conversationHistory.get(i));
+            }
+        }
+        
+        // Add current user message
+        messages.add(new ChatMessage("user", userMessage));
+        request.setMessages(messages);
+        return request;
+    }
+
     // ==================== Request/Response DTOs ====================
     
+    /**
+     * Token usage block returned by both endpoints (embeddings report no completion tokens).
+     */
     @Data
+    static class Usage {
+        @JsonProperty("prompt_tokens")
+        private int promptTokens;
+        @JsonProperty("completion_tokens")
+        private int completionTokens;
+        @JsonProperty("total_tokens")
+        private int totalTokens;
+    }
+    
+    @Data
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     static class EmbeddingRequest {
         private String model;
         private List<String> input;
+        @JsonProperty("encoding_format")
+        private String encodingFormat;
     }
     
     @Data
@@ -220,26 +775,33 @@ public class OpenAIClient {
         @Data
         static class EmbeddingData {
             private int index;
-            private List<Double> embedding;
+            @JsonDeserialize(using = EmbeddingVectorDeserializer.class)
+            private float[] embedding;
             private String object;
         }
-        
-        @Data
-        static class Usage {
-            @JsonProperty("prompt_tokens")
-            private int promptTokens;
-            @JsonProperty("total_tokens")
-            private int totalTokens;
-        }
     }
     
     @Data
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     static class ChatCompletionRequest {
         private String model;
         private List<ChatMessage> messages;
         @JsonProperty("max_tokens")
         private int maxTokens;
         private double temperature;
+        private Boolean stream;
+        @JsonProperty("stream_options")
+        private StreamOptions streamOptions;
+        
+        @Data
+        static class StreamOptions {
+            @JsonProperty("include_usage")
+            private boolean includeUsage;
+            
+            StreamOptions(boolean includeUsage) {
+                this.includeUsage = includeUsage;
+            }
+        }
     }
     
     @Data
@@ -271,15 +833,27 @@ public class OpenAIClient {
             @JsonProperty("finish_reason")
             private String finishReason;
         }
+    }
+    
+    @Data
+    static class ChatCompletionChunk {
+        private String id;
+        private String model;
+        private List<ChunkChoice> choices;
+        private Usage usage;
+        
+        @Data
+        static class ChunkChoice {
+            private int index;
+            private Delta delta;
+            @JsonProperty("finish_reason")
+            private String finishReason;
+        }
         
         @Data
-        static class Usage {
-            @JsonProperty("prompt_tokens")
-            private int promptTokens;
-            @JsonProperty("completion_tokens")
-            private int completionTokens;
-            @JsonProperty("total_tokens")
-            private int totalTokens;
+        static class Delta {
+            private String role;
+            private String content;
         }
     }
 }
@@ -0,0 +1,324 @@
+package com.dsaplatform.service;
+
+import com.dsaplatform.config.QuizBankProperties;
+import com.dsaplatform.dto.response.QuizResponse;
+import com.dsaplatform.model.entity.QuizBankQuestion;
+import com.dsaplatform.model.entity.QuizQuestionView;
+import com.dsaplatform.repository.QuizBankQuestionRepository;
+import com.dsaplatform.repository.QuizQuestionViewRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Serves quizzes from a persistent question bank instead of a fresh LLM call per quiz.
+ *
+ * Questions are pooled per (topic, difficulty). A quiz samples questions the user has not
+ * been served recently; when few unseen questions remain, the pool is refilled by the LLM
+ * on a background thread. Only an empty or too small pool falls back to live generation,
+ * whose questions then seed the pool.
+ */
+@Service
+@Slf4j
+public class QuizBankService {
+
+    private static final int AVOID_PROMPT_QUESTIONS = 30;
+    private static final TypeReference<List<String>> OPTIONS_TYPE = new TypeReference<>() {};
+
+    private final QuizBankQuestionRepository questionRepository;
+    private final QuizQuestionViewRepository viewRepository;
+    private final QuizGenerationService quizGenerationService;
+    private final QuizBankProperties properties;
+    private final ObjectMapper objectMapper;
+
+    private final ExecutorService refillExecutor;
+    private final Set<String> refilling = ConcurrentHashMap.newKeySet();
+
+    private final Counter bankCounter;
+    private final Counter liveCounter;
+    private final Counter refilledCounter;
+
+    public QuizBankService(QuizBankQuestionRepository questionRepository, QuizQuestionViewRepository viewRepository,
+                           QuizGenerationService quizGenerationService, QuizBankProperties properties,
+                           ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.questionRepository = questionRepository;
+        this.viewRepository = viewRepository;
+        this.quizGenerationService = quizGenerationService;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.refillExecutor = Executors.newFixedThreadPool(Math.max(1, properties.getRefillConcurrency()),
+                namedThreads("quiz-bank-refill"));
+        this.bankCounter = meterRegistry.counter("quiz.bank.quizzes", "source", "bank");
+        this.liveCounter = meterRegistry.counter("quiz.bank.quizzes", "source", "live");
+        this.refilledCounter = Counter.builder("quiz.bank.refill.questions")
+                .description("Questions added to the quiz bank by background refills")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get a quiz for the user, sampled from the bank when the pool is large enough.
+     *
+     * @param userId user taking the quiz, whose recently served questions are avoided
+     * @param topic The DSA topic (e.g., "Arrays", "Stacks")
+     * @param difficulty The difficulty level (beginner, intermediate, advanced)
+     * @param questionCount Number of questions (3-10)
+     */
+    public QuizResponse getQuiz(Long userId, String topic, String difficulty, int questionCount) {
+        if (!properties.isEnabled()) {
+            return quizGenerationService.generateQuiz(topic, difficulty, questionCount);
+        }
+        return fromBank(userId, topic, difficulty, questionCount).orElseGet(() -> {
+            // Cold pool: the user waits for a live generation once, and its questions seed the pool
+            liveCounter.increment();
+            QuizResponse live = quizGenerationService.generateQuiz(topic, difficulty, questionCount);
+            recordViews(userId, store(topicKey(topic), difficulty.toLowerCase(Locale.ROOT), live.getQuestions()));
+            return live;
+        });
+    }
+
+    /**
+     * Like {@link #getQuiz}, but questions are emitted one at a time, so a live generation
+     * shows its first question while the rest are still being written.
+     * Questions streamed from a live generation seed the pool once the stream completes.
+     */
+    public Flux<QuizResponse.QuizQuestionDto> streamQuiz(Long userId, String topic, String difficulty,
+                                                        int questionCount) {
+        if (!properties.isEnabled()) {
+            return quizGenerationService.streamQuiz(topic, difficulty, questionCount);
+        }
+        return Mono.fromCallable(() -> fromBank(userId, topic, difficulty, questionCount))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(bank -> bank.map(quiz -> Flux.fromIterable(quiz.getQuestions()))
+                        .orElseGet(() -> streamLive(userId, topic, difficulty, questionCount)));
+    }
+
+    private Flux<QuizResponse.QuizQuestionDto> streamLive(Long userId, String topic, String difficulty,
+                                                        int questionCount) {
+        liveCounter.increment();
+        String topicKey = topicKey(topic);
+        String level = difficulty.toLowerCase(Locale.ROOT);
+        List<QuizResponse.QuizQuestionDto> streamed = Collections.synchronizedList(new ArrayList<>());
+        return quizGenerationService.streamQuiz(topic, difficulty, questionCount)
+                .doOnNext(streamed::add)
+                .concatWith(Mono.fromRunnable(() -> recordViews(userId, store(topicKey, level, List.copyOf(streamed))))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .then(Mono.empty()));
+    }
+
+    /**
+     * Samples the quiz from the bank and requests a refill when the pool runs low.
+     * 
+     * @return empty if the pool is too small to serve the quiz
+     */
+    private Optional<QuizResponse> fromBank(Long userId, String topic, String difficulty, int questionCount) {
+        String topicKey = topicKey(topic);
+        String level = difficulty.toLowerCase(Locale.ROOT);
+        List<Long> pool = questionRepository.findIdsByPool(topicKey, level);
+        Set<Long> seen = pool.isEmpty()
+                ? Set.of()
+                : new HashSet<>(viewRepository.findSeenQuestionIds(
+                        userId, LocalDateTime.now().minusDays(properties.getSeenWindowDays()), pool));
+        
+        List<Long> unseen = new ArrayList<>(pool);
+        unseen.removeAll(seen);
+        if (unseen.size() - questionCount < properties.getLowWaterMark() && pool.size() < properties.getMaxPoolSize()) {
+            requestRefill(topic, topicKey, level);
+        }
+        
+        if (pool.size() < questionCount) {
+            log.info("Quiz bank for {} ({}) has {} questions; generating live", topicKey, level, pool.size());
+            return Optional.empty();
+        }
+        
+        List<Long> chosen = sample(unseen, new ArrayList<>(seen), questionCount);
+        Map<Long, QuizBankQuestion> byId = questionRepository.findAllById(chosen).stream()
+                .collect(Collectors.toMap(QuizBankQuestion::getId, Function.identity()));
+        List<QuizBankQuestion> questions = chosen.stream().map(byId::get).filter(Objects::nonNull).toList();
+        recordViews(userId, questions);
+        bankCounter.increment();
+        
+        return Optional.of(QuizResponse.builder()
+                .topic(topic)
+                .difficulty(difficulty)
+                .questions(questions.stream().map(this::toDto).toList())
+                .generatedAt(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * Unseen questions first, topped up with recently seen ones if the user has exhausted the pool.
+     */
+    private static List<Long> sample(List<Long> unseen, List<Long> seen, int count) {
+        Collections.shuffle(unseen);
+        Collections.shuffle(seen);
+        List<Long> chosen = new ArrayList<>(unseen.subList(0, Math.min(count, unseen.size())));
+        for (int i = 0; chosen.size() < count && i < seen.size(); i++) {
+            chosen.add(seen.get(i));
+        }
+        return chosen;
+    }
+
+    private void requestRefill(String topic, String topicKey, String level) {
+        String poolKey = topicKey + "|" + level;
+        if (!refilling.add(poolKey)) {
+            return;
+        }
+        try {
+            refillExecutor.execute(() -> {
+                try {
+                    refill(topic, topicKey, level);
+                } finally {
+                    refilling.remove(poolKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refilling.remove(poolKey);
+        }
+    }
+
+    private void refill(String topic, String topicKey, String level) {
+        try {
+            List<String> avoid = questionRepository.findRecentQuestions(
+                    topicKey, level, PageRequest.of(0, AVOID_PROMPT_QUESTIONS));
+            List<QuizResponse.QuizQuestionDto> generated = quizGenerationService.generateBankQuestions(
+                    topic, level, properties.getRefillBatchSize(), avoid);
+            int added = store(topicKey, level, generated).size();
+            refilledCounter.increment(added);
+            log.info("Refilled quiz bank for {} ({}) with {} of {} generated questions",
+                    topicKey, level, added, generated.size());
+        } catch (RuntimeException e) {
+            log.warn("Quiz bank refill failed for {} ({}): {}", topicKey, level, e.getMessage());
+        }
+    }
+
+    /**
+     * Stores the questions not yet in the pool and returns all stored ones, including those already present.
+     */
+    private List<QuizBankQuestion> store(String topicKey, String level, List<QuizResponse.QuizQuestionDto> questions) {
+        List<QuizBankQuestion> stored = new ArrayList<>();
+        for (QuizResponse.QuizQuestionDto dto : questions) {
+            String hash = questionHash(topicKey, level, dto.getQuestion());
+            if (questionRepository.existsByQuestionHash(hash)) {
+                continue;
+            }
+            try {
+                stored.add(questionRepository.save(QuizBankQuestion.builder()
+                        .topicKey(topicKey)
+                        .difficulty(level)
+                        .question(dto.getQuestion())
+                        .optionsJson(objectMapper.writeValueAsString(dto.getOptions()))
+                        .correctAnswer(dto.getCorrectAnswer())
+                        .explanation(dto.getExplanation())
+                        .questionHash(hash)
+                        .createdAt(LocalDateTime.now())
+                        .build()));
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Question already stored concurrently in {} ({})", topicKey, level);
+            } catch (JsonProcessingException e) {
+                log.warn("Skipping question with unserializable options: {}", e.getMessage());
+            }
+        }
+        return stored;
+    }
+
+    private void recordViews(Long userId, List<QuizBankQuestion> questions) {
+        LocalDateTime now = LocalDateTime.now();
+        viewRepository.saveAll(questions.stream()
+                .map(question -> QuizQuestionView.builder()
+                        .userId(userId)
+                        .questionId(question.getId())
+                        .seenAt(now)
+                        .build())
+                .toList());
+    }
+
+    private QuizResponse.QuizQuestionDto toDto(QuizBankQuestion question) {
+        List<String> options;
+        try {
+            options = objectMapper.readValue(question.getOptionsJson(), OPTIONS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt options for quiz bank question " + question.getId(), e);
+        }
+        return QuizResponse.QuizQuestionDto.builder()
+                .id("q_" + question.getId())
+                .question(question.getQuestion())
+                .options(options)
+                .correctAnswer(question.getCorrectAnswer())
+                .explanation(question.getExplanation())
+                .build();
+    }
+
+    /**
+     * Forgets views older than the seen window; they no longer affect sampling.
+     */
+    @Scheduled(cron = "0 30 4 * * *")
+    @Transactional
+    public void purgeOldViews() {
+        int deleted = viewRepository.deleteOlderThan(LocalDateTime.now().minusDays(properties.getSeenWindowDays()));
+        log.info("Purged {} quiz question views older than {} days", deleted, properties.getSeenWindowDays());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refillExecutor.shutdownNow();
+    }
+
+    static String topicKey(String topic) {
+        return topic.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    static String questionHash(String topicKey, String level, String question) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String normalized = question.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+            return HexFormat.of().formatHex(digest.digest(
+                    (topicKey + '\u0000' + level + '\u0000' + normalized).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
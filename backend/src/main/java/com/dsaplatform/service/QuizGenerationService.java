@@ -2,16 +2,20 @@ package com.dsaplatform.service;
 
 import com.dsaplatform.dto.response.QuizResponse;
 import com.dsaplatform.exception.OpenAIException;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.dsaplatform.resilience.LlmCallContext;
+import com.dsaplatform.resilience.LlmPriority;
+import com.dsaplatform.util.JsonArrayStreamParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -75,6 +79,69 @@ public class QuizGenerationService {
         }
     }
     
+    /**
+     * Generate fresh questions for the quiz bank, at batch priority and bypassing the completion cache.
+     * 
+     * @param avoid question texts already in the pool, which the LLM is asked not to repeat
+     * @return parsed questions; may be fewer than requested
+     */
+    public List<QuizResponse.QuizQuestionDto> generateBankQuestions(String topic, String difficulty, int count,
+                                                                    List<String> avoid) {
+        StringBuilder userPrompt = new StringBuilder(buildQuizPrompt(topic, difficulty, count));
+        if (!avoid.isEmpty()) {
+            userPrompt.append("\nDo NOT repeat or rephrase any of these existing questions:\n");
+            avoid.forEach(question -> userPrompt.append("- ").append(question).append('\n'));
+        }
+        
+        log.debug("Sending quiz bank refill request to LLM for {} ({})", topic, difficulty);
+        String response = LlmCallContext.withPriority(LlmPriority.BATCH).feature("quiz-bank")
+                .call(() -> openAIClient.createChatCompletion(SYSTEM_PROMPT, userPrompt.toString()));
+        return parseLLMResponse(response, topic);
+    }
+    
+    /**
+     * Generate quiz questions, emitting each one as soon as the LLM has finished writing it.
+     * Questions that fail validation are dropped; the stream fails only if no valid question arrives.
+     * 
+     * @param topic The DSA topic (e.g., "Arrays", "Linked Lists", "Stacks")
+     * @param difficulty The difficulty level (beginner, intermediate, advanced)
+     * @param questionCount Number of questions to generate (3-10)
+     * @return Flux of questions in generation order, at most questionCount
+     */
+    public Flux<QuizResponse.QuizQuestionDto> streamQuiz(String topic, String difficulty, int questionCount) {
+        log.info("Streaming {} {} level questions for topic: {}", questionCount, difficulty, topic);
+        String userPrompt = buildQuizPrompt(topic, difficulty, questionCount);
+        
+        return Flux.defer(() -> {
+            List<QuizResponse.QuizQuestionDto> parsed = new ArrayList<>();
+            JsonArrayStreamParser parser = new JsonArrayStreamParser(objectMapper, "questions",
+                    node -> toQuestion(node).ifPresent(parsed::add));
+            Flux<String> tokens = LlmCallContext.withPriority(LlmPriority.GENERATION).feature("quiz")
+                    .call(() -> openAIClient.streamChatCompletionWithHistory(SYSTEM_PROMPT, userPrompt, List.of()));
+            
+            return tokens
+                    .concatMapIterable(chunk -> {
+                        parser.feed(chunk);
+                        return takeAll(parsed);
+                    })
+                    .concatWith(Flux.defer(() -> {
+                        if (!parser.finish()) {
+                            log.warn("Quiz stream for {} ended before the JSON was complete", topic);
+                        }
+                        return Flux.fromIterable(takeAll(parsed));
+                    }))
+                    .switchIfEmpty(Flux.error(() ->
+                            new IllegalArgumentException("No valid questions found in LLM response")))
+                    .take(questionCount);
+        });
+    }
+    
+    private static <T> List<T> takeAll(List<T> items) {
+        List<T> taken = List.copyOf(items);
+        items.clear();
+        return taken;
+    }
+    
     /**
      * Generate quiz questions using OpenRouter LLM.
      */
@@ -82,7 +149,8 @@ public class QuizGenerationService {
         String userPrompt = buildQuizPrompt(topic, difficulty, count);
         
         log.debug("Sending quiz generation request to LLM");
-        String response = openAIClient.createChatCompletion(SYSTEM_PROMPT, userPrompt);
+        String response = LlmCallContext.withPriority(LlmPriority.GENERATION).feature("quiz").cacheable()
+                .call(() -> openAIClient.createChatCompletion(SYSTEM_PROMPT, userPrompt));
         log.debug("Received LLM response");
         
         return response;
@@ -140,76 +208,64 @@ public class QuizGenerationService {
      * Parse LLM JSON response into quiz questions.
      */
     private List<QuizResponse.QuizQuestionDto> parseLLMResponse(String llmResponse, String topic) {
+        log.info("📥 Parsing LLM response (length: {} chars)", llmResponse.length());
+        log.debug("📄 Full LLM response: {}", llmResponse);
+        
+        List<QuizResponse.QuizQuestionDto> questions = new ArrayList<>();
+        JsonArrayStreamParser parser = new JsonArrayStreamParser(objectMapper, "questions",
+                node -> toQuestion(node).ifPresent(questions::add));
         try {
-            log.info("📥 Parsing LLM response (length: {} chars)", llmResponse.length());
-            log.debug("📄 Full LLM response: {}", llmResponse);
-            
-            // Clean response - remove markdown code blocks if present
-            String cleanedResponse = llmResponse.trim();
-            if (cleanedResponse.startsWith("```json")) {
-                cleanedResponse = cleanedResponse.substring(7);
-            }
-            if (cleanedResponse.startsWith("```")) {
-                cleanedResponse = cleanedResponse.substring(3);
-            }
-            if (cleanedResponse.endsWith("```")) {
-                cleanedResponse = cleanedResponse.substring(0, cleanedResponse.length() - 3);
-            }
-            cleanedResponse = cleanedResponse.trim();
-            
-            log.info("🧹 Cleaned response (length: {} chars)", cleanedResponse.length());
-            
-            // Parse JSON
-            JsonNode rootNode = objectMapper.readTree(cleanedResponse);
-            JsonNode questionsNode = rootNode.path("questions");
-            
-            if (!questionsNode.isArray()) {
-                log.error("❌ Questions node is not an array!");
-                throw new IllegalArgumentException("Questions must be an array");
-            }
-            
-            List<QuizResponse.QuizQuestionDto> questions = new ArrayList<>();
-            
-            for (JsonNode questionNode : questionsNode) {
-                // Parse options array
-                JsonNode optionsNode = questionNode.path("options");
-                List<String> options = new ArrayList<>();
-                if (optionsNode.isArray()) {
-                    for (JsonNode optionNode : optionsNode) {
-                        options.add(optionNode.asText());
-                    }
-                }
-                
-                // Validate we have 4 options
-                if (options.size() != 4) {
-                    log.warn("⚠️ Question has {} options instead of 4, skipping", options.size());
-                    continue;
-                }
-                
-                QuizResponse.QuizQuestionDto question = QuizResponse.QuizQuestionDto.builder()
-                        .id("q_" + UUID.randomUUID().toString().substring(0, 8))
-                        .question(questionNode.path("question").asText())
-                        .options(options)
-                        .correctAnswer(questionNode.path("correctAnswer").asInt())
-                        .explanation(questionNode.path("explanation").asText())
-                        .build();
-                
-                questions.add(question);
-                log.info("✅ Parsed question {}: {}", questions.size(), question.getQuestion());
-            }
-            
-            if (questions.isEmpty()) {
-                log.error("❌ No valid questions found in LLM response!");
-                throw new IllegalArgumentException("No valid questions found in LLM response");
-            }
-            
-            log.info("🎉 Successfully parsed {} questions from LLM response", questions.size());
-            return questions;
-            
-        } catch (JsonProcessingException e) {
+            parser.feed(llmResponse);
+            parser.finish();
+        } catch (IllegalArgumentException e) {
             log.error("❌ Failed to parse LLM response as JSON", e);
             log.error("📄 Problematic response: {}", llmResponse);
-            throw new IllegalArgumentException("Invalid JSON response from LLM: " + e.getMessage(), e);
+            if (questions.isEmpty()) {
+                throw e;
+            }
         }
+        
+        if (questions.isEmpty()) {
+            log.error("❌ No valid questions found in LLM response!");
+            throw new IllegalArgumentException("No valid questions found in LLM response");
+        }
+        
+        log.info("🎉 Successfully parsed {} questions from LLM response", questions.size());
+        return questions;
+    }
+    
+    /**
+     * Map one parsed question, or empty if it is not usable.
+     */
+    private Optional<QuizResponse.QuizQuestionDto> toQuestion(JsonNode questionNode) {
+        // Parse options array
+        JsonNode optionsNode = questionNode.path("options");
+        List<String> options = new ArrayList<>();
+        if (optionsNode.isArray()) {
+            for (JsonNode optionNode : optionsNode) {
+                options.add(optionNode.asText());
+            }
+        }
+        
+        // Validate we have 4 options
+        if (options.size() != 4) {
+            log.warn("⚠️ Question has {} options instead of 4, skipping", options.size());
+            return Optional.empty();
+        }
+        int correctAnswer = questionNode.path("correctAnswer").asInt(-1);
+        if (questionNode.path("question").asText().isBlank() || correctAnswer < 0 || correctAnswer > 3) {
+            log.warn("⚠️ Question without text or with answer index {}, skipping", correctAnswer);
+            return Optional.empty();
+        }
+        
+        QuizResponse.QuizQuestionDto question = QuizResponse.QuizQuestionDto.builder()
+                .id("q_" + UUID.randomUUID().toString().substring(0, 8))
+                .question(questionNode.path("question").asText())
+                .options(options)
+                .correctAnswer(correctAnswer)
+                .explanation(questionNode.path("explanation").asText())
+                .build();
+        log.info("✅ Parsed question: {}", question.getQuestion());
+        return Optional.of(question);
     }
 }
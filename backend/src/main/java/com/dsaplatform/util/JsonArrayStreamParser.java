@@ -0,0 +1,180 @@
+package com.dsaplatform.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Incremental parser for LLM responses shaped like {@code {"title": ..., "items": [{...}, {...}]}}.
+ *
+ * Text is fed chunk by chunk as it arrives from the provider. Each element of the named array is
+ * handed to the consumer as soon as it is syntactically complete, so callers can show the first
+ * item while the rest are still being generated. The other top-level fields are collected into
+ * {@link #getEnvelope()}. Text before the root object (such as a markdown code fence) and after it
+ * is ignored.
+ *
+ * Not thread-safe: one instance parses one response.
+ */
+public final class JsonArrayStreamParser {
+
+    private final ObjectMapper objectMapper;
+    private final String arrayField;
+    private final Consumer<JsonNode> onElement;
+    private final JsonParser parser;
+    private final ObjectNode envelope;
+
+    private boolean started;
+    private boolean complete;
+    /** Nesting outside buffered values: 0 before the root, 1 in the root object, 2 in the array. */
+    private int depth;
+    private String field;
+    private TokenBuffer buffer;
+    private int bufferDepth;
+    private int elements;
+
+    public JsonArrayStreamParser(ObjectMapper objectMapper, String arrayField, Consumer<JsonNode> onElement) {
+        this.objectMapper = objectMapper;
+        this.arrayField = arrayField;
+        this.onElement = onElement;
+        this.envelope = objectMapper.createObjectNode();
+        try {
+            this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create streaming JSON parser", e);
+        }
+    }
+
+    /**
+     * Parses the next piece of the response, emitting every array element it completes.
+     *
+     * @throws IllegalArgumentException if the text is not valid JSON; elements emitted so far stay valid
+     */
+    public void feed(String chunk) {
+        if (complete || chunk.isEmpty()) {
+            return;
+        }
+        if (!started) {
+            int start = chunk.indexOf('{');
+            if (start < 0) {
+                return;
+            }
+            chunk = chunk.substring(start);
+            started = true;
+        }
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        try {
+            ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(bytes, 0, bytes.length);
+            drain();
+        } catch (IOException e) {
+            complete = true;
+            throw new IllegalArgumentException("Invalid JSON response from LLM: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Signals the end of the response.
+     *
+     * @return true if the root object was closed, false if the response was truncated or had no JSON
+     */
+    public boolean finish() {
+        if (!complete && started) {
+            parser.getNonBlockingInputFeeder().endOfInput();
+            try {
+                drain();
+            } catch (JsonEOFException e) {
+                return false;
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Invalid JSON response from LLM: " + e.getMessage(), e);
+            }
+        }
+        return complete;
+    }
+
+    /**
+     * Top-level fields other than the array, as far as they have been parsed.
+     */
+    public ObjectNode getEnvelope() {
+        return envelope;
+    }
+
+    /**
+     * Number of array elements emitted so far.
+     */
+    public int getElementCount() {
+        return elements;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while (!complete && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            handle(token);
+        }
+    }
+
+    private void handle(JsonToken token) throws IOException {
+        if (buffer != null) {
+            buffer.copyCurrentEvent(parser);
+            if (token.isStructStart()) {
+                bufferDepth++;
+            } else if (token.isStructEnd()) {
+                bufferDepth--;
+            }
+            if (bufferDepth == 0) {
+                completeValue();
+            }
+            return;
+        }
+        if (depth == 0) {
+            if (token != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("LLM response is not a JSON object");
+            }
+            depth = 1;
+        } else if (depth == 1) {
+            if (token == JsonToken.FIELD_NAME) {
+                field = parser.currentName();
+            } else if (token == JsonToken.START_ARRAY && arrayField.equals(field)) {
+                depth = 2;
+            } else if (token == JsonToken.END_OBJECT) {
+                complete = true;
+            } else {
+                startValue(token);
+            }
+        } else if (token == JsonToken.END_ARRAY) {
+            depth = 1;
+        } else {
+            startValue(token);
+        }
+    }
+
+    private void startValue(JsonToken token) throws IOException {
+        buffer = new TokenBuffer(parser);
+        buffer.copyCurrentEvent(parser);
+        bufferDepth = token.isStructStart() ? 1 : 0;
+        if (bufferDepth == 0) {
+            completeValue();
+        }
+    }
+
+    private void completeValue() throws IOException {
+        JsonNode value;
+        try (JsonParser values = buffer.asParser(objectMapper)) {
+            value = objectMapper.readTree(values);
+        }
+        buffer = null;
+        if (depth == 2) {
+            elements++;
+            onElement.accept(value);
+        } else {
+            envelope.set(field, value);
+        }
+    }
+}
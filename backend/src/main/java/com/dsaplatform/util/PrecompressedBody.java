@@ -0,0 +1,166 @@
+package com.dsaplatform.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A JSON response body kept gzip-compressed together with its strong ETag, so rarely changing
+ * responses can be stored once and served without re-serializing or re-compressing them.
+ * The stored ETag names the JSON; the gzip-encoded bytes are sent under the same tag with a "-gz" suffix,
+ * since a strong validator must differ between content codings.
+ */
+public final class PrecompressedBody {
+
+    private static final String CACHE_CONTROL = "private, no-cache";
+    private static final String GZIP_SUFFIX = "-gz";
+
+    private final String etag;
+    private final byte[] gzipped;
+
+    public PrecompressedBody(String etag, byte[] gzipped) {
+        this.etag = etag;
+        this.gzipped = gzipped;
+    }
+
+    /**
+     * Serializes the body to JSON, compresses it and derives the ETag from the uncompressed bytes.
+     */
+    public static PrecompressedBody of(ObjectMapper objectMapper, Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new PrecompressedBody(etagOf(json), gzip(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize response body", e);
+        }
+    }
+
+    /**
+     * ETag of the uncompressed JSON.
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * ETag of the gzip-encoded bytes.
+     */
+    public String getGzipEtag() {
+        return etag.substring(0, etag.length() - 1) + GZIP_SUFFIX + "\"";
+    }
+
+    public byte[] getGzipped() {
+        return gzipped;
+    }
+
+    /**
+     * 304 if the client already has this version, otherwise the body, compressed if the client accepts gzip.
+     *
+     * @param ifNoneMatch value of the If-None-Match request header, may be null
+     * @param acceptEncoding value of the Accept-Encoding request header, may be null
+     */
+    public ResponseEntity<byte[]> toResponse(String ifNoneMatch, String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String tag = gzip ? getGzipEtag() : etag;
+        if (matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(tag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .header(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(tag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(gzipped);
+        }
+        return response.body(gunzip(gzipped));
+    }
+
+    /**
+     * Whether the client holds either representation; both carry the same content.
+     */
+    private boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String gzipEtag = getGzipEtag();
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipEtag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                continue;
+            }
+            boolean refused = parts.length > 1 && parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            return !refused;
+        }
+        return false;
+    }
+
+    private static String etagOf(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 3 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] gunzip(byte[] data) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return gzip.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decompressed JSON, mainly for logging and tests.
+     */
+    public String toJson() {
+        return new String(gunzip(gzipped), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,72 @@
+package com.dsaplatform.controller;
+
+import com.dsaplatform.exception.ExecutionRejectedException;
+import com.dsaplatform.exception.GlobalExceptionHandler;
+import com.dsaplatform.resilience.ExecutionScheduler;
+import com.dsaplatform.service.CodeExecutionService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests for how CodeExecutionController identifies clients and reports saturation.
+ */
+class CodeExecutionControllerTest {
+
+    private final CodeExecutionService service = mock(CodeExecutionService.class);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new CodeExecutionController(service))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+    @Test
+    @DisplayName("A saturated scheduler is answered with 503 and Retry-After on both endpoints")
+    void rejectedRunsGet503() throws Exception {
+        ExecutionRejectedException rejected =
+                new ExecutionRejectedException(ExecutionScheduler.Rejection.QUEUE_FULL, 3);
+        when(service.executeJavaCode(anyString(), anyString())).thenThrow(rejected);
+        when(service.streamJavaCode(anyString(), anyString())).thenThrow(rejected);
+
+        for (String path : List.of("/api/code/execute", "/api/code/execute/stream")) {
+            mockMvc.perform(post(path)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.TEXT_EVENT_STREAM, MediaType.APPLICATION_JSON)
+                            .content("{\"code\":\"public class Main {}\"}"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "3"))
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$.status").value(503));
+        }
+    }
+
+    @Test
+    @DisplayName("Runs are queued per signed-in user, or per remote address when anonymous")
+    void clientKeyPrefersUser() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("203.0.113.7");
+        var user = new UsernamePasswordAuthenticationToken("ada@example.com", null, AuthorityUtils.NO_AUTHORITIES);
+        var anonymous = new AnonymousAuthenticationToken("key", "anonymousUser",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+
+        assertThat(CodeExecutionController.clientKey(user, request)).isEqualTo("user:ada@example.com");
+        assertThat(CodeExecutionController.clientKey(anonymous, request)).isEqualTo("ip:203.0.113.7");
+        assertThat(CodeExecutionController.clientKey(null, request)).isEqualTo("ip:203.0.113.7");
+    }
+}
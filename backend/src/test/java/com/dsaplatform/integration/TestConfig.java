@@ -1,7 +1,11 @@
 package com.dsaplatform.integration;
 
 import com.dsaplatform.config.OpenAIProperties;
+import com.dsaplatform.config.OpenAIResilienceProperties;
+import com.dsaplatform.service.CompletionCache;
+import com.dsaplatform.service.LlmUsageRecorder;
 import com.dsaplatform.service.OpenAIClient;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
@@ -15,7 +19,10 @@ public class TestConfig {
 
     @Bean
     @Primary
-    public OpenAIClient testOpenAIClient(WebClient.Builder webClientBuilder, OpenAIProperties properties) {
-        return new TestOpenAIClient(webClientBuilder, properties);
+    public OpenAIClient testOpenAIClient(WebClient.Builder webClientBuilder, OpenAIProperties properties,
+                                         OpenAIResilienceProperties resilienceProperties, MeterRegistry meterRegistry,
+                                         CompletionCache completionCache, LlmUsageRecorder usageRecorder) {
+        return new TestOpenAIClient(webClientBuilder, properties, resilienceProperties, meterRegistry, completionCache,
+                usageRecorder);
     }
 }
@@ -1,7 +1,11 @@
 package com.dsaplatform.integration;
 
 import com.dsaplatform.config.OpenAIProperties;
+import com.dsaplatform.config.OpenAIResilienceProperties;
+import com.dsaplatform.service.CompletionCache;
+import com.dsaplatform.service.LlmUsageRecorder;
 import com.dsaplatform.service.OpenAIClient;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import java.util.List;
@@ -12,8 +16,10 @@ import java.util.List;
  */
 public class TestOpenAIClient extends OpenAIClient {
 
-    public TestOpenAIClient(WebClient.Builder webClientBuilder, OpenAIProperties properties) {
-        super(webClientBuilder, properties);
+    public TestOpenAIClient(WebClient.Builder webClientBuilder, OpenAIProperties properties,
+                            OpenAIResilienceProperties resilienceProperties, MeterRegistry meterRegistry,
+                            CompletionCache completionCache, LlmUsageRecorder usageRecorder) {
+        super(webClientBuilder, properties, resilienceProperties, meterRegistry, completionCache, usageRecorder);
     }
 
     @Override
@@ -0,0 +1,96 @@
+package com.dsaplatform.resilience;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for Bulkhead admission, priority ordering and shedding.
+ */
+class BulkheadTest {
+
+    private static final Duration LONG_WAIT = Duration.ofSeconds(5);
+
+    @Test
+    @DisplayName("Calls beyond the limit wait and time out after their maximum wait")
+    void waitsThenTimesOut() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 10);
+        assertThat(bulkhead.acquire(LlmPriority.INTERACTIVE, LONG_WAIT)).isEqualTo(Bulkhead.Admission.GRANTED);
+
+        assertThat(bulkhead.acquire(LlmPriority.INTERACTIVE, Duration.ofMillis(20)))
+                .isEqualTo(Bulkhead.Admission.TIMED_OUT);
+        assertThat(bulkhead.getQueueDepth(LlmPriority.INTERACTIVE)).isZero();
+
+        bulkhead.release();
+        assertThat(bulkhead.getInFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("Released permits go to the highest-priority waiter first")
+    void grantsInPriorityOrder() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 10);
+        bulkhead.acquire(LlmPriority.INTERACTIVE, LONG_WAIT);
+        List<LlmPriority> order = new CopyOnWriteArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> batch = executor.submit(() -> admitAndRecord(bulkhead, LlmPriority.BATCH, order));
+            awaitCondition(() -> bulkhead.getQueueDepth(LlmPriority.BATCH) == 1);
+            Future<?> interactive = executor.submit(() -> admitAndRecord(bulkhead, LlmPriority.INTERACTIVE, order));
+            awaitCondition(() -> bulkhead.getQueueDepth(LlmPriority.INTERACTIVE) == 1);
+
+            bulkhead.release();
+            interactive.get(2, TimeUnit.SECONDS);
+            batch.get(2, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(order).containsExactly(LlmPriority.INTERACTIVE, LlmPriority.BATCH);
+        assertThat(bulkhead.getInFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("A full queue sheds lower-priority waiters and rejects equal-priority newcomers")
+    void shedsLowerPriorityWhenQueueFull() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1);
+        bulkhead.acquire(LlmPriority.INTERACTIVE, LONG_WAIT);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Bulkhead.Admission> batch = executor.submit(() -> bulkhead.acquire(LlmPriority.BATCH, LONG_WAIT));
+            awaitCondition(() -> bulkhead.getQueueDepth(LlmPriority.BATCH) == 1);
+
+            assertThat(bulkhead.acquire(LlmPriority.BATCH, Duration.ofMillis(10)))
+                    .isEqualTo(Bulkhead.Admission.QUEUE_FULL);
+            assertThat(bulkhead.acquire(LlmPriority.GENERATION, Duration.ofMillis(10)))
+                    .isEqualTo(Bulkhead.Admission.TIMED_OUT);
+            assertThat(batch.get(2, TimeUnit.SECONDS)).isEqualTo(Bulkhead.Admission.SHED);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static void admitAndRecord(Bulkhead bulkhead, LlmPriority priority, List<LlmPriority> order) {
+        if (bulkhead.acquire(priority, LONG_WAIT) == Bulkhead.Admission.GRANTED) {
+            order.add(priority);
+            bulkhead.release();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.dsaplatform.resilience;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for CircuitBreaker state transitions and RetryBudget accounting.
+ */
+class CircuitBreakerTest {
+
+    @Test
+    @DisplayName("Breaker opens once the failure rate crosses the threshold")
+    void opensWhenFailureRateExceeded() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 0.5, 4, 4, 60_000, 1);
+
+        for (int i = 0; i < 2; i++) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.onSuccess();
+        }
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Half-open breaker closes after successful trial calls and reopens on failure")
+    void halfOpenTrialCalls() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test", 0.5, 2, 2, 10, 1);
+        breaker.tryAcquire();
+        breaker.onFailure();
+        breaker.tryAcquire();
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        Thread.sleep(20);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).as("only one trial call permitted").isFalse();
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        Thread.sleep(20);
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onSuccess();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    @DisplayName("Retry budget only allows retries in proportion to calls")
+    void retryBudgetLimitsRetries() {
+        RetryBudget budget = new RetryBudget(0.5, 1);
+
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isFalse();
+
+        budget.recordCall();
+        assertThat(budget.tryWithdraw()).isFalse();
+        budget.recordCall();
+        assertThat(budget.tryWithdraw()).isTrue();
+    }
+}
@@ -0,0 +1,127 @@
+package com.dsaplatform.resilience;
+
+import com.dsaplatform.exception.ExecutionRejectedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for ExecutionScheduler admission, fair ordering and rejection.
+ */
+class ExecutionSchedulerTest {
+
+    private static final Duration LONG_WAIT = Duration.ofSeconds(5);
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Freed slots go to clients in turn, not in arrival order")
+    void grantsSlotsRoundRobinByClient() throws Exception {
+        ExecutionScheduler scheduler = new ExecutionScheduler(1, 10, 5, LONG_WAIT, 1.0, () -> -1);
+        occupy(scheduler, "holder");
+        List<String> order = new CopyOnWriteArrayList<>();
+        List<Future<?>> runs = new CopyOnWriteArrayList<>();
+        String[] arrivals = {"a", "a", "a", "b"};
+        for (int i = 0; i < arrivals.length; i++) {
+            String client = arrivals[i];
+            runs.add(executor.submit(() -> scheduler.run(client, () -> order.add(client))));
+            int queued = i + 1;
+            awaitCondition(() -> scheduler.getQueued() == queued);
+        }
+
+        release.countDown();
+        for (Future<?> run : runs) {
+            run.get(2, TimeUnit.SECONDS);
+        }
+
+        assertThat(order).containsExactly("a", "b", "a", "a");
+        assertThat(scheduler.getRunning()).isZero();
+    }
+
+    @Test
+    @DisplayName("A full queue, or a client's full share of it, is refused with a retry hint")
+    void rejectsWhenQueueFull() throws Exception {
+        ExecutionScheduler scheduler = new ExecutionScheduler(1, 2, 1, LONG_WAIT, 1.0, () -> -1);
+        occupy(scheduler, "holder");
+        executor.submit(() -> scheduler.run("a", () -> null));
+        awaitCondition(() -> scheduler.getQueued() == 1);
+
+        assertRejected(scheduler, "a", ExecutionScheduler.Rejection.CLIENT_QUEUE_FULL);
+        executor.submit(() -> scheduler.run("b", () -> null));
+        awaitCondition(() -> scheduler.getQueued() == 2);
+        assertRejected(scheduler, "c", ExecutionScheduler.Rejection.QUEUE_FULL);
+    }
+
+    @Test
+    @DisplayName("Runs waiting longer than the maximum wait are refused and leave the queue")
+    void timesOutWaiting() throws Exception {
+        ExecutionScheduler scheduler = new ExecutionScheduler(1, 10, 5, Duration.ofMillis(20), 1.0, () -> -1);
+        occupy(scheduler, "holder");
+
+        assertRejected(scheduler, "a", ExecutionScheduler.Rejection.TIMED_OUT);
+        assertThat(scheduler.getQueued()).isZero();
+    }
+
+    @Test
+    @DisplayName("High CPU load refuses new runs while others execute, but never starves an idle node")
+    void rejectsWhenOverloaded() throws Exception {
+        ExecutionScheduler scheduler = new ExecutionScheduler(4, 10, 5, LONG_WAIT, 0.9, () -> 0.95);
+
+        assertThat(scheduler.run("a", () -> "ran")).isEqualTo("ran");
+        occupy(scheduler, "holder");
+        assertRejected(scheduler, "a", ExecutionScheduler.Rejection.OVERLOADED);
+    }
+
+    /**
+     * Takes a slot until the test releases it.
+     */
+    private void occupy(ExecutionScheduler scheduler, String client) throws InterruptedException {
+        int running = scheduler.getRunning();
+        executor.submit(() -> scheduler.run(client, () -> {
+            try {
+                return release.await(LONG_WAIT.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }));
+        awaitCondition(() -> scheduler.getRunning() == running + 1);
+    }
+
+    private static void assertRejected(ExecutionScheduler scheduler, String client,
+                                       ExecutionScheduler.Rejection reason) {
+        assertThatThrownBy(() -> scheduler.run(client, () -> null))
+                .isInstanceOfSatisfying(ExecutionRejectedException.class, e -> {
+                    assertThat(e.getReason()).isEqualTo(reason);
+                    assertThat(e.getRetryAfterSeconds()).isPositive();
+                });
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.dsaplatform.sandbox;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compile latency of the in-memory path against the per-run disk path of the code editor.
+ * Run with {@code mvn test -Pbenchmark}; results are printed, not asserted.
+ */
+@Tag("benchmark")
+class CompileLatencyBenchmarkTest {
+
+    private static final int WARMUP = 20;
+    private static final int RUNS = 50;
+
+    private static final String SOURCE = """
+            import java.util.*;
+            public class Main {
+                public static void main(String[] args) {
+                    Deque<Integer> stack = new ArrayDeque<>();
+                    for (int i = 0; i < 10; i++) stack.push(i);
+                    System.out.println(stack.pop());
+                }
+            }
+            """;
+
+    @Test
+    @DisplayName("Compile latency: in-memory with pooled file manager vs. temp directory per run")
+    void compareCompileLatency() throws Exception {
+        InMemoryJavaCompiler memory = new InMemoryJavaCompiler(1);
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        Path baseDir = Files.createTempDirectory("compile-benchmark");
+
+        long[] memoryNanos = measure(() -> memory.compile("Main", SOURCE).isSuccess());
+        long[] diskNanos = measure(() -> compileOnDisk(javac, baseDir));
+
+        System.out.printf("in-memory: median %.2f ms, p90 %.2f ms%n", millis(memoryNanos, 50), millis(memoryNanos, 90));
+        System.out.printf("disk:      median %.2f ms, p90 %.2f ms%n", millis(diskNanos, 50), millis(diskNanos, 90));
+    }
+
+    private static boolean compileOnDisk(JavaCompiler javac, Path baseDir) {
+        try {
+            Path dir = Files.createTempDirectory(baseDir, "run");
+            Path source = Files.writeString(dir.resolve("Main.java"), SOURCE);
+            boolean success;
+            try (StandardJavaFileManager fileManager = javac.getStandardFileManager(null, null, null)) {
+                success = javac.getTask(new StringWriter(), fileManager, null, List.of("-proc:none"), null,
+                        fileManager.getJavaFileObjectsFromFiles(List.of(source.toFile()))).call();
+            }
+            try (var paths = Files.walk(dir)) {
+                paths.sorted((a, b) -> -a.compareTo(b)).forEach(path -> path.toFile().delete());
+            }
+            return success;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long[] measure(BooleanSupplier compile) {
+        for (int i = 0; i < WARMUP; i++) {
+            assertThat(compile.getAsBoolean()).isTrue();
+        }
+        long[] nanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            assertThat(compile.getAsBoolean()).isTrue();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private static double millis(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)] / 1_000_000.0;
+    }
+}
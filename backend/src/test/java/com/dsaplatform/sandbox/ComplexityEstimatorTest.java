@@ -0,0 +1,69 @@
+package com.dsaplatform.sandbox;
+
+import com.dsaplatform.sandbox.ComplexityEstimator.Complexity;
+import com.dsaplatform.sandbox.ComplexityEstimator.Fit;
+import com.dsaplatform.sandbox.ComplexityEstimator.Sample;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntToDoubleFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class ComplexityEstimatorTest {
+
+    @Test
+    @DisplayName("Recovers each class from exact timings at doubling sizes")
+    void recoversExactClasses() {
+        assertThat(best(n -> 40, 16, 1 << 16)).isEqualTo(Complexity.CONSTANT);
+        assertThat(best(n -> 5 * log2(n), 16, 1 << 16)).isEqualTo(Complexity.LOGARITHMIC);
+        assertThat(best(n -> 3.0 * n, 16, 1 << 16)).isEqualTo(Complexity.LINEAR);
+        assertThat(best(n -> 3.0 * n * log2(n), 16, 1 << 16)).isEqualTo(Complexity.LINEARITHMIC);
+        assertThat(best(n -> 0.5 * n * n, 16, 1 << 16)).isEqualTo(Complexity.QUADRATIC);
+        assertThat(best(n -> Math.pow(2, n), 4, 64)).isEqualTo(Complexity.EXPONENTIAL);
+    }
+
+    @Test
+    @DisplayName("Tolerates measurement noise of ±20% and reports confidence as a share of the likelihood")
+    void toleratesNoise() {
+        Random random = new Random(42);
+        List<Sample> samples = new ArrayList<>();
+        for (int n = 64; n <= 1 << 20; n *= 2) {
+            samples.add(new Sample(n, 2.0 * n * log2(n) * (0.8 + 0.4 * random.nextDouble())));
+        }
+
+        List<Fit> fits = ComplexityEstimator.fit(samples);
+
+        assertThat(fits.get(0).complexity()).isEqualTo(Complexity.LINEARITHMIC);
+        assertThat(fits.get(0).coefficient()).isCloseTo(2.0, within(0.5));
+        assertThat(fits).hasSize(Complexity.values().length);
+        assertThat(fits.stream().mapToDouble(Fit::confidence).sum()).isCloseTo(1.0, within(1e-9));
+        assertThat(fits).extracting(Fit::confidence).isSortedAccordingTo((a, b) -> Double.compare(b, a));
+    }
+
+    @Test
+    @DisplayName("Needs at least three distinct sizes")
+    void needsThreeSizes() {
+        List<Sample> samples = List.of(new Sample(10, 1), new Sample(20, 2), new Sample(20, 2.1));
+
+        assertThatThrownBy(() -> ComplexityEstimator.fit(samples))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Complexity best(IntToDoubleFunction nanos, int from, int to) {
+        List<Sample> samples = new ArrayList<>();
+        for (int n = from; n <= to; n *= 2) {
+            samples.add(new Sample(n, nanos.applyAsDouble(n)));
+        }
+        return ComplexityEstimator.fit(samples).get(0).complexity();
+    }
+
+    private static double log2(int n) {
+        return Math.log(n) / Math.log(2);
+    }
+}
@@ -0,0 +1,77 @@
+package com.dsaplatform.sandbox;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the conservative determinism check on compiled programs.
+ */
+class DeterministicProgramTest {
+
+    private final InMemoryJavaCompiler compiler = new InMemoryJavaCompiler(1);
+
+    @Test
+    @DisplayName("Collections, streams, lambdas, records and string concatenation are deterministic")
+    void acceptsPureLibraryCode() {
+        assertThat(check("""
+                import java.util.*;
+                import java.util.stream.*;
+                public class Main {
+                    record Edge(int from, int to) {}
+                    public static void main(String[] args) {
+                        Map<String, List<Edge>> graph = new TreeMap<>();
+                        graph.computeIfAbsent("a", k -> new ArrayList<>()).add(new Edge(1, 2));
+                        int sum = IntStream.rangeClosed(1, 10).map(Math::abs).sum();
+                        System.out.println("sum=" + sum + " " + graph + " " + Arrays.toString(new int[] {3, 1}));
+                    }
+                }
+                """)).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "new java.util.Scanner(System.in).nextInt()",
+            "System.currentTimeMillis()",
+            "System.nanoTime()",
+            "new java.util.Random().nextInt()",
+            "Math.random()",
+            "java.util.concurrent.ThreadLocalRandom.current().nextInt()",
+            "System.getenv(\"HOME\")",
+            "java.time.LocalTime.now()",
+            "java.util.stream.IntStream.range(0, 9).parallel().findAny().getAsInt()",
+            "((java.util.function.DoubleSupplier) Math::random).getAsDouble()"
+    })
+    @DisplayName("Input, time, randomness, environment and parallelism are not")
+    void rejectsObservingTheOutsideWorld(String expression) {
+        assertThat(check("""
+                public class Main {
+                    public static void main(String[] args) throws Exception {
+                        System.out.println(%s);
+                    }
+                }
+                """.formatted(expression))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Starting a thread is not deterministic")
+    void rejectsThreads() {
+        assertThat(check("""
+                public class Main {
+                    public static void main(String[] args) {
+                        new Thread(() -> System.out.println("a")).start();
+                        System.out.println("b");
+                    }
+                }
+                """)).isFalse();
+    }
+
+    private boolean check(String source) {
+        InMemoryJavaCompiler.Result compiled = compiler.compile("Main", source);
+        assertThat(compiled.isSuccess()).as(compiled.errors()).isTrue();
+        return DeterministicProgram.check(compiled.classes());
+    }
+}
@@ -0,0 +1,114 @@
+package com.dsaplatform.sandbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the byte-bounded cache of compiled submissions.
+ */
+class ExecutionCacheTest {
+
+    private static final String PURE = """
+            public class Main {
+                public static void main(String[] args) { System.out.println(6 * 7); }
+            }
+            """;
+
+    private static final String CLOCK = """
+            public class Main {
+                public static void main(String[] args) { System.out.println(System.nanoTime()); }
+            }
+            """;
+
+    private final InMemoryJavaCompiler compiler = new InMemoryJavaCompiler(1);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Key depends on the exact source")
+    void keyIsContentBased() {
+        assertThat(ExecutionCache.key(PURE)).isEqualTo(ExecutionCache.key(PURE)).hasSize(64);
+        assertThat(ExecutionCache.key(PURE)).isNotEqualTo(ExecutionCache.key(PURE + " "));
+    }
+
+    @Test
+    @DisplayName("Output of a deterministic program is served once two runs agree")
+    void cachesConfirmedOutput() {
+        ExecutionCache cache = new ExecutionCache(1 << 20, true, meterRegistry);
+        String key = ExecutionCache.key(PURE);
+
+        assertThat(cache.get(key)).isEmpty();
+        cache.putClasses(key, compile(PURE));
+        cache.recordOutput(key, "42\n");
+        assertThat(cache.get(key)).get().extracting(ExecutionCache.Hit::output).isNull();
+        cache.recordOutput(key, "42\n");
+
+        ExecutionCache.Hit hit = cache.get(key).orElseThrow();
+        assertThat(hit.output()).isEqualTo("42\n");
+        assertThat(hit.classes()).containsOnlyKeys("Main");
+        assertThat(lookups("miss")).isEqualTo(1);
+        assertThat(lookups("classes")).isEqualTo(1);
+        assertThat(lookups("output")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Only class files are cached for programs that read the clock or print differing output")
+    void neverCachesNondeterministicOutput() {
+        ExecutionCache cache = new ExecutionCache(1 << 20, true, meterRegistry);
+        String clock = ExecutionCache.key(CLOCK);
+        String pure = ExecutionCache.key(PURE);
+        cache.putClasses(clock, compile(CLOCK));
+        cache.putClasses(pure, compile(PURE));
+
+        for (int i = 0; i < 3; i++) {
+            cache.recordOutput(clock, "1\n");
+        }
+        cache.recordOutput(pure, "1\n");
+        cache.recordOutput(pure, "2\n");
+        cache.recordOutput(pure, "2\n");
+
+        assertThat(cache.get(clock).orElseThrow().output()).isNull();
+        assertThat(cache.get(pure).orElseThrow().output()).isNull();
+    }
+
+    @Test
+    @DisplayName("Least recently used entries are evicted to stay within the byte limit")
+    void evictsLeastRecentlyUsed() {
+        Map<String, byte[]> classes = Map.of("Main", new byte[1000]);
+        ExecutionCache cache = new ExecutionCache(3000, false, meterRegistry);
+        cache.putClasses("a", classes);
+        cache.putClasses("b", classes);
+        cache.get("a");
+        cache.putClasses("c", classes);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.sizeBytes()).isLessThanOrEqualTo(3000);
+        assertThat(cache.get("a")).isPresent();
+        assertThat(cache.get("b")).isEmpty();
+        assertThat(cache.get("c")).isPresent();
+    }
+
+    @Test
+    @DisplayName("A submission larger than the whole cache is not stored")
+    void skipsOversizedEntries() {
+        ExecutionCache cache = new ExecutionCache(500, false, meterRegistry);
+        cache.putClasses("big", Map.of("Main", new byte[1000]));
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.sizeBytes()).isZero();
+    }
+
+    private Map<String, byte[]> compile(String source) {
+        InMemoryJavaCompiler.Result compiled = compiler.compile("Main", source);
+        assertThat(compiled.isSuccess()).as(compiled.errors()).isTrue();
+        return compiled.classes();
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("code.execution.cache.lookup").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,54 @@
+package com.dsaplatform.sandbox;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for compiling source to class files in memory.
+ */
+class InMemoryJavaCompilerTest {
+
+    private final InMemoryJavaCompiler compiler = new InMemoryJavaCompiler(1);
+
+    @Test
+    @DisplayName("Every class in the source ends up in memory, including nested ones")
+    void compilesAllClassesToMemory() {
+        String source = """
+                public class Main {
+                    static class Node { int value; }
+                    public static void main(String[] args) { System.out.println(new Node().value); }
+                }
+                class Helper {}
+                """;
+
+        InMemoryJavaCompiler.Result result = compiler.compile("Main", source);
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.classes()).containsOnlyKeys("Main", "Main$Node", "Helper");
+        // Class file magic number
+        assertThat(result.classes().get("Main")).startsWith(0xCA, 0xFE, 0xBA, 0xBE);
+    }
+
+    @Test
+    @DisplayName("Compile errors are reported with the source file name and line")
+    void reportsCompileErrors() {
+        InMemoryJavaCompiler.Result result = compiler.compile("Main", """
+                public class Main {
+                    public static void main(String[] args) { int x = "text"; }
+                }
+                """);
+
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.classes()).isEmpty();
+        assertThat(result.errors()).contains("Main.java:2").contains("incompatible types");
+    }
+
+    @Test
+    @DisplayName("A pooled file manager compiles unrelated sources independently")
+    void reusesFileManagers() {
+        assertThat(compiler.compile("A", "public class A {}").classes()).containsOnlyKeys("A");
+        assertThat(compiler.compile("B", "public class B {}").classes()).containsOnlyKeys("B");
+    }
+}
@@ -0,0 +1,115 @@
+package com.dsaplatform.sandbox;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs instrumented classes in this JVM, where they increment the same counters they would in a sandbox JVM.
+ */
+class OperationCountingTest {
+
+    private static final String SOURCE = """
+            public class Main {
+                public static void main(String[] args) { }
+                static int sum(int[] values) {
+                    int sum = 0;
+                    for (int i = 0; i < values.length; i++) sum += values[i];
+                    return sum;
+                }
+                static int inversions(String[] words) {
+                    int count = 0;
+                    for (int i = 1; i < words.length; i++)
+                        if (words[i - 1].compareTo(words[i]) > 0) count++;
+                    return count;
+                }
+                static void swap(long[] values) {
+                    long first = values[0];
+                    values[0] = values[1];
+                    values[1] = first;
+                }
+                public static String build() {
+                    int[][] grid = new int[2][3];
+                    return new StringBuilder().append(grid.length).toString();
+                }
+            }
+            """;
+
+    private Class<?> main;
+
+    @BeforeEach
+    void instrument() throws Exception {
+        InMemoryJavaCompiler.Result compiled = new InMemoryJavaCompiler(1).compile("Main", SOURCE);
+        Map<String, byte[]> instrumented = OperationCounting.instrument(compiled.classes());
+        main = new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = instrumented.get(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        }.loadClass("Main");
+        OperationCounters.arrayReads = 0;
+        OperationCounters.arrayWrites = 0;
+        OperationCounters.comparisons = 0;
+        OperationCounters.calls = 0;
+        OperationCounters.allocations = 0;
+    }
+
+    @Test
+    @DisplayName("Counts array reads and loop conditions")
+    void countsArrayReadsAndLoopConditions() throws Exception {
+        assertThat(invoke("sum", int[].class, new int[]{1, 2, 3, 4, 5})).isEqualTo(15);
+
+        assertThat(counts()).isEqualTo(new OperationCounting.Counts(5, 0, 6, 0, 0));
+    }
+
+    @Test
+    @DisplayName("Counts compareTo calls as both comparisons and calls")
+    void countsCompareCalls() throws Exception {
+        assertThat(invoke("inversions", String[].class, new String[]{"b", "a", "c", "d"})).isEqualTo(1);
+
+        // 4 loop conditions, 3 if statements and 3 compareTo calls
+        assertThat(counts()).isEqualTo(new OperationCounting.Counts(6, 0, 10, 3, 0));
+    }
+
+    @Test
+    @DisplayName("Counts array writes, allocations and calls other than constructors")
+    void countsWritesAndAllocations() throws Exception {
+        invoke("swap", long[].class, new long[]{1, 2});
+        assertThat(counts()).isEqualTo(new OperationCounting.Counts(2, 2, 0, 0, 0));
+
+        assertThat(main.getDeclaredMethod("build").invoke(null)).isEqualTo("2");
+        // new int[2][3] and new StringBuilder(); append and toString
+        assertThat(counts()).isEqualTo(new OperationCounting.Counts(2, 2, 0, 2, 2));
+    }
+
+    @Test
+    @DisplayName("Reads the counts line and removes it from the program output")
+    void parsesAndStripsCounts() {
+        String output = "sorted\n" + OperationCounters.RESULT_PREFIX
+                + "arrayReads=1 arrayWrites=2 comparisons=3 calls=4 allocations=5\n";
+
+        assertThat(OperationCounting.parse(output)).contains(new OperationCounting.Counts(1, 2, 3, 4, 5));
+        assertThat(OperationCounting.strip(output)).isEqualTo("sorted\n");
+        assertThat(OperationCounting.parse("sorted\n")).isEmpty();
+    }
+
+    private Object invoke(String name, Class<?> parameter, Object argument) throws Exception {
+        Method method = main.getDeclaredMethod(name, parameter);
+        method.setAccessible(true);
+        return method.invoke(null, argument);
+    }
+
+    private static OperationCounting.Counts counts() {
+        return new OperationCounting.Counts(OperationCounters.arrayReads, OperationCounters.arrayWrites,
+                OperationCounters.comparisons, OperationCounters.calls, OperationCounters.allocations);
+    }
+}
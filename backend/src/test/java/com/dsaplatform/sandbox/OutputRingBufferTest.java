@@ -0,0 +1,63 @@
+package com.dsaplatform.sandbox;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the bounded buffer between a program's output and its stream.
+ */
+class OutputRingBufferTest {
+
+    @Test
+    @DisplayName("Output larger than the buffer passes through in order while the writer waits for room")
+    void relaysOutputThroughSmallBuffer() throws Exception {
+        OutputRingBuffer buffer = new OutputRingBuffer(4, 1000);
+        String text = "the quick brown fox";
+        CompletableFuture<Boolean> writer = CompletableFuture.supplyAsync(() -> {
+            try {
+                boolean accepted = buffer.write(text.toCharArray(), 0, text.length());
+                buffer.close();
+                return accepted;
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        StringBuilder received = new StringBuilder();
+        String chunk;
+        while ((chunk = buffer.read(3, 2, TimeUnit.SECONDS)) != null) {
+            assertThat(chunk.length()).isLessThanOrEqualTo(3);
+            received.append(chunk);
+        }
+
+        assertThat(received).hasToString(text);
+        assertThat(writer.get(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(buffer.isOverflowed()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Output beyond the cap is dropped and reported")
+    void capsTotalOutput() throws Exception {
+        OutputRingBuffer buffer = new OutputRingBuffer(16, 5);
+
+        assertThat(buffer.write("abc".toCharArray(), 0, 3)).isTrue();
+        assertThat(buffer.write("defg".toCharArray(), 0, 4)).isFalse();
+
+        assertThat(buffer.isOverflowed()).isTrue();
+        assertThat(buffer.read(16, 0, TimeUnit.SECONDS)).isEqualTo("abcde");
+        assertThat(buffer.read(16, 0, TimeUnit.SECONDS)).isNull();
+    }
+
+    @Test
+    @DisplayName("A read without output before the timeout returns empty")
+    void readTimesOut() throws Exception {
+        OutputRingBuffer buffer = new OutputRingBuffer(16, 100);
+
+        assertThat(buffer.read(16, 10, TimeUnit.MILLISECONDS)).isEmpty();
+    }
+}
@@ -0,0 +1,74 @@
+package com.dsaplatform.sandbox;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SandboxRuntimeTest {
+
+    @TempDir
+    Path runtimeDir;
+
+    @Test
+    @DisplayName("Passes tuned options to single-program JVMs and only the shared ones to workers")
+    void jvmOptions() {
+        SandboxRuntime runtime = SandboxRuntime.extract(runtimeDir)
+                .withJvmOptions(List.of("-Xmx128m"), List.of("-XX:TieredStopAtLevel=1"));
+
+        assertThat(runtime.command()).contains("-Xmx128m", "-XX:TieredStopAtLevel=1");
+        assertThat(runtime.workerCommand()).contains("-Xmx128m").doesNotContain("-XX:TieredStopAtLevel=1");
+        assertThat(runtime.benchmarkCommand()).contains("-Xmx128m").doesNotContain("-XX:TieredStopAtLevel=1")
+                .doesNotContain(SandboxLauncher.WORKER_FLAG);
+        assertThat(runtime.command().get(runtime.command().size() - 1)).isEqualTo(SandboxLauncher.class.getName());
+    }
+
+    @Test
+    @DisplayName("Creates a shared archive once, replaces archives of other JDKs and runs programs with it")
+    void sharedArchive() throws Exception {
+        SandboxRuntime extracted = SandboxRuntime.extract(runtimeDir);
+        Path dir = Path.of(extracted.command().get(extracted.command().indexOf("-cp") + 1)).getParent();
+        Path stale = Files.writeString(dir.resolve("sandbox-0000000000000000.jsa"), "old jdk");
+
+        SandboxRuntime runtime = extracted.withSharedArchive();
+
+        assertThat(runtime.hasSharedArchive()).isTrue();
+        assertThat(stale).doesNotExist();
+        Path archive = archives(dir).get(0);
+        assertThat(runtime.command()).contains("-XX:SharedArchiveFile=" + archive);
+        assertThat(runtime.workerCommand()).contains("-XX:SharedArchiveFile=" + archive);
+
+        long modified = Files.getLastModifiedTime(archive).toMillis();
+        assertThat(SandboxRuntime.extract(runtimeDir).withSharedArchive().hasSharedArchive()).isTrue();
+        assertThat(archives(dir)).containsExactly(archive);
+        assertThat(Files.getLastModifiedTime(archive).toMillis()).isEqualTo(modified);
+
+        InMemoryJavaCompiler.Result compiled = new InMemoryJavaCompiler(1).compile("Main", """
+                public class Main {
+                    public static void main(String[] args) {
+                        System.out.println("shared");
+                    }
+                }
+                """);
+        Process process = new ProcessBuilder(runtime.command()).redirectErrorStream(true).start();
+        try (OutputStream in = process.getOutputStream()) {
+            in.write(SandboxRuntime.payload(compiled.classes(), "Main"));
+        }
+        assertThat(new String(process.getInputStream().readAllBytes())).isEqualTo("shared\n");
+        assertThat(process.waitFor(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static List<Path> archives(Path dir) throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.toString().endsWith(".jsa")).toList();
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.dsaplatform.sandbox;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs programs on pooled worker JVMs and checks when workers are reused or replaced.
+ */
+class SandboxWorkerPoolTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    /** Runs long enough for anything an earlier program left behind to act. */
+    private static final String SLOW_VICTIM = """
+            public class Main {
+                public static void main(String[] args) throws InterruptedException {
+                    Thread.sleep(600);
+                    System.out.println("mine");
+                }
+            }
+            """;
+
+    @TempDir
+    Path runtimeDir;
+
+    private final InMemoryJavaCompiler compiler = new InMemoryJavaCompiler(1);
+    private SandboxWorkerPool pool;
+
+    @BeforeEach
+    void startPool() throws InterruptedException {
+        pool = new SandboxWorkerPool(SandboxRuntime.extract(runtimeDir), 1, 10);
+        awaitIdle();
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Consecutive runs share a worker but not static state")
+    void reusesWorkerWithFreshClasses() throws InterruptedException {
+        String source = """
+                public class Main {
+                    static int runs;
+                    public static void main(String[] args) {
+                        System.out.println(++runs + " " + ProcessHandle.current().pid());
+                    }
+                }
+                """;
+
+        SandboxWorkerPool.RunResult first = run(source);
+        SandboxWorkerPool.RunResult second = run(source);
+
+        assertThat(first.status()).isEqualTo(SandboxWorkerPool.RunResult.Status.COMPLETED);
+        assertThat(first.reusable()).isTrue();
+        assertThat(first.output()).startsWith("1 ");
+        // Same JVM, new class loader
+        assertThat(second.output()).isEqualTo(first.output());
+    }
+
+    @Test
+    @DisplayName("Each run reads its own input on stdin")
+    void feedsInputPerRun() throws InterruptedException {
+        byte[] payload = payload("""
+                import java.io.*;
+                public class Main {
+                    public static void main(String[] args) throws IOException {
+                        System.out.println(new BufferedReader(new InputStreamReader(System.in)).readLine());
+                    }
+                }
+                """);
+
+        SandboxWorkerPool.RunResult first = pool.run(payload, "one\n".getBytes(), TIMEOUT, TIMEOUT).orElseThrow();
+        SandboxWorkerPool.RunResult second = pool.run(payload, new byte[0], TIMEOUT, TIMEOUT).orElseThrow();
+
+        assertThat(first.output()).isEqualTo("one\n");
+        assertThat(second.output()).isEqualTo("null\n");
+    }
+
+    @Test
+    @DisplayName("Output and stack trace of a failing program come back together")
+    void reportsUncaughtException() throws InterruptedException {
+        SandboxWorkerPool.RunResult result = run("""
+                public class Main {
+                    public static void main(String[] args) {
+                        System.out.println("before");
+                        throw new IllegalStateException("boom");
+                    }
+                }
+                """);
+
+        assertThat(result.status()).isEqualTo(SandboxWorkerPool.RunResult.Status.FAILED);
+        assertThat(result.output()).startsWith("before\n")
+                .contains("Exception in thread \"main\" java.lang.IllegalStateException: boom");
+        assertThat(result.reusable()).isTrue();
+    }
+
+    @Test
+    @DisplayName("System.exit still returns the output, with the exit status, and the worker is replaced")
+    void capturesSystemExit() throws InterruptedException {
+        SandboxWorkerPool.RunResult success = run("""
+                public class Main {
+                    public static void main(String[] args) { System.out.println("done"); System.exit(0); }
+                }
+                """);
+        awaitIdle();
+        SandboxWorkerPool.RunResult failure = run("""
+                public class Main {
+                    public static void main(String[] args) { System.out.println("bad"); System.exit(3); }
+                }
+                """);
+
+        assertThat(success.status()).isEqualTo(SandboxWorkerPool.RunResult.Status.COMPLETED);
+        assertThat(success.output()).isEqualTo("done\n");
+        assertThat(success.reusable()).isFalse();
+        assertThat(failure.status()).isEqualTo(SandboxWorkerPool.RunResult.Status.FAILED);
+        assertThat(failure.output()).isEqualTo("bad\n");
+    }
+
+    @Test
+    @DisplayName("A program running past the timeout is killed and its worker replaced")
+    void replacesTimedOutWorker() throws InterruptedException {
+        SandboxWorkerPool.RunResult result = pool.tryRun(payload("""
+                public class Main {
+                    public static void main(String[] args) { while (true) { } }
+                }
+                """), Duration.ofMillis(500)).orElseThrow();
+
+        assertThat(result.status()).isEqualTo(SandboxWorkerPool.RunResult.Status.TIMED_OUT);
+        assertThat(result.reusable()).isFalse();
+        awaitIdle();
+        assertThat(run("""
+                public class Main {
+                    public static void main(String[] args) { System.out.println("ok"); }
+                }
+                """).output()).isEqualTo("ok\n");
+    }
+
+    @Test
+    @DisplayName("A program leaving a thread behind does not get its worker back")
+    void retiresWorkerWithLeftoverThreads() throws InterruptedException {
+        SandboxWorkerPool.RunResult result = run("""
+                public class Main {
+                    public static void main(String[] args) {
+                        new Thread(() -> { try { Thread.sleep(60_000); } catch (InterruptedException e) { } }).start();
+                        System.out.println("started");
+                    }
+                }
+                """);
+
+        assertThat(result.status()).isEqualTo(SandboxWorkerPool.RunResult.Status.COMPLETED);
+        assertThat(result.reusable()).isFalse();
+    }
+
+    @Test
+    @DisplayName("A leftover daemon thread does not get to see the next program's output")
+    void retiresWorkerWithLeftoverDaemonThread() throws InterruptedException {
+        SandboxWorkerPool.RunResult result = run("""
+                public class Main {
+                    public static void main(String[] args) {
+                        Thread spy = new Thread(() -> {
+                            try { Thread.sleep(300); } catch (InterruptedException e) { }
+                            System.out.println("STOLEN");
+                        });
+                        spy.setDaemon(true);
+                        spy.start();
+                    }
+                }
+                """);
+
+        assertThat(result.reusable()).isFalse();
+        awaitIdle();
+        assertThat(run(SLOW_VICTIM).output()).isEqualTo("mine\n");
+    }
+
+    @Test
+    @DisplayName("A program replacing System.out does not swallow the next program's output")
+    void restoresOutputAfterSetOut() throws InterruptedException {
+        SandboxWorkerPool.RunResult result = run("""
+                import java.io.*;
+                public class Main {
+                    public static void main(String[] args) {
+                        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+                    }
+                }
+                """);
+
+        assertThat(result.reusable()).isFalse();
+        awaitIdle();
+        assertThat(run("""
+                public class Main {
+                    public static void main(String[] args) { System.out.println("mine"); }
+                }
+                """).output()).isEqualTo("mine\n");
+    }
+
+    @Test
+    @DisplayName("A program changing JVM-wide defaults does not get its worker back")
+    void retiresWorkerWithChangedDefaults() throws InterruptedException {
+        assertThat(run("""
+                public class Main {
+                    public static void main(String[] args) { System.setProperty("line.separator", "!"); }
+                }
+                """).reusable()).isFalse();
+        awaitIdle();
+        assertThat(run("""
+                public class Main {
+                    public static void main(String[] args) { java.util.Locale.setDefault(java.util.Locale.GERMANY); }
+                }
+                """).reusable()).isFalse();
+        awaitIdle();
+        assertThat(run("""
+                public class Main {
+                    public static void main(String[] args) {
+                        java.util.TimeZone.setDefault(java.util.TimeZone.getTimeZone("Asia/Tokyo"));
+                    }
+                }
+                """).reusable()).isFalse();
+        awaitIdle();
+        assertThat(run("""
+                public class Main {
+                    public static void main(String[] args) {
+                        System.out.println(System.lineSeparator().equals("\\n") + " " + java.util.Locale.getDefault());
+                    }
+                }
+                """).reusable()).isTrue();
+    }
+
+    @Test
+    @DisplayName("A response forged on the real stdout is rejected and does not leak into the next run")
+    void rejectsForgedResponse() throws InterruptedException {
+        Optional<SandboxWorkerPool.RunResult> result = pool.tryRun(payload("""
+                import java.io.*;
+                public class Main {
+                    public static void main(String[] args) throws IOException {
+                        DataOutputStream out = new DataOutputStream(new FileOutputStream(FileDescriptor.out));
+                        out.writeLong(0);
+                        out.writeByte(0);
+                        out.writeBoolean(true);
+                        out.writeInt(6);
+                        out.write("forged".getBytes());
+                        out.flush();
+                    }
+                }
+                """), TIMEOUT);
+
+        assertThat(result).isEmpty();
+        awaitIdle();
+        assertThat(run(SLOW_VICTIM).output()).isEqualTo("mine\n");
+    }
+
+    @Test
+    @DisplayName("A forged response announcing huge output is rejected before anything is allocated")
+    void rejectsForgedOutputLength() throws InterruptedException {
+        Optional<SandboxWorkerPool.RunResult> result = pool.tryRun(payload("""
+                import java.io.*;
+                public class Main {
+                    public static void main(String[] args) throws IOException {
+                        DataOutputStream out = new DataOutputStream(new FileOutputStream(FileDescriptor.out));
+                        out.writeLong(0);
+                        out.writeByte(0);
+                        out.writeBoolean(true);
+                        out.writeInt(Integer.MAX_VALUE);
+                        out.flush();
+                    }
+                }
+                """), TIMEOUT);
+
+        assertThat(result).isEmpty();
+        awaitIdle();
+        assertThat(run(SLOW_VICTIM).output()).isEqualTo("mine\n");
+    }
+
+    @Test
+    @DisplayName("A worker that fails to start is retried until the pool is full again")
+    void retriesFailedWorkerStart() throws Exception {
+        pool.close();
+        SandboxRuntime runtime = SandboxRuntime.extract(runtimeDir);
+        Path launcher = Path.of(runtime.workerCommand().get(runtime.workerCommand().indexOf("-cp") + 1));
+        Path hidden = launcher.resolveSibling("hidden.jar");
+        Files.move(launcher, hidden);
+
+        pool = new SandboxWorkerPool(runtime, 1, 10);
+        Thread.sleep(1_000);
+        assertThat(pool.idleWorkers()).isZero();
+
+        Files.move(hidden, launcher);
+        awaitIdle();
+        assertThat(run("""
+                public class Main {
+                    public static void main(String[] args) { System.out.println("ok"); }
+                }
+                """).output()).isEqualTo("ok\n");
+    }
+
+    @Test
+    @DisplayName("Without an idle worker the caller is told to run the program itself")
+    void emptyWhenNoWorkerIsIdle() {
+        pool.close();
+
+        Optional<SandboxWorkerPool.RunResult> result = pool.tryRun(payload("""
+                public class Main {
+                    public static void main(String[] args) { }
+                }
+                """), TIMEOUT);
+
+        assertThat(result).isEmpty();
+    }
+
+    private SandboxWorkerPool.RunResult run(String source) throws InterruptedException {
+        return pool.tryRun(payload(source), TIMEOUT).orElseThrow();
+    }
+
+    private byte[] payload(String source) {
+        InMemoryJavaCompiler.Result compiled = compiler.compile("Main", source);
+        assertThat(compiled.isSuccess()).as(compiled.errors()).isTrue();
+        return SandboxRuntime.payload(compiled.classes(), "Main");
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (pool.idleWorkers() == 0) {
+            assertThat(System.currentTimeMillis()).as("worker ready").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.dsaplatform.sandbox;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Time from starting a single-program JVM to its first byte of output, with default JVM options, with the tuned
+ * options and with the tuned options and a class-data-sharing archive.
+ * Run with {@code mvn test -Pbenchmark}; results are printed, not asserted.
+ */
+@Tag("benchmark")
+class StartupBenchmarkTest {
+
+    private static final int WARMUP = 3;
+    private static final int RUNS = 20;
+
+    private static final String SOURCE = """
+            import java.util.*;
+            import java.util.stream.*;
+            public class Main {
+                public static void main(String[] args) {
+                    Scanner scanner = new Scanner(System.in);
+                    List<Integer> values = new ArrayList<>();
+                    while (scanner.hasNextInt()) values.add(scanner.nextInt());
+                    Map<Boolean, List<Integer>> parts = values.stream().collect(Collectors.partitioningBy(v -> v % 2 == 0));
+                    System.out.println(parts.get(true).size() + " " + String.format("%d", values.size()));
+                }
+            }
+            """;
+
+    @Test
+    @DisplayName("Spawn to first output: default vs. tuned options vs. tuned options with CDS archive")
+    void compareStartup() throws Exception {
+        SandboxRuntime plain = SandboxRuntime.extract(Files.createTempDirectory("startup-benchmark"));
+        SandboxRuntime tuned = plain.withJvmOptions(
+                List.of("-XX:+UseSerialGC", "-XX:-UsePerfData", "-Xmx256m"), List.of("-XX:TieredStopAtLevel=1"));
+        SandboxRuntime shared = tuned.withSharedArchive();
+        assertThat(shared.hasSharedArchive()).isTrue();
+
+        InMemoryJavaCompiler.Result compiled = new InMemoryJavaCompiler(1).compile("Main", SOURCE);
+        byte[] payload = SandboxRuntime.payload(compiled.classes(), "Main");
+
+        long[] plainNanos = measure(plain, payload);
+        long[] tunedNanos = measure(tuned, payload);
+        long[] sharedNanos = measure(shared, payload);
+
+        System.out.printf("default:     median %.2f ms, p90 %.2f ms%n", millis(plainNanos, 50), millis(plainNanos, 90));
+        System.out.printf("tuned:       median %.2f ms, p90 %.2f ms%n", millis(tunedNanos, 50), millis(tunedNanos, 90));
+        System.out.printf("tuned + CDS: median %.2f ms, p90 %.2f ms%n", millis(sharedNanos, 50), millis(sharedNanos, 90));
+    }
+
+    private static long firstOutputNanos(SandboxRuntime runtime, byte[] payload) throws Exception {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(runtime.command()).redirectErrorStream(true).start();
+        try (OutputStream in = process.getOutputStream()) {
+            in.write(payload);
+            in.write("1 2 3 4\n".getBytes());
+        }
+        try (InputStream out = process.getInputStream()) {
+            int first = out.read();
+            long elapsed = System.nanoTime() - start;
+            String rest = new String(out.readAllBytes());
+            assertThat((char) first + rest).isEqualTo("2 4\n");
+            assertThat(process.waitFor(5, TimeUnit.SECONDS)).isTrue();
+            return elapsed;
+        }
+    }
+
+    private static long[] measure(SandboxRuntime runtime, byte[] payload) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            firstOutputNanos(runtime, payload);
+        }
+        long[] nanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            nanos[i] = firstOutputNanos(runtime, payload);
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private static double millis(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)] / 1_000_000.0;
+    }
+}
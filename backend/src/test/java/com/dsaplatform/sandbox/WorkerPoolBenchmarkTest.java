@@ -0,0 +1,88 @@
+package com.dsaplatform.sandbox;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Run latency of a program on a pooled worker JVM against starting a JVM per run.
+ * Run with {@code mvn test -Pbenchmark}; results are printed, not asserted.
+ */
+@Tag("benchmark")
+class WorkerPoolBenchmarkTest {
+
+    private static final int WARMUP = 5;
+    private static final int RUNS = 30;
+
+    private static final String SOURCE = """
+            import java.util.*;
+            public class Main {
+                public static void main(String[] args) {
+                    Deque<Integer> stack = new ArrayDeque<>();
+                    for (int i = 0; i < 10; i++) stack.push(i);
+                    System.out.println(stack.pop());
+                }
+            }
+            """;
+
+    @Test
+    @DisplayName("Run latency: warm pooled worker vs. new JVM per run")
+    void compareRunLatency() throws Exception {
+        SandboxRuntime runtime = SandboxRuntime.extract(Files.createTempDirectory("worker-benchmark"));
+        InMemoryJavaCompiler.Result compiled = new InMemoryJavaCompiler(1).compile("Main", SOURCE);
+        byte[] payload = SandboxRuntime.payload(compiled.classes(), "Main");
+
+        long[] coldNanos = measure(() -> runCold(runtime, payload));
+        long[] warmNanos;
+        try (SandboxWorkerPool pool = new SandboxWorkerPool(runtime, 1, Integer.MAX_VALUE)) {
+            while (pool.idleWorkers() == 0) {
+                Thread.sleep(10);
+            }
+            warmNanos = measure(() -> pool.tryRun(payload, Duration.ofSeconds(5)).orElseThrow().output());
+        }
+
+        System.out.printf("warm: median %.2f ms, p90 %.2f ms%n", millis(warmNanos, 50), millis(warmNanos, 90));
+        System.out.printf("cold: median %.2f ms, p90 %.2f ms%n", millis(coldNanos, 50), millis(coldNanos, 90));
+    }
+
+    private static String runCold(SandboxRuntime runtime, byte[] payload) throws Exception {
+        Process process = new ProcessBuilder(runtime.command()).redirectErrorStream(true).start();
+        try (OutputStream in = process.getOutputStream()) {
+            in.write(payload);
+        }
+        String output = new String(process.getInputStream().readAllBytes());
+        assertThat(process.waitFor(5, TimeUnit.SECONDS)).isTrue();
+        return output;
+    }
+
+    private static long[] measure(Run run) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            assertThat(run.output()).isEqualTo("9\n");
+        }
+        long[] nanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            assertThat(run.output()).isEqualTo("9\n");
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private static double millis(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)] / 1_000_000.0;
+    }
+
+    @FunctionalInterface
+    private interface Run {
+        String output() throws Exception;
+    }
+}
@@ -2,6 +2,7 @@ package com.dsaplatform.service;
 
 import com.dsaplatform.dto.request.ChatRequest;
 import com.dsaplatform.dto.response.ChatResponse;
+import com.dsaplatform.dto.response.ChatStreamEvent;
 import com.dsaplatform.model.entity.*;
 import com.dsaplatform.repository.*;
 import com.dsaplatform.security.JwtService;
@@ -16,6 +17,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -329,4 +331,37 @@ class ChatServicePropertyTest {
                 .as("Chat log confidence should match response confidence")
                 .isCloseTo(response.getConfidenceScore(), org.assertj.core.data.Offset.offset(0.0001));
     }
+
+    /**
+     * **Feature: rag-chatbot-backend, Property 6: Chat Log Completion**
+     * **Validates: Requirements 3.2, 3.3**
+     * 
+     * Property: A streamed answer emits meta, token and done events in order, and
+     * the ChatLog is completed with the concatenation of all streamed tokens.
+     */
+    @Test
+    @DisplayName("Property 6.2: Streamed answer is persisted when the stream completes")
+    void streamedAnswerIsPersistedOnCompletion() {
+        when(openAIClient.streamChatCompletionWithHistory(anyString(), anyString(), anyList()))
+                .thenReturn(Flux.just("Stacks are ", "LIFO ", "structures."));
+
+        ChatRequest request = ChatRequest.builder()
+                .message("How does a stack work when streamed?")
+                .build();
+
+        List<ChatStreamEvent> events = chatService.streamQuestion(request, testUser.getId())
+                .collectList()
+                .block();
+
+        assertThat(events).extracting(ChatStreamEvent::getType)
+                .containsExactly("meta", "token", "token", "token", "done");
+
+        ChatLog chatLog = chatLogRepository.findAll().stream()
+                .filter(log -> log.getUserQuestion().equals("How does a stack work when streamed?"))
+                .findFirst()
+                .orElseThrow();
+
+        assertThat(chatLog.getBotResponse()).isEqualTo("Stacks are LIFO structures.");
+        assertThat(chatLog.getResponseTimestamp()).isNotNull();
+    }
 }
@@ -0,0 +1,207 @@
+package com.dsaplatform.service;
+
+import com.dsaplatform.config.CodeExecutionProperties;
+import com.dsaplatform.dto.response.BenchmarkResponse;
+import com.dsaplatform.dto.response.BenchmarkResponse.Status;
+import com.dsaplatform.dto.response.ComplexityResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmarks the benchmark method of submissions and estimates its complexity, on pooled workers and on JVMs
+ * of their own.
+ */
+class CodeBenchmarkTest {
+
+    /** Allocates an array of n ints per call and prints, which the benchmark must not pass on. */
+    private static final String ALLOCATING = """
+            public class Main {
+                public static void main(String[] args) {
+                    System.out.println(benchmark(10).length);
+                }
+                static int[] benchmark(int n) {
+                    System.out.println("noise");
+                    int[] values = new int[n];
+                    for (int i = 0; i < n; i++) values[i] = i * 31;
+                    return values;
+                }
+            }
+            """;
+
+    private CodeExecutionService service;
+
+    @AfterEach
+    void shutdown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Reports time, allocation and collections per call measured on a warm worker")
+    void benchmarksOnWorker() {
+        service = service(true);
+
+        BenchmarkResponse response = service.benchmark(ALLOCATING, 1000, 1, 2, "test");
+
+        assertThat(response.getStatus()).isEqualTo(Status.COMPLETED);
+        assertThat(response.getWarmWorker()).isTrue();
+        assertThat(response.getN()).isEqualTo(1000);
+        assertThat(response.getOperations()).isPositive();
+        assertThat(response.getMeanNanosPerOp()).isPositive();
+        assertThat(response.getP50NanosPerOp()).isPositive()
+                .isLessThanOrEqualTo(response.getP90NanosPerOp());
+        assertThat(response.getP90NanosPerOp()).isLessThanOrEqualTo(response.getP99NanosPerOp());
+        // An int[1000] is about 4 KB
+        assertThat(response.getAllocatedBytesPerOp()).isBetween(4000.0, 4200.0);
+        assertThat(response.getGcCount()).isNotNegative();
+        assertThat(response.getError()).isNull();
+    }
+
+    @Test
+    @DisplayName("Without a free worker the benchmark runs in a JVM compiling like a worker, not a cold one")
+    void fallbackUsesWorkerOptions() {
+        service = service(false);
+        String probe = """
+                import java.lang.management.ManagementFactory;
+                public class Main {
+                    static int benchmark(int n) {
+                        if (ManagementFactory.getRuntimeMXBean().getInputArguments().contains("-XX:TieredStopAtLevel=1")) {
+                            throw new IllegalStateException("C1 only");
+                        }
+                        return n;
+                    }
+                }
+                """;
+
+        BenchmarkResponse response = service.benchmark(probe, 10, 0, 1, "test");
+
+        assertThat(response.getWarmWorker()).isFalse();
+        assertThat(response.getStatus()).as(response.getError()).isEqualTo(Status.COMPLETED);
+    }
+
+    @Test
+    @DisplayName("A method annotated @Benchmark is used instead of the naming convention")
+    void findsAnnotatedMethod() {
+        service = service(false);
+        String annotated = """
+                import java.util.*;
+                public class Main {
+                    @interface Benchmark { }
+                    public static void main(String[] args) { }
+                    static void benchmark(int n) {
+                        throw new IllegalStateException("not this one");
+                    }
+                    @Benchmark
+                    static long sort(int n) {
+                        int[] values = new int[n];
+                        for (int i = 0; i < n; i++) values[i] = n - i;
+                        Arrays.sort(values);
+                        return values[0];
+                    }
+                }
+                """;
+
+        BenchmarkResponse response = service.benchmark(annotated, 100, 0, 1, "test");
+
+        assertThat(response.getStatus()).isEqualTo(Status.COMPLETED);
+        assertThat(response.getWarmWorker()).isFalse();
+        assertThat(response.getOperations()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Missing benchmark methods, exceptions and compile errors are reported without measurements")
+    void reportsFailures() {
+        service = service(false);
+
+        BenchmarkResponse missing = service.benchmark(
+                "public class Main { public static void main(String[] args) { } }", 10, 0, 1, "test");
+        assertThat(missing.getStatus()).isEqualTo(Status.NO_BENCHMARK_METHOD);
+        assertThat(missing.getError()).contains("benchmark(int n)");
+
+        BenchmarkResponse failing = service.benchmark("""
+                public class Main {
+                    static int benchmark(int n) {
+                        return 10 / (n - n);
+                    }
+                }
+                """, 10, 0, 1, "test");
+        assertThat(failing.getStatus()).isEqualTo(Status.RUNTIME_ERROR);
+        assertThat(failing.getError()).contains("ArithmeticException");
+        assertThat(failing.getMeanNanosPerOp()).isNull();
+
+        BenchmarkResponse broken = service.benchmark("public class Main { void broken( }", 10, 0, 1, "test");
+        assertThat(broken.getStatus()).isEqualTo(Status.COMPILATION_ERROR);
+        assertThat(broken.getCompileError()).isNotBlank();
+    }
+
+    @Test
+    @DisplayName("A quadratic method is estimated as O(n^2) from sizes measured on a warm worker")
+    void estimatesQuadratic() {
+        service = service(true);
+        String quadratic = """
+                public class Main {
+                    static long benchmark(int n) {
+                        long pairs = 0;
+                        for (int i = 0; i < n; i++)
+                            for (int j = 0; j < n; j++)
+                                pairs += (i ^ j) & 1;
+                        return pairs;
+                    }
+                }
+                """;
+
+        ComplexityResponse response = service.estimateComplexity(quadratic, 128, 4096, 2, "test");
+
+        assertThat(response.getStatus()).isEqualTo(ComplexityResponse.Status.COMPLETED);
+        assertThat(response.getStopReason()).isEqualTo(ComplexityResponse.StopReason.MAX_SIZE);
+        assertThat(response.getMeasurements()).extracting(ComplexityResponse.Measurement::getN)
+                .containsExactly(128, 256, 512, 1024, 2048, 4096);
+        assertThat(response.getComplexity()).isEqualTo("O(n^2)");
+        assertThat(response.getWarmWorker()).isTrue();
+        assertThat(response.getConfidence()).isGreaterThan(0.5);
+        assertThat(response.getFits()).hasSize(6);
+    }
+
+    @Test
+    @DisplayName("Generated input is not timed, and measuring stops at the first size that times out")
+    void excludesGenerationAndStopsOnTimeout() {
+        service = service(false);
+        String generated = """
+                public class Main {
+                    static int[] generate(int n) {
+                        int[] values = new int[n];
+                        for (int i = 0; i < n; i++) values[i] = i;
+                        return values;
+                    }
+                    static int benchmark(int[] values) {
+                        if (values.length > 1 << 20) while (true) { }
+                        return values[values.length / 2];
+                    }
+                }
+                """;
+
+        ComplexityResponse response = service.estimateComplexity(generated, 1 << 16, 1 << 22, 4, "test");
+
+        assertThat(response.getStatus()).isEqualTo(ComplexityResponse.Status.COMPLETED);
+        assertThat(response.getStopReason()).isEqualTo(ComplexityResponse.StopReason.TIMED_OUT);
+        assertThat(response.getMeasurements()).extracting(ComplexityResponse.Measurement::getN)
+                .containsExactly(1 << 16, 1 << 18, 1 << 20);
+        assertThat(response.getWarmWorker()).isFalse();
+        // Filling a million ints takes far longer than this
+        assertThat(response.getMeasurements().get(2).getMeanNanosPerOp()).isLessThan(10_000.0);
+    }
+
+    private static CodeExecutionService service(boolean pool) {
+        CodeExecutionProperties properties = new CodeExecutionProperties();
+        properties.getPool().setEnabled(pool);
+        properties.getPool().setSize(1);
+        properties.setBenchmarkIterationMillis(50);
+        properties.setTimeoutSeconds(1);
+        return new CodeExecutionService(properties, new SimpleMeterRegistry());
+    }
+}
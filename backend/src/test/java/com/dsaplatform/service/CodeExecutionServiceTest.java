@@ -0,0 +1,238 @@
+package com.dsaplatform.service;
+
+import com.dsaplatform.config.CodeExecutionProperties;
+import com.dsaplatform.config.CodeExecutionProperties.CompileMode;
+import com.dsaplatform.dto.response.CodeExecutionResponse;
+import com.dsaplatform.dto.response.CodeOutputEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs programs end to end in a child JVM, in both compile modes.
+ */
+class CodeExecutionServiceTest {
+
+    private static CodeExecutionService service(CompileMode mode) {
+        CodeExecutionProperties properties = new CodeExecutionProperties();
+        properties.setCompileMode(mode);
+        // Pooled workers are covered by SandboxWorkerPoolTest; every run here starts its own JVM
+        properties.getPool().setEnabled(false);
+        return new CodeExecutionService(properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Resubmitting a deterministic program is answered from the cache")
+    void cachesRepeatedSubmissions() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CodeExecutionProperties properties = new CodeExecutionProperties();
+        properties.getPool().setEnabled(false);
+        CodeExecutionService service = new CodeExecutionService(properties, meterRegistry);
+        String code = """
+                public class Main {
+                    public static void main(String[] args) { System.out.println("cached"); }
+                }
+                """;
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(service.executeJavaCode(code, "test").getOutput()).isEqualTo("cached\n");
+        }
+
+        assertThat(meterRegistry.get("code.execution.compile").tag("mode", "memory").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("code.execution.run").tag("start", "cold").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("code.execution.cache.lookup").tag("result", "output").counter().count())
+                .isEqualTo(1);
+    }
+
+    @ParameterizedTest
+    @EnumSource(CompileMode.class)
+    @DisplayName("Output of a program using several classes is returned")
+    void runsProgram(CompileMode mode) {
+        CodeExecutionResponse response = service(mode).executeJavaCode("""
+                public class Main {
+                    public static void main(String[] args) {
+                        System.out.println(new Counter().next() + new Counter().next());
+                    }
+                }
+                class Counter {
+                    int value = 20;
+                    int next() { return ++value; }
+                }
+                """, "test");
+
+        assertThat(response.getError()).isNull();
+        assertThat(response.getOutput()).isEqualTo("42\n");
+    }
+
+    @ParameterizedTest
+    @EnumSource(CompileMode.class)
+    @DisplayName("Uncaught exceptions are reported as runtime errors")
+    void reportsRuntimeErrors(CompileMode mode) {
+        CodeExecutionResponse response = service(mode).executeJavaCode("""
+                public class Main {
+                    public static void main(String[] args) {
+                        System.out.println("before");
+                        throw new IllegalStateException("boom");
+                    }
+                }
+                """, "test");
+
+        assertThat(response.getOutput()).startsWith("Runtime Error:\nbefore\n")
+                .contains("Exception in thread \"main\" java.lang.IllegalStateException: boom");
+    }
+
+    @ParameterizedTest
+    @EnumSource(CompileMode.class)
+    @DisplayName("Compile errors are returned without running anything")
+    void reportsCompileErrors(CompileMode mode) {
+        CodeExecutionResponse response = service(mode).executeJavaCode("""
+                public class Main {
+                    public static void main(String[] args) { undefined(); }
+                }
+                """, "test");
+
+        assertThat(response.getError()).startsWith("Compilation Error:").contains("cannot find symbol");
+        assertThat(response.getOutput()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Counted runs return the program output and the same operation counts every time")
+    void countsOperations() {
+        CodeExecutionService service = service(CompileMode.MEMORY);
+        String bubbleSort = """
+                import java.util.Arrays;
+                public class Main {
+                    public static void main(String[] args) {
+                        int[] values = {5, 4, 3, 2, 1};
+                        for (int i = 0; i < values.length; i++)
+                            for (int j = 0; j + 1 < values.length - i; j++)
+                                if (values[j] > values[j + 1]) {
+                                    int swap = values[j];
+                                    values[j] = values[j + 1];
+                                    values[j + 1] = swap;
+                                }
+                        System.out.println(Arrays.toString(values));
+                    }
+                }
+                """;
+
+        CodeExecutionResponse first = service.executeCountingOperations(bubbleSort, "test");
+        CodeExecutionResponse second = service.executeCountingOperations(bubbleSort, "test");
+
+        assertThat(first.getOutput()).isEqualTo("[1, 2, 3, 4, 5]\n");
+        assertThat(first.getOperations()).isEqualTo(second.getOperations());
+        // 10 comparisons of elements, all of which swap
+        assertThat(first.getOperations().getArrayWrites()).isEqualTo(5 + 2 * 10);
+        assertThat(first.getOperations().getArrayReads()).isEqualTo(2 * 10 + 2 * 10);
+        assertThat(first.getOperations().getAllocations()).isEqualTo(1);
+        assertThat(first.getOperations().getCalls()).isEqualTo(2);
+        assertThat(service.executeJavaCode(bubbleSort, "test").getOperations()).isNull();
+    }
+
+    @Test
+    @DisplayName("Streamed output arrives while the program is still running")
+    void streamsOutputAsWritten() {
+        List<Long> arrivals = new CopyOnWriteArrayList<>();
+        List<CodeOutputEvent> events = service(CompileMode.MEMORY).streamJavaCode("""
+                public class Main {
+                    public static void main(String[] args) throws Exception {
+                        System.out.println("first");
+                        Thread.sleep(1000);
+                        System.out.println("second");
+                    }
+                }
+                """, "test")
+                .doOnNext(event -> arrivals.add(System.nanoTime()))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(events).extracting(CodeOutputEvent::getType).last().isEqualTo(CodeOutputEvent.TYPE_DONE);
+        assertThat(events.get(0).getText()).isEqualTo("first\n");
+        assertThat(events.get(events.size() - 1).getStatus()).isEqualTo(CodeOutputEvent.STATUS_COMPLETED);
+        assertThat(events.get(events.size() - 1).getExitCode()).isZero();
+        // The first line was relayed well before the program finished
+        assertThat(arrivals.get(arrivals.size() - 1) - arrivals.get(0)).isGreaterThan(Duration.ofMillis(500).toNanos());
+    }
+
+    @Test
+    @DisplayName("A program printing past the output limit is stopped")
+    void stopsProgramAtOutputLimit() {
+        CodeExecutionProperties properties = new CodeExecutionProperties();
+        properties.getPool().setEnabled(false);
+        properties.setMaxStreamedOutputChars(10_000);
+        CodeExecutionService service = new CodeExecutionService(properties, new SimpleMeterRegistry());
+
+        List<CodeOutputEvent> events = service.streamJavaCode("""
+                public class Main {
+                    public static void main(String[] args) {
+                        while (true) System.out.println("spam");
+                    }
+                }
+                """, "test").collectList().block(Duration.ofSeconds(10));
+
+        String output = events.stream()
+                .filter(event -> event.getType().equals(CodeOutputEvent.TYPE_OUTPUT))
+                .map(CodeOutputEvent::getText)
+                .collect(Collectors.joining());
+        assertThat(output).hasSize(10_000).startsWith("spam\n");
+        assertThat(events.get(events.size() - 1).getStatus()).isEqualTo(CodeOutputEvent.STATUS_OUTPUT_LIMIT);
+    }
+
+    @Test
+    @DisplayName("The slot of a streamed run is freed when the stream is never subscribed or is cancelled")
+    void freesStreamSlot() throws InterruptedException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CodeExecutionProperties properties = new CodeExecutionProperties();
+        properties.getPool().setEnabled(false);
+        properties.getScheduler().setStreamSubscribeTimeoutMillis(200);
+        CodeExecutionService service = new CodeExecutionService(properties, meterRegistry);
+        String code = """
+                public class Main {
+                    public static void main(String[] args) throws Exception { Thread.sleep(60_000); }
+                }
+                """;
+
+        service.streamJavaCode(code, "test");
+        assertThat(running(meterRegistry)).isEqualTo(1);
+        awaitRunning(meterRegistry, 0);
+
+        service.streamJavaCode(code, "test").subscribe().dispose();
+        awaitRunning(meterRegistry, 0);
+    }
+
+    private static double running(SimpleMeterRegistry meterRegistry) {
+        return meterRegistry.get("code.execution.running").gauge().value();
+    }
+
+    private static void awaitRunning(SimpleMeterRegistry meterRegistry, double expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (running(meterRegistry) != expected) {
+            assertThat(System.currentTimeMillis()).as("running runs reach " + expected).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    @DisplayName("Compile errors are streamed as a single error event")
+    void streamsCompileErrors() {
+        List<CodeOutputEvent> events = service(CompileMode.MEMORY).streamJavaCode("""
+                public class Main {
+                    public static void main(String[] args) { undefined(); }
+                }
+                """, "test").collectList().block(Duration.ofSeconds(10));
+
+        assertThat(events).singleElement().satisfies(event -> {
+            assertThat(event.getType()).isEqualTo(CodeOutputEvent.TYPE_ERROR);
+            assertThat(event.getText()).startsWith("Compilation Error:").contains("cannot find symbol");
+        });
+    }
+}
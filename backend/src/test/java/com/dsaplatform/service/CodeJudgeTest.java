@@ -0,0 +1,159 @@
+package com.dsaplatform.service;
+
+import com.dsaplatform.config.CodeExecutionProperties;
+import com.dsaplatform.dto.request.JudgeRequest;
+import com.dsaplatform.dto.response.JudgeResponse;
+import com.dsaplatform.dto.response.JudgeResponse.Verdict;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Judges submissions against batches of test cases on pooled workers and on JVMs of their own.
+ */
+class CodeJudgeTest {
+
+    /** Reads n, then prints the sum 1..n; fails on negative n and never ends for n = 0. */
+    private static final String SUM = """
+            import java.util.Scanner;
+            public class Main {
+                static int calls;
+                public static void main(String[] args) {
+                    int n = new Scanner(System.in).nextInt();
+                    if (n < 0) throw new IllegalArgumentException("negative");
+                    while (n == 0) { }
+                    calls++;
+                    System.out.println((long) n * (n + 1) / 2 + "   ");
+                    System.out.println("calls=" + calls);
+                }
+            }
+            """;
+
+    private CodeExecutionService service;
+
+    @AfterEach
+    void shutdown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("A large batch is judged across the pool with one verdict per case, in order")
+    void judgesBatchOnWorkers() {
+        service = service(true);
+        List<JudgeRequest.TestCase> cases = new ArrayList<>();
+        IntStream.rangeClosed(1, 20).forEach(n -> cases.add(testCase(n, n * (n + 1) / 2)));
+        cases.add(testCase(5, 16));
+        cases.add(testCase(-1, 0));
+        cases.add(testCase(0, 0));
+
+        JudgeResponse response = service.judge(SUM, cases, Duration.ofSeconds(1), "test");
+
+        assertThat(response.getTotal()).isEqualTo(23);
+        assertThat(response.getPassed()).isEqualTo(20);
+        assertThat(response.getVerdict()).isEqualTo(Verdict.WRONG_ANSWER);
+        assertThat(response.getCases()).extracting(JudgeResponse.CaseResult::getIndex)
+                .containsExactlyElementsOf(IntStream.range(0, 23).boxed().toList());
+        // Static state does not leak between cases run on the same worker
+        assertThat(response.getCases().get(19).getOutput()).isEqualTo("210   \ncalls=1\n");
+
+        JudgeResponse.CaseResult wrong = response.getCases().get(20);
+        assertThat(wrong.getVerdict()).isEqualTo(Verdict.WRONG_ANSWER);
+        assertThat(wrong.getDiff().getLine()).isEqualTo(1);
+        assertThat(wrong.getDiff().getExpected()).isEqualTo("16");
+        assertThat(wrong.getDiff().getActual()).isEqualTo("15");
+        assertThat(response.getCases().get(21).getVerdict()).isEqualTo(Verdict.RUNTIME_ERROR);
+        assertThat(response.getCases().get(21).getOutput()).contains("IllegalArgumentException: negative");
+        assertThat(response.getCases().get(22).getVerdict()).isEqualTo(Verdict.TIME_LIMIT_EXCEEDED);
+    }
+
+    @Test
+    @DisplayName("Without a pool every case runs in a JVM of its own with the same verdicts")
+    void judgesWithoutPool() {
+        service = service(false);
+
+        JudgeResponse response = service.judge(SUM, List.of(testCase(3, 6), testCase(-1, 0)),
+                Duration.ofSeconds(2), "test");
+
+        assertThat(response.getCases()).extracting(JudgeResponse.CaseResult::getVerdict)
+                .containsExactly(Verdict.ACCEPTED, Verdict.RUNTIME_ERROR);
+        assertThat(response.getVerdict()).isEqualTo(Verdict.RUNTIME_ERROR);
+    }
+
+    @Test
+    @DisplayName("A case run in a JVM of its own is not failed for the time the JVM takes to start")
+    void allowsForColdStart() {
+        service = service(false);
+
+        JudgeResponse response = service.judge(SUM, List.of(testCase(3, 6)), Duration.ofMillis(100), "test");
+
+        assertThat(response.getVerdict()).isEqualTo(Verdict.ACCEPTED);
+    }
+
+    @Test
+    @DisplayName("Cases not started within the time budget of the submission are skipped")
+    void skipsCasesPastDeadline() {
+        CodeExecutionProperties properties = properties(false);
+        properties.setJudgeMaxSeconds(1);
+        service = new CodeExecutionService(properties, new SimpleMeterRegistry());
+
+        JudgeResponse response = service.judge(SUM, List.of(testCase(0, 0), testCase(0, 0), testCase(1, 1)),
+                Duration.ofMillis(500), "test");
+
+        assertThat(response.getCases()).extracting(JudgeResponse.CaseResult::getVerdict)
+                .containsExactly(Verdict.TIME_LIMIT_EXCEEDED, Verdict.SKIPPED, Verdict.SKIPPED);
+        assertThat(response.getVerdict()).isEqualTo(Verdict.TIME_LIMIT_EXCEEDED);
+        assertThat(response.getExecutionTime()).isLessThan(5_000L);
+    }
+
+    @Test
+    @DisplayName("A submission that does not compile is judged once, without running any case")
+    void reportsCompileErrors() {
+        service = service(false);
+
+        JudgeResponse response = service.judge("public class Main { void broken( }",
+                List.of(testCase(1, 1)), Duration.ofSeconds(1), "test");
+
+        assertThat(response.getVerdict()).isEqualTo(Verdict.COMPILATION_ERROR);
+        assertThat(response.getCompileError()).isNotBlank();
+        assertThat(response.getCases()).isNull();
+    }
+
+    @Test
+    @DisplayName("Trailing whitespace and blank lines are ignored; the first differing line is reported")
+    void diffsNormalizedLines() {
+        assertThat(CodeExecutionService.diff("1\n2\n", "1  \r\n2\n\n\n")).isNull();
+
+        JudgeResponse.Diff missing = CodeExecutionService.diff("1\n2\n3", "1\n2\n");
+        assertThat(missing.getLine()).isEqualTo(3);
+        assertThat(missing.getExpected()).isEqualTo("3");
+        assertThat(missing.getActual()).isNull();
+    }
+
+    private static CodeExecutionService service(boolean pool) {
+        return new CodeExecutionService(properties(pool), new SimpleMeterRegistry());
+    }
+
+    private static CodeExecutionProperties properties(boolean pool) {
+        CodeExecutionProperties properties = new CodeExecutionProperties();
+        properties.getPool().setEnabled(pool);
+        properties.getPool().setSize(2);
+        return properties;
+    }
+
+    private static JudgeRequest.TestCase testCase(int n, int expected) {
+        return JudgeRequest.TestCase.builder()
+                .input(n + "\n")
+                .expectedOutput(expected + "\ncalls=1")
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+package com.dsaplatform.service;
+
+import com.dsaplatform.config.CompletionCacheProperties;
+import com.dsaplatform.model.entity.CompletionCacheEntry;
+import com.dsaplatform.repository.CompletionCacheRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for CompletionCache lookups, expiry and key derivation.
+ */
+class CompletionCacheTest {
+
+    private CompletionCacheRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private CompletionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(CompletionCacheRepository.class);
+        when(repository.findByCacheKey(anyString())).thenReturn(Optional.empty());
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CompletionCache(repository, new CompletionCacheProperties(),
+                mock(PlatformTransactionManager.class), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Stored completions are served from memory without another database read")
+    void putThenGetHitsMemory() {
+        cache.put("k1", "model", "answer");
+
+        assertThat(cache.get("k1")).contains("answer");
+        verify(repository).save(any(CompletionCacheEntry.class));
+        verify(repository, never()).findByCacheKey("k1");
+        assertThat(meterRegistry.get("openai.completion.cache.lookup").tag("result", "memory_hit").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Database hits are promoted to memory and expired rows are ignored")
+    void databaseHitsArePromotedAndExpiredIgnored() {
+        when(repository.findByCacheKey("fresh")).thenReturn(Optional.of(entry("fresh", LocalDateTime.now().plusHours(1))));
+        when(repository.findByCacheKey("stale")).thenReturn(Optional.of(entry("stale", LocalDateTime.now().minusMinutes(1))));
+
+        assertThat(cache.get("fresh")).contains("content-fresh");
+        assertThat(cache.get("fresh")).contains("content-fresh");
+        verify(repository, times(1)).findByCacheKey("fresh");
+
+        assertThat(cache.get("stale")).isEmpty();
+        assertThat(meterRegistry.get("openai.completion.cache.lookup").tag("result", "miss").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Keys depend on model, sampling parameters and messages")
+    void keyCoversAllRequestInputs() {
+        String base = CompletionCache.key("m", 0.7, 500, "[{\"role\":\"user\",\"content\":\"hi\"}]");
+
+        assertThat(CompletionCache.key("m", 0.7, 500, "[{\"role\":\"user\",\"content\":\"hi\"}]")).isEqualTo(base);
+        assertThat(base).hasSize(64);
+        assertThat(CompletionCache.key("other", 0.7, 500, "[{\"role\":\"user\",\"content\":\"hi\"}]")).isNotEqualTo(base);
+        assertThat(CompletionCache.key("m", 0.2, 500, "[{\"role\":\"user\",\"content\":\"hi\"}]")).isNotEqualTo(base);
+        assertThat(CompletionCache.key("m", 0.7, 100, "[{\"role\":\"user\",\"content\":\"hi\"}]")).isNotEqualTo(base);
+        assertThat(CompletionCache.key("m", 0.7, 500, "[{\"role\":\"user\",\"content\":\"hey\"}]")).isNotEqualTo(base);
+    }
+
+    private static CompletionCacheEntry entry(String key, LocalDateTime expiresAt) {
+        return CompletionCacheEntry.builder()
+                .cacheKey(key)
+                .model("model")
+                .content("content-" + key)
+                .createdAt(LocalDateTime.now().minusHours(2))
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
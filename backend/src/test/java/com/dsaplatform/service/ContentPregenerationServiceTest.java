@@ -0,0 +1,140 @@
+package com.dsaplatform.service;
+
+import com.dsaplatform.config.GenerationProperties;
+import com.dsaplatform.dto.response.ChapterContentResponse;
+import com.dsaplatform.dto.response.LessonContentResponse;
+import com.dsaplatform.dto.response.PregenerationStatusDto;
+import com.dsaplatform.model.entity.Chapter;
+import com.dsaplatform.model.entity.Lesson;
+import com.dsaplatform.repository.ChapterRepository;
+import com.dsaplatform.repository.LessonRepository;
+import com.dsaplatform.resilience.LlmCallContext;
+import com.dsaplatform.resilience.LlmPriority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for ContentPregenerationService.
+ */
+class ContentPregenerationServiceTest {
+
+    private ChapterRepository chapterRepository;
+    private LessonRepository lessonRepository;
+    private ContentGenerationService contentGenerationService;
+    private LessonContentService lessonContentService;
+    private GenerationProperties properties;
+    private ContentPregenerationService service;
+
+    @BeforeEach
+    void setUp() {
+        chapterRepository = mock(ChapterRepository.class);
+        lessonRepository = mock(LessonRepository.class);
+        contentGenerationService = mock(ContentGenerationService.class);
+        lessonContentService = mock(LessonContentService.class);
+        properties = new GenerationProperties();
+        properties.getPregeneration().setTopics(List.of("stack", "Graphs"));
+        service = new ContentPregenerationService(chapterRepository, lessonRepository,
+                contentGenerationService, lessonContentService, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("Generates only missing content, at batch priority, and reports counts")
+    void generatesMissingContentAtBatchPriority() throws Exception {
+        Chapter stack = Chapter.builder().id(1L).title("Stack").build();
+        when(chapterRepository.findAll()).thenReturn(List.of(stack));
+        when(lessonRepository.findAllWithChapter()).thenReturn(List.of(
+                Lesson.builder().id(10L).title("Push and pop").chapter(stack).build(),
+                Lesson.builder().id(11L).title("Balanced brackets").chapter(stack).build()));
+
+        when(contentGenerationService.hasContent("Stack")).thenReturn(true);
+        when(contentGenerationService.hasContent("Graphs")).thenReturn(false);
+        when(lessonContentService.hasContent("Push and pop", "Stack")).thenReturn(true);
+        when(lessonContentService.hasContent("Balanced brackets", "Stack")).thenReturn(false);
+
+        List<LlmPriority> priorities = new CopyOnWriteArrayList<>();
+        when(contentGenerationService.getOrGenerateChapterContent("Graphs")).thenAnswer(invocation -> {
+            priorities.add(LlmCallContext.withPriorityAtMost(LlmPriority.GENERATION).getPriority());
+            return ChapterContentResponse.builder().cached(false).build();
+        });
+        when(lessonContentService.getLessonContent("11", "Balanced brackets", "Stack")).thenAnswer(invocation -> {
+            priorities.add(LlmCallContext.withPriorityAtMost(LlmPriority.GENERATION).getPriority());
+            return LessonContentResponse.builder().cached(false).build();
+        });
+
+        service.start("admin@example.com");
+        PregenerationStatusDto status = awaitFinished();
+
+        assertThat(status.getTotalItems()).isEqualTo(4); // "stack" topic duplicates the stored chapter
+        assertThat(status.getGenerated()).isEqualTo(2);
+        assertThat(status.getSkipped()).isEqualTo(2);
+        assertThat(status.getFailed()).isZero();
+        assertThat(status.getTrigger()).isEqualTo("admin@example.com");
+        assertThat(priorities).containsOnly(LlmPriority.BATCH).hasSize(2);
+        verify(contentGenerationService, never()).getOrGenerateChapterContent("Stack");
+        verify(lessonContentService, never()).getLessonContent(eq("10"), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("A failing item is counted and does not stop the run")
+    void failuresAreCountedAndRunContinues() throws Exception {
+        properties.getPregeneration().setTopics(List.of("Queue", "Heap"));
+        when(chapterRepository.findAll()).thenReturn(List.of());
+        when(lessonRepository.findAllWithChapter()).thenReturn(List.of());
+        when(contentGenerationService.getOrGenerateChapterContent("Queue"))
+                .thenThrow(new IllegalStateException("provider down"));
+        when(contentGenerationService.getOrGenerateChapterContent("Heap"))
+                .thenReturn(ChapterContentResponse.builder().cached(false).build());
+
+        service.start("schedule");
+        PregenerationStatusDto status = awaitFinished();
+
+        assertThat(status.getFailed()).isEqualTo(1);
+        assertThat(status.getGenerated()).isEqualTo(1);
+        assertThat(status.getLastError()).contains("Queue").contains("provider down");
+    }
+
+    @Test
+    @DisplayName("Starting while a run is in progress reports that run instead of starting another")
+    void secondStartJoinsRunningRun() throws Exception {
+        properties.getPregeneration().setTopics(List.of("Trie"));
+        when(chapterRepository.findAll()).thenReturn(List.of());
+        when(lessonRepository.findAllWithChapter()).thenReturn(List.of());
+        when(contentGenerationService.getOrGenerateChapterContent("Trie")).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return ChapterContentResponse.builder().cached(false).build();
+        });
+
+        service.start("first@example.com");
+        PregenerationStatusDto second = service.start("second@example.com");
+
+        assertThat(second.isRunning()).isTrue();
+        assertThat(second.getTrigger()).isEqualTo("first@example.com");
+        awaitFinished();
+        verify(contentGenerationService, times(1)).getOrGenerateChapterContent("Trie");
+    }
+
+    private PregenerationStatusDto awaitFinished() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        PregenerationStatusDto status = service.getStatus();
+        while (status.isRunning() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            status = service.getStatus();
+        }
+        assertThat(status.isRunning()).as("run finished").isFalse();
+        return status;
+    }
+}
@@ -0,0 +1,89 @@
+package com.dsaplatform.service;
+
+import com.dsaplatform.config.EmbeddingBatchProperties;
+import com.dsaplatform.exception.OpenAIException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for EmbeddingBatcher coalescing and deduplication.
+ */
+class EmbeddingBatcherTest {
+
+    private OpenAIClient openAIClient;
+    private EmbeddingBatchProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private EmbeddingBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        openAIClient = mock(OpenAIClient.class);
+        when(openAIClient.createEmbeddings(anyList())).thenAnswer(invocation -> {
+            List<String> texts = invocation.getArgument(0);
+            return texts.stream().map(t -> new double[]{t.length()}).toList();
+        });
+
+        properties = new EmbeddingBatchProperties();
+        properties.setWindowMillis(50);
+        properties.setMaxBatchSize(4);
+        meterRegistry = new SimpleMeterRegistry();
+        batcher = new EmbeddingBatcher(openAIClient, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("Requests within the window share one provider call and duplicates are sent once")
+    void coalescesAndDeduplicatesWithinWindow() {
+        CompletableFuture<double[]> a = batcher.submit("stack");
+        CompletableFuture<double[]> b = batcher.submit("queue!");
+        CompletableFuture<double[]> c = batcher.submit("stack");
+
+        assertThat(a.join()).containsExactly(5.0);
+        assertThat(b.join()).containsExactly(6.0);
+        assertThat(c.join()).containsExactly(5.0);
+        assertThat(c.join()).isNotSameAs(a.join());
+
+        verify(openAIClient, times(1)).createEmbeddings(List.of("stack", "queue!"));
+        assertThat(meterRegistry.counter("openai.embedding.batch.deduplicated").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("A full batch is flushed without waiting for the window")
+    void fullBatchFlushesImmediately() {
+        properties.setWindowMillis(60_000);
+
+        List<CompletableFuture<double[]>> futures = List.of(
+                batcher.submit("a"), batcher.submit("bb"), batcher.submit("ccc"), batcher.submit("dddd"));
+
+        assertThat(futures).allSatisfy(future -> assertThat(future.join()).hasSize(1));
+        verify(openAIClient, times(1)).createEmbeddings(anyList());
+    }
+
+    @Test
+    @DisplayName("Provider failures are propagated to every caller in the batch")
+    void failuresPropagateToAllCallers() {
+        reset(openAIClient);
+        when(openAIClient.createEmbeddings(anyList())).thenThrow(new OpenAIException("provider down"));
+
+        CompletableFuture<double[]> first = batcher.submit("one");
+        assertThatThrownBy(() -> batcher.embed("two"))
+                .isInstanceOf(OpenAIException.class)
+                .hasMessageContaining("provider down");
+        assertThat(first).isCompletedExceptionally();
+    }
+}
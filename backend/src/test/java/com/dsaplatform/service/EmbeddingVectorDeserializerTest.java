@@ -0,0 +1,67 @@
+package com.dsaplatform.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for EmbeddingVectorDeserializer wire formats.
+ */
+class EmbeddingVectorDeserializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    static class Holder {
+        @JsonDeserialize(using = EmbeddingVectorDeserializer.class)
+        public float[] embedding;
+    }
+
+    @Test
+    @DisplayName("Base64 little-endian float32 payload decodes to the original vector")
+    void decodesBase64() throws Exception {
+        float[] expected = {0.25f, -1.5f, 3.0e-4f, 42f};
+        ByteBuffer buffer = ByteBuffer.allocate(expected.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (float value : expected) {
+            buffer.putFloat(value);
+        }
+        String json = "{\"embedding\":\"" + Base64.getEncoder().encodeToString(buffer.array()) + "\"}";
+
+        Holder holder = objectMapper.readValue(json, Holder.class);
+
+        assertThat(holder.embedding).containsExactly(expected);
+    }
+
+    @Test
+    @DisplayName("Numeric arrays of any length are read without a fixed capacity")
+    void readsNumericArrayBeyondInitialCapacity() throws Exception {
+        StringBuilder json = new StringBuilder("{\"embedding\":[");
+        for (int i = 0; i < 2000; i++) {
+            json.append(i == 0 ? "" : ",").append(i % 7 == 0 ? String.valueOf(i) : (i / 1000.0));
+        }
+        json.append("]}");
+
+        Holder holder = objectMapper.readValue(json.toString(), Holder.class);
+
+        assertThat(holder.embedding).hasSize(2000);
+        assertThat(holder.embedding[7]).isEqualTo(7f);
+        assertThat(holder.embedding[1999]).isEqualTo(1.999f);
+    }
+
+    @Test
+    @DisplayName("Truncated base64 payloads are rejected")
+    void rejectsTruncatedBase64() {
+        String json = "{\"embedding\":\"" + Base64.getEncoder().encodeToString(new byte[]{1, 2, 3}) + "\"}";
+
+        assertThatThrownBy(() -> objectMapper.readValue(json, Holder.class))
+                .isInstanceOf(MismatchedInputException.class);
+    }
+}
@@ -0,0 +1,202 @@
+package com.dsaplatform.service;
+
+import com.dsaplatform.config.GenerationProperties;
+import com.dsaplatform.exception.GenerationInProgressException;
+import com.dsaplatform.repository.GenerationLockRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for GenerationCoordinator single-flight and cross-node waiting.
+ */
+class GenerationCoordinatorTest {
+
+    private GenerationLockRepository lockRepository;
+    private GenerationProperties properties;
+    private GenerationCoordinator coordinator;
+
+    @BeforeEach
+    void setUp() {
+        lockRepository = mock(GenerationLockRepository.class);
+        properties = new GenerationProperties();
+        properties.setPollIntervalMillis(10);
+        properties.setWaitTimeoutMillis(2000);
+        coordinator = new GenerationCoordinator(lockRepository, properties,
+                mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Concurrent callers for the same key share one generation")
+    void concurrentCallersShareOneGeneration() throws Exception {
+        AtomicInteger generations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> coordinator.getOrGenerate("chapter:stack",
+                        Optional::<String>empty,
+                        () -> {
+                            generations.incrementAndGet();
+                            awaitQuietly(release);
+                            return "content";
+                        })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(2, TimeUnit.SECONDS)).isEqualTo("content");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(generations.get()).isEqualTo(1);
+        verify(lockRepository, atLeastOnce()).release(eq("chapter:stack"), anyString());
+    }
+
+    @Test
+    @DisplayName("When another node holds the lock, the stored result is awaited instead of generated")
+    void waitsForOtherNodeInsteadOfGenerating() {
+        when(lockRepository.existsByLockKey("lesson:1")).thenReturn(true);
+        AtomicInteger lookups = new AtomicInteger();
+
+        String result = coordinator.getOrGenerate("lesson:1",
+                () -> lookups.incrementAndGet() >= 3 ? Optional.of("stored elsewhere") : Optional.empty(),
+                () -> {
+                    throw new AssertionError("must not generate while another node holds the lock");
+                });
+
+        assertThat(result).isEqualTo("stored elsewhere");
+        verify(lockRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("Waiting gives up with GenerationInProgressException after the timeout")
+    void timesOutWhileAnotherNodeGenerates() {
+        properties.setWaitTimeoutMillis(50);
+        when(lockRepository.existsByLockKey("lesson:2")).thenReturn(true);
+
+        assertThatThrownBy(() -> coordinator.getOrGenerate("lesson:2", Optional::empty, () -> "never"))
+                .isInstanceOf(GenerationInProgressException.class);
+    }
+
+    @Test
+    @DisplayName("A generation outliving the lock TTL keeps renewing its lock until it finishes")
+    void slowGenerationRenewsItsLock() throws Exception {
+        properties.setLockTtlMillis(100);
+        when(lockRepository.renew(eq("lesson:slow"), anyString(), any())).thenReturn(1);
+        LocalDateTime started = LocalDateTime.now();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            // Stands in for the scheduled renewal
+            scheduler.scheduleWithFixedDelay(coordinator::renewLocks, 20, 20, TimeUnit.MILLISECONDS);
+
+            String result = coordinator.getOrGenerate("lesson:slow", Optional::empty, () -> {
+                sleepQuietly(400);
+                return "content";
+            });
+
+            assertThat(result).isEqualTo("content");
+        } finally {
+            scheduler.shutdownNow();
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        }
+        verify(lockRepository, atLeastOnce()).renew(eq("lesson:slow"), anyString(),
+                argThat(expiresAt -> expiresAt.isAfter(started.plusNanos(TimeUnit.MILLISECONDS.toNanos(300)))));
+        verify(lockRepository).release(eq("lesson:slow"), anyString());
+
+        clearInvocations(lockRepository);
+        coordinator.renewLocks();
+        verify(lockRepository, never()).renew(anyString(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Waiting goes on past the timeout while the other node keeps renewing its lock")
+    void keepsWaitingWhileLockIsRenewed() {
+        properties.setWaitTimeoutMillis(50);
+        when(lockRepository.existsByLockKey("lesson:3")).thenReturn(true);
+        when(lockRepository.existsByLockKeyAndExpiresAtAfter(eq("lesson:3"), any())).thenReturn(true);
+        long deadline = System.currentTimeMillis() + 300;
+
+        String result = coordinator.getOrGenerate("lesson:3",
+                () -> System.currentTimeMillis() > deadline ? Optional.of("stored elsewhere") : Optional.empty(),
+                () -> {
+                    throw new AssertionError("must not generate while another node holds the lock");
+                });
+
+        assertThat(result).isEqualTo("stored elsewhere");
+    }
+
+    @Test
+    @DisplayName("A failed generation is reported to every waiting caller and not cached")
+    void failuresPropagateToFollowers() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Throwable> followerError = new AtomicReference<>();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> leader = executor.submit(() -> coordinator.getOrGenerate("chapter:queue", Optional::empty, () -> {
+                started.countDown();
+                awaitQuietly(release);
+                throw new IllegalStateException("LLM failed");
+            }));
+            started.await(2, TimeUnit.SECONDS);
+            Thread follower = new Thread(() -> {
+                try {
+                    coordinator.getOrGenerate("chapter:queue", Optional::empty, () -> "unexpected");
+                } catch (RuntimeException e) {
+                    followerError.set(e);
+                }
+            });
+            follower.start();
+            Thread.sleep(50);
+            release.countDown();
+            follower.join(2000);
+            assertThatThrownBy(() -> leader.get(2, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(followerError.get()).isInstanceOf(IllegalStateException.class).hasMessage("LLM failed");
+        assertThat(coordinator.getOrGenerate("chapter:queue", Optional::empty, () -> "retried")).isEqualTo("retried");
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.dsaplatform.service;
+
+import com.dsaplatform.config.CompletionCacheProperties;
+import com.dsaplatform.config.GenerationProperties;
+import com.dsaplatform.config.OpenAIProperties;
+import com.dsaplatform.config.OpenAIResilienceProperties;
+import com.dsaplatform.dto.response.LessonContentResponse;
+import com.dsaplatform.dto.response.LessonStreamEvent;
+import com.dsaplatform.exception.OpenAIException;
+import com.dsaplatform.model.entity.LessonContentCache;
+import com.dsaplatform.repository.CompletionCacheRepository;
+import com.dsaplatform.repository.GenerationLockRepository;
+import com.dsaplatform.repository.LessonContentAliasRepository;
+import com.dsaplatform.repository.LessonContentCacheRepository;
+import com.dsaplatform.util.PrecompressedBody;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for stale-while-revalidate, stored responses and streaming in LessonContentService.
+ */
+class LessonContentServiceTest {
+
+    private static final String KEY = LessonContentService.contentKey("Push and pop", "Stack");
+    
+    private LessonContentCacheRepository contentRepository;
+    private LessonContentAliasRepository aliasRepository;
+    private OpenAIClient openAIClient;
+    private GenerationLockRepository lockRepository;
+    private LessonContentService service;
+
+    @BeforeEach
+    void setUp() {
+        contentRepository = mock(LessonContentCacheRepository.class);
+        aliasRepository = mock(LessonContentAliasRepository.class);
+        openAIClient = mock(OpenAIClient.class);
+        lockRepository = mock(GenerationLockRepository.class);
+        GenerationProperties properties = new GenerationProperties();
+        properties.setPollIntervalMillis(10);
+        GenerationCoordinator coordinator = new GenerationCoordinator(lockRepository, properties,
+                mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+        service = new LessonContentService(contentRepository, aliasRepository, openAIClient, coordinator, properties,
+                new ObjectMapper().findAndRegisterModules());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("Fresh content is served without a refresh")
+    void freshContentIsServedAsIs() {
+        when(contentRepository.findByContentKey(KEY)).thenReturn(Optional.of(entry(LocalDateTime.now().plusDays(1), 3L)));
+
+        LessonContentResponse response = service.getLessonContent("1", "Push and pop", "Stack");
+
+        assertThat(response.isCached()).isTrue();
+        assertThat(response.isStale()).isFalse();
+        assertThat(response.getVersion()).isEqualTo(3);
+        verifyNoInteractions(openAIClient);
+    }
+
+    @Test
+    @DisplayName("Expired content is served immediately and replaced in the background")
+    void expiredContentIsServedWhileRefreshing() {
+        when(contentRepository.findByContentKey(KEY)).thenReturn(Optional.of(entry(LocalDateTime.now().minusMinutes(1), 3L)));
+        when(openAIClient.createChatCompletion(anyString(), anyString())).thenReturn("# New content");
+        when(contentRepository.replaceContent(eq(KEY), eq(3L), eq("# New content"), anyInt(), any(), any(), anyString(), any()))
+                .thenReturn(1);
+
+        LessonContentResponse response = service.getLessonContent("1", "Push and pop", "Stack");
+
+        assertThat(response.getContent()).isEqualTo("# Old content");
+        assertThat(response.isStale()).isTrue();
+        verify(contentRepository, timeout(2000)).replaceContent(eq(KEY), eq(3L), eq("# New content"),
+                eq("# New content".length()), any(), any(), startsWith("\""), argThat(body -> body.length > 0));
+        verify(contentRepository, never()).postponeExpiry(anyString(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Rows cached before versioning and content keys are adopted, expire by age and refresh from version 0")
+    void legacyRowsExpireByGeneratedAt() {
+        LessonContentCache legacy = entry(null, null);
+        legacy.setId(5L);
+        legacy.setContentKey(null);
+        legacy.setGeneratedAt(LocalDateTime.now().minusDays(365));
+        when(contentRepository.findByContentKey(KEY)).thenReturn(Optional.empty());
+        when(contentRepository.findByLessonId("1")).thenReturn(Optional.of(legacy));
+        when(contentRepository.assignContentKey(5L, KEY)).thenReturn(1);
+        when(openAIClient.createChatCompletion(anyString(), anyString())).thenReturn("# New content");
+
+        LessonContentResponse response = service.getLessonContent("1", "Push and pop", "Stack");
+
+        assertThat(response.isStale()).isTrue();
+        verify(contentRepository, timeout(2000)).replaceContent(eq(KEY), eq(0L), anyString(), anyInt(), any(), any(),
+                anyString(), any());
+    }
+
+    @Test
+    @DisplayName("A failed refresh keeps the old version and postpones the next attempt")
+    void failedRefreshKeepsOldVersion() {
+        when(contentRepository.findByContentKey(KEY)).thenReturn(Optional.of(entry(LocalDateTime.now().minusMinutes(1), 3L)));
+        when(openAIClient.createChatCompletion(anyString(), anyString())).thenThrow(new OpenAIException("provider down"));
+
+        LessonContentResponse response = service.getLessonContent("1", "Push and pop", "Stack");
+
+        assertThat(response.getContent()).isEqualTo("# Old content");
+        verify(contentRepository, timeout(2000)).postponeExpiry(eq(KEY), eq(3L),
+                argThat(until -> until.isAfter(LocalDateTime.now())));
+        verify(contentRepository, never()).replaceContent(anyString(), anyLong(), anyString(), anyInt(), any(), any(),
+                anyString(), any());
+    }
+
+    @Test
+    @DisplayName("No refresh runs while another node holds the refresh lock")
+    void refreshSkippedWhenLockedElsewhere() throws InterruptedException {
+        when(lockRepository.existsByLockKey("lesson-refresh:" + KEY)).thenReturn(true);
+        when(contentRepository.findByContentKey(KEY)).thenReturn(Optional.of(entry(LocalDateTime.now().minusMinutes(1), 3L)));
+
+        service.getLessonContent("1", "Push and pop", "Stack");
+
+        verify(lockRepository, timeout(2000)).existsByLockKey("lesson-refresh:" + KEY);
+        Thread.sleep(50);
+        verifyNoInteractions(openAIClient);
+    }
+
+    @Test
+    @DisplayName("Fresh content with a stored response is served from the stored bytes")
+    void storedBodyIsServedDirectly() {
+        PrecompressedBody stored = new PrecompressedBody("\"abc\"", new byte[] {1, 2, 3});
+        when(contentRepository.findFreshBody(eq(KEY), eq("1"), any())).thenReturn(Optional.of(stored));
+
+        assertThat(service.getLessonContentBody("1", "Push and pop", "Stack")).isSameAs(stored);
+        verify(contentRepository, never()).findByContentKey(anyString());
+    }
+
+    @Test
+    @DisplayName("A cached row without a stored response gets one on first read")
+    void missingBodyIsBackfilled() {
+        when(contentRepository.findFreshBody(eq(KEY), eq("1"), any())).thenReturn(Optional.empty());
+        when(contentRepository.findByContentKey(KEY)).thenReturn(Optional.of(entry(LocalDateTime.now().plusDays(1), 3L)));
+
+        PrecompressedBody body = service.getLessonContentBody("1", "Push and pop", "Stack");
+
+        assertThat(body.toJson()).contains("# Old content").contains("Content retrieved from cache");
+        verify(contentRepository).storeBody(eq(KEY), eq("1"), eq(3L), eq(body.getEtag()), eq(body.getGzipped()), any());
+    }
+
+    @Test
+    @DisplayName("A lesson sharing another lesson's entry is answered with its own lesson id")
+    void sharedEntryIsServedUnderRequestedId() {
+        when(contentRepository.findByContentKey(KEY)).thenReturn(Optional.of(entry(LocalDateTime.now().plusDays(1), 3L)));
+
+        assertThat(service.getLessonContent("2", "Push and pop", "Stack").getLessonId()).isEqualTo("2");
+        PrecompressedBody body = service.getLessonContentBody("2", "Push and pop", "Stack");
+
+        assertThat(body.toJson()).contains("\"lessonId\":\"2\"");
+        verify(contentRepository).findFreshBody(eq(KEY), eq("2"), any());
+        verify(contentRepository).storeBody(eq(KEY), eq("2"), eq(3L), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("A legacy row without an expiry gets one when its response is stored, so later reads are fast")
+    void backfilledLegacyRowGetsExpiry() {
+        LocalDateTime generatedAt = LocalDateTime.now().minusHours(1);
+        LessonContentCache legacy = entry(null, 3L);
+        legacy.setGeneratedAt(generatedAt);
+        when(contentRepository.findFreshBody(eq(KEY), eq("1"), any())).thenReturn(Optional.empty());
+        when(contentRepository.findByContentKey(KEY)).thenReturn(Optional.of(legacy));
+
+        PrecompressedBody body = service.getLessonContentBody("1", "Push and pop", "Stack");
+
+        verify(contentRepository).storeBody(KEY, "1", 3L, body.getEtag(), body.getGzipped(),
+                generatedAt.plusHours(new GenerationProperties().getLessonContentTtlHours()));
+    }
+
+    @Test
+    @DisplayName("Deleting content drops its cached completion, so the next read calls the provider again")
+    void deleteRegeneratesInsteadOfReusingCompletion() {
+        AtomicInteger providerCalls = new AtomicInteger();
+        WebClient.Builder provider = WebClient.builder().exchangeFunction(request -> {
+            int call = providerCalls.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body("{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\"# Take " + call + "\"}}]}")
+                    .build());
+        });
+        CompletionCacheRepository completionRepository = mock(CompletionCacheRepository.class);
+        when(completionRepository.findByCacheKey(anyString())).thenReturn(Optional.empty());
+        OpenAIProperties openAIProperties = new OpenAIProperties();
+        openAIProperties.setApiKey("test-key");
+        OpenAIClient client = new OpenAIClient(provider, openAIProperties, new OpenAIResilienceProperties(),
+                new SimpleMeterRegistry(), new CompletionCache(completionRepository, new CompletionCacheProperties(),
+                        mock(PlatformTransactionManager.class), new SimpleMeterRegistry()),
+                mock(LlmUsageRecorder.class));
+        GenerationProperties properties = new GenerationProperties();
+        LessonContentService regenerating = new LessonContentService(contentRepository, aliasRepository, client,
+                new GenerationCoordinator(lockRepository, properties, mock(PlatformTransactionManager.class),
+                        new SimpleMeterRegistry()),
+                properties, new ObjectMapper().findAndRegisterModules());
+        try {
+            when(contentRepository.findByContentKey(KEY)).thenReturn(Optional.empty());
+            assertThat(regenerating.getLessonContent("1", "Push and pop", "Stack").getContent()).isEqualTo("# Take 1");
+            // Without a delete, an identical prompt is answered from the completion cache
+            assertThat(regenerating.getLessonContent("1", "Push and pop", "Stack").getContent()).isEqualTo("# Take 1");
+            assertThat(providerCalls).hasValue(1);
+
+            when(aliasRepository.findContentKey("1")).thenReturn(Optional.of(KEY));
+            when(contentRepository.findByContentKey(KEY)).thenReturn(Optional.of(entry(LocalDateTime.now().plusDays(1), 1L)));
+            regenerating.deleteCachedContent("1");
+            when(contentRepository.findByContentKey(KEY)).thenReturn(Optional.empty());
+
+            assertThat(regenerating.getLessonContent("1", "Push and pop", "Stack").getContent()).isEqualTo("# Take 2");
+            assertThat(providerCalls).hasValue(2);
+            verify(contentRepository).deleteByContentKey(KEY);
+        } finally {
+            regenerating.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent viewers share one streamed generation, which is cached when complete")
+    void streamingViewersShareOneGeneration() throws InterruptedException {
+        when(contentRepository.findByContentKey(KEY)).thenReturn(Optional.empty());
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        when(openAIClient.streamChatCompletionWithHistory(anyString(), anyString(), anyList()))
+                .thenReturn(upstream.asFlux());
+
+        List<LessonStreamEvent> first = new CopyOnWriteArrayList<>();
+        service.streamLessonContent("1", "Push and pop", "Stack").subscribe(first::add);
+        awaitCondition(() -> !first.isEmpty());
+        upstream.tryEmitNext("# Push");
+        awaitCondition(() -> first.size() == 2);
+
+        List<LessonStreamEvent> second = new CopyOnWriteArrayList<>();
+        service.streamLessonContent("1", "Push and pop", "Stack").subscribe(second::add);
+        // Attached once the chunk generated so far has been replayed
+        awaitCondition(() -> second.size() == 2);
+        upstream.tryEmitNext(" and pop");
+        upstream.tryEmitComplete();
+        awaitCondition(() -> isDone(first) && isDone(second));
+
+        verify(openAIClient, times(1)).streamChatCompletionWithHistory(anyString(), anyString(), anyList());
+        verify(contentRepository).save(argThat(cached -> cached.getContent().equals("# Push and pop")
+                && cached.getEtag() != null));
+        verify(lockRepository, timeout(2000)).release(eq("lesson:" + KEY), anyString());
+        for (List<LessonStreamEvent> events : List.of(first, second)) {
+            assertThat(events).extracting(LessonStreamEvent::getType)
+                    .containsExactly("meta", "chunk", "chunk", "done");
+            assertThat(events.get(1).getContent() + events.get(2).getContent()).isEqualTo("# Push and pop");
+        }
+    }
+
+    @Test
+    @DisplayName("Cached content is streamed as a single chunk")
+    void cachedContentIsStreamedWhole() {
+        when(contentRepository.findByContentKey(KEY)).thenReturn(Optional.of(entry(LocalDateTime.now().plusDays(1), 3L)));
+
+        List<LessonStreamEvent> events = service.streamLessonContent("1", "Push and pop", "Stack").collectList().block();
+
+        assertThat(events).extracting(LessonStreamEvent::getType).containsExactly("meta", "chunk", "done");
+        assertThat(events.get(0).getCached()).isTrue();
+        assertThat(events.get(1).getContent()).isEqualTo("# Old content");
+        assertThat(events.get(2).getVersion()).isEqualTo(3L);
+        verifyNoInteractions(openAIClient);
+    }
+
+    @Test
+    @DisplayName("While another node generates the lesson, the stream waits for the cached result")
+    void streamWaitsForGenerationElsewhere() {
+        when(lockRepository.existsByLockKey("lesson:" + KEY)).thenReturn(true);
+        when(contentRepository.findByContentKey(KEY)).thenReturn(Optional.empty(), Optional.empty(),
+                Optional.of(entry(LocalDateTime.now().plusDays(1), 1L)));
+
+        List<LessonStreamEvent> events = service.streamLessonContent("1", "Push and pop", "Stack").collectList().block();
+
+        assertThat(events).extracting(LessonStreamEvent::getType).containsExactly("meta", "chunk", "done");
+        verifyNoInteractions(openAIClient);
+    }
+
+    @Test
+    @DisplayName("Lesson ids asking for the same title and topic share one cached entry")
+    void equivalentLessonsShareContent() {
+        when(contentRepository.findByContentKey(KEY)).thenReturn(Optional.of(entry(LocalDateTime.now().plusDays(1), 3L)));
+
+        LessonContentResponse response = service.getLessonContent("42", "  push AND  pop ", "stack");
+
+        assertThat(response.getContent()).isEqualTo("# Old content");
+        verifyNoInteractions(openAIClient);
+        verify(aliasRepository).save(argThat(alias -> alias.getLessonId().equals("42") && alias.getContentKey().equals(KEY)));
+    }
+
+    @Test
+    @DisplayName("Content keys ignore case and whitespace but not the topic")
+    void contentKeyNormalizesText() {
+        assertThat(LessonContentService.contentKey(" Push  and POP", "stack ")).isEqualTo(KEY)
+                .hasSize(64)
+                .isNotEqualTo(LessonContentService.contentKey("Push and pop", "Queue"));
+    }
+
+    @Test
+    @DisplayName("A renamed lesson drops the entry it owned before caching its new content")
+    void renamedLessonReplacesOwnedEntry() {
+        String renamedKey = LessonContentService.contentKey("Push, pop and peek", "Stack");
+        LessonContentCache previous = entry(LocalDateTime.now().plusDays(1), 3L);
+        when(contentRepository.findByContentKey(renamedKey)).thenReturn(Optional.empty());
+        when(contentRepository.findByLessonId("1")).thenReturn(Optional.of(previous));
+        when(openAIClient.createChatCompletion(anyString(), anyString())).thenReturn("# Peek too");
+
+        LessonContentResponse response = service.getLessonContent("1", "Push, pop and peek", "Stack");
+
+        assertThat(response.getContent()).isEqualTo("# Peek too");
+        verify(contentRepository).delete(previous);
+        verify(contentRepository).save(argThat(cached -> renamedKey.equals(cached.getContentKey())));
+    }
+
+    @Test
+    @DisplayName("A renamed lesson hands its old entry to another lesson id still served it")
+    void renamedLessonKeepsSharedEntry() {
+        String renamedKey = LessonContentService.contentKey("Push, pop and peek", "Stack");
+        LessonContentCache previous = entry(LocalDateTime.now().plusDays(1), 3L);
+        previous.setId(7L);
+        when(contentRepository.findByContentKey(renamedKey)).thenReturn(Optional.empty());
+        when(contentRepository.findByLessonId("1")).thenReturn(Optional.of(previous));
+        when(aliasRepository.findOtherLessonIds(KEY, "1")).thenReturn(List.of("2", "3"));
+        when(contentRepository.existsByLessonId("2")).thenReturn(true);
+        when(openAIClient.createChatCompletion(anyString(), anyString())).thenReturn("# Peek too");
+
+        service.getLessonContent("1", "Push, pop and peek", "Stack");
+
+        verify(contentRepository).transferOwnership(7L, "3");
+        verify(contentRepository, never()).delete(any());
+        verify(contentRepository).save(argThat(cached -> renamedKey.equals(cached.getContentKey())));
+    }
+
+    @Test
+    @DisplayName("Repeated reads of a lesson id record its alias once")
+    void aliasIsRecordedOnce() {
+        PrecompressedBody stored = new PrecompressedBody("\"abc\"", new byte[] {1, 2, 3});
+        when(contentRepository.findFreshBody(eq(KEY), eq("1"), any())).thenReturn(Optional.of(stored));
+
+        for (int i = 0; i < 5; i++) {
+            service.getLessonContentBody("1", "Push and pop", "Stack");
+        }
+
+        verify(aliasRepository, times(1)).save(any());
+    }
+
+    private static boolean isDone(List<LessonStreamEvent> events) {
+        return !events.isEmpty() && "done".equals(events.get(events.size() - 1).getType());
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 2s");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static LessonContentCache entry(LocalDateTime expiresAt, Long version) {
+        return LessonContentCache.builder()
+                .lessonId("1")
+                .contentKey(KEY)
+                .lessonTitle("Push and pop")
+                .topic("Stack")
+                .content("# Old content")
+                .generatedAt(LocalDateTime.now().minusDays(40))
+                .contentLength(13)
+                .expiresAt(expiresAt)
+                .version(version)
+                .build();
+    }
+}
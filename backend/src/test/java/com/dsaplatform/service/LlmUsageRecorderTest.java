@@ -0,0 +1,144 @@
+package com.dsaplatform.service;
+
+import com.dsaplatform.dto.response.LlmUsageSummaryDto;
+import com.dsaplatform.model.entity.LlmUsageRollup;
+import com.dsaplatform.repository.LlmUsageRollupRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for LlmUsageRecorder accumulation, flushing and summaries.
+ */
+class LlmUsageRecorderTest {
+
+    private LlmUsageRollupRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private LlmUsageRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(LlmUsageRollupRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        recorder = new LlmUsageRecorder(repository, mock(PlatformTransactionManager.class), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Calls with the same attribution are summed into one rollup per flush")
+    void flushesAccumulatedDeltas() {
+        recorder.record("chat", "quiz", "m", "a@x.io", 100, 40, 900, true);
+        recorder.record("chat", "quiz", "m", "a@x.io", 50, 10, 300, false);
+
+        recorder.flush();
+
+        ArgumentCaptor<LlmUsageRollup> saved = ArgumentCaptor.forClass(LlmUsageRollup.class);
+        verify(repository).saveAndFlush(saved.capture());
+        LlmUsageRollup rollup = saved.getValue();
+        assertThat(rollup.getCalls()).isEqualTo(2);
+        assertThat(rollup.getFailures()).isEqualTo(1);
+        assertThat(rollup.getPromptTokens()).isEqualTo(150);
+        assertThat(rollup.getCompletionTokens()).isEqualTo(50);
+        assertThat(rollup.getLatencyMillisTotal()).isEqualTo(1200);
+        assertThat(meterRegistry.get("openai.tokens").tag("type", "prompt").counter().count()).isEqualTo(150);
+
+        recorder.flush();
+        verify(repository, times(1)).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("An existing rollup is incremented in place instead of being read and rewritten")
+    void incrementsExistingRollup() {
+        when(repository.addUsage(any(), any(), any(), any(), any(), anyLong(), anyLong(), anyLong(), anyLong(),
+                anyLong())).thenReturn(1);
+        recorder.record("chat", "quiz", "m", "a@x.io", 100, 40, 900, true);
+
+        recorder.flush();
+
+        verify(repository).addUsage(any(), eq("chat"), eq("quiz"), eq("m"), eq("a@x.io"),
+                eq(1L), eq(0L), eq(100L), eq(40L), eq(900L));
+        verify(repository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("When another flush inserts the rollup first, the delta is added to its row")
+    void addsToRollupInsertedConcurrently() {
+        when(repository.addUsage(any(), any(), any(), any(), any(), anyLong(), anyLong(), anyLong(), anyLong(),
+                anyLong())).thenReturn(0, 1);
+        when(repository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("uk_llm_usage_rollup"));
+        recorder.record("chat", "quiz", "m", "a@x.io", 100, 40, 900, true);
+
+        recorder.flush();
+
+        verify(repository, times(2)).addUsage(any(), any(), any(), any(), any(), eq(1L), eq(0L), eq(100L),
+                eq(40L), eq(900L));
+        recorder.flush();
+        verify(repository, times(2)).addUsage(any(), any(), any(), any(), any(), anyLong(), anyLong(), anyLong(),
+                anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Deltas that fail to persist are kept for the next flush")
+    void failedFlushIsRetried() {
+        recorder.record("embeddings", "chat", "m", LlmUsageRecorder.SYSTEM_PRINCIPAL, 20, 0, 50, true);
+        when(repository.saveAndFlush(any())).thenThrow(new DataAccessResourceFailureException("db down"));
+
+        recorder.flush();
+
+        reset(repository);
+        recorder.flush();
+        ArgumentCaptor<LlmUsageRollup> saved = ArgumentCaptor.forClass(LlmUsageRollup.class);
+        verify(repository).saveAndFlush(saved.capture());
+        assertThat(saved.getValue().getCalls()).isEqualTo(1);
+        assertThat(saved.getValue().getPromptTokens()).isEqualTo(20);
+    }
+
+    @Test
+    @DisplayName("Summaries group rollups and order them by total tokens")
+    void summarizesByGroup() {
+        LocalDateTime hour = LocalDateTime.now().withMinute(0).withSecond(0).withNano(0);
+        when(repository.findByHourStartGreaterThanEqual(any())).thenReturn(List.of(
+                rollup(hour, "chat", 2, 100, 50, 400),
+                rollup(hour, "quiz", 1, 1000, 2000, 3000),
+                rollup(hour.minusHours(1), "chat", 2, 100, 50, 200)));
+
+        List<LlmUsageSummaryDto> summary = recorder.summarize(24, "feature");
+
+        assertThat(summary).extracting(LlmUsageSummaryDto::getGroup).containsExactly("quiz", "chat");
+        LlmUsageSummaryDto chat = summary.get(1);
+        assertThat(chat.getCalls()).isEqualTo(4);
+        assertThat(chat.getTotalTokens()).isEqualTo(300);
+        assertThat(chat.getAvgTokensPerCall()).isEqualTo(75.0);
+        assertThat(chat.getAvgLatencyMillis()).isEqualTo(150.0);
+
+        assertThatThrownBy(() -> recorder.summarize(24, "colour"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static LlmUsageRollup rollup(LocalDateTime hour, String feature, long calls,
+                                         long prompt, long completion, long latency) {
+        return LlmUsageRollup.builder()
+                .hourStart(hour)
+                .endpoint("chat")
+                .feature(feature)
+                .model("m")
+                .principal("a@x.io")
+                .calls(calls)
+                .promptTokens(prompt)
+                .completionTokens(completion)
+                .latencyMillisTotal(latency)
+                .build();
+    }
+}
@@ -0,0 +1,92 @@
+package com.dsaplatform.service;
+
+import com.dsaplatform.resilience.Bulkhead;
+import com.dsaplatform.resilience.LlmPriority;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for how streamed calls hold their bulkhead permit.
+ */
+class OpenAIClientTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(5);
+
+    @Test
+    @DisplayName("A permit granted after the stream was cancelled is released")
+    void releasesPermitGrantedAfterCancel() throws InterruptedException {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 10);
+        CountDownLatch granted = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+
+        Disposable subscription = OpenAIClient.withPermit(() -> {
+            bulkhead.acquire(LlmPriority.INTERACTIVE, WAIT);
+            granted.countDown();
+            awaitUninterruptibly(cancelled);
+            return bulkhead;
+        }, Flux.<String>never()).subscribe();
+        assertThat(granted.await(WAIT.toMillis(), TimeUnit.MILLISECONDS)).isTrue();
+        subscription.dispose();
+        cancelled.countDown();
+
+        awaitCondition(() -> bulkhead.getInFlight() == 0);
+    }
+
+    @Test
+    @DisplayName("The permit is released whether the stream completes, fails or is cancelled")
+    void releasesPermitWhenStreamEnds() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 10);
+        List<String> received = new CopyOnWriteArrayList<>();
+
+        OpenAIClient.withPermit(() -> acquire(bulkhead), Flux.just("a", "b"))
+                .doOnNext(received::add)
+                .blockLast(WAIT);
+        assertThat(received).containsExactly("a", "b");
+        assertThat(bulkhead.getInFlight()).isZero();
+
+        OpenAIClient.withPermit(() -> acquire(bulkhead), Flux.error(new IllegalStateException("boom")))
+                .onErrorResume(e -> Flux.empty())
+                .blockLast(WAIT);
+        assertThat(bulkhead.getInFlight()).isZero();
+
+        for (int i = 0; i < 200; i++) {
+            OpenAIClient.withPermit(() -> acquire(bulkhead), Flux.never()).subscribe().dispose();
+        }
+        awaitCondition(() -> bulkhead.getInFlight() == 0);
+    }
+
+    private static Bulkhead acquire(Bulkhead bulkhead) {
+        assertThat(bulkhead.acquire(LlmPriority.INTERACTIVE, WAIT)).isEqualTo(Bulkhead.Admission.GRANTED);
+        return bulkhead;
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+                return;
+            } catch (InterruptedException e) {
+                // The cancel may interrupt the acquiring thread; keep holding the permit regardless
+            }
+        }
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + WAIT.toMillis();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition reached").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+}
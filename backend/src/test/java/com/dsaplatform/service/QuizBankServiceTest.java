@@ -0,0 +1,143 @@
+package com.dsaplatform.service;
+
+import com.dsaplatform.config.QuizBankProperties;
+import com.dsaplatform.dto.response.QuizResponse;
+import com.dsaplatform.model.entity.QuizBankQuestion;
+import com.dsaplatform.repository.QuizBankQuestionRepository;
+import com.dsaplatform.repository.QuizQuestionViewRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for QuizBankService sampling and refill behaviour.
+ */
+class QuizBankServiceTest {
+
+    private QuizBankQuestionRepository questionRepository;
+    private QuizQuestionViewRepository viewRepository;
+    private QuizGenerationService quizGenerationService;
+    private QuizBankProperties properties;
+    private QuizBankService service;
+
+    @BeforeEach
+    void setUp() {
+        questionRepository = mock(QuizBankQuestionRepository.class);
+        viewRepository = mock(QuizQuestionViewRepository.class);
+        quizGenerationService = mock(QuizGenerationService.class);
+        properties = new QuizBankProperties();
+        properties.setLowWaterMark(2);
+        service = new QuizBankService(questionRepository, viewRepository, quizGenerationService,
+                properties, new ObjectMapper(), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("A cold pool generates live, seeds the bank and schedules a refill")
+    void coldPoolGeneratesLiveAndSeeds() {
+        when(questionRepository.findIdsByPool("stacks", "beginner")).thenReturn(List.of());
+        when(quizGenerationService.generateQuiz("Stacks", "beginner", 3))
+                .thenReturn(QuizResponse.builder().questions(questions("Q1", "Q2", "Q3")).build());
+        AtomicLong ids = new AtomicLong();
+        when(questionRepository.save(any(QuizBankQuestion.class))).thenAnswer(invocation -> {
+            QuizBankQuestion question = invocation.getArgument(0);
+            question.setId(ids.incrementAndGet());
+            return question;
+        });
+        when(quizGenerationService.generateBankQuestions(eq("Stacks"), eq("beginner"), anyInt(), anyList()))
+                .thenReturn(questions("Q4"));
+
+        QuizResponse response = service.getQuiz(7L, "Stacks", "beginner", 3);
+
+        assertThat(response.getQuestions()).hasSize(3);
+        verify(questionRepository, timeout(2000).times(4)).save(any(QuizBankQuestion.class));
+        verify(quizGenerationService, timeout(2000)).generateBankQuestions(eq("Stacks"), eq("beginner"), anyInt(), anyList());
+        verify(viewRepository).saveAll(argThat(views -> views.spliterator().getExactSizeIfKnown() == 3));
+    }
+
+    @Test
+    @DisplayName("A warm pool serves only questions the user has not seen, without calling the LLM")
+    void warmPoolAvoidsSeenQuestions() {
+        List<Long> pool = LongStream.rangeClosed(1, 10).boxed().toList();
+        when(questionRepository.findIdsByPool("queues", "advanced")).thenReturn(pool);
+        when(viewRepository.findSeenQuestionIds(eq(7L), any(LocalDateTime.class), eq(pool)))
+                .thenReturn(List.of(1L, 2L, 3L, 4L));
+        when(questionRepository.findAllById(anyList())).thenAnswer(invocation -> {
+            List<Long> requested = invocation.getArgument(0);
+            return requested.stream().map(QuizBankServiceTest::stored).toList();
+        });
+
+        QuizResponse response = service.getQuiz(7L, " Queues ", "Advanced", 3);
+
+        assertThat(response.getQuestions()).hasSize(3)
+                .extracting(QuizResponse.QuizQuestionDto::getId)
+                .doesNotContain("q_1", "q_2", "q_3", "q_4");
+        assertThat(response.getQuestions().get(0).getOptions()).containsExactly("A", "B", "C", "D");
+        verifyNoInteractions(quizGenerationService);
+    }
+
+    @Test
+    @DisplayName("Running low on unseen questions triggers one background refill")
+    void lowWaterMarkTriggersRefill() {
+        List<Long> pool = LongStream.rangeClosed(1, 5).boxed().toList();
+        when(questionRepository.findIdsByPool("heaps", "intermediate")).thenReturn(pool);
+        when(viewRepository.findSeenQuestionIds(anyLong(), any(), anyList())).thenReturn(List.of());
+        when(questionRepository.findAllById(anyList())).thenAnswer(invocation -> {
+            List<Long> requested = invocation.getArgument(0);
+            return requested.stream().map(QuizBankServiceTest::stored).toList();
+        });
+        when(quizGenerationService.generateBankQuestions(anyString(), anyString(), anyInt(), anyList()))
+                .thenReturn(List.of());
+
+        service.getQuiz(7L, "Heaps", "intermediate", 4);
+
+        verify(quizGenerationService, timeout(2000)).generateBankQuestions(eq("Heaps"), eq("intermediate"),
+                eq(properties.getRefillBatchSize()), anyList());
+        verify(quizGenerationService, never()).generateQuiz(anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Question hashes ignore case and whitespace differences")
+    void questionHashNormalizesText() {
+        assertThat(QuizBankService.questionHash("stacks", "beginner", "What is  LIFO?"))
+                .isEqualTo(QuizBankService.questionHash("stacks", "beginner", " what is lifo? "))
+                .isNotEqualTo(QuizBankService.questionHash("stacks", "advanced", "What is LIFO?"));
+    }
+
+    private static List<QuizResponse.QuizQuestionDto> questions(String... texts) {
+        return Arrays.stream(texts)
+                .map(text -> QuizResponse.QuizQuestionDto.builder()
+                        .question(text)
+                        .options(List.of("A", "B", "C", "D"))
+                        .correctAnswer(0)
+                        .explanation("because")
+                        .build())
+                .toList();
+    }
+
+    private static QuizBankQuestion stored(Long id) {
+        return QuizBankQuestion.builder()
+                .id(id)
+                .question("Question " + id)
+                .optionsJson("[\"A\",\"B\",\"C\",\"D\"]")
+                .correctAnswer(1)
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+package com.dsaplatform.service;
+
+import com.dsaplatform.dto.response.QuizResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for streamed quiz generation.
+ */
+class QuizGenerationServiceTest {
+
+    private static final String VALID = "{\"question\":\"%s\",\"options\":[\"A\",\"B\",\"C\",\"D\"],"
+            + "\"correctAnswer\":1,\"explanation\":\"because\"}";
+
+    private final OpenAIClient openAIClient = mock(OpenAIClient.class);
+    private final QuizGenerationService service = new QuizGenerationService(openAIClient, new ObjectMapper());
+
+    @Test
+    @DisplayName("The first question is emitted before the completion has finished")
+    void emitsQuestionsBeforeCompletionEnds() {
+        Sinks.Many<String> tokens = Sinks.many().unicast().onBackpressureBuffer();
+        when(openAIClient.streamChatCompletionWithHistory(anyString(), anyString(), anyList()))
+                .thenReturn(tokens.asFlux());
+        List<QuizResponse.QuizQuestionDto> received = new CopyOnWriteArrayList<>();
+
+        service.streamQuiz("Stacks", "beginner", 3).subscribe(received::add);
+        tokens.tryEmitNext("```json\n{\"questions\":[" + VALID.formatted("Q1?") + ",{\"quest");
+
+        assertThat(received).extracting(QuizResponse.QuizQuestionDto::getQuestion).containsExactly("Q1?");
+        tokens.tryEmitNext("ion\":\"Q2?\"");
+        tokens.tryEmitComplete();
+        assertThat(received).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Invalid questions are dropped and the rest are kept")
+    void dropsInvalidQuestions() {
+        String bad = "{\"question\":\"Bad?\",\"options\":[\"A\",\"B\"],\"correctAnswer\":0}";
+        when(openAIClient.streamChatCompletionWithHistory(anyString(), anyString(), anyList()))
+                .thenReturn(Flux.just("{\"questions\":[", VALID.formatted("Q1?"), ",", bad, ",",
+                        VALID.formatted("Q2?"), "]}"));
+
+        List<QuizResponse.QuizQuestionDto> questions = service.streamQuiz("Stacks", "beginner", 3)
+                .collectList().block();
+
+        assertThat(questions).extracting(QuizResponse.QuizQuestionDto::getQuestion).containsExactly("Q1?", "Q2?");
+    }
+}
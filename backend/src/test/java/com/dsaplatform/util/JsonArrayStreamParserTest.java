@@ -0,0 +1,70 @@
+package com.dsaplatform.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for incremental parsing of LLM array responses.
+ */
+class JsonArrayStreamParserTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<JsonNode> elements = new ArrayList<>();
+    private final JsonArrayStreamParser parser = new JsonArrayStreamParser(objectMapper, "questions", elements::add);
+
+    @Test
+    @DisplayName("Each element is emitted as soon as it is complete, even when split across chunks")
+    void emitsElementsAsTheyComplete() {
+        parser.feed("{\"topic\":\"Stacks\",\"questions\":[{\"question\":\"Q1?\",\"opt");
+        assertThat(elements).isEmpty();
+
+        parser.feed("ions\":[\"A\",\"B\"]},{\"question\":\"Q");
+        assertThat(elements).hasSize(1);
+        assertThat(elements.get(0).path("options").size()).isEqualTo(2);
+
+        parser.feed("2?\"}]}");
+        assertThat(parser.finish()).isTrue();
+        assertThat(elements).extracting(node -> node.path("question").asText()).containsExactly("Q1?", "Q2?");
+        assertThat(parser.getEnvelope().path("topic").asText()).isEqualTo("Stacks");
+    }
+
+    @Test
+    @DisplayName("Code fences around the JSON are ignored without string surgery")
+    void ignoresCodeFences() {
+        String response = "```json\n{\"questions\":[{\"question\":\"Q1?\"}],\"note\":{\"a\":[1,2]}}\n```";
+        for (char c : response.toCharArray()) {
+            parser.feed(String.valueOf(c));
+        }
+
+        assertThat(parser.finish()).isTrue();
+        assertThat(elements).hasSize(1);
+        assertThat(parser.getEnvelope().path("note").path("a").size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("A syntax error keeps the elements parsed before it")
+    void keepsElementsBeforeSyntaxError() {
+        parser.feed("{\"questions\":[{\"question\":\"Q1?\"},");
+
+        assertThatThrownBy(() -> parser.feed("{\"question\" \"Q2?\"}]}"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(elements).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("A truncated response is reported as incomplete")
+    void reportsTruncation() {
+        parser.feed("{\"questions\":[{\"question\":\"Q1?\"},{\"question\":\"Q2");
+
+        assertThat(parser.finish()).isFalse();
+        assertThat(parser.getElementCount()).isEqualTo(1);
+    }
+}
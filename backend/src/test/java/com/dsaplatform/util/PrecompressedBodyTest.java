@@ -0,0 +1,90 @@
+package com.dsaplatform.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for PrecompressedBody conditional and compressed responses.
+ */
+class PrecompressedBodyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Same body gives the same strong ETag; a different body gives another")
+    void etagIsStableAndContentBased() {
+        PrecompressedBody first = PrecompressedBody.of(objectMapper, Map.of("content", "# Stack"));
+        PrecompressedBody second = PrecompressedBody.of(objectMapper, Map.of("content", "# Stack"));
+        PrecompressedBody other = PrecompressedBody.of(objectMapper, Map.of("content", "# Queue"));
+
+        assertThat(first.getEtag()).isEqualTo(second.getEtag()).startsWith("\"").endsWith("\"");
+        assertThat(first.getEtag()).isNotEqualTo(other.getEtag());
+    }
+
+    @Test
+    @DisplayName("Gzip-accepting clients get the stored bytes with Content-Encoding")
+    void servesGzipWhenAccepted() {
+        PrecompressedBody body = PrecompressedBody.of(objectMapper, Map.of("content", "x".repeat(2000)));
+
+        ResponseEntity<byte[]> response = body.toResponse(null, "br, gzip;q=0.8");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(response.getHeaders().getETag()).isEqualTo(body.getGzipEtag()).isNotEqualTo(body.getEtag());
+        assertThat(response.getBody()).isSameAs(body.getGzipped());
+        assertThat(body.getGzipped().length).isLessThan(2000);
+    }
+
+    @Test
+    @DisplayName("Other clients get plain JSON")
+    void servesPlainJsonOtherwise() {
+        PrecompressedBody body = PrecompressedBody.of(objectMapper, Map.of("content", "# Stack"));
+
+        for (String acceptEncoding : new String[] {null, "identity", "gzip;q=0"}) {
+            ResponseEntity<byte[]> response = body.toResponse(null, acceptEncoding);
+            assertThat(response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+            assertThat(response.getHeaders().getETag()).isEqualTo(body.getEtag());
+            assertThat(new String(response.getBody(), StandardCharsets.UTF_8)).isEqualTo("{\"content\":\"# Stack\"}");
+        }
+    }
+
+    @Test
+    @DisplayName("A matching If-None-Match gets 304 without a body")
+    void answersNotModified() {
+        PrecompressedBody body = PrecompressedBody.of(objectMapper, Map.of("content", "# Stack"));
+
+        ResponseEntity<byte[]> exact = body.toResponse(body.getEtag(), "gzip");
+        ResponseEntity<byte[]> inList = body.toResponse("\"other\", W/" + body.getEtag(), "gzip");
+        ResponseEntity<byte[]> stale = body.toResponse("\"other\"", "gzip");
+
+        assertThat(exact.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(exact.getBody()).isNull();
+        assertThat(exact.getHeaders().getETag()).isEqualTo(body.getGzipEtag());
+        assertThat(inList.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(stale.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    @DisplayName("Either encoding's ETag validates, and the 304 names the encoding the client now accepts")
+    void eitherEncodingsEtagValidates() {
+        PrecompressedBody body = PrecompressedBody.of(objectMapper, Map.of("content", "# Stack"));
+
+        ResponseEntity<byte[]> gzipToPlain = body.toResponse(body.getGzipEtag(), null);
+        ResponseEntity<byte[]> plainToGzip = body.toResponse(body.getEtag(), "gzip");
+
+        assertThat(body.getGzipEtag()).startsWith("\"").endsWith("-gz\"");
+        assertThat(gzipToPlain.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(gzipToPlain.getHeaders().getETag()).isEqualTo(body.getEtag());
+        assertThat(plainToGzip.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(plainToGzip.getHeaders().getETag()).isEqualTo(body.getGzipEtag());
+    }
+}